@@ -0,0 +1,95 @@
+package turing.example.iotsenser.cache;
+
+/**
+ * Approximate access frequency of keys, used by {@link TinyLfuCache} to decide admission.
+ *
+ * <p>A count-min sketch of 4-bit counters packed sixteen to a {@code long}. Each key maps to four
+ * counters in different words; its frequency is the smallest of them, so hash collisions can only
+ * overestimate. Once the number of increments reaches ten times the table width every counter is
+ * halved, which lets the sketch forget keys that were popular a long time ago.</p>
+ *
+ * <p>Not thread-safe; callers hold the cache's policy lock.</p>
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_WIDTH = 1 << 24;
+
+    private long[] table;
+    private int tableMask;
+    private int sampleSize;
+    private int additions;
+
+    FrequencySketch() {
+        ensureCapacity(16);
+    }
+
+    /**
+     * Widens the sketch so it can tell apart about {@code expectedKeys} keys. Resets all counts when it grows.
+     */
+    void ensureCapacity(int expectedKeys) {
+        int width = Math.min(MAX_WIDTH, Integer.highestOneBit(Math.max(16, expectedKeys) - 1) << 1);
+        if (table != null && table.length >= width) {
+            return;
+        }
+        table = new long[width];
+        tableMask = width - 1;
+        sampleSize = 10 * width;
+        additions = 0;
+    }
+
+    /**
+     * Returns the estimated number of recent accesses of a key, at most 15.
+     */
+    int frequency(int hash) {
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int count = (int) ((table[indexOf(hash, i)] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records one access of a key.
+     */
+    void increment(int hash) {
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) == mask) {
+            return false;
+        }
+        table[index] += 1L << offset;
+        return true;
+    }
+
+    /**
+     * Halves every counter.
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+}
@@ -0,0 +1,290 @@
+package turing.example.iotsenser.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Read-through cache for sensor data queries, invalidated by ingest.
+ *
+ * <p>Results are cached under a {@link QueryCacheKey} carrying the data version they were loaded at.
+ * Ingest moves the version of each device it writes, and the fleet-wide version, once the write has
+ * committed; later lookups build keys with the new version and miss, while the stale entries age out of
+ * the cache. A load that raced with the write is stored under the old version, so it is never served.
+ * Device versions are kept in a fixed array of stripes indexed by device ID hash; two devices sharing a
+ * stripe only cost each other spurious misses. Versions start from a random epoch per process, so keys
+ * built before a restart are never matched again.</p>
+ *
+ * <p>Versions only move for writes made through this instance. Writes made by other instances are
+ * picked up once a result is older than {@code maxStaleness}, after which it is loaded again.</p>
+ *
+ * <p>The first tier is an in-process {@link TinyLfuCache} bounded by the estimated size of the results.
+ * A {@link QueryCacheTier} bean, if present, is consulted on first-tier misses.</p>
+ */
+@Slf4j
+@Component
+public class QueryCache {
+
+    /**
+     * Estimated heap cost of one cached reading, used to weigh results.
+     */
+    static final int READING_WEIGHT = 160;
+
+    /**
+     * Estimated heap cost of a cache entry and its key, excluding the readings.
+     */
+    static final int ENTRY_WEIGHT = 128;
+
+    private final boolean enabled;
+    private final TinyLfuCache<QueryCacheKey, Object> local;
+    private final QueryCacheTier secondTier;
+    private final AtomicLongArray deviceVersions;
+    private final int versionMask;
+    private final AtomicLong fleetVersion;
+    private final long maxStalenessNanos;
+    private final LongSupplier clock;
+
+    private final Counter localHits;
+    private final Counter secondTierHits;
+    private final Counter misses;
+    private final Timer loadTimer;
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param enabled        Whether results are cached at all.
+     * @param maxWeight      Bound on the estimated size of the in-process tier.
+     * @param versionStripes Number of device version stripes; rounded up to a power of two.
+     * @param maxStaleness   Age after which a result is loaded again; zero keeps results until invalidated.
+     * @param secondTier     Optional second cache tier.
+     * @param meterRegistry  Registry for hit, miss, load-time, eviction and size metrics.
+     */
+    @Autowired
+    public QueryCache(@Value("${iotsenser.query.cache.enabled:true}") boolean enabled,
+                      @Value("${iotsenser.query.cache.max-weight:64MB}") DataSize maxWeight,
+                      @Value("${iotsenser.query.cache.version-stripes:65536}") int versionStripes,
+                      @Value("${iotsenser.query.cache.max-staleness:30s}") Duration maxStaleness,
+                      ObjectProvider<QueryCacheTier> secondTier,
+                      MeterRegistry meterRegistry) {
+        this(enabled, maxWeight.toBytes(), versionStripes, maxStaleness, secondTier.getIfAvailable(), meterRegistry,
+                System::nanoTime);
+    }
+
+    QueryCache(boolean enabled, long maxWeight, int versionStripes, Duration maxStaleness, QueryCacheTier secondTier,
+               MeterRegistry meterRegistry, LongSupplier clock) {
+        this.enabled = enabled;
+        this.local = new TinyLfuCache<>(maxWeight);
+        this.secondTier = secondTier;
+        int stripes = Math.max(1, Integer.highestOneBit(Math.max(1, versionStripes - 1) << 1));
+        long epoch = ThreadLocalRandom.current().nextLong();
+        this.deviceVersions = new AtomicLongArray(stripes);
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            deviceVersions.set(stripe, epoch);
+        }
+        this.versionMask = stripes - 1;
+        this.fleetVersion = new AtomicLong(epoch);
+        this.maxStalenessNanos = maxStaleness.isZero() ? Long.MAX_VALUE : maxStaleness.toNanos();
+        this.clock = clock;
+
+        this.localHits = Counter.builder("iotsenser.query.cache.gets")
+                .description("Query cache lookups")
+                .tag("tier", "local")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.secondTierHits = Counter.builder("iotsenser.query.cache.gets")
+                .description("Query cache lookups")
+                .tag("tier", "second")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("iotsenser.query.cache.gets")
+                .description("Query cache lookups")
+                .tag("tier", "all")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.loadTimer = Timer.builder("iotsenser.query.cache.load")
+                .description("Time spent loading query results on cache misses")
+                .register(meterRegistry);
+        Gauge.builder("iotsenser.query.cache.hit.ratio", this, QueryCache::hitRatio)
+                .description("Share of query cache lookups served from either tier")
+                .register(meterRegistry);
+        Gauge.builder("iotsenser.query.cache.size", local, TinyLfuCache::size)
+                .description("Results held in the in-process query cache")
+                .register(meterRegistry);
+        Gauge.builder("iotsenser.query.cache.weight", local, TinyLfuCache::weightedSize)
+                .description("Estimated size of the results held in the in-process query cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("iotsenser.query.cache.evictions", local, TinyLfuCache::evictionCount)
+                .description("Results evicted from the in-process query cache")
+                .tag("cause", "size")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns a device query's result, loading and caching it on a miss.
+     *
+     * @param deviceId     Device the query reads.
+     * @param query        Query name and parameters.
+     * @param readingCount Number of readings in a result, used to weigh it.
+     * @param loader       Loads the result; it must be immutable.
+     * @return The result.
+     */
+    public <T> T get(String deviceId, Object query, ToIntFunction<T> readingCount, Supplier<T> loader) {
+        return get(new QueryCacheKey(deviceId, deviceVersions.get(stripeOf(deviceId)), query), readingCount, loader);
+    }
+
+    /**
+     * Returns a fleet-wide query's result, loading and caching it on a miss.
+     * Any ingest invalidates fleet-wide results.
+     *
+     * @param query        Query name and parameters.
+     * @param readingCount Number of readings in a result, used to weigh it.
+     * @param loader       Loads the result; it must be immutable.
+     * @return The result.
+     */
+    public <T> T getFleetWide(Object query, ToIntFunction<T> readingCount, Supplier<T> loader) {
+        return get(new QueryCacheKey(null, fleetVersion.get(), query), readingCount, loader);
+    }
+
+    /**
+     * Invalidates cached results for devices that received readings, once the current transaction commits,
+     * or right away if there is none.
+     *
+     * @param deviceIds Devices written to; duplicates are fine.
+     */
+    public void invalidateDevices(Collection<String> deviceIds) {
+        if (!enabled || deviceIds.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpVersions(deviceIds);
+                }
+            });
+        } else {
+            bumpVersions(deviceIds);
+        }
+    }
+
+    /**
+     * Invalidates cached results for a device that received a reading.
+     *
+     * @param deviceId Device written to.
+     * @see #invalidateDevices(Collection)
+     */
+    public void invalidateDevice(String deviceId) {
+        invalidateDevices(List.of(deviceId));
+    }
+
+    /**
+     * Invalidates every cached result, for writes that are not tied to particular devices such as retention.
+     */
+    public void invalidateAll() {
+        for (int stripe = 0; stripe <= versionMask; stripe++) {
+            deviceVersions.incrementAndGet(stripe);
+        }
+        fleetVersion.incrementAndGet();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(QueryCacheKey key, ToIntFunction<T> readingCount, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        long now = clock.getAsLong();
+        Object cached = local.get(key);
+        if (isFresh(cached, now)) {
+            localHits.increment();
+            return (T) ((Loaded) cached).value();
+        }
+        if (secondTier != null) {
+            cached = secondTierGet(key);
+            if (isFresh(cached, now)) {
+                secondTierHits.increment();
+                T value = (T) ((Loaded) cached).value();
+                local.put(key, cached, weigh(value, readingCount));
+                return value;
+            }
+        }
+        misses.increment();
+        T value = loadTimer.record(loader);
+        Loaded loaded = new Loaded(value, now);
+        long weight = weigh(value, readingCount);
+        local.put(key, loaded, weight);
+        if (secondTier != null) {
+            secondTierPut(key, loaded, weight);
+        }
+        return value;
+    }
+
+    private boolean isFresh(Object cached, long now) {
+        return cached instanceof Loaded loaded && now - loaded.loadedAt() < maxStalenessNanos;
+    }
+
+    private Object secondTierGet(QueryCacheKey key) {
+        try {
+            return secondTier.get(key);
+        } catch (RuntimeException e) {
+            log.warn("Second-tier query cache lookup failed", e);
+            return null;
+        }
+    }
+
+    private void secondTierPut(QueryCacheKey key, Object value, long weight) {
+        try {
+            secondTier.put(key, value, weight);
+        } catch (RuntimeException e) {
+            log.warn("Second-tier query cache store failed", e);
+        }
+    }
+
+    private void bumpVersions(Collection<String> deviceIds) {
+        for (String deviceId : deviceIds) {
+            deviceVersions.incrementAndGet(stripeOf(deviceId));
+        }
+        fleetVersion.incrementAndGet();
+    }
+
+    private int stripeOf(String deviceId) {
+        int h = deviceId.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & versionMask;
+    }
+
+    private static <T> long weigh(T value, ToIntFunction<T> readingCount) {
+        return ENTRY_WEIGHT + (long) readingCount.applyAsInt(value) * READING_WEIGHT;
+    }
+
+    private double hitRatio() {
+        double hits = localHits.count() + secondTierHits.count();
+        double total = hits + misses.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    /**
+     * A cached result and the time its load started.
+     */
+    private record Loaded(Object value, long loadedAt) {
+    }
+}
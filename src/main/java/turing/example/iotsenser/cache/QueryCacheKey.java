@@ -0,0 +1,12 @@
+package turing.example.iotsenser.cache;
+
+/**
+ * Key of a cached query result.
+ *
+ * @param deviceId Device the query reads, or null for a fleet-wide query.
+ * @param version  Data version the result was loaded at; any ingest for the device, or any ingest at all for
+ *                 fleet-wide queries, moves the version on, so older results are never looked up again.
+ * @param query    Query name and parameters; must implement {@code equals} and {@code hashCode}.
+ */
+public record QueryCacheKey(String deviceId, long version, Object query) {
+}
@@ -0,0 +1,31 @@
+package turing.example.iotsenser.cache;
+
+/**
+ * Optional second cache tier consulted when the in-process tier misses, such as a larger off-heap store.
+ * Declare a bean of this type to enable it.
+ *
+ * <p>Keys carry this process's data versions, so entries never need invalidating and entries from before
+ * a restart are never looked up again, but a tier must not be shared between instances that ingest
+ * independently. Values carry their load time and are not served once older than the query cache's
+ * maximum staleness. Implementations must be thread-safe and should fail soft: an exception is treated
+ * as a miss.</p>
+ */
+public interface QueryCacheTier {
+
+    /**
+     * Looks up a query result.
+     *
+     * @param key The query's key.
+     * @return The cached result, or null on a miss.
+     */
+    Object get(QueryCacheKey key);
+
+    /**
+     * Stores a query result.
+     *
+     * @param key    The query's key.
+     * @param value  The result with its load time; immutable.
+     * @param weight Estimated size of the result in bytes.
+     */
+    void put(QueryCacheKey key, Object value, long weight);
+}
@@ -0,0 +1,307 @@
+package turing.example.iotsenser.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-memory cache with W-TinyLFU eviction, bounded by the total weight of its entries.
+ *
+ * <p>New entries land in a small LRU window (1% of the weight). Entries pushed out of the window
+ * join the probation segment of the main space, where they compete with its least recently used
+ * entry: whichever a {@link FrequencySketch} has seen less often is evicted. Entries read again while
+ * on probation move to the protected segment (80% of the main space). The effect is that one-off
+ * keys, such as a scan over many devices, cannot flush out the keys dashboards keep asking for.</p>
+ *
+ * <p>Reads are lock-free. Bookkeeping for reads is skipped while another thread holds the policy lock,
+ * so under contention recency and frequency are sampled rather than exact; writes always take the lock.</p>
+ *
+ * @param <K> Key type; must implement {@code equals} and {@code hashCode}.
+ * @param <V> Value type.
+ */
+public final class TinyLfuCache<K, V> {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int REMOVED = -1;
+    private static final int INITIAL_SKETCH_KEYS = 4096;
+
+    private final Map<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final FrequencySketch sketch = new FrequencySketch();
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+    private final AccessOrder<K, V> probation = new AccessOrder<>();
+    private final AccessOrder<K, V> protectedSegment = new AccessOrder<>();
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final LongAdder evictions = new LongAdder();
+
+    private long windowWeight;
+    private long probationWeight;
+    private long protectedWeight;
+    private volatile long weightedSize;
+
+    /**
+     * Creates a cache.
+     *
+     * @param maximumWeight Upper bound on the summed weight of all entries.
+     */
+    public TinyLfuCache(long maximumWeight) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight must be positive");
+        }
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = Math.max(1, maximumWeight / 100);
+        this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * 0.8);
+        // Widening the sketch forgets all counts, so start it at a size most caches never outgrow
+        sketch.ensureCapacity((int) Math.min(maximumWeight, INITIAL_SKETCH_KEYS));
+    }
+
+    /**
+     * Looks up a value.
+     *
+     * @param key The key.
+     * @return The cached value, or null if the key is not cached.
+     */
+    public V get(K key) {
+        Node<K, V> node = data.get(key);
+        if (policyLock.tryLock()) {
+            try {
+                sketch.increment(spread(key.hashCode()));
+                if (node != null && node.segment != REMOVED) {
+                    onAccess(node);
+                }
+            } finally {
+                policyLock.unlock();
+            }
+        }
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Caches a value, replacing any value already cached for the key, then evicts down to the bound.
+     * A value heavier than the whole cache is not stored.
+     *
+     * @param key    The key.
+     * @param value  The value.
+     * @param weight The value's weight, in the same unit as the maximum weight.
+     */
+    public void put(K key, V value, long weight) {
+        if (weight > maximumWeight) {
+            return;
+        }
+        policyLock.lock();
+        try {
+            Node<K, V> node = data.get(key);
+            if (node != null) {
+                node.value = value;
+                addWeight(node.segment, weight - node.weight);
+                node.weight = weight;
+                onAccess(node);
+            } else {
+                node = new Node<>(key, value, weight);
+                data.put(key, node);
+                window.addLast(node);
+                windowWeight += weight;
+                sketch.ensureCapacity(data.size());
+            }
+            evict();
+            weightedSize = windowWeight + probationWeight + protectedWeight;
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of cached entries.
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * Returns the summed weight of all cached entries.
+     */
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    /**
+     * Returns the number of entries evicted to respect the bound since the cache was created.
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Updates recency, promoting entries read again while on probation. Lock must be held.
+     */
+    private void onAccess(Node<K, V> node) {
+        switch (node.segment) {
+            case WINDOW -> window.moveToBack(node);
+            case PROBATION -> {
+                probation.remove(node);
+                probationWeight -= node.weight;
+                node.segment = PROTECTED;
+                protectedSegment.addLast(node);
+                protectedWeight += node.weight;
+                while (protectedWeight > protectedMaximum) {
+                    Node<K, V> demoted = protectedSegment.pollFirst();
+                    protectedWeight -= demoted.weight;
+                    demoted.segment = PROBATION;
+                    probation.addLast(demoted);
+                    probationWeight += demoted.weight;
+                }
+            }
+            case PROTECTED -> protectedSegment.moveToBack(node);
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Moves window overflow onto probation, then evicts until the cache is within its bound. Lock must be held.
+     */
+    private void evict() {
+        while (windowWeight > windowMaximum) {
+            Node<K, V> candidate = window.pollFirst();
+            windowWeight -= candidate.weight;
+            candidate.segment = PROBATION;
+            probation.addLast(candidate);
+            probationWeight += candidate.weight;
+        }
+        while (windowWeight + probationWeight + protectedWeight > maximumWeight) {
+            Node<K, V> victim = probation.peekFirst();
+            Node<K, V> candidate = probation.peekLast();
+            if (victim == null) {
+                victim = protectedSegment.peekFirst() != null ? protectedSegment.peekFirst() : window.peekFirst();
+            } else if (candidate != victim && !admit(candidate, victim)) {
+                victim = candidate;
+            }
+            remove(victim);
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Admits the newest probation entry over the oldest only if it has been asked for more often.
+     */
+    private boolean admit(Node<K, V> candidate, Node<K, V> victim) {
+        return sketch.frequency(spread(candidate.key.hashCode())) > sketch.frequency(spread(victim.key.hashCode()));
+    }
+
+    private void remove(Node<K, V> node) {
+        switch (node.segment) {
+            case WINDOW -> {
+                window.remove(node);
+                windowWeight -= node.weight;
+            }
+            case PROBATION -> {
+                probation.remove(node);
+                probationWeight -= node.weight;
+            }
+            case PROTECTED -> {
+                protectedSegment.remove(node);
+                protectedWeight -= node.weight;
+            }
+            default -> {
+                return;
+            }
+        }
+        node.segment = REMOVED;
+        data.remove(node.key, node);
+    }
+
+    private void addWeight(int segment, long delta) {
+        switch (segment) {
+            case WINDOW -> windowWeight += delta;
+            case PROBATION -> probationWeight += delta;
+            case PROTECTED -> protectedWeight += delta;
+            default -> {
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * A cached entry, linked into the access order of its segment.
+     */
+    private static final class Node<K, V> {
+
+        private final K key;
+        private volatile V value;
+        private long weight;
+        private int segment = WINDOW;
+        private Node<K, V> previous;
+        private Node<K, V> next;
+
+        Node(K key, V value, long weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list from least to most recently used.
+     */
+    private static final class AccessOrder<K, V> {
+
+        private Node<K, V> first;
+        private Node<K, V> last;
+
+        Node<K, V> peekFirst() {
+            return first;
+        }
+
+        Node<K, V> peekLast() {
+            return last;
+        }
+
+        Node<K, V> pollFirst() {
+            Node<K, V> node = first;
+            remove(node);
+            return node;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.previous = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.previous == null) {
+                first = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package turing.example.iotsenser.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.Environment;
+import turing.example.iotsenser.detection.DeviceStatisticsStore;
+import turing.example.iotsenser.detection.DeviceWindowStore;
+import turing.example.iotsenser.detection.GapTimerWheel;
+import turing.example.iotsenser.detection.RuleDefinition;
+import turing.example.iotsenser.detection.RuleEngine;
+import turing.example.iotsenser.detection.WindowDetector;
+import turing.example.iotsenser.model.Anomaly;
+import turing.example.iotsenser.repository.AnomalyRepository;
+import turing.example.iotsenser.repository.DetectionRuleRepository;
+import turing.example.iotsenser.service.AnomalySink;
+import turing.example.iotsenser.shard.ShardRouter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration class for the anomaly detection engine's shared state.
+ */
+@Configuration
+public class DetectionConfig {
+
+    private static final String RULES_PROPERTY = "iotsenser.anomaly.rules.definitions";
+    private static final String GROUPS_PROPERTY = "iotsenser.anomaly.groups";
+
+    /**
+     * Per-device rolling statistics backing the adaptive z-score rule.
+     */
+    @Bean
+    public DeviceStatisticsStore deviceStatisticsStore(
+            @Value("${iotsenser.anomaly.zscore.alpha:0.05}") double alpha,
+            @Value("${iotsenser.anomaly.zscore.warmup-samples:30}") int warmupSamples,
+            @Value("${iotsenser.anomaly.zscore.expected-devices:100000}") int expectedDevices) {
+        return new DeviceStatisticsStore(alpha, warmupSamples,
+                Runtime.getRuntime().availableProcessors() * 4, expectedDevices);
+    }
+
+    /**
+     * Sliding-window detectors for sudden changes, flatlined sensors and silent devices.
+     */
+    @Bean
+    public WindowDetector windowDetector(
+            @Value("${iotsenser.anomaly.window.samples:8}") int samples,
+            @Value("${iotsenser.anomaly.window.span:60s}") Duration span,
+            @Value("${iotsenser.anomaly.window.min-span:1s}") Duration minSpan,
+            @Value("${iotsenser.anomaly.window.expected-devices:100000}") int expectedDevices,
+            @Value("${iotsenser.anomaly.window.max-temperature-rate:1.0}") double maxTemperatureRate,
+            @Value("${iotsenser.anomaly.window.max-humidity-rate:2.0}") double maxHumidityRate,
+            @Value("${iotsenser.anomaly.window.flatline:30m}") Duration flatline,
+            @Value("${iotsenser.anomaly.window.flatline-tolerance:0.0}") double flatlineTolerance,
+            @Value("${iotsenser.anomaly.window.gap:5m}") Duration gap,
+            @Value("${iotsenser.anomaly.window.gap-tick:1s}") Duration gapTick) {
+        DeviceWindowStore store = new DeviceWindowStore(samples, span.toMillis(), minSpan.toMillis(),
+                flatlineTolerance, expectedDevices);
+        GapTimerWheel wheel = new GapTimerWheel(1024, gapTick.toMillis(), System.currentTimeMillis());
+        return new WindowDetector(store, wheel, maxTemperatureRate, maxHumidityRate, flatline, gap);
+    }
+
+    /**
+     * Detection rules from configuration, falling back to the default rules when none are configured,
+     * plus the enabled rules of the {@code detection_rules} table.
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public RuleEngine ruleEngine(Environment environment, DetectionRuleRepository detectionRuleRepository,
+                                 @Value("${iotsenser.anomaly.zscore.threshold:4.0}") double zScoreThreshold,
+                                 @Value("${iotsenser.anomaly.rules.reload-interval:30s}") Duration reloadInterval) {
+        Binder binder = Binder.get(environment);
+        List<RuleDefinition> configured = binder.bind(RULES_PROPERTY, Bindable.listOf(RuleDefinition.class))
+                .orElseGet(() -> RuleEngine.defaultRules(zScoreThreshold));
+        Bindable<Map<String, List<String>>> groups = Bindable.of(ResolvableType.forClassWithGenerics(
+                Map.class, ResolvableType.forClass(String.class),
+                ResolvableType.forClassWithGenerics(List.class, String.class)));
+        return new RuleEngine(configured, binder.bind(GROUPS_PROPERTY, groups).orElse(Map.of()),
+                () -> detectionRuleRepository.findByEnabledTrueOrderByIdAsc().stream()
+                        .map(rule -> new RuleDefinition(rule.getName(), rule.getScope(), rule.getTarget(),
+                                rule.getExpression()))
+                        .toList(),
+                reloadInterval);
+    }
+
+    /**
+     * Sink suppressing repeated anomalies and writing the rest in batches, each on the shard owning its device.
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public AnomalySink anomalySink(AnomalyRepository anomalyRepository, ShardRouter shardRouter,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${iotsenser.anomaly.sink.cooldown:5m}") Duration cooldown,
+                                   @Value("${iotsenser.anomaly.sink.tracked-keys:100000}") int trackedKeys,
+                                   @Value("${iotsenser.anomaly.sink.capacity:10000}") int capacity,
+                                   @Value("${iotsenser.anomaly.sink.batch-size:500}") int batchSize,
+                                   @Value("${iotsenser.anomaly.sink.flush-interval:1s}") Duration flushInterval) {
+        return new AnomalySink(cooldown, trackedKeys, capacity, batchSize, flushInterval,
+                batch -> shardRouter.groupByShard(batch, Anomaly::getDeviceId).forEach((shard, group) ->
+                        shardRouter.write(shard, () -> anomalyRepository.saveAll(group))),
+                meterRegistry);
+    }
+}
@@ -5,10 +5,23 @@ import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.FixedBackOff;
+import turing.example.iotsenser.device.DeviceRegistry;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.serialization.SensorDataDeserializer;
+import turing.example.iotsenser.serialization.SensorDataSerializer;
+import turing.example.iotsenser.utils.DataAccessFailures;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -20,51 +33,151 @@ import java.util.Map;
 public class KafkaConfig {
 
     private static final String TOPIC_NAME = "sensor-data";
-    private static final String BOOTSTRAP_SERVERS = "localhost:9092";
+    private static final String DEAD_LETTER_TOPIC_NAME = TOPIC_NAME + ".DLT";
+    private static final int TOPIC_PARTITIONS = 3;
+    private static final String DEFAULT_BOOTSTRAP_SERVERS = "localhost:9092";
     private static final String GROUP_ID = "sensor-group";
+    private static final int MAX_POLL_RECORDS = 500;
+
+    @Value("${spring.kafka.bootstrap-servers:" + DEFAULT_BOOTSTRAP_SERVERS + "}")
+    private String bootstrapServers = DEFAULT_BOOTSTRAP_SERVERS;
+
+    @Value("${iotsenser.kafka.device-dictionary:}")
+    private String deviceDictionary = "";
+
+    @Autowired(required = false)
+    private DeviceRegistry deviceRegistry;
+
+    @Value("${iotsenser.kafka.producer.linger-ms:20}")
+    private int lingerMs = 20;
+
+    @Value("${iotsenser.kafka.producer.batch-size:65536}")
+    private int batchSize = 65536;
+
+    @Value("${iotsenser.kafka.producer.compression-type:lz4}")
+    private String compressionType = "lz4";
+
+    @Value("${iotsenser.kafka.producer.acks:all}")
+    private String acks = "all";
+
+    @Value("${iotsenser.kafka.producer.enable-idempotence:true}")
+    private boolean enableIdempotence = true;
+
+    @Value("${iotsenser.kafka.producer.max-in-flight-requests:5}")
+    private int maxInFlightRequests = 5;
+
+    @Value("${iotsenser.kafka.consumer.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    @Value("${iotsenser.kafka.consumer.retry-interval-ms:1000}")
+    private long retryIntervalMs = 1000;
 
     /**
      * Creates a Kafka topic for sensor data.
      */
     @Bean
     public NewTopic topic() {
-        return new NewTopic(TOPIC_NAME, 3, (short) 1);
+        return new NewTopic(TOPIC_NAME, TOPIC_PARTITIONS, (short) 1);
+    }
+
+    /**
+     * Creates the dead-letter topic for sensor records that cannot be persisted.
+     * It has as many partitions as the sensor data topic, so records keep their partition.
+     */
+    @Bean
+    public NewTopic deadLetterTopic() {
+        return new NewTopic(DEAD_LETTER_TOPIC_NAME, TOPIC_PARTITIONS, (short) 1);
     }
 
     /**
      * Kafka Producer configuration.
+     * Readings are published in the compact binary format of {@link SensorDataSerializer}.
+     * Tuned for many small telemetry records: a short linger lets batches fill, batches are
+     * compressed, and idempotent delivery keeps per-key ordering intact across retries.
      */
     @Bean
-    public ProducerFactory<String, String> producerFactory() {
+    public ProducerFactory<String, SensorData> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_SERVERS);
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, SensorDataSerializer.class);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        configProps.put(ProducerConfig.ACKS_CONFIG, acks);
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, enableIdempotence);
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, maxInFlightRequests);
+        putDeviceDictionary(configProps);
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
     @Bean
-    public KafkaTemplate<String, String> kafkaTemplate() {
+    public KafkaTemplate<String, SensorData> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
 
     /**
      * Kafka Consumer configuration.
+     * Auto-commit is disabled; listeners acknowledge offsets once a batch is persisted.
+     * Undecodable records arrive as null values instead of blocking the partition.
      */
     @Bean
-    public ConsumerFactory<String, String> consumerFactory() {
+    public ConsumerFactory<String, SensorData> consumerFactory() {
         Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_SERVERS);
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ConsumerConfig.GROUP_ID_CONFIG, GROUP_ID);
         configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, SensorDataDeserializer.class);
+        putDeviceDictionary(configProps);
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, MAX_POLL_RECORDS);
         return new DefaultKafkaConsumerFactory<>(configProps);
     }
 
+    /**
+     * Error handler of the batch listener.
+     * When the listener reports the index of the record that failed, the offsets before it are committed
+     * and that record alone is redelivered, every {@code iotsenser.kafka.consumer.retry-interval-ms}, up to
+     * {@code iotsenser.kafka.consumer.max-attempts} deliveries, and then published to the dead-letter topic.
+     * While the database is unavailable the record is retried indefinitely instead, so an outage does not
+     * dead-letter valid readings.
+     */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
+    public DefaultErrorHandler kafkaErrorHandler(KafkaTemplate<String, SensorData> kafkaTemplate) {
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(new DeadLetterPublishingRecoverer(kafkaTemplate),
+                new FixedBackOff(retryIntervalMs, Math.max(0, maxAttempts - 1)));
+        BackOff untilAvailable = new FixedBackOff(retryIntervalMs, FixedBackOff.UNLIMITED_ATTEMPTS);
+        errorHandler.setBackOffFunction((record, e) -> DataAccessFailures.isUnavailable(e) ? untilAvailable : null);
+        return errorHandler;
+    }
+
+    /**
+     * Batch listener container factory.
+     * Runs one consumer per topic partition and leaves offset commits to the listener.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, SensorData> kafkaListenerContainerFactory(
+            ConsumerFactory<String, SensorData> consumerFactory, DefaultErrorHandler kafkaErrorHandler) {
+        ConcurrentKafkaListenerContainerFactory<String, SensorData> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(TOPIC_PARTITIONS);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setCommonErrorHandler(kafkaErrorHandler);
         return factory;
     }
+
+    /**
+     * Shares the device ID dictionary between serializer and deserializer.
+     * A configured static list wins; otherwise device IDs are encoded as their registry keys.
+     */
+    private void putDeviceDictionary(Map<String, Object> configProps) {
+        if (deviceDictionary != null && !deviceDictionary.isBlank()) {
+            configProps.put(SensorDataSerializer.DEVICE_DICTIONARY_CONFIG, deviceDictionary);
+        } else if (deviceRegistry != null) {
+            configProps.put(SensorDataSerializer.DEVICE_DICTIONARY_CONFIG, deviceRegistry);
+        }
+    }
 }
@@ -0,0 +1,146 @@
+package turing.example.iotsenser.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import turing.example.iotsenser.replica.ReadStaleness;
+import turing.example.iotsenser.replica.Replica;
+import turing.example.iotsenser.replica.ReplicaRoutingDataSource;
+import turing.example.iotsenser.replica.ReplicaSet;
+import turing.example.iotsenser.shard.ShardRing;
+import turing.example.iotsenser.shard.ShardRouter;
+import turing.example.iotsenser.shard.ShardRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Configuration class for spreading sensor data over several databases and reading from their replicas.
+ *
+ * <p>When {@code iotsenser.sharding.enabled} is set, {@code spring.datasource} becomes the
+ * {@link ShardRouter#PRIMARY} shard and every entry under {@code iotsenser.sharding.shards.<name>}
+ * (url, username, password, driver-class-name) another one; the application data source routes to
+ * whichever shard the current work targets. Otherwise a single-shard router is used.</p>
+ *
+ * <p>When {@code iotsenser.replicas.enabled} is set, each list under {@code iotsenser.replicas.shards.<name>}
+ * gives the read replicas of a shard, {@code primary} included, and read-only transactions on that shard
+ * are served by them. With neither feature enabled the data source is left to Spring Boot.</p>
+ */
+@Configuration
+public class ShardingConfig {
+
+    private static final String SHARDS_PROPERTY = "iotsenser.sharding.shards";
+    private static final String REPLICAS_PROPERTY = "iotsenser.replicas.shards";
+
+    @Value("${iotsenser.sharding.enabled:false}")
+    private boolean enabled = false;
+
+    @Value("${iotsenser.sharding.virtual-nodes:128}")
+    private int virtualNodes = 128;
+
+    @Value("${iotsenser.sharding.fan-out-threads:0}")
+    private int fanOutThreads = 0;
+
+    @Value("${iotsenser.replicas.max-staleness:5s}")
+    private Duration maxStaleness = Duration.ofSeconds(5);
+
+    @Value("${iotsenser.replicas.check-interval:5s}")
+    private Duration replicaCheckInterval = Duration.ofSeconds(5);
+
+    @Value("${iotsenser.replicas.check-timeout:2s}")
+    private Duration replicaCheckTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Read replicas of every shard, probed for health and lag.
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = "iotsenser.replicas.enabled", havingValue = "true")
+    public ReplicaSet replicaSet(Environment environment, MeterRegistry meterRegistry) {
+        Map<String, List<Replica>> replicas = new TreeMap<>();
+        replicaProperties(environment).forEach((shard, sources) -> {
+            List<Replica> shardReplicas = new ArrayList<>();
+            for (int i = 0; i < sources.size(); i++) {
+                shardReplicas.add(new Replica(shard + "-replica-" + (i + 1), build(sources.get(i))));
+            }
+            replicas.put(shard, shardReplicas);
+        });
+        return new ReplicaSet(replicas, replicaCheckInterval, replicaCheckTimeout, meterRegistry);
+    }
+
+    /**
+     * Application data source routing to the current shard, and within it to a replica for read-only work.
+     * Connections are fetched lazily so that the transaction's read-only flag is known when routing.
+     */
+    @Bean
+    @Primary
+    @ConditionalOnExpression("${iotsenser.sharding.enabled:false} or ${iotsenser.replicas.enabled:false}")
+    public DataSource dataSource(DataSourceProperties primaryProperties, Environment environment,
+                                 ObjectProvider<ReplicaSet> replicaSet, MeterRegistry meterRegistry) {
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        shards.put(ShardRouter.PRIMARY, build(primaryProperties));
+        if (enabled) {
+            shardProperties(environment).forEach((name, properties) -> shards.put(name, build(properties)));
+        }
+        ReplicaSet replicas = replicaSet.getIfAvailable();
+        if (replicas != null) {
+            shards.replaceAll((shard, primary) -> replicas.replicasOf(shard).isEmpty()
+                    ? primary
+                    : new ReplicaRoutingDataSource(shard, primary, replicas.replicasOf(shard), maxStaleness,
+                            meterRegistry));
+        }
+        DataSource target = shards.size() == 1
+                ? shards.get(ShardRouter.PRIMARY)
+                : new ShardRoutingDataSource(shards, ShardRouter.PRIMARY);
+        return new LazyConnectionDataSourceProxy(target);
+    }
+
+    /**
+     * Router assigning devices to shards.
+     */
+    @Bean(destroyMethod = "close")
+    public ShardRouter shardRouter(Environment environment, PlatformTransactionManager transactionManager) {
+        List<String> shards = new ArrayList<>();
+        shards.add(ShardRouter.PRIMARY);
+        if (enabled) {
+            shards.addAll(shardProperties(environment).keySet());
+        }
+        ShardRouter router = new ShardRouter(new ShardRing(shards, virtualNodes), transactionManager, fanOutThreads);
+        router.setTaskDecorator(ReadStaleness::propagate);
+        return router;
+    }
+
+    private static Map<String, DataSourceProperties> shardProperties(Environment environment) {
+        return new TreeMap<>(Binder.get(environment)
+                .bind(SHARDS_PROPERTY, Bindable.mapOf(String.class, DataSourceProperties.class))
+                .orElse(Map.of()));
+    }
+
+    private static Map<String, List<DataSourceProperties>> replicaProperties(Environment environment) {
+        Bindable<Map<String, List<DataSourceProperties>>> bindable = Bindable.of(ResolvableType.forClassWithGenerics(
+                Map.class, ResolvableType.forClass(String.class),
+                ResolvableType.forClassWithGenerics(List.class, DataSourceProperties.class)));
+        return Binder.get(environment).bind(REPLICAS_PROPERTY, bindable).orElse(Map.of());
+    }
+
+    private static DataSource build(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+}
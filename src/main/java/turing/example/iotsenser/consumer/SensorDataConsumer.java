@@ -0,0 +1,88 @@
+package turing.example.iotsenser.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.service.SensorDataService;
+import turing.example.iotsenser.utils.SensorDataValidator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kafka consumer that persists sensor data published by the REST layer.
+ * Active only in Kafka-first ingest mode, where the controller produces to Kafka
+ * and this listener is the sole writer to the database.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "iotsenser.ingest.mode", havingValue = "kafka")
+public class SensorDataConsumer {
+
+    private final SensorDataService sensorDataService;
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param sensorDataService Service used to persist consumed batches.
+     */
+    @Autowired
+    public SensorDataConsumer(SensorDataService sensorDataService) {
+        this.sensorDataService = sensorDataService;
+    }
+
+    /**
+     * Persists a polled batch of records in one bulk write, then commits the batch's offsets.
+     * Undecodable and invalid records are skipped. If the bulk write fails, the readings are written one by one
+     * in offset order, and the first one that fails is reported to the container's error handler with its index:
+     * the offsets before it are committed, and it is retried and eventually dead-lettered on its own, so one bad
+     * record does not hold back or lose the valid readings around it.
+     *
+     * @param records        Records polled from one partition assignment.
+     * @param acknowledgment Handle used to commit offsets after a successful write.
+     * @throws BatchListenerFailedException if a reading could not be written.
+     */
+    @KafkaListener(topics = "sensor-data", containerFactory = "kafkaListenerContainerFactory", batch = "true")
+    public void consume(List<ConsumerRecord<String, SensorData>> records, Acknowledgment acknowledgment) {
+        List<SensorData> batch = new ArrayList<>(records.size());
+        List<Integer> indexes = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, SensorData> record = records.get(i);
+            SensorData sensorData = record.value();
+            if (!SensorDataValidator.isValid(sensorData)) {
+                log.warn("Skipping undecodable or invalid sensor record at {}-{}@{}",
+                        record.topic(), record.partition(), record.offset());
+                continue;
+            }
+            batch.add(sensorData);
+            indexes.add(i);
+        }
+        try {
+            sensorDataService.saveSensorDataBatch(batch);
+        } catch (RuntimeException e) {
+            log.warn("Bulk write of {} consumed readings failed; writing them one by one", batch.size(), e);
+            saveOneByOne(batch, indexes);
+        }
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Writes readings singly until one fails, which is reported by its index in the polled records.
+     */
+    private void saveOneByOne(List<SensorData> batch, List<Integer> indexes) {
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                sensorDataService.saveSensorDataBatch(List.of(batch.get(i)));
+            } catch (RuntimeException e) {
+                throw new BatchListenerFailedException("Failed to write reading of device "
+                        + batch.get(i).getDeviceId(), e, indexes.get(i));
+            }
+        }
+    }
+}
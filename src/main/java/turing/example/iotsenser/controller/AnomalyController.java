@@ -0,0 +1,121 @@
+package turing.example.iotsenser.controller;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import turing.example.iotsenser.dto.AnomalyCursor;
+import turing.example.iotsenser.dto.AnomalyPage;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.service.AnomalyDetectionService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Controller for querying recorded anomalies and re-scoring readings against the rules in force.
+ */
+@RestController
+@RequestMapping("/api/anomalies")
+public class AnomalyController {
+
+    private final AnomalyDetectionService anomalyDetectionService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${iotsenser.query.page.max-size:5000}")
+    private int maxPageSize = 5000;
+
+    @Value("${iotsenser.anomaly.batch.max-readings:100000}")
+    private int maxScoredReadings = 100000;
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param anomalyDetectionService Service holding the recorded anomalies.
+     * @param objectMapper            Application JSON mapper, used to read scored readings one at a time.
+     */
+    @Autowired
+    public AnomalyController(AnomalyDetectionService anomalyDetectionService, ObjectMapper objectMapper) {
+        this.anomalyDetectionService = anomalyDetectionService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Endpoint to page through the anomalies detected within a time range, newest first.
+     * Uses keyset pagination: pass the returned {@code nextCursor}, with the same filters, to fetch the following page.
+     *
+     * @param deviceId Unique identifier of the IoT device; absent for every device.
+     * @param from     Start of the range (inclusive), ISO-8601.
+     * @param to       End of the range (exclusive), ISO-8601; defaults to now.
+     * @param cursor   Token from the previous page, or absent for the first page.
+     * @param size     Maximum number of anomalies to return.
+     * @return One page of anomalies, or 400 for an invalid range, cursor or size.
+     */
+    @GetMapping
+    public ResponseEntity<AnomalyPage> getAnomalies(
+            @RequestParam(required = false) String deviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "500") int size) {
+        LocalDateTime end = to == null ? LocalDateTime.now() : to;
+        if (!from.isBefore(end) || size < 1 || size > maxPageSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        AnomalyCursor after;
+        try {
+            after = cursor == null ? null : AnomalyCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(anomalyDetectionService.getAnomalyPage(deviceId, from, end, after, size));
+    }
+
+    /**
+     * Endpoint to check readings in bulk against the threshold and z-score rules in force, without recording
+     * anything; for re-scoring history or imported data after the rules changed.
+     * The JSON array is read one reading at a time, and reading stops as soon as it holds more readings
+     * than allowed, so an oversized body is refused without being read whole.
+     *
+     * @param body The raw JSON array of readings to score.
+     * @return The anomalous readings in request order, 400 if the body is not a JSON array of readings,
+     * or 413 for more than {@code iotsenser.anomaly.batch.max-readings} readings.
+     */
+    @PostMapping(value = "/score", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<SensorData>> scoreReadings(InputStream body) throws IOException {
+        List<SensorData> readings = new ArrayList<>();
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return ResponseEntity.badRequest().build();
+            }
+            ObjectReader reader = objectMapper.readerFor(SensorData.class);
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token != JsonToken.START_OBJECT) {
+                    return ResponseEntity.badRequest().build();
+                }
+                if (readings.size() == maxScoredReadings) {
+                    return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+                }
+                readings.add(reader.readValue(parser));
+            }
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(anomalyDetectionService.findAnomalousReadings(readings));
+    }
+}
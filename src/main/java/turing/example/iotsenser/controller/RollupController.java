@@ -0,0 +1,66 @@
+package turing.example.iotsenser.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import turing.example.iotsenser.dto.RollupView;
+import turing.example.iotsenser.model.RollupResolution;
+import turing.example.iotsenser.service.RollupService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Controller for reading pre-aggregated sensor rollups.
+ * Long-range charts read one row per bucket instead of every raw reading.
+ */
+@RestController
+@RequestMapping("/api/sensors")
+public class RollupController {
+
+    private final RollupService rollupService;
+
+    @Value("${iotsenser.query.page.max-size:5000}")
+    private int maxBuckets = 5000;
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param rollupService Service layer for rollup queries.
+     */
+    @Autowired
+    public RollupController(RollupService rollupService) {
+        this.rollupService = rollupService;
+    }
+
+    /**
+     * Endpoint to retrieve a device's rollups within a time range.
+     * Buckets are flushed every few seconds, so the newest bucket may lag slightly behind raw data.
+     *
+     * @param deviceId   Unique identifier of the IoT device.
+     * @param resolution Bucket width: {@code 1m}, {@code 1h} or {@code 1d}.
+     * @param from       Start of the range, ISO-8601; the bucket containing it is included.
+     * @param to         End of the range (exclusive), ISO-8601; defaults to now.
+     * @return One entry per non-empty bucket, oldest first, or 400 for an invalid resolution or range.
+     */
+    @GetMapping("/{deviceId}/rollup")
+    public ResponseEntity<List<RollupView>> getRollups(
+            @PathVariable String deviceId,
+            @RequestParam(defaultValue = "1h") String resolution,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        RollupResolution bucketWidth;
+        try {
+            bucketWidth = RollupResolution.fromCode(resolution);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        LocalDateTime end = to == null ? LocalDateTime.now() : to;
+        if (!from.isBefore(end) || bucketWidth.bucketsBetween(from, end) > maxBuckets) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(rollupService.getRollups(deviceId, bucketWidth, from, end));
+    }
+}
@@ -1,12 +1,38 @@
 package turing.example.iotsenser.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import turing.example.iotsenser.device.DeviceLimitExceededException;
+import turing.example.iotsenser.dto.BatchIngestResponse;
+import turing.example.iotsenser.dto.SensorDataCursor;
+import turing.example.iotsenser.dto.SensorDataPage;
+import turing.example.iotsenser.dto.SensorReadingView;
+import turing.example.iotsenser.ingest.ReadingBatch;
+import turing.example.iotsenser.ingest.ReadingBatchParser;
+import turing.example.iotsenser.ingest.ReadingBatchPool;
 import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.service.SensorDataPublisher;
 import turing.example.iotsenser.service.SensorDataService;
+import turing.example.iotsenser.stream.LiveStreamHub;
+import turing.example.iotsenser.utils.SensorDataValidator;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -19,47 +45,286 @@ import java.util.List;
 public class SensorDataController {
 
     private final SensorDataService sensorDataService;
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private static final String KAFKA_TOPIC = "sensor-data";
+    private final SensorDataPublisher sensorDataPublisher;
+    private final ObjectMapper objectMapper;
+    private final ReadingBatchParser readingBatchParser;
+    private final ReadingBatchPool readingBatchPool;
+    private final LiveStreamHub liveStreamHub;
+
+    @Value("${iotsenser.ingest.batch.max-size:5000}")
+    private int maxBatchSize = 5000;
+
+    @Value("${iotsenser.query.page.max-size:5000}")
+    private int maxPageSize = 5000;
+
+    @Value("${iotsenser.ingest.kafka.send-timeout-ms:5000}")
+    private long kafkaSendTimeoutMs = 5000;
 
     /**
      * Constructor-based dependency injection.
      *
-     * @param sensorDataService Service layer for sensor data processing.
-     * @param kafkaTemplate     Kafka template for event publishing.
+     * @param sensorDataService   Service layer for sensor data processing.
+     * @param sensorDataPublisher Publisher for Kafka event streaming.
+     * @param objectMapper        JSON mapper used to stream export bodies.
+     * @param readingBatchParser  Decoder for batch ingest bodies.
+     * @param readingBatchPool    Pool of reusable batches the bodies are decoded into.
+     * @param liveStreamHub       Hub pushing new readings and anomalies to stream subscribers.
      */
     @Autowired
-    public SensorDataController(SensorDataService sensorDataService, KafkaTemplate<String, String> kafkaTemplate) {
+    public SensorDataController(SensorDataService sensorDataService, SensorDataPublisher sensorDataPublisher,
+                                ObjectMapper objectMapper, ReadingBatchParser readingBatchParser,
+                                ReadingBatchPool readingBatchPool, LiveStreamHub liveStreamHub) {
         this.sensorDataService = sensorDataService;
-        this.kafkaTemplate = kafkaTemplate;
+        this.sensorDataPublisher = sensorDataPublisher;
+        this.objectMapper = objectMapper;
+        this.readingBatchParser = readingBatchParser;
+        this.readingBatchPool = readingBatchPool;
+        this.liveStreamHub = liveStreamHub;
     }
 
     /**
      * Endpoint to ingest new sensor data.
      * The data is persisted in the database and sent to Kafka for real-time processing.
+     * In write-behind mode the reading is only buffered and 202 is returned straight away;
+     * a full buffer is reported as 429 so clients back off.
+     * In Kafka-first mode the reading is only produced to Kafka and 202 is returned once the broker
+     * has acknowledged it; the Kafka consumer persists it.
+     * In WAL mode 202 is returned once the reading is on disk in the write-ahead log, and 503 when the
+     * log is full or cannot sync in time; the log is drained to the database or Kafka in the background.
+     * Readings are validated before any of these, so a rejected reading is never acknowledged.
+     * A reading of a new device is refused with 507 once the device registry is full.
      *
      * @param sensorData The sensor data received from IoT devices.
-     * @return ResponseEntity indicating success or failure.
+     * @return ResponseEntity indicating success or failure, or 400 with the reason if the reading is invalid.
      */
     @PostMapping("/ingest")
     public ResponseEntity<String> ingestSensorData(@RequestBody SensorData sensorData) {
-        sensorDataService.saveSensorData(sensorData);
+        String reason = SensorDataValidator.rejectionReason(sensorData);
+        if (reason != null) {
+            return ResponseEntity.badRequest().body(reason);
+        }
+        if (sensorData.getTimestamp() == null) {
+            sensorData.setTimestamp(LocalDateTime.now());
+        }
+
+        if (sensorDataService.isKafkaFirstEnabled()) {
+            if (!sensorDataPublisher.publishAndAwait(List.of(sensorData), kafkaSendTimeoutMs)) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Failed to publish sensor data.");
+            }
+            return ResponseEntity.accepted().body("Sensor data accepted for processing.");
+        }
+
+        if (sensorDataService.isWalEnabled()) {
+            if (!sensorDataService.appendToWal(List.of(sensorData))) {
+                return walUnavailable("Ingest log is full or not syncing, retry later.");
+            }
+            return ResponseEntity.accepted().body("Sensor data accepted for processing.");
+        }
+
+        if (sensorDataService.isWriteBehindEnabled()) {
+            if (!sensorDataService.submitSensorData(sensorData)) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body("Ingest buffer is full, retry later.");
+            }
+            sensorDataPublisher.publish(sensorData);
+            return ResponseEntity.accepted().body("Sensor data accepted for processing.");
+        }
+
+        try {
+            sensorDataService.saveSensorData(sensorData);
+        } catch (DeviceLimitExceededException e) {
+            return deviceLimitReached(e.getMessage());
+        }
 
         // Send data to Kafka for real-time streaming
-        kafkaTemplate.send(KAFKA_TOPIC, sensorData.toString());
+        sensorDataPublisher.publish(sensorData);
 
         return ResponseEntity.ok("Sensor data ingested successfully.");
     }
 
     /**
-     * Endpoint to retrieve all sensor data records.
+     * Endpoint to ingest a JSON array of sensor readings in one request.
+     * The body is decoded straight into a pooled column batch without building entities;
+     * valid readings are persisted in a single transaction using JDBC batch inserts,
+     * invalid readings are skipped and reported individually.
      *
-     * @return List of SensorData objects.
+     * @param body The raw JSON array received from an IoT gateway.
+     * @return ResponseEntity with per-item accept/reject counts, 400 if the body is not a JSON array,
+     * or 413 if it holds more than the maximum batch size or is larger than that many items allow.
+     */
+    @PostMapping(value = "/ingest/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchIngestResponse> ingestSensorDataBatch(InputStream body) throws IOException {
+        ReadingBatch batch = readingBatchPool.acquire();
+        try {
+            BatchIngestResponse response = new BatchIngestResponse();
+            boolean withinLimit;
+            try {
+                withinLimit = readingBatchParser.parseArray(body, batch, response, maxBatchSize);
+            } catch (JsonProcessingException e) {
+                return ResponseEntity.badRequest().build();
+            }
+            if (!withinLimit) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+            }
+            return persistBatch(batch, response);
+        } finally {
+            readingBatchPool.release(batch);
+        }
+    }
+
+    /**
+     * Endpoint to ingest newline-delimited JSON (NDJSON), one sensor reading per line.
+     * Lines that cannot be parsed are rejected without failing the rest of the batch.
+     *
+     * @param body The raw NDJSON request body.
+     * @return ResponseEntity with per-item accept/reject counts, or 413 if the body holds more than
+     * the maximum batch size or is larger than that many items allow.
+     */
+    @PostMapping(value = "/ingest/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BatchIngestResponse> ingestSensorDataNdjson(InputStream body) throws IOException {
+        ReadingBatch batch = readingBatchPool.acquire();
+        try {
+            BatchIngestResponse response = new BatchIngestResponse();
+            if (!readingBatchParser.parseNdjson(body, batch, response, maxBatchSize)) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+            }
+            return persistBatch(batch, response);
+        } finally {
+            readingBatchPool.release(batch);
+        }
+    }
+
+    /**
+     * Persists the accepted readings of a batch and forwards them to Kafka.
+     * In Kafka-first mode the readings are only produced and the consumer persists them;
+     * in WAL mode they are only appended to the write-ahead log. Otherwise a batch bringing more new devices
+     * than the device registry has room for is refused whole with 507.
+     */
+    private ResponseEntity<BatchIngestResponse> persistBatch(ReadingBatch batch, BatchIngestResponse response) {
+        if (sensorDataService.isKafkaFirstEnabled()) {
+            if (!sensorDataPublisher.publishAndAwait(batch.toSensorData(), kafkaSendTimeoutMs)) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            response.accept(batch.size());
+            return ResponseEntity.accepted().body(response);
+        }
+
+        if (sensorDataService.isWalEnabled()) {
+            if (!sensorDataService.appendToWal(batch)) {
+                return walUnavailable(null);
+            }
+            response.accept(batch.size());
+            return ResponseEntity.accepted().body(response);
+        }
+
+        List<SensorData> saved;
+        try {
+            saved = sensorDataService.saveReadingBatch(batch);
+        } catch (DeviceLimitExceededException e) {
+            return deviceLimitReached(null);
+        }
+        for (SensorData sensorData : saved) {
+            sensorDataPublisher.publish(sensorData);
+        }
+        response.accept(batch.size());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Builds the 507 returned when a reading's device is new and the device registry is full.
+     */
+    private static <T> ResponseEntity<T> deviceLimitReached(T body) {
+        return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE).body(body);
+    }
+
+    /**
+     * Builds the 503 returned when the write-ahead log refuses or cannot sync an append.
+     */
+    private static <T> ResponseEntity<T> walUnavailable(T body) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(body);
+    }
+
+    /**
+     * Endpoint to page through all sensor data records in {@code (timestamp, id)} order.
+     * Uses keyset pagination: pass the returned {@code nextCursor} to fetch the following page.
+     *
+     * @param cursor Token from the previous page, or absent for the first page.
+     * @param size   Maximum number of records to return.
+     * @return One page of SensorData objects, or 400 for an invalid cursor or size.
      */
     @GetMapping("/all")
-    public ResponseEntity<List<SensorData>> getAllSensorData() {
-        List<SensorData> sensorDataList = sensorDataService.getAllSensorData();
-        return ResponseEntity.ok(sensorDataList);
+    public ResponseEntity<SensorDataPage> getAllSensorData(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "500") int size) {
+        if (size < 1 || size > maxPageSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        SensorDataCursor after;
+        try {
+            after = cursor == null ? null : SensorDataCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(sensorDataService.getSensorDataPage(after, size));
+    }
+
+    /**
+     * Endpoint to export all sensor data records as newline-delimited JSON.
+     * Rows are streamed from a database cursor straight to the response,
+     * so exports of any size use constant memory.
+     *
+     * @return Streaming NDJSON body in {@code (timestamp, id)} order.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportSensorData() {
+        ObjectWriter writer = objectMapper.writerFor(SensorData.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = writer.createGenerator(out);
+            generator.setRootValueSeparator(null);
+            try {
+                sensorDataService.exportSensorData(sensorData -> {
+                    try {
+                        writer.writeValue(generator, sensorData);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Endpoint to stream new readings and anomalies of a set of devices as Server-Sent Events,
+     * replacing dashboard polling. Updates are coalesced per client: each {@code readings} event carries
+     * the latest reading of every device that changed since the previous one, and each {@code anomalies}
+     * event the anomalies raised meanwhile.
+     *
+     * @param deviceIds Devices to follow, as a comma-separated list or repeated parameter.
+     * @return The event stream, 400 for an empty or oversized device list,
+     * or 503 if the node already serves its maximum number of subscribers.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSensorData(@RequestParam List<String> deviceIds) {
+        SseEmitter emitter;
+        try {
+            emitter = liveStreamHub.subscribe(deviceIds);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+        return ResponseEntity.ok(emitter);
     }
 
     /**
@@ -74,6 +339,54 @@ public class SensorDataController {
         return ResponseEntity.ok(sensorDataList);
     }
 
+    /**
+     * Endpoint to retrieve the latest reading of a device from the in-memory cache.
+     *
+     * @param deviceId Unique identifier of the IoT device.
+     * @return The latest reading, or 404 if the device has never reported.
+     */
+    @GetMapping("/{deviceId}/latest")
+    public ResponseEntity<SensorReadingView> getLatestReading(@PathVariable String deviceId) {
+        return ResponseEntity.of(sensorDataService.getLatestReading(deviceId));
+    }
+
+    /**
+     * Endpoint to retrieve the latest readings of many devices in one request.
+     *
+     * @param deviceIds Unique identifiers of the IoT devices.
+     * @return The latest readings; devices that have never reported are omitted.
+     */
+    @PostMapping("/latest")
+    public ResponseEntity<List<SensorReadingView>> getLatestReadings(@RequestBody List<String> deviceIds) {
+        if (deviceIds.size() > maxBatchSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        return ResponseEntity.ok(sensorDataService.getLatestReadings(deviceIds));
+    }
+
+    /**
+     * Endpoint to retrieve a device's readings within a time range, newest first.
+     * Selected when a {@code from} parameter is present; served by the {@code (device_id, timestamp)} index.
+     *
+     * @param deviceId Unique identifier of the IoT device.
+     * @param from     Start of the range (inclusive), ISO-8601.
+     * @param to       End of the range (exclusive), ISO-8601; defaults to now.
+     * @param limit    Maximum number of readings to return.
+     * @return Read-only views of the matching readings, or 400 for an invalid range or limit.
+     */
+    @GetMapping(value = "/{deviceId}", params = "from")
+    public ResponseEntity<List<SensorReadingView>> getSensorDataByDeviceInRange(
+            @PathVariable String deviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "1000") int limit) {
+        LocalDateTime end = to == null ? LocalDateTime.now() : to;
+        if (!from.isBefore(end) || limit < 1 || limit > maxPageSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(sensorDataService.getSensorDataByDevice(deviceId, from, end, limit));
+    }
+
     /**
      * Health check endpoint for monitoring purposes.
      *
@@ -0,0 +1,64 @@
+package turing.example.iotsenser.detection;
+
+/**
+ * Scores column batches of readings against the threshold and z-score rules in one pass, for backfills and
+ * re-scoring history where evaluating reading objects one by one is too slow.
+ *
+ * <p>A row is anomalous when its temperature or humidity is above its threshold, or lies further than its
+ * z-score threshold times the standard deviation from its device's mean. The thresholds are those of the
+ * global rules in force of these forms, see {@link RuleEngine#scoringThresholds()}; other rule expressions
+ * are only evaluated by the {@link RuleEngine}.</p>
+ */
+public interface BatchScorer {
+
+    /**
+     * Class name of the scorer using the Vector API, present only in builds with the {@code vector} profile.
+     */
+    String VECTOR_SCORER = "turing.example.iotsenser.detection.VectorBatchScorer";
+
+    /**
+     * Scores every row of a batch.
+     *
+     * @param batch     Rows to score.
+     * @param anomalies Output bitmap of at least {@link ScoringBatch#words(int)} words; the bit of every anomalous
+     *                  row is set and every other bit of those words is cleared.
+     * @return Number of anomalous rows.
+     */
+    int score(ScoringBatch batch, long[] anomalies);
+
+    /**
+     * Creates a scorer using the Vector API when it is enabled and available, and plain loops otherwise.
+     * The Vector API is an incubator module: the vectorized scorer is only built with the {@code vector} Maven
+     * profile and only used when the JVM runs with {@code --add-modules jdk.incubator.vector}.
+     *
+     * @param thresholds Thresholds to apply.
+     * @param vectorized Whether to use the Vector API if it is available.
+     * @return The scorer.
+     */
+    static BatchScorer create(ScoringThresholds thresholds, boolean vectorized) {
+        if (vectorized && vectorApiAvailable()) {
+            try {
+                return (BatchScorer) Class.forName(VECTOR_SCORER).getConstructor(ScoringThresholds.class)
+                        .newInstance(thresholds);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Fall through to the scalar scorer
+            }
+        }
+        return new ScalarBatchScorer(thresholds);
+    }
+
+    /**
+     * Returns whether the vectorized scorer was built and the Vector API module is loaded, so that it can be used.
+     */
+    static boolean vectorApiAvailable() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            Class.forName(VECTOR_SCORER, false, BatchScorer.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package turing.example.iotsenser.detection;
+
+import turing.example.iotsenser.detection.RuleExpression.And;
+import turing.example.iotsenser.detection.RuleExpression.Compare;
+import turing.example.iotsenser.detection.RuleExpression.Flat;
+import turing.example.iotsenser.detection.RuleExpression.Not;
+import turing.example.iotsenser.detection.RuleExpression.Or;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A set of rules flattened into one postfix program over parallel arrays.
+ *
+ * <p>Each instruction is an int packing its opcode, the input it reads and whether to take the absolute
+ * value; thresholds, tolerances and durations sit at the same index in primitive arrays. Evaluating a rule
+ * walks its slice of the program once, keeping intermediate results as bits of a {@code long}, so a
+ * reading is checked against every rule without allocation, virtual calls or pointer chasing.
+ * Sub-expressions are not short-circuited, which keeps every {@code flat} condition's state current.</p>
+ */
+final class CompiledRules {
+
+    /**
+     * Number of inputs, indexed by {@link #input(RuleExpression.ValueKind, RuleExpression.Metric)}.
+     */
+    static final int INPUTS = RuleExpression.ValueKind.values().length * RuleExpression.Metric.values().length;
+
+    static final CompiledRules EMPTY = compile(List.of(), List.of());
+
+    private static final int GT = 0;
+    private static final int GE = 1;
+    private static final int LT = 2;
+    private static final int LE = 3;
+    private static final int FLAT = 4;
+    private static final int AND = 5;
+    private static final int OR = 6;
+    private static final int NOT = 7;
+
+    private static final int OPCODE_MASK = 0b111;
+    private static final int INPUT_SHIFT = 3;
+    private static final int INPUT_MASK = 0b111;
+    private static final int ABSOLUTE = 1 << 6;
+    private static final int SLOT_SHIFT = 7;
+
+    private final int[] code;
+    private final double[] operands;
+    private final long[] durations;
+    private final int[] ruleEnds;
+    private final String[] names;
+    private final String[] descriptions;
+    private final int flatSlots;
+
+    private CompiledRules(int[] code, double[] operands, long[] durations, int[] ruleEnds, String[] names,
+                          String[] descriptions, int flatSlots) {
+        this.code = code;
+        this.operands = operands;
+        this.durations = durations;
+        this.ruleEnds = ruleEnds;
+        this.names = names;
+        this.descriptions = descriptions;
+        this.flatSlots = flatSlots;
+    }
+
+    /**
+     * Compiles rules into a program.
+     *
+     * @param definitions Rules in evaluation order.
+     * @param conditions  Parsed condition of each rule.
+     * @return The program.
+     * @throws IllegalArgumentException if a condition nests too deeply to evaluate.
+     */
+    static CompiledRules compile(List<RuleDefinition> definitions, List<RuleExpression> conditions) {
+        Builder builder = new Builder();
+        int[] ruleEnds = new int[definitions.size()];
+        String[] names = new String[definitions.size()];
+        String[] descriptions = new String[definitions.size()];
+        for (int i = 0; i < ruleEnds.length; i++) {
+            int depth = builder.emit(conditions.get(i));
+            if (depth > Long.SIZE) {
+                throw new IllegalArgumentException("Rule " + definitions.get(i).getName() + " nests too deeply");
+            }
+            ruleEnds[i] = builder.length;
+            RuleDefinition definition = definitions.get(i);
+            names[i] = definition.getName();
+            descriptions[i] = "Rule " + definition.getName() + " matched: " + definition.getWhen().trim();
+        }
+        return new CompiledRules(Arrays.copyOf(builder.code, builder.length),
+                Arrays.copyOf(builder.operands, builder.length), Arrays.copyOf(builder.durations, builder.length),
+                ruleEnds, names, descriptions, builder.flatSlots);
+    }
+
+    /**
+     * Returns the index of an input in the array passed to {@link #evaluate}.
+     */
+    static int input(RuleExpression.ValueKind kind, RuleExpression.Metric metric) {
+        return kind.ordinal() * RuleExpression.Metric.values().length + metric.ordinal();
+    }
+
+    /**
+     * Returns the number of rules in the program.
+     */
+    int size() {
+        return ruleEnds.length;
+    }
+
+    /**
+     * Returns the number of {@code flat} conditions, each of which needs a slot of per-device state.
+     */
+    int flatSlots() {
+        return flatSlots;
+    }
+
+    /**
+     * Evaluates every rule against a reading.
+     *
+     * @param inputs     Values of the reading, indexed by {@link #input}; NaN where unknown, which fails any
+     *                   comparison against it.
+     * @param timeMillis Time of the reading.
+     * @param flatValues Value each {@code flat} condition is anchored at, updated in place; null to treat every
+     *                   {@code flat} condition as not holding.
+     * @param flatSince  Time each anchor was set, {@link Long#MIN_VALUE} if unset; updated in place.
+     * @return A finding for every matching rule, in rule order, or null if none matched.
+     */
+    List<Finding> evaluate(double[] inputs, long timeMillis, double[] flatValues, long[] flatSince) {
+        List<Finding> matched = null;
+        int pc = 0;
+        for (int rule = 0; rule < ruleEnds.length; rule++) {
+            long stack = 0;
+            for (int end = ruleEnds[rule]; pc < end; pc++) {
+                int instruction = code[pc];
+                int opcode = instruction & OPCODE_MASK;
+                if (opcode >= AND) {
+                    long top = stack & 1;
+                    if (opcode == NOT) {
+                        stack ^= 1;
+                    } else {
+                        stack >>>= 1;
+                        stack = opcode == AND ? stack & (top | ~1L) : stack | top;
+                    }
+                    continue;
+                }
+                double value = inputs[(instruction >>> INPUT_SHIFT) & INPUT_MASK];
+                if ((instruction & ABSOLUTE) != 0) {
+                    value = Math.abs(value);
+                }
+                boolean holds = switch (opcode) {
+                    case GT -> value > operands[pc];
+                    case GE -> value >= operands[pc];
+                    case LT -> value < operands[pc];
+                    case LE -> value <= operands[pc];
+                    default -> flat(instruction >>> SLOT_SHIFT, value, pc, timeMillis, flatValues, flatSince);
+                };
+                stack = stack << 1 | (holds ? 1 : 0);
+            }
+            if ((stack & 1) != 0) {
+                if (matched == null) {
+                    matched = new ArrayList<>(2);
+                }
+                matched.add(new Finding(names[rule], descriptions[rule]));
+            }
+        }
+        return matched;
+    }
+
+    private boolean flat(int slot, double value, int pc, long timeMillis, double[] flatValues, long[] flatSince) {
+        if (flatValues == null) {
+            return false;
+        }
+        if (flatSince[slot] == Long.MIN_VALUE || !(Math.abs(value - flatValues[slot]) <= operands[pc])) {
+            flatValues[slot] = value;
+            flatSince[slot] = timeMillis;
+            return false;
+        }
+        return timeMillis - flatSince[slot] >= durations[pc];
+    }
+
+    /**
+     * Appends expressions to the program in postfix order.
+     */
+    private static final class Builder {
+
+        int[] code = new int[64];
+        double[] operands = new double[64];
+        long[] durations = new long[64];
+        int length;
+        int flatSlots;
+
+        /**
+         * Emits an expression and returns the stack depth it needs.
+         */
+        int emit(RuleExpression expression) {
+            if (expression instanceof Compare compare) {
+                int opcode = switch (compare.comparison()) {
+                    case GT -> GT;
+                    case GE -> GE;
+                    case LT -> LT;
+                    case LE -> LE;
+                };
+                append(opcode | input(compare.kind(), compare.metric()) << INPUT_SHIFT
+                        | (compare.absolute() ? ABSOLUTE : 0), compare.threshold(), 0);
+                return 1;
+            }
+            if (expression instanceof Flat flat) {
+                append(FLAT | input(RuleExpression.ValueKind.VALUE, flat.metric()) << INPUT_SHIFT
+                        | flatSlots++ << SLOT_SHIFT, flat.tolerance(), flat.durationMillis());
+                return 1;
+            }
+            if (expression instanceof Not not) {
+                int depth = emit(not.operand());
+                append(NOT, 0, 0);
+                return depth;
+            }
+            RuleExpression left = expression instanceof And and ? and.left() : ((Or) expression).left();
+            RuleExpression right = expression instanceof And and ? and.right() : ((Or) expression).right();
+            int depth = Math.max(emit(left), emit(right) + 1);
+            append(expression instanceof And ? AND : OR, 0, 0);
+            return depth;
+        }
+
+        private void append(int instruction, double operand, long duration) {
+            if (length == code.length) {
+                code = Arrays.copyOf(code, length * 2);
+                operands = Arrays.copyOf(operands, length * 2);
+                durations = Arrays.copyOf(durations, length * 2);
+            }
+            code[length] = instruction;
+            operands[length] = operand;
+            durations[length] = duration;
+            length++;
+        }
+    }
+}
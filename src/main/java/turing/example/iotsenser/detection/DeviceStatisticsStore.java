@@ -0,0 +1,238 @@
+package turing.example.iotsenser.detection;
+
+/**
+ * Per-device rolling statistics for temperature and humidity.
+ * Keeps an exponentially weighted moving mean and variance per device in primitive arrays,
+ * so updating a known device is constant time and allocates nothing.
+ *
+ * <p>Devices are identified by their {@link turing.example.iotsenser.device.DeviceRegistry} key and stored
+ * in open-addressing hash segments, each guarded by its own lock, which keeps contention low and lets the
+ * store grow to millions of devices without per-entry objects or device ID strings. Entries are never removed;
+ * the registry's {@code iotsenser.devices.max} is what bounds their number.</p>
+ */
+public class DeviceStatisticsStore {
+
+    private static final float MAX_LOAD = 0.6f;
+    private static final int MAX_SEGMENTS = 256;
+
+    private final double alpha;
+    private final int warmupSamples;
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    /**
+     * Creates a statistics store.
+     *
+     * @param alpha            EWMA smoothing factor in (0, 1]; larger values adapt faster.
+     * @param warmupSamples    Number of readings a device needs before z-scores are reported.
+     * @param concurrencyLevel Approximate number of concurrently updating threads; rounded up to a power of two.
+     * @param expectedDevices  Expected number of distinct devices, used to pre-size the tables.
+     */
+    public DeviceStatisticsStore(double alpha, int warmupSamples, int concurrencyLevel, int expectedDevices) {
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("alpha must be in (0, 1]");
+        }
+        this.alpha = alpha;
+        this.warmupSamples = warmupSamples;
+        // Segments are picked by the low hash bits and slots by the bits above them, so cap at 2^8.
+        int segmentCount = Math.min(MAX_SEGMENTS, Integer.highestOneBit(Math.max(1, concurrencyLevel - 1) << 1));
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        int perSegment = (int) Math.ceil(expectedDevices / (double) segmentCount / MAX_LOAD);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(tableSizeFor(perSegment));
+        }
+    }
+
+    /**
+     * Scores a reading against its device's baseline, then folds it into the baseline.
+     *
+     * @param deviceKey   Registry key of the IoT device.
+     * @param temperature Temperature reading.
+     * @param humidity    Humidity reading.
+     * @param zScores     Two-element output array receiving the temperature and humidity z-scores;
+     *                    both are 0 while the device is still warming up or has no variance yet.
+     */
+    public void observe(int deviceKey, double temperature, double humidity, double[] zScores) {
+        int hash = spread(deviceKey);
+        Segment segment = segments[hash & segmentMask];
+        synchronized (segment) {
+            segment.observe(deviceKey, hash, temperature, humidity, zScores, alpha, warmupSamples);
+        }
+    }
+
+    /**
+     * Reads a device's baseline without updating it.
+     *
+     * @param deviceKey Registry key of the IoT device.
+     * @param baseline  Four-element output array receiving the temperature mean and standard deviation, then the
+     *                  humidity mean and standard deviation; left untouched when the method returns false.
+     * @return Whether the device is known and warmed up, so that its z-scores are meaningful.
+     */
+    public boolean baseline(int deviceKey, double[] baseline) {
+        int hash = spread(deviceKey);
+        Segment segment = segments[hash & segmentMask];
+        synchronized (segment) {
+            int slot = segment.find(deviceKey, hash);
+            if (slot < 0 || segment.counts[slot] < warmupSamples) {
+                return false;
+            }
+            baseline[0] = segment.temperatureMean[slot];
+            baseline[1] = Math.sqrt(segment.temperatureVariance[slot]);
+            baseline[2] = segment.humidityMean[slot];
+            baseline[3] = Math.sqrt(segment.humidityVariance[slot]);
+            return true;
+        }
+    }
+
+    /**
+     * Returns the number of readings observed for a device, or 0 if it is unknown.
+     *
+     * @param deviceKey Registry key of the IoT device.
+     */
+    public long sampleCount(int deviceKey) {
+        int hash = spread(deviceKey);
+        Segment segment = segments[hash & segmentMask];
+        synchronized (segment) {
+            int slot = segment.find(deviceKey, hash);
+            return slot < 0 ? 0 : segment.counts[slot];
+        }
+    }
+
+    /**
+     * Returns the number of distinct devices tracked.
+     */
+    public int size() {
+        int total = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                total += segment.size;
+            }
+        }
+        return total;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Math.max(16, Integer.highestOneBit(Math.max(1, capacity - 1) << 1));
+    }
+
+    /**
+     * One open-addressing table with linear probing; all arrays are indexed by slot.
+     * Occupied slots have a non-zero sample count.
+     */
+    private static final class Segment {
+
+        private int[] keys;
+        private long[] counts;
+        private double[] temperatureMean;
+        private double[] temperatureVariance;
+        private double[] humidityMean;
+        private double[] humidityVariance;
+        private int size;
+        private int threshold;
+
+        Segment(int capacity) {
+            allocate(capacity);
+        }
+
+        void observe(int deviceKey, int hash, double temperature, double humidity, double[] zScores,
+                     double alpha, int warmupSamples) {
+            int slot = find(deviceKey, hash);
+            if (slot < 0) {
+                slot = insert(deviceKey, hash);
+                temperatureMean[slot] = temperature;
+                humidityMean[slot] = humidity;
+                counts[slot] = 1;
+                zScores[0] = 0;
+                zScores[1] = 0;
+                return;
+            }
+            boolean warm = counts[slot] >= warmupSamples;
+            zScores[0] = warm ? zScore(temperature, temperatureMean[slot], temperatureVariance[slot]) : 0;
+            zScores[1] = warm ? zScore(humidity, humidityMean[slot], humidityVariance[slot]) : 0;
+
+            double diff = temperature - temperatureMean[slot];
+            double increment = alpha * diff;
+            temperatureMean[slot] += increment;
+            temperatureVariance[slot] = (1 - alpha) * (temperatureVariance[slot] + diff * increment);
+
+            diff = humidity - humidityMean[slot];
+            increment = alpha * diff;
+            humidityMean[slot] += increment;
+            humidityVariance[slot] = (1 - alpha) * (humidityVariance[slot] + diff * increment);
+
+            counts[slot]++;
+        }
+
+        int find(int deviceKey, int hash) {
+            int mask = keys.length - 1;
+            for (int slot = (hash >>> 8) & mask; ; slot = (slot + 1) & mask) {
+                if (counts[slot] == 0) {
+                    return -1;
+                }
+                if (keys[slot] == deviceKey) {
+                    return slot;
+                }
+            }
+        }
+
+        private int insert(int deviceKey, int hash) {
+            if (size >= threshold) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int slot = (hash >>> 8) & mask;
+            while (counts[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = deviceKey;
+            size++;
+            return slot;
+        }
+
+        private void resize() {
+            int[] oldKeys = keys;
+            long[] oldCounts = counts;
+            double[] oldTemperatureMean = temperatureMean;
+            double[] oldTemperatureVariance = temperatureVariance;
+            double[] oldHumidityMean = humidityMean;
+            double[] oldHumidityVariance = humidityVariance;
+            allocate(oldKeys.length << 1);
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldCounts[i] == 0) {
+                    continue;
+                }
+                int slot = (spread(oldKeys[i]) >>> 8) & mask;
+                while (counts[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                temperatureMean[slot] = oldTemperatureMean[i];
+                temperatureVariance[slot] = oldTemperatureVariance[i];
+                humidityMean[slot] = oldHumidityMean[i];
+                humidityVariance[slot] = oldHumidityVariance[i];
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new int[capacity];
+            counts = new long[capacity];
+            temperatureMean = new double[capacity];
+            temperatureVariance = new double[capacity];
+            humidityMean = new double[capacity];
+            humidityVariance = new double[capacity];
+            threshold = (int) (capacity * MAX_LOAD);
+        }
+
+        private static double zScore(double value, double mean, double variance) {
+            return variance > 0 ? (value - mean) / Math.sqrt(variance) : 0;
+        }
+    }
+}
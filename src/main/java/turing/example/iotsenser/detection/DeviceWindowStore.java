@@ -0,0 +1,316 @@
+package turing.example.iotsenser.detection;
+
+import java.util.Arrays;
+
+/**
+ * Per-device sliding windows of recent readings, for detectors that need more than the current reading.
+ *
+ * <p>Each device keeps its last {@code samples} readings in a ring buffer of primitives: the temperature and
+ * humidity as floats and the milliseconds since the previous reading as an int, so sample times are rebuilt
+ * by walking back from the newest one. Samples older than the window's time span are ignored. Next to the
+ * ring, each metric has a flatline anchor (the value it has stayed within tolerance of, and for how long),
+ * and the device carries a flag saying whether it is watched for gaps.</p>
+ *
+ * <p>Registry keys are dense, so windows are indexed by key directly, in pages of 1024 devices allocated on
+ * first use and each guarded by its own lock. A device costs {@code 28 + 12 * samples} bytes, 124 bytes with
+ * the default of 8 samples, so a million devices take about 125 MB.</p>
+ */
+public class DeviceWindowStore {
+
+    /**
+     * Index in the findings array of the temperature's change per second against the sample that changed
+     * fastest relative to it; NaN if no sample is old enough.
+     */
+    public static final int TEMPERATURE_RATE = 0;
+
+    /**
+     * Index in the findings array of the humidity's change per second; NaN if no sample is old enough.
+     */
+    public static final int HUMIDITY_RATE = 1;
+
+    /**
+     * Index in the findings array of the age in milliseconds of the sample the temperature rate was taken
+     * against.
+     */
+    public static final int TEMPERATURE_RATE_SPAN = 2;
+
+    /**
+     * Index in the findings array of the age in milliseconds of the sample the humidity rate was taken against.
+     */
+    public static final int HUMIDITY_RATE_SPAN = 3;
+
+    /**
+     * Index in the findings array of the milliseconds the temperature has stayed within tolerance.
+     */
+    public static final int TEMPERATURE_FLAT = 4;
+
+    /**
+     * Index in the findings array of the milliseconds the humidity has stayed within tolerance.
+     */
+    public static final int HUMIDITY_FLAT = 5;
+
+    /**
+     * Length of the findings array passed to {@link #observe}.
+     */
+    public static final int FINDINGS = 6;
+
+    /**
+     * Returned by {@link #expire} when the device has gone silent.
+     */
+    public static final long SILENT = -1;
+
+    /**
+     * Returned by {@link #expire} when the device is not tracked or not watched for gaps.
+     */
+    public static final long UNWATCHED = -2;
+
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int MAX_SAMPLES = 255;
+
+    private static final int COUNT_MASK = 0xFF;
+    private static final int HEAD_SHIFT = 8;
+    private static final int TRACKED = 1 << 16;
+    private static final int WATCHED = 1 << 17;
+
+    private final int samples;
+    private final long spanMillis;
+    private final long minSpanMillis;
+    private final double flatTolerance;
+
+    private volatile Page[] pages;
+
+    /**
+     * Creates a window store.
+     *
+     * @param samples         Readings kept per device, at most 255.
+     * @param spanMillis      Age beyond which samples are ignored.
+     * @param minSpanMillis   Minimum age of a sample for a rate of change to be taken against it, so that
+     *                        readings arriving in quick succession do not produce huge rates.
+     * @param flatTolerance   Largest change from the anchor that still counts as flat.
+     * @param expectedDevices Expected number of distinct devices, used to pre-size the page table.
+     */
+    public DeviceWindowStore(int samples, long spanMillis, long minSpanMillis, double flatTolerance,
+                             int expectedDevices) {
+        if (samples < 1 || samples > MAX_SAMPLES) {
+            throw new IllegalArgumentException("samples must be between 1 and " + MAX_SAMPLES);
+        }
+        this.samples = samples;
+        this.spanMillis = spanMillis;
+        this.minSpanMillis = Math.max(1, minSpanMillis);
+        this.flatTolerance = flatTolerance;
+        this.pages = new Page[(Math.max(0, expectedDevices) >>> PAGE_SHIFT) + 1];
+    }
+
+    /**
+     * Adds a reading to its device's window and reports what the window shows.
+     * Readings older than the device's newest one are not added and report nothing.
+     *
+     * @param deviceKey   Registry key of the IoT device; negative keys are ignored.
+     * @param timeMillis  Time of the reading.
+     * @param temperature Temperature reading.
+     * @param humidity    Humidity reading.
+     * @param findings    Output array of length {@link #FINDINGS}, indexed by the constants of this class.
+     * @return Whether the device was not watched for gaps and now is, in which case the caller schedules
+     * its gap check.
+     */
+    public boolean observe(int deviceKey, long timeMillis, double temperature, double humidity, double[] findings) {
+        findings[TEMPERATURE_RATE] = Double.NaN;
+        findings[HUMIDITY_RATE] = Double.NaN;
+        findings[TEMPERATURE_RATE_SPAN] = Double.NaN;
+        findings[HUMIDITY_RATE_SPAN] = Double.NaN;
+        findings[TEMPERATURE_FLAT] = 0;
+        findings[HUMIDITY_FLAT] = 0;
+        if (deviceKey < 0) {
+            return false;
+        }
+        Page page = page(deviceKey, true);
+        synchronized (page) {
+            return page.observe(deviceKey & PAGE_MASK, timeMillis, (float) temperature, (float) humidity, findings,
+                    spanMillis, minSpanMillis, flatTolerance);
+        }
+    }
+
+    /**
+     * Checks whether a watched device has gone silent. A silent device stops being watched until its next
+     * reading.
+     *
+     * @param deviceKey     Registry key of the IoT device.
+     * @param nowMillis     Current time.
+     * @param timeoutMillis Silence after which the device counts as gone.
+     * @param lastReading   Output array receiving the last temperature, humidity and reading time
+     *                      when the device is silent.
+     * @return The time the device goes silent if it still reports, {@link #SILENT} if it has gone silent,
+     * or {@link #UNWATCHED}.
+     */
+    public long expire(int deviceKey, long nowMillis, long timeoutMillis, double[] lastReading) {
+        Page page = deviceKey < 0 ? null : page(deviceKey, false);
+        if (page == null) {
+            return UNWATCHED;
+        }
+        synchronized (page) {
+            return page.expire(deviceKey & PAGE_MASK, nowMillis, timeoutMillis, lastReading);
+        }
+    }
+
+    /**
+     * Returns the number of distinct devices tracked.
+     */
+    public int size() {
+        int total = 0;
+        for (Page page : pages) {
+            if (page != null) {
+                synchronized (page) {
+                    total += page.size;
+                }
+            }
+        }
+        return total;
+    }
+
+    private Page page(int deviceKey, boolean create) {
+        int index = deviceKey >>> PAGE_SHIFT;
+        Page[] current = pages;
+        Page page = index < current.length ? current[index] : null;
+        if (page != null || !create) {
+            return page;
+        }
+        synchronized (this) {
+            current = pages;
+            if (index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+            }
+            if (current[index] == null) {
+                current[index] = new Page(samples);
+            }
+            pages = current;
+            return current[index];
+        }
+    }
+
+    private static int saturate(long millis) {
+        return (int) Math.min(millis, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Windows of 1024 consecutive device keys. Per-device arrays are indexed by the key's low bits, ring arrays
+     * by {@code index * samples + position}; the meta word holds the tracked and watched flags and the ring's
+     * sample count and head position.
+     */
+    private static final class Page {
+
+        private final int samples;
+        private final int[] meta = new int[PAGE_SIZE];
+        private final long[] lastMillis = new long[PAGE_SIZE];
+        private final int[] gaps;
+        private final float[] temperatures;
+        private final float[] humidities;
+        private final float[] flatTemperature = new float[PAGE_SIZE];
+        private final float[] flatHumidity = new float[PAGE_SIZE];
+        private final int[] flatTemperatureMillis = new int[PAGE_SIZE];
+        private final int[] flatHumidityMillis = new int[PAGE_SIZE];
+        private int size;
+
+        Page(int samples) {
+            this.samples = samples;
+            this.gaps = new int[PAGE_SIZE * samples];
+            this.temperatures = new float[PAGE_SIZE * samples];
+            this.humidities = new float[PAGE_SIZE * samples];
+        }
+
+        boolean observe(int index, long timeMillis, float temperature, float humidity, double[] findings,
+                        long spanMillis, long minSpanMillis, double flatTolerance) {
+            int state = meta[index];
+            int base = index * samples;
+            if (state == 0) {
+                temperatures[base] = temperature;
+                humidities[base] = humidity;
+                gaps[base] = 0;
+                lastMillis[index] = timeMillis;
+                flatTemperature[index] = temperature;
+                flatHumidity[index] = humidity;
+                flatTemperatureMillis[index] = 0;
+                flatHumidityMillis[index] = 0;
+                meta[index] = TRACKED | WATCHED | 1;
+                size++;
+                return true;
+            }
+            long elapsed = timeMillis - lastMillis[index];
+            if (elapsed < 0) {
+                return false;
+            }
+            int count = state & COUNT_MASK;
+            int head = (state >>> HEAD_SHIFT) & COUNT_MASK;
+
+            boolean rated = false;
+            double temperatureRate = 0;
+            double humidityRate = 0;
+            long age = elapsed;
+            int position = head;
+            for (int i = 0; i < count && age <= spanMillis; i++) {
+                if (age >= minSpanMillis) {
+                    rated = true;
+                    double seconds = age / 1000.0;
+                    double rate = (temperature - temperatures[base + position]) / seconds;
+                    if (Math.abs(rate) > Math.abs(temperatureRate)) {
+                        temperatureRate = rate;
+                        findings[TEMPERATURE_RATE_SPAN] = age;
+                    }
+                    rate = (humidity - humidities[base + position]) / seconds;
+                    if (Math.abs(rate) > Math.abs(humidityRate)) {
+                        humidityRate = rate;
+                        findings[HUMIDITY_RATE_SPAN] = age;
+                    }
+                }
+                age += gaps[base + position];
+                position = position == 0 ? samples - 1 : position - 1;
+            }
+            if (rated) {
+                findings[TEMPERATURE_RATE] = temperatureRate;
+                findings[HUMIDITY_RATE] = humidityRate;
+            }
+
+            head = head + 1 == samples ? 0 : head + 1;
+            temperatures[base + head] = temperature;
+            humidities[base + head] = humidity;
+            gaps[base + head] = saturate(elapsed);
+            lastMillis[index] = timeMillis;
+            count = Math.min(count + 1, samples);
+
+            if (Math.abs(temperature - flatTemperature[index]) <= flatTolerance) {
+                flatTemperatureMillis[index] = saturate(flatTemperatureMillis[index] + elapsed);
+            } else {
+                flatTemperature[index] = temperature;
+                flatTemperatureMillis[index] = 0;
+            }
+            if (Math.abs(humidity - flatHumidity[index]) <= flatTolerance) {
+                flatHumidityMillis[index] = saturate(flatHumidityMillis[index] + elapsed);
+            } else {
+                flatHumidity[index] = humidity;
+                flatHumidityMillis[index] = 0;
+            }
+            findings[TEMPERATURE_FLAT] = flatTemperatureMillis[index];
+            findings[HUMIDITY_FLAT] = flatHumidityMillis[index];
+
+            meta[index] = TRACKED | WATCHED | head << HEAD_SHIFT | count;
+            return (state & WATCHED) == 0;
+        }
+
+        long expire(int index, long nowMillis, long timeoutMillis, double[] lastReading) {
+            if ((meta[index] & WATCHED) == 0) {
+                return UNWATCHED;
+            }
+            long deadline = lastMillis[index] + timeoutMillis;
+            if (deadline > nowMillis) {
+                return deadline;
+            }
+            int head = (meta[index] >>> HEAD_SHIFT) & COUNT_MASK;
+            lastReading[0] = temperatures[index * samples + head];
+            lastReading[1] = humidities[index * samples + head];
+            lastReading[2] = lastMillis[index];
+            meta[index] &= ~WATCHED;
+            return SILENT;
+        }
+    }
+}
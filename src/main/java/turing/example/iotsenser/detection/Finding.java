@@ -0,0 +1,41 @@
+package turing.example.iotsenser.detection;
+
+import java.util.List;
+
+/**
+ * One reason a reading is anomalous: the rule or detector that fired and a description of what it saw.
+ *
+ * <p>The rule identifies the finding across readings, so the same rule firing again with other values is a
+ * repeat. Detection rules use their configured names; the {@link WindowDetector}'s detectors use fixed names
+ * starting with {@value #DETECTOR_PREFIX}.</p>
+ *
+ * @param rule        Name of the rule or detector.
+ * @param description Human-readable reason, including the values involved.
+ */
+public record Finding(String rule, String description) {
+
+    /**
+     * Prefix of the names of the built-in sliding-window detectors.
+     */
+    public static final String DETECTOR_PREFIX = "window.";
+
+    private static final String SEPARATOR = "; ";
+
+    /**
+     * Joins the descriptions of several findings into one anomaly description.
+     *
+     * @param findings  Findings to describe, in order.
+     * @param maxLength Length at which the description is cut off.
+     * @return The descriptions separated by {@code "; "}.
+     */
+    public static String describe(List<Finding> findings, int maxLength) {
+        StringBuilder description = new StringBuilder();
+        for (Finding finding : findings) {
+            if (!description.isEmpty()) {
+                description.append(SEPARATOR);
+            }
+            description.append(finding.description());
+        }
+        return description.length() > maxLength ? description.substring(0, maxLength) : description.toString();
+    }
+}
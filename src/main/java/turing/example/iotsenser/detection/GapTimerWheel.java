@@ -0,0 +1,95 @@
+package turing.example.iotsenser.detection;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Hashed timer wheel of device keys, used to find devices that stopped reporting without scanning the fleet.
+ *
+ * <p>The wheel has a fixed number of buckets, each covering one tick; a key is appended to the bucket of its
+ * deadline's tick and handed back when the wheel passes that tick. Deadlines further out than one turn are
+ * capped to the last bucket of the turn, and the owner reschedules keys whose deadline has not come yet, so
+ * arbitrary timeouts work with a small wheel. Buckets are growable int arrays, so a scheduled key costs four
+ * bytes and scheduling allocates only when a bucket grows.</p>
+ */
+public class GapTimerWheel {
+
+    private final long tickMillis;
+    private final int[][] buckets;
+    private final int[] sizes;
+    private long currentTick;
+    private int scheduled;
+
+    /**
+     * Creates a wheel.
+     *
+     * @param buckets    Number of buckets; one turn of the wheel spans {@code buckets * tickMillis}.
+     * @param tickMillis Resolution of the wheel.
+     * @param nowMillis  Current time; the wheel starts at this tick.
+     */
+    public GapTimerWheel(int buckets, long tickMillis, long nowMillis) {
+        if (buckets < 2 || tickMillis < 1) {
+            throw new IllegalArgumentException("A timer wheel needs at least two buckets and a positive tick");
+        }
+        this.tickMillis = tickMillis;
+        this.buckets = new int[buckets][];
+        this.sizes = new int[buckets];
+        for (int i = 0; i < buckets; i++) {
+            this.buckets[i] = new int[8];
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedules a key. A key due in the past or the current tick is handed back on the next tick.
+     *
+     * @param key            Key to schedule.
+     * @param deadlineMillis Time at which to hand the key back.
+     */
+    public synchronized void schedule(int key, long deadlineMillis) {
+        long tick = Math.max(deadlineMillis / tickMillis, currentTick + 1);
+        tick = Math.min(tick, currentTick + buckets.length);
+        int bucket = (int) Math.floorMod(tick, (long) buckets.length);
+        int size = sizes[bucket];
+        if (size == buckets[bucket].length) {
+            buckets[bucket] = Arrays.copyOf(buckets[bucket], size * 2);
+        }
+        buckets[bucket][size] = key;
+        sizes[bucket] = size + 1;
+        scheduled++;
+    }
+
+    /**
+     * Moves the wheel forward to the current time, handing back every key whose tick has passed.
+     * Keys are handed back outside the wheel's lock, so the consumer may reschedule them.
+     *
+     * @param nowMillis Current time.
+     * @param expired   Receives each key that is due.
+     */
+    public void advance(long nowMillis, IntConsumer expired) {
+        long targetTick = nowMillis / tickMillis;
+        while (true) {
+            int[] due;
+            synchronized (this) {
+                if (currentTick >= targetTick) {
+                    return;
+                }
+                currentTick++;
+                int bucket = (int) Math.floorMod(currentTick, (long) buckets.length);
+                due = Arrays.copyOf(buckets[bucket], sizes[bucket]);
+                sizes[bucket] = 0;
+                scheduled -= due.length;
+            }
+            for (int key : due) {
+                expired.accept(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of scheduled keys.
+     */
+    public synchronized int size() {
+        return scheduled;
+    }
+}
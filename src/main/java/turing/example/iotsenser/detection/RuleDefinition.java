@@ -0,0 +1,39 @@
+package turing.example.iotsenser.detection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A detection rule as written in configuration or stored in the {@code detection_rules} table.
+ *
+ * <p>The condition is an expression over the reading, for example
+ * {@code temperature > 80 and humidity < 20}, {@code abs(rate(temperature)) > 5} (units per minute),
+ * {@code abs(zscore(humidity)) > 4} (against the device's rolling baseline) or
+ * {@code flat(humidity, 10m, 0.1)} (within 0.1 of the same value for 10 minutes).</p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleDefinition {
+
+    /**
+     * Name of the rule, quoted in the description of the anomalies it raises.
+     */
+    private String name;
+
+    /**
+     * Devices the rule applies to.
+     */
+    private RuleScope scope = RuleScope.GLOBAL;
+
+    /**
+     * Group name for {@link RuleScope#GROUP}, device ID for {@link RuleScope#DEVICE}, otherwise unused.
+     */
+    private String target;
+
+    /**
+     * Condition under which a reading is anomalous.
+     */
+    private String when;
+}
@@ -0,0 +1,366 @@
+package turing.example.iotsenser.detection;
+
+import lombok.extern.slf4j.Slf4j;
+import turing.example.iotsenser.detection.RuleExpression.Compare;
+import turing.example.iotsenser.detection.RuleExpression.Comparison;
+import turing.example.iotsenser.detection.RuleExpression.Metric;
+import turing.example.iotsenser.detection.RuleExpression.ValueKind;
+import turing.example.iotsenser.model.SensorData;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates readings against detection rules that apply globally, to a group of devices or to one device.
+ *
+ * <p>Rules come from configuration and from the {@code detection_rules} table, a stored rule replacing a
+ * configured one of the same name. Stored rules are polled every {@code iotsenser.anomaly.rules.reload-interval}
+ * and, when they change, the whole rule book is rebuilt and swapped in; an invalid stored rule is logged and
+ * skipped, while an invalid configured rule fails startup.</p>
+ *
+ * <p>The rules applying to a device are compiled into one {@link CompiledRules} program, shared by every
+ * device with the same applicable rules. Each device keeps its previous reading for rate-of-change
+ * conditions and the anchors of its {@code flat} conditions; the device's readings arrive on one pipeline
+ * lane, so that state is rarely contended. Only registered devices are evaluated, so that state is
+ * bounded by {@code iotsenser.devices.max}.</p>
+ */
+@Slf4j
+public class RuleEngine implements AutoCloseable {
+
+    private static final ThreadLocal<double[]> INPUTS =
+            ThreadLocal.withInitial(() -> new double[CompiledRules.INPUTS]);
+
+    private static final int TEMPERATURE = CompiledRules.input(ValueKind.VALUE, Metric.TEMPERATURE);
+    private static final int HUMIDITY = CompiledRules.input(ValueKind.VALUE, Metric.HUMIDITY);
+    private static final int TEMPERATURE_RATE = CompiledRules.input(ValueKind.RATE, Metric.TEMPERATURE);
+    private static final int HUMIDITY_RATE = CompiledRules.input(ValueKind.RATE, Metric.HUMIDITY);
+    private static final int TEMPERATURE_ZSCORE = CompiledRules.input(ValueKind.ZSCORE, Metric.TEMPERATURE);
+    private static final int HUMIDITY_ZSCORE = CompiledRules.input(ValueKind.ZSCORE, Metric.HUMIDITY);
+
+    private static final double MILLIS_PER_MINUTE = 60_000.0;
+
+    private final List<RuleDefinition> configured;
+    private final Map<String, List<Pattern>> groups;
+    private final Supplier<List<RuleDefinition>> stored;
+    private final Duration reloadInterval;
+    private final Map<String, DeviceRuleState> devices = new ConcurrentHashMap<>();
+
+    private volatile RuleBook book;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates an engine holding the configured rules; stored rules are loaded by {@link #start()} or
+     * {@link #reload()}.
+     *
+     * @param configured     Rules from configuration.
+     * @param groups         Device ID patterns of each group, where {@code *} matches any run of characters.
+     * @param stored         Loads the enabled rules from the database.
+     * @param reloadInterval Interval between polls for changed stored rules.
+     * @throws IllegalArgumentException if a configured rule is invalid.
+     */
+    public RuleEngine(List<RuleDefinition> configured, Map<String, List<String>> groups,
+                      Supplier<List<RuleDefinition>> stored, Duration reloadInterval) {
+        this.configured = List.copyOf(configured);
+        this.groups = new LinkedHashMap<>();
+        groups.forEach((group, patterns) -> this.groups.put(group, patterns.stream().map(RuleEngine::glob).toList()));
+        this.stored = stored;
+        this.reloadInterval = reloadInterval;
+        this.book = build(this.configured, true, 1);
+    }
+
+    /**
+     * Returns the rules used when none are configured: the fixed temperature and humidity thresholds and
+     * the z-score rule against each device's rolling baseline.
+     *
+     * @param zScoreThreshold Deviation from the baseline, in standard deviations, that counts as an outlier.
+     * @return The default rules.
+     */
+    public static List<RuleDefinition> defaultRules(double zScoreThreshold) {
+        return List.of(
+                new RuleDefinition("high-temperature", RuleScope.GLOBAL, null, "temperature > 80"),
+                new RuleDefinition("high-humidity", RuleScope.GLOBAL, null, "humidity > 90"),
+                new RuleDefinition("temperature-outlier", RuleScope.GLOBAL, null,
+                        "abs(zscore(temperature)) > " + zScoreThreshold),
+                new RuleDefinition("humidity-outlier", RuleScope.GLOBAL, null,
+                        "abs(zscore(humidity)) > " + zScoreThreshold));
+    }
+
+    /**
+     * Loads the stored rules now and then polls them for changes.
+     */
+    public void start() {
+        reload();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rule-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = reloadInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::reload, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling for changed rules.
+     */
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Loads the stored rules and swaps in a new rule book if they changed.
+     * If they cannot be loaded, the current rules stay in force.
+     *
+     * @return Whether the rules changed.
+     */
+    public boolean reload() {
+        Map<String, RuleDefinition> byName = new LinkedHashMap<>();
+        configured.forEach(definition -> byName.put(definition.getName(), definition));
+        try {
+            stored.get().forEach(definition -> byName.put(definition.getName(), definition));
+        } catch (RuntimeException e) {
+            log.warn("Could not load detection rules; keeping the current rules: {}", e.getMessage());
+            return false;
+        }
+        List<RuleDefinition> definitions = List.copyOf(byName.values());
+        RuleBook current = book;
+        if (definitions.equals(current.definitions)) {
+            return false;
+        }
+        book = build(definitions, false, current.version + 1);
+        log.info("Loaded {} detection rules", book.conditions.size());
+        return true;
+    }
+
+    /**
+     * Returns the names of the rules in force.
+     */
+    public List<String> ruleNames() {
+        return book.rules.stream().map(RuleDefinition::getName).toList();
+    }
+
+    /**
+     * Returns the thresholds of the rules in force that a {@link BatchScorer} can apply, so bulk scoring follows
+     * reloaded rules: the lowest threshold of the global rules {@code temperature > x}, {@code humidity > x},
+     * {@code abs(zscore(temperature)) > z} and {@code abs(zscore(humidity)) > z}. Other rules are left out.
+     */
+    public ScoringThresholds scoringThresholds() {
+        return book.thresholds;
+    }
+
+    /**
+     * Evaluates a reading against the rules applying to its device and folds it into the device's state,
+     * so each reading must be evaluated exactly once.
+     *
+     * @param sensorData The reading.
+     * @param zScores    Deviation of the temperature and humidity from the device's baseline.
+     * @return A finding for every matching rule, named after the rule, or null if none matched.
+     */
+    public List<Finding> evaluate(SensorData sensorData, double[] zScores) {
+        RuleBook current = book;
+        DeviceRuleState state = devices.computeIfAbsent(sensorData.getDeviceId(), deviceId -> new DeviceRuleState());
+        long timeMillis = timeMillis(sensorData);
+        double[] inputs = INPUTS.get();
+        synchronized (state) {
+            if (state.book != current) {
+                state.reset(current, current.forDevice(sensorData.getDeviceId()));
+            }
+            inputs[TEMPERATURE] = sensorData.getTemperature();
+            inputs[HUMIDITY] = sensorData.getHumidity();
+            inputs[TEMPERATURE_ZSCORE] = zScores[0];
+            inputs[HUMIDITY_ZSCORE] = zScores[1];
+            boolean newer = timeMillis > state.previousMillis;
+            if (newer && state.previousMillis != Long.MIN_VALUE) {
+                double minutes = (timeMillis - state.previousMillis) / MILLIS_PER_MINUTE;
+                inputs[TEMPERATURE_RATE] = (sensorData.getTemperature() - state.previousTemperature) / minutes;
+                inputs[HUMIDITY_RATE] = (sensorData.getHumidity() - state.previousHumidity) / minutes;
+            } else {
+                inputs[TEMPERATURE_RATE] = Double.NaN;
+                inputs[HUMIDITY_RATE] = Double.NaN;
+            }
+            if (newer) {
+                state.previousTemperature = sensorData.getTemperature();
+                state.previousHumidity = sensorData.getHumidity();
+                state.previousMillis = timeMillis;
+            }
+            return state.rules.evaluate(inputs, timeMillis, state.flatValues, state.flatSince);
+        }
+    }
+
+    /**
+     * Checks a reading against the rules applying to its device without using or updating device state:
+     * rate-of-change and z-score conditions see unknown values and {@code flat} conditions do not hold.
+     *
+     * @param sensorData The reading.
+     * @return Whether any rule matched.
+     */
+    public boolean matches(SensorData sensorData) {
+        double[] inputs = INPUTS.get();
+        Arrays.fill(inputs, Double.NaN);
+        inputs[TEMPERATURE] = sensorData.getTemperature();
+        inputs[HUMIDITY] = sensorData.getHumidity();
+        return book.forDevice(sensorData.getDeviceId()).evaluate(inputs, timeMillis(sensorData), null, null) != null;
+    }
+
+    private RuleBook build(List<RuleDefinition> definitions, boolean strict, long version) {
+        List<RuleDefinition> rules = new ArrayList<>(definitions.size());
+        List<RuleExpression> conditions = new ArrayList<>(definitions.size());
+        for (RuleDefinition definition : definitions) {
+            try {
+                conditions.add(validate(definition));
+                rules.add(definition);
+            } catch (IllegalArgumentException e) {
+                if (strict) {
+                    throw e;
+                }
+                log.warn("Skipping detection rule {}: {}", definition.getName(), e.getMessage());
+            }
+        }
+        return new RuleBook(version, definitions, rules, conditions, groups);
+    }
+
+    private RuleExpression validate(RuleDefinition definition) {
+        if (definition.getName() == null || definition.getName().isBlank()) {
+            throw new IllegalArgumentException("Detection rules need a name");
+        }
+        RuleScope scope = definition.getScope();
+        if (scope == null) {
+            throw new IllegalArgumentException("Rule " + definition.getName() + " has no scope");
+        }
+        if (scope != RuleScope.GLOBAL && (definition.getTarget() == null || definition.getTarget().isBlank())) {
+            throw new IllegalArgumentException("Rule " + definition.getName() + " needs a target for scope " + scope);
+        }
+        if (scope == RuleScope.GROUP && !groups.containsKey(definition.getTarget())) {
+            throw new IllegalArgumentException("Rule " + definition.getName() + " targets unknown group "
+                    + definition.getTarget());
+        }
+        RuleExpression condition = RuleParser.parse(definition.getWhen());
+        CompiledRules.compile(List.of(definition), List.of(condition));
+        return condition;
+    }
+
+    private static long timeMillis(SensorData sensorData) {
+        return sensorData.getTimestamp() != null
+                ? sensorData.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli()
+                : System.currentTimeMillis();
+    }
+
+    private static Pattern glob(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (String literal : glob.trim().split("\\*", -1)) {
+            if (!regex.isEmpty()) {
+                regex.append(".*");
+            }
+            regex.append(Pattern.quote(literal));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static ScoringThresholds scoringThresholds(List<RuleDefinition> rules, List<RuleExpression> conditions) {
+        double maxTemperature = Double.POSITIVE_INFINITY;
+        double maxHumidity = Double.POSITIVE_INFINITY;
+        double temperatureZScore = Double.POSITIVE_INFINITY;
+        double humidityZScore = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < rules.size(); i++) {
+            if (rules.get(i).getScope() != RuleScope.GLOBAL || !(conditions.get(i) instanceof Compare compare)
+                    || compare.comparison() != Comparison.GT) {
+                continue;
+            }
+            boolean temperature = compare.metric() == Metric.TEMPERATURE;
+            if (compare.kind() == ValueKind.VALUE && !compare.absolute()) {
+                if (temperature) {
+                    maxTemperature = Math.min(maxTemperature, compare.threshold());
+                } else {
+                    maxHumidity = Math.min(maxHumidity, compare.threshold());
+                }
+            } else if (compare.kind() == ValueKind.ZSCORE && compare.absolute()) {
+                if (temperature) {
+                    temperatureZScore = Math.min(temperatureZScore, compare.threshold());
+                } else {
+                    humidityZScore = Math.min(humidityZScore, compare.threshold());
+                }
+            }
+        }
+        return new ScoringThresholds(maxTemperature, maxHumidity, temperatureZScore, humidityZScore);
+    }
+
+    /**
+     * Immutable set of rules in force, with the programs compiled from it so far.
+     */
+    private static final class RuleBook {
+
+        final long version;
+        final List<RuleDefinition> definitions;
+        final List<RuleDefinition> rules;
+        final List<RuleExpression> conditions;
+        final Map<String, List<Pattern>> groups;
+        final ScoringThresholds thresholds;
+        final Map<BitSet, CompiledRules> programs = new ConcurrentHashMap<>();
+
+        RuleBook(long version, List<RuleDefinition> definitions, List<RuleDefinition> rules,
+                 List<RuleExpression> conditions, Map<String, List<Pattern>> groups) {
+            this.version = version;
+            this.definitions = definitions;
+            this.rules = rules;
+            this.conditions = conditions;
+            this.groups = groups;
+            this.thresholds = scoringThresholds(rules, conditions);
+        }
+
+        /**
+         * Returns the program of the rules applying to a device.
+         */
+        CompiledRules forDevice(String deviceId) {
+            BitSet applicable = new BitSet(rules.size());
+            for (int i = 0; i < rules.size(); i++) {
+                RuleDefinition rule = rules.get(i);
+                boolean applies = switch (rule.getScope()) {
+                    case GLOBAL -> true;
+                    case DEVICE -> rule.getTarget().equals(deviceId);
+                    case GROUP -> groups.get(rule.getTarget()).stream()
+                            .anyMatch(pattern -> pattern.matcher(deviceId).matches());
+                };
+                applicable.set(i, applies);
+            }
+            return programs.computeIfAbsent(applicable, indexes -> CompiledRules.compile(
+                    indexes.stream().mapToObj(rules::get).toList(),
+                    indexes.stream().mapToObj(conditions::get).toList()));
+        }
+    }
+
+    /**
+     * A device's previous reading and the anchors of its {@code flat} conditions.
+     */
+    private static final class DeviceRuleState {
+
+        RuleBook book;
+        CompiledRules rules;
+        double[] flatValues;
+        long[] flatSince;
+        double previousTemperature;
+        double previousHumidity;
+        long previousMillis = Long.MIN_VALUE;
+
+        void reset(RuleBook book, CompiledRules rules) {
+            this.book = book;
+            this.rules = rules;
+            this.flatValues = new double[rules.flatSlots()];
+            this.flatSince = new long[rules.flatSlots()];
+            Arrays.fill(flatSince, Long.MIN_VALUE);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package turing.example.iotsenser.detection;
+
+/**
+ * Parsed condition of a detection rule.
+ */
+sealed interface RuleExpression {
+
+    /**
+     * Reading field a condition looks at.
+     */
+    enum Metric {
+        TEMPERATURE, HUMIDITY
+    }
+
+    /**
+     * Value derived from a metric.
+     */
+    enum ValueKind {
+        /**
+         * The reading's value.
+         */
+        VALUE,
+        /**
+         * Change since the device's previous reading, per minute.
+         */
+        RATE,
+        /**
+         * Deviation from the device's rolling baseline, in standard deviations.
+         */
+        ZSCORE
+    }
+
+    /**
+     * Comparison operator.
+     */
+    enum Comparison {
+        GT(">"), GE(">="), LT("<"), LE("<=");
+
+        private final String symbol;
+
+        Comparison(String symbol) {
+            this.symbol = symbol;
+        }
+
+        String symbol() {
+            return symbol;
+        }
+    }
+
+    /**
+     * Compares a value derived from a metric with a constant.
+     */
+    record Compare(ValueKind kind, Metric metric, boolean absolute, Comparison comparison, double threshold)
+            implements RuleExpression {
+    }
+
+    /**
+     * Holds while a metric has stayed within a tolerance of one value for at least a duration.
+     */
+    record Flat(Metric metric, long durationMillis, double tolerance) implements RuleExpression {
+    }
+
+    /**
+     * Holds when both operands hold.
+     */
+    record And(RuleExpression left, RuleExpression right) implements RuleExpression {
+    }
+
+    /**
+     * Holds when either operand holds.
+     */
+    record Or(RuleExpression left, RuleExpression right) implements RuleExpression {
+    }
+
+    /**
+     * Holds when the operand does not.
+     */
+    record Not(RuleExpression operand) implements RuleExpression {
+    }
+}
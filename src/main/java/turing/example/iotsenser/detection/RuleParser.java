@@ -0,0 +1,229 @@
+package turing.example.iotsenser.detection;
+
+import org.springframework.boot.convert.DurationStyle;
+import turing.example.iotsenser.detection.RuleExpression.And;
+import turing.example.iotsenser.detection.RuleExpression.Compare;
+import turing.example.iotsenser.detection.RuleExpression.Comparison;
+import turing.example.iotsenser.detection.RuleExpression.Flat;
+import turing.example.iotsenser.detection.RuleExpression.Metric;
+import turing.example.iotsenser.detection.RuleExpression.Not;
+import turing.example.iotsenser.detection.RuleExpression.Or;
+import turing.example.iotsenser.detection.RuleExpression.ValueKind;
+
+import java.util.Locale;
+
+/**
+ * Recursive-descent parser for rule conditions.
+ *
+ * <pre>
+ * or      := and (("or" | "||") and)*
+ * and     := unary (("and" | "&amp;&amp;") unary)*
+ * unary   := ("not" | "!") unary | "(" or ")" | flat | term (">" | ">=" | "&lt;" | "&lt;=") number
+ * flat    := "flat" "(" metric "," duration ["," number] ")"
+ * term    := metric | "rate" "(" metric ")" | "zscore" "(" metric ")" | "abs" "(" term ")"
+ * metric  := "temperature" | "humidity"
+ * </pre>
+ *
+ * Keywords are case-insensitive and durations use Spring's simple format, such as {@code 10m}.
+ */
+final class RuleParser {
+
+    private final String source;
+    private int position;
+
+    private RuleParser(String source) {
+        this.source = source;
+    }
+
+    /**
+     * Parses a rule condition.
+     *
+     * @param source Condition text.
+     * @return The parsed expression.
+     * @throws IllegalArgumentException if the text is not a valid condition.
+     */
+    static RuleExpression parse(String source) {
+        if (source == null || source.isBlank()) {
+            throw new IllegalArgumentException("Rule condition is empty");
+        }
+        RuleParser parser = new RuleParser(source);
+        RuleExpression expression = parser.or();
+        parser.skipWhitespace();
+        if (parser.position < source.length()) {
+            throw parser.error("Unexpected '" + source.substring(parser.position) + "'");
+        }
+        return expression;
+    }
+
+    private RuleExpression or() {
+        RuleExpression expression = and();
+        while (acceptWord("or") || accept("||")) {
+            expression = new Or(expression, and());
+        }
+        return expression;
+    }
+
+    private RuleExpression and() {
+        RuleExpression expression = unary();
+        while (acceptWord("and") || accept("&&")) {
+            expression = new And(expression, unary());
+        }
+        return expression;
+    }
+
+    private RuleExpression unary() {
+        if (acceptWord("not") || accept("!")) {
+            return new Not(unary());
+        }
+        if (accept("(")) {
+            RuleExpression expression = or();
+            expect(")");
+            return expression;
+        }
+        if (acceptWord("flat")) {
+            expect("(");
+            Metric metric = metric();
+            expect(",");
+            long durationMillis = duration();
+            double tolerance = accept(",") ? number() : 0;
+            expect(")");
+            if (tolerance < 0) {
+                throw error("Tolerance must not be negative");
+            }
+            return new Flat(metric, durationMillis, tolerance);
+        }
+        Compare term = term();
+        Comparison comparison = comparison();
+        return new Compare(term.kind(), term.metric(), term.absolute(), comparison, number());
+    }
+
+    /**
+     * Parses a term, returned as a comparison whose operator and threshold are not yet known.
+     */
+    private Compare term() {
+        if (acceptWord("abs")) {
+            expect("(");
+            Compare inner = term();
+            expect(")");
+            return new Compare(inner.kind(), inner.metric(), true, null, 0);
+        }
+        ValueKind kind = acceptWord("rate") ? ValueKind.RATE : acceptWord("zscore") ? ValueKind.ZSCORE : null;
+        if (kind == null) {
+            return new Compare(ValueKind.VALUE, metric(), false, null, 0);
+        }
+        expect("(");
+        Metric metric = metric();
+        expect(")");
+        return new Compare(kind, metric, false, null, 0);
+    }
+
+    private Metric metric() {
+        String word = word();
+        try {
+            return Metric.valueOf(word.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw error("Expected temperature or humidity but found '" + word + "'");
+        }
+    }
+
+    private Comparison comparison() {
+        if (accept(">=")) {
+            return Comparison.GE;
+        }
+        if (accept("<=")) {
+            return Comparison.LE;
+        }
+        if (accept(">")) {
+            return Comparison.GT;
+        }
+        if (accept("<")) {
+            return Comparison.LT;
+        }
+        throw error("Expected one of >, >=, <, <=");
+    }
+
+    private double number() {
+        skipWhitespace();
+        int start = position;
+        if (position < source.length() && (source.charAt(position) == '-' || source.charAt(position) == '+')) {
+            position++;
+        }
+        while (position < source.length()
+                && (Character.isDigit(source.charAt(position)) || source.charAt(position) == '.')) {
+            position++;
+        }
+        try {
+            return Double.parseDouble(source.substring(start, position));
+        } catch (NumberFormatException e) {
+            position = start;
+            throw error("Expected a number");
+        }
+    }
+
+    private long duration() {
+        skipWhitespace();
+        int start = position;
+        while (position < source.length() && Character.isLetterOrDigit(source.charAt(position))) {
+            position++;
+        }
+        try {
+            long millis = DurationStyle.SIMPLE.parse(source.substring(start, position)).toMillis();
+            if (millis <= 0) {
+                throw new IllegalArgumentException();
+            }
+            return millis;
+        } catch (IllegalArgumentException e) {
+            position = start;
+            throw error("Expected a positive duration such as 10m");
+        }
+    }
+
+    private String word() {
+        skipWhitespace();
+        int start = position;
+        while (position < source.length() && Character.isLetter(source.charAt(position))) {
+            position++;
+        }
+        return source.substring(start, position);
+    }
+
+    private boolean acceptWord(String keyword) {
+        skipWhitespace();
+        int end = position + keyword.length();
+        if (!source.regionMatches(true, position, keyword, 0, keyword.length())
+                || (end < source.length() && Character.isLetterOrDigit(source.charAt(end)))) {
+            return false;
+        }
+        position = end;
+        return true;
+    }
+
+    private boolean accept(String symbol) {
+        if (!peek(symbol)) {
+            return false;
+        }
+        position += symbol.length();
+        return true;
+    }
+
+    private boolean peek(String symbol) {
+        skipWhitespace();
+        return source.startsWith(symbol, position);
+    }
+
+    private void expect(String symbol) {
+        if (!accept(symbol)) {
+            throw error("Expected '" + symbol + "'");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position + " of rule '" + source + "'");
+    }
+}
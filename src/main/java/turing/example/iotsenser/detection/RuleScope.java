@@ -0,0 +1,22 @@
+package turing.example.iotsenser.detection;
+
+/**
+ * Devices a detection rule applies to.
+ */
+public enum RuleScope {
+
+    /**
+     * Every device.
+     */
+    GLOBAL,
+
+    /**
+     * Devices whose ID matches one of the group's patterns, see {@code iotsenser.anomaly.groups}.
+     */
+    GROUP,
+
+    /**
+     * A single device.
+     */
+    DEVICE
+}
@@ -0,0 +1,61 @@
+package turing.example.iotsenser.detection;
+
+import java.util.Arrays;
+
+/**
+ * {@link BatchScorer} using plain loops, for JVMs running without the Vector API.
+ * The loop is branch-free, so the JIT may still auto-vectorize parts of it.
+ */
+public class ScalarBatchScorer implements BatchScorer {
+
+    private final ScoringThresholds thresholds;
+
+    /**
+     * Creates a scorer.
+     *
+     * @param thresholds Thresholds to apply.
+     */
+    public ScalarBatchScorer(ScoringThresholds thresholds) {
+        this.thresholds = thresholds;
+    }
+
+    @Override
+    public int score(ScoringBatch batch, long[] anomalies) {
+        int size = batch.size();
+        Arrays.fill(anomalies, 0, ScoringBatch.words(size), 0);
+        return scoreRange(batch, 0, size, anomalies, thresholds);
+    }
+
+    /**
+     * Scores rows {@code from} to {@code to} into a cleared bitmap; shared with {@code VectorBatchScorer}'s tail.
+     */
+    static int scoreRange(ScoringBatch batch, int from, int to, long[] anomalies, ScoringThresholds thresholds) {
+        double maxTemperature = thresholds.maxTemperature();
+        double maxHumidity = thresholds.maxHumidity();
+        double temperatureZScore = thresholds.temperatureZScore();
+        double humidityZScore = thresholds.humidityZScore();
+        double[] temperatures = batch.temperatures;
+        double[] humidities = batch.humidities;
+        double[] temperatureMeans = batch.temperatureMeans;
+        double[] temperatureStdDevs = batch.temperatureStdDevs;
+        double[] humidityMeans = batch.humidityMeans;
+        double[] humidityStdDevs = batch.humidityStdDevs;
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            double temperature = temperatures[i];
+            double humidity = humidities[i];
+            double temperatureStdDev = temperatureStdDevs[i];
+            double humidityStdDev = humidityStdDevs[i];
+            boolean anomalous = temperature > maxTemperature
+                    | humidity > maxHumidity
+                    | temperatureStdDev > 0
+                    & Math.abs(temperature - temperatureMeans[i]) > temperatureStdDev * temperatureZScore
+                    | humidityStdDev > 0
+                    & Math.abs(humidity - humidityMeans[i]) > humidityStdDev * humidityZScore;
+            long bit = anomalous ? 1 : 0;
+            anomalies[i >>> 6] |= bit << i;
+            count += (int) bit;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,109 @@
+package turing.example.iotsenser.detection;
+
+import java.util.Arrays;
+
+/**
+ * Reusable, column-oriented batch of readings to score with a {@link BatchScorer}.
+ *
+ * <p>Each reading is a row across parallel {@code double} arrays: its temperature and humidity, and the mean and
+ * standard deviation of its device's baseline for each. Rows without a baseline hold NaN there, which fails every
+ * z-score comparison, so only the thresholds apply to them. Results are bitmaps with one bit per row, row
+ * {@code i} being bit {@code i & 63} of word {@code i >>> 6}.</p>
+ */
+public final class ScoringBatch {
+
+    double[] temperatures;
+    double[] humidities;
+    double[] temperatureMeans;
+    double[] temperatureStdDevs;
+    double[] humidityMeans;
+    double[] humidityStdDevs;
+    private int size;
+
+    /**
+     * Creates an empty batch.
+     *
+     * @param capacity Expected number of rows; the batch grows past it as needed.
+     */
+    public ScoringBatch(int capacity) {
+        allocate(Math.max(16, capacity));
+    }
+
+    /**
+     * Appends a reading whose device has no baseline.
+     *
+     * @param temperature Temperature reading.
+     * @param humidity    Humidity reading.
+     */
+    public void add(double temperature, double humidity) {
+        add(temperature, humidity, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+    }
+
+    /**
+     * Appends a reading with its device's baseline.
+     *
+     * @param temperature       Temperature reading.
+     * @param humidity          Humidity reading.
+     * @param temperatureMean   Mean temperature of the device.
+     * @param temperatureStdDev Standard deviation of the device's temperature.
+     * @param humidityMean      Mean humidity of the device.
+     * @param humidityStdDev    Standard deviation of the device's humidity.
+     */
+    public void add(double temperature, double humidity, double temperatureMean, double temperatureStdDev,
+                    double humidityMean, double humidityStdDev) {
+        if (size == temperatures.length) {
+            grow();
+        }
+        temperatures[size] = temperature;
+        humidities[size] = humidity;
+        temperatureMeans[size] = temperatureMean;
+        temperatureStdDevs[size] = temperatureStdDev;
+        humidityMeans[size] = humidityMean;
+        humidityStdDevs[size] = humidityStdDev;
+        size++;
+    }
+
+    /**
+     * Empties the batch, keeping its arrays for reuse.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of {@code long} words a bitmap needs for the given number of rows.
+     */
+    public static int words(int rows) {
+        return (rows + Long.SIZE - 1) >>> 6;
+    }
+
+    /**
+     * Returns whether a row's bit is set in a result bitmap.
+     */
+    public static boolean isSet(long[] bitmap, int row) {
+        return (bitmap[row >>> 6] & 1L << row) != 0;
+    }
+
+    private void grow() {
+        int capacity = temperatures.length * 2;
+        temperatures = Arrays.copyOf(temperatures, capacity);
+        humidities = Arrays.copyOf(humidities, capacity);
+        temperatureMeans = Arrays.copyOf(temperatureMeans, capacity);
+        temperatureStdDevs = Arrays.copyOf(temperatureStdDevs, capacity);
+        humidityMeans = Arrays.copyOf(humidityMeans, capacity);
+        humidityStdDevs = Arrays.copyOf(humidityStdDevs, capacity);
+    }
+
+    private void allocate(int capacity) {
+        temperatures = new double[capacity];
+        humidities = new double[capacity];
+        temperatureMeans = new double[capacity];
+        temperatureStdDevs = new double[capacity];
+        humidityMeans = new double[capacity];
+        humidityStdDevs = new double[capacity];
+    }
+}
@@ -0,0 +1,22 @@
+package turing.example.iotsenser.detection;
+
+/**
+ * Thresholds a {@link BatchScorer} applies, taken from the detection rules in force by
+ * {@link RuleEngine#scoringThresholds()}. A threshold no rule sets is infinite, so it never flags a row.
+ *
+ * @param maxTemperature    Largest normal temperature.
+ * @param maxHumidity       Largest normal humidity.
+ * @param temperatureZScore Largest normal distance of the temperature from the device's mean,
+ *                          in standard deviations.
+ * @param humidityZScore    Largest normal distance of the humidity from the device's mean,
+ *                          in standard deviations.
+ */
+public record ScoringThresholds(double maxTemperature, double maxHumidity, double temperatureZScore,
+                                double humidityZScore) {
+
+    /**
+     * Thresholds that flag nothing.
+     */
+    public static final ScoringThresholds NONE = new ScoringThresholds(Double.POSITIVE_INFINITY,
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+}
@@ -0,0 +1,174 @@
+package turing.example.iotsenser.detection;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Detectors running on each device's sliding window: sudden changes, flatlined sensors and silent devices.
+ *
+ * <p>A reading is anomalous when a metric changed faster than its limit per second against any recent sample
+ * old enough to judge, or when a metric has stayed within tolerance for the flatline duration. Gaps are found
+ * by a {@link GapTimerWheel}: a device enters the wheel once when it starts reporting and, when its tick comes,
+ * is either rescheduled for its latest reading's deadline or reported as silent. Readings therefore never touch
+ * the wheel, and finding silent devices costs work proportional to the devices due, not to the fleet.</p>
+ *
+ * <p>A limit of zero disables its detector. Findings are named {@value #TEMPERATURE_RATE}, {@value #HUMIDITY_RATE},
+ * {@value #TEMPERATURE_FLAT}, {@value #HUMIDITY_FLAT} and {@value #GAP}.</p>
+ */
+public class WindowDetector {
+
+    /**
+     * Name of the finding for a sudden temperature change.
+     */
+    public static final String TEMPERATURE_RATE = Finding.DETECTOR_PREFIX + "temperature-rate";
+
+    /**
+     * Name of the finding for a sudden humidity change.
+     */
+    public static final String HUMIDITY_RATE = Finding.DETECTOR_PREFIX + "humidity-rate";
+
+    /**
+     * Name of the finding for a stuck temperature sensor.
+     */
+    public static final String TEMPERATURE_FLAT = Finding.DETECTOR_PREFIX + "temperature-flat";
+
+    /**
+     * Name of the finding for a stuck humidity sensor.
+     */
+    public static final String HUMIDITY_FLAT = Finding.DETECTOR_PREFIX + "humidity-flat";
+
+    /**
+     * Name of the finding for a device that stopped reporting.
+     */
+    public static final String GAP = Finding.DETECTOR_PREFIX + "gap";
+
+    private static final ThreadLocal<double[]> FINDINGS =
+            ThreadLocal.withInitial(() -> new double[DeviceWindowStore.FINDINGS]);
+
+    private final DeviceWindowStore store;
+    private final GapTimerWheel wheel;
+    private final double maxTemperatureRate;
+    private final double maxHumidityRate;
+    private final long flatlineMillis;
+    private final long gapMillis;
+
+    /**
+     * Creates a detector.
+     *
+     * @param store              Per-device windows.
+     * @param wheel              Wheel scheduling gap checks.
+     * @param maxTemperatureRate Largest normal temperature change per second.
+     * @param maxHumidityRate    Largest normal humidity change per second.
+     * @param flatline           Time a metric may stay flat before the sensor counts as stuck.
+     * @param gap                Silence after which a device counts as gone.
+     */
+    public WindowDetector(DeviceWindowStore store, GapTimerWheel wheel, double maxTemperatureRate,
+                          double maxHumidityRate, Duration flatline, Duration gap) {
+        this.store = store;
+        this.wheel = wheel;
+        this.maxTemperatureRate = maxTemperatureRate;
+        this.maxHumidityRate = maxHumidityRate;
+        this.flatlineMillis = flatline.toMillis();
+        this.gapMillis = gap.toMillis();
+    }
+
+    /**
+     * Adds a reading to its device's window and checks the window.
+     *
+     * @param deviceKey   Registry key of the IoT device.
+     * @param timeMillis  Time of the reading.
+     * @param temperature Temperature reading.
+     * @param humidity    Humidity reading.
+     * @return The detected anomalies, or null if there are none.
+     */
+    public List<Finding> observe(int deviceKey, long timeMillis, double temperature, double humidity) {
+        double[] findings = FINDINGS.get();
+        if (store.observe(deviceKey, timeMillis, temperature, humidity, findings) && gapMillis > 0) {
+            wheel.schedule(deviceKey, timeMillis + gapMillis);
+        }
+        List<Finding> reasons = null;
+        reasons = checkRate(reasons, TEMPERATURE_RATE, "Temperature", findings[DeviceWindowStore.TEMPERATURE_RATE],
+                findings[DeviceWindowStore.TEMPERATURE_RATE_SPAN], maxTemperatureRate);
+        reasons = checkRate(reasons, HUMIDITY_RATE, "Humidity", findings[DeviceWindowStore.HUMIDITY_RATE],
+                findings[DeviceWindowStore.HUMIDITY_RATE_SPAN], maxHumidityRate);
+        reasons = checkFlat(reasons, TEMPERATURE_FLAT, "Temperature", temperature,
+                findings[DeviceWindowStore.TEMPERATURE_FLAT]);
+        reasons = checkFlat(reasons, HUMIDITY_FLAT, "Humidity", humidity, findings[DeviceWindowStore.HUMIDITY_FLAT]);
+        return reasons;
+    }
+
+    /**
+     * Collects the devices that went silent by now and reschedules those still reporting.
+     * Each silent device is reported once, until it reports again.
+     *
+     * @param nowMillis Current time.
+     * @return The devices that went silent.
+     */
+    public List<Gap> expireGaps(long nowMillis) {
+        List<Gap> gaps = new ArrayList<>();
+        double[] lastReading = new double[3];
+        wheel.advance(nowMillis, deviceKey -> {
+            long deadline = store.expire(deviceKey, nowMillis, gapMillis, lastReading);
+            if (deadline == DeviceWindowStore.SILENT) {
+                gaps.add(new Gap(deviceKey, (long) lastReading[2], lastReading[0], lastReading[1], new Finding(GAP,
+                        String.format(Locale.ROOT, "No reading for %ds", (nowMillis - (long) lastReading[2]) / 1000))));
+            } else if (deadline != DeviceWindowStore.UNWATCHED) {
+                wheel.schedule(deviceKey, deadline);
+            }
+        });
+        return gaps;
+    }
+
+    /**
+     * Returns the number of devices with a window.
+     */
+    public int trackedDevices() {
+        return store.size();
+    }
+
+    /**
+     * Returns the number of devices waiting for a gap check.
+     */
+    public int watchedDevices() {
+        return wheel.size();
+    }
+
+    private static List<Finding> checkRate(List<Finding> reasons, String rule, String metric, double rate,
+                                           double spanMillis, double limit) {
+        if (limit <= 0 || !(Math.abs(rate) > limit)) {
+            return reasons;
+        }
+        double seconds = spanMillis / 1000.0;
+        return add(reasons, new Finding(rule, String.format(Locale.ROOT, "%s changed by %.1f in %.1fs (%.2f/s)",
+                metric, rate * seconds, seconds, rate)));
+    }
+
+    private List<Finding> checkFlat(List<Finding> reasons, String rule, String metric, double value,
+                                    double flatMillis) {
+        if (flatlineMillis <= 0 || flatMillis < flatlineMillis) {
+            return reasons;
+        }
+        return add(reasons, new Finding(rule, String.format(Locale.ROOT, "%s flat at %.1f for %ds", metric, value,
+                (long) flatMillis / 1000)));
+    }
+
+    private static List<Finding> add(List<Finding> reasons, Finding reason) {
+        List<Finding> list = reasons == null ? new ArrayList<>(2) : reasons;
+        list.add(reason);
+        return list;
+    }
+
+    /**
+     * A device that stopped reporting.
+     *
+     * @param deviceKey       Registry key of the IoT device.
+     * @param lastSeenMillis  Time of its last reading.
+     * @param temperature     Temperature of its last reading.
+     * @param humidity        Humidity of its last reading.
+     * @param finding         Finding describing the gap.
+     */
+    public record Gap(int deviceKey, long lastSeenMillis, double temperature, double humidity, Finding finding) {
+    }
+}
@@ -0,0 +1,18 @@
+package turing.example.iotsenser.device;
+
+/**
+ * Thrown when registering a device would take the device registry past its configured maximum.
+ * Readings of devices that are already registered are still accepted.
+ */
+public class DeviceLimitExceededException extends RuntimeException {
+
+    /**
+     * Creates the exception for a rejected registration.
+     *
+     * @param deviceId   The device that could not be registered.
+     * @param maxDevices The configured maximum number of devices.
+     */
+    public DeviceLimitExceededException(String deviceId, int maxDevices) {
+        super("Cannot register device " + deviceId + ": the registry holds its maximum of " + maxDevices + " devices");
+    }
+}
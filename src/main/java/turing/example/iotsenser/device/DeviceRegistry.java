@@ -0,0 +1,348 @@
+package turing.example.iotsenser.device;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import turing.example.iotsenser.model.Device;
+import turing.example.iotsenser.repository.DeviceRepository;
+import turing.example.iotsenser.serialization.DeviceIdDictionary;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Registry mapping every device ID to a compact integer key, persisted in the {@code devices} table.
+ *
+ * <p>Lookups in either direction are lock-free: device IDs live in an open-addressing table whose
+ * slots are published with release/acquire semantics, and keys index straight into an array of
+ * device IDs. Each device ID is held once, so structures keyed by the int key no longer keep their
+ * own copy of the string. Only registering a new device takes a lock and a database round trip.</p>
+ *
+ * <p>Every per-device structure downstream of ingest (the time-series store, the rule engine's state and
+ * the detection statistics) is keyed by registered devices, so the registry's maximum size bounds them
+ * all: once it is reached, readings of new devices are refused with {@link DeviceLimitExceededException}
+ * while devices already registered keep being accepted.</p>
+ *
+ * <p>The registry doubles as the {@link DeviceIdDictionary} for the binary Kafka format; codes are
+ * device keys, which every instance sharing the database resolves the same way.</p>
+ */
+@Component
+public class DeviceRegistry implements DeviceIdDictionary {
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(String[].class);
+    private static final float MAX_LOAD = 0.5f;
+
+    private final DeviceRepository deviceRepository;
+    private final TransactionTemplate readOnly;
+    private final TransactionTemplate requiresNew;
+    private final ReentrantLock registrationLock = new ReentrantLock();
+    private final int maxDevices;
+    private final Counter rejectedCounter;
+
+    private volatile Table table;
+    private volatile String[] deviceIdsByKey;
+    private volatile int size;
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param deviceRepository   Repository holding the persisted registry.
+     * @param transactionManager Transaction manager; registrations commit in their own transaction.
+     * @param expectedDevices    Expected fleet size, used to pre-size the lookup tables.
+     * @param maxDevices         Devices this instance registers at most; 0 for no limit.
+     * @param meterRegistry      Registry for the registered-devices gauge and the rejection counter.
+     */
+    @Autowired
+    public DeviceRegistry(DeviceRepository deviceRepository, PlatformTransactionManager transactionManager,
+                          @Value("${iotsenser.devices.expected:100000}") int expectedDevices,
+                          @Value("${iotsenser.devices.max:1000000}") int maxDevices,
+                          MeterRegistry meterRegistry) {
+        this.deviceRepository = deviceRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.table = new Table(tableSizeFor((int) Math.ceil(expectedDevices / MAX_LOAD)));
+        this.deviceIdsByKey = new String[tableSizeFor(expectedDevices)];
+        this.maxDevices = maxDevices;
+
+        Gauge.builder("iotsenser.devices.registered", this, DeviceRegistry::size)
+                .description("Devices held in the device registry")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("iotsenser.devices.rejected")
+                .description("Registrations of new devices refused because the registry is full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads every persisted device into memory.
+     */
+    @PostConstruct
+    public void load() {
+        readOnly.executeWithoutResult(status -> {
+            registrationLock.lock();
+            try (Stream<Device> devices = deviceRepository.streamAll()) {
+                devices.forEach(device -> put(device.getDeviceKey(), device.getDeviceId()));
+            } finally {
+                registrationLock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Returns the key of a device, registering the device if it is new.
+     *
+     * @param deviceId Unique identifier of the IoT device; must not be null.
+     * @return The device's key.
+     * @throws DeviceLimitExceededException If the device is new and the registry is full.
+     */
+    public int keyOf(String deviceId) {
+        int key = lookup(deviceId);
+        if (key != UNKNOWN) {
+            return key;
+        }
+        registrationLock.lock();
+        try {
+            return register(deviceId);
+        } finally {
+            registrationLock.unlock();
+        }
+    }
+
+    /**
+     * Registers every new device among the given IDs, in one transaction where possible.
+     * Call before {@link #keyOf(String)} on a batch so its new devices do not cost a round trip each.
+     *
+     * @param deviceIds Device IDs of a batch; duplicates are fine.
+     * @throws DeviceLimitExceededException If the new devices do not all fit in the registry; none are registered.
+     */
+    public void registerAll(Collection<String> deviceIds) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (String deviceId : deviceIds) {
+            if (lookup(deviceId) == UNKNOWN) {
+                missing.add(deviceId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        registrationLock.lock();
+        try {
+            List<Device> devices = new ArrayList<>(missing.size());
+            for (String deviceId : missing) {
+                if (lookup(deviceId) == UNKNOWN) {
+                    devices.add(new Device(null, deviceId));
+                }
+            }
+            if (devices.isEmpty()) {
+                return;
+            }
+            checkCapacity(devices.get(0).getDeviceId(), devices.size());
+            try {
+                for (Device device : requiresNew.execute(status -> deviceRepository.saveAllAndFlush(devices))) {
+                    put(device.getDeviceKey(), device.getDeviceId());
+                }
+            } catch (DataIntegrityViolationException e) {
+                // Another instance registered some of them first; settle the batch one device at a time
+                for (Device device : devices) {
+                    register(device.getDeviceId());
+                }
+            }
+        } finally {
+            registrationLock.unlock();
+        }
+    }
+
+    /**
+     * Looks up a device's key without registering it.
+     *
+     * @param deviceId Unique identifier of the IoT device.
+     * @return The device's key, or {@link #UNKNOWN} if it is not registered yet.
+     */
+    @Override
+    public int codeOf(String deviceId) {
+        return deviceId == null ? UNKNOWN : lookup(deviceId);
+    }
+
+    /**
+     * Resolves a device key, reading through to the database for keys registered by another instance.
+     *
+     * @param code Device key.
+     * @return The registry's single instance of the device ID, or null if the key is unknown.
+     */
+    @Override
+    public String deviceIdOf(int code) {
+        if (code < 0) {
+            return null;
+        }
+        String[] deviceIds = deviceIdsByKey;
+        if (code < deviceIds.length) {
+            String deviceId = (String) SLOTS.getAcquire(deviceIds, code);
+            if (deviceId != null) {
+                return deviceId;
+            }
+        }
+        registrationLock.lock();
+        try {
+            deviceIds = deviceIdsByKey;
+            if (code < deviceIds.length && deviceIds[code] != null) {
+                return deviceIds[code];
+            }
+            return deviceRepository.findById(code)
+                    .map(device -> put(device.getDeviceKey(), device.getDeviceId()))
+                    .orElse(null);
+        } finally {
+            registrationLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of registered devices held in memory.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds a device's key in the lock-free table.
+     * A miss may be stale while another thread is registering; callers confirm it under the lock.
+     */
+    private int lookup(String deviceId) {
+        Table current = table;
+        int mask = current.deviceIds.length - 1;
+        for (int slot = spread(deviceId.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            String candidate = (String) SLOTS.getAcquire(current.deviceIds, slot);
+            if (candidate == null) {
+                return UNKNOWN;
+            }
+            if (candidate.equals(deviceId)) {
+                return current.keys[slot];
+            }
+        }
+    }
+
+    /**
+     * Persists a new device, or adopts the key another instance registered for it. Lock must be held.
+     */
+    private int register(String deviceId) {
+        int key = lookup(deviceId);
+        if (key != UNKNOWN) {
+            return key;
+        }
+        checkCapacity(deviceId, 1);
+        Device device;
+        try {
+            device = requiresNew.execute(status -> deviceRepository.saveAndFlush(new Device(null, deviceId)));
+        } catch (DataIntegrityViolationException e) {
+            device = deviceRepository.findByDeviceId(deviceId).orElseThrow(() -> e);
+        }
+        put(device.getDeviceKey(), device.getDeviceId());
+        return device.getDeviceKey();
+    }
+
+    /**
+     * Refuses registering new devices that would take the registry past its maximum. Lock must be held.
+     */
+    private void checkCapacity(String deviceId, int newDevices) {
+        if (maxDevices > 0 && size + newDevices > maxDevices) {
+            rejectedCounter.increment(newDevices);
+            throw new DeviceLimitExceededException(deviceId, maxDevices);
+        }
+    }
+
+    /**
+     * Adds a device to both lookup directions. Lock must be held.
+     *
+     * @return The device ID instance now held by the registry.
+     */
+    private String put(int key, String deviceId) {
+        Table current = table;
+        if (size >= current.threshold) {
+            current = current.resize();
+            table = current;
+        }
+        int mask = current.deviceIds.length - 1;
+        int slot = spread(deviceId.hashCode()) & mask;
+        while (current.deviceIds[slot] != null) {
+            if (current.deviceIds[slot].equals(deviceId)) {
+                return current.deviceIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        current.keys[slot] = key;
+        SLOTS.setRelease(current.deviceIds, slot, deviceId);
+
+        String[] deviceIds = deviceIdsByKey;
+        if (key >= deviceIds.length) {
+            deviceIds = Arrays.copyOf(deviceIds, tableSizeFor(key + 1));
+            deviceIds[key] = deviceId;
+            deviceIdsByKey = deviceIds;
+        } else {
+            SLOTS.setRelease(deviceIds, key, deviceId);
+        }
+        size++;
+        return deviceId;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Math.max(16, Integer.highestOneBit(Math.max(1, capacity - 1) << 1));
+    }
+
+    /**
+     * Open-addressing table from device ID to key; both arrays are indexed by slot.
+     * A slot's key is written before its device ID is published, so readers that see the ID see the key.
+     */
+    private static final class Table {
+
+        private final String[] deviceIds;
+        private final int[] keys;
+        private final int threshold;
+
+        Table(int capacity) {
+            this.deviceIds = new String[capacity];
+            this.keys = new int[capacity];
+            this.threshold = (int) (capacity * MAX_LOAD);
+        }
+
+        /**
+         * Copies the entries into a table twice the size; it is published whole, so plain writes suffice.
+         */
+        Table resize() {
+            Table larger = new Table(deviceIds.length << 1);
+            int mask = larger.deviceIds.length - 1;
+            for (int i = 0; i < deviceIds.length; i++) {
+                if (deviceIds[i] == null) {
+                    continue;
+                }
+                int slot = spread(deviceIds[i].hashCode()) & mask;
+                while (larger.deviceIds[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                larger.deviceIds[slot] = deviceIds[i];
+                larger.keys[slot] = keys[i];
+            }
+            return larger;
+        }
+    }
+}
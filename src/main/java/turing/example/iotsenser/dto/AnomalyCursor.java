@@ -0,0 +1,71 @@
+package turing.example.iotsenser.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import turing.example.iotsenser.model.Anomaly;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in the anomalies table, ordered newest first by {@code (detected_at, id)}.
+ * Clients receive it as an opaque URL-safe token and pass it back to fetch the next page.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class AnomalyCursor {
+
+    /**
+     * Detection time of the last anomaly returned.
+     */
+    private final LocalDateTime detectedAt;
+
+    /**
+     * ID of the last anomaly returned; breaks ties between anomalies detected at the same time.
+     */
+    private final long id;
+
+    /**
+     * Creates the cursor that resumes after the given anomaly.
+     *
+     * @param anomaly The last anomaly of a page.
+     */
+    public static AnomalyCursor after(Anomaly anomaly) {
+        return new AnomalyCursor(anomaly.getDetectedAt(), anomaly.getId());
+    }
+
+    /**
+     * Encodes the cursor as an opaque token.
+     *
+     * @return URL-safe token.
+     */
+    public String encode() {
+        String raw = detectedAt + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token The token sent by the client.
+     * @return The decoded cursor.
+     * @throws IllegalArgumentException if the token is not a valid cursor.
+     */
+    public static AnomalyCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int comma = raw.lastIndexOf(',');
+            if (comma < 0) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new AnomalyCursor(LocalDateTime.parse(raw.substring(0, comma)),
+                    Long.parseLong(raw.substring(comma + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package turing.example.iotsenser.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import turing.example.iotsenser.model.Anomaly;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for one page of anomalies, newest first in {@code (detectedAt, id)} order.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnomalyPage {
+
+    /**
+     * Anomalies on this page.
+     */
+    private List<Anomaly> items;
+
+    /**
+     * Token for the next page, or null when this is the last page.
+     */
+    private String nextCursor;
+}
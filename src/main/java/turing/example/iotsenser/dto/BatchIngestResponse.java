@@ -0,0 +1,70 @@
+package turing.example.iotsenser.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) summarising the outcome of a batch ingest request.
+ * Reports how many readings were accepted and why individual items were rejected.
+ */
+@Getter
+@NoArgsConstructor
+public class BatchIngestResponse {
+
+    /**
+     * Number of readings persisted from the batch.
+     */
+    private int accepted;
+
+    /**
+     * Number of readings rejected from the batch.
+     */
+    private int rejected;
+
+    /**
+     * Per-item rejection details, in request order.
+     */
+    private final List<ItemError> errors = new ArrayList<>();
+
+    /**
+     * Records that a number of readings were accepted.
+     *
+     * @param count Number of accepted readings.
+     */
+    public void accept(int count) {
+        accepted += count;
+    }
+
+    /**
+     * Records that the reading at the given position was rejected.
+     *
+     * @param index  Zero-based position of the reading in the request.
+     * @param reason Why the reading was rejected.
+     */
+    public void reject(int index, String reason) {
+        rejected++;
+        errors.add(new ItemError(index, reason));
+    }
+
+    /**
+     * Rejection details for a single item of a batch.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ItemError {
+
+        /**
+         * Zero-based position of the rejected reading in the request.
+         */
+        private int index;
+
+        /**
+         * Why the reading was rejected.
+         */
+        private String reason;
+    }
+}
@@ -0,0 +1,37 @@
+package turing.example.iotsenser.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import turing.example.iotsenser.model.SensorRollup;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) for one rollup bucket, with averages derived from the stored sums.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupView {
+
+    private LocalDateTime bucketStart;
+    private long count;
+    private double temperatureMin;
+    private double temperatureMax;
+    private double temperatureAvg;
+    private double humidityMin;
+    private double humidityMax;
+    private double humidityAvg;
+
+    /**
+     * Builds the view of a stored rollup.
+     *
+     * @param rollup A non-empty rollup row.
+     */
+    public static RollupView of(SensorRollup rollup) {
+        return new RollupView(rollup.getBucketStart(), rollup.getCount(),
+                rollup.getTemperatureMin(), rollup.getTemperatureMax(), rollup.getTemperatureSum() / rollup.getCount(),
+                rollup.getHumidityMin(), rollup.getHumidityMax(), rollup.getHumiditySum() / rollup.getCount());
+    }
+}
@@ -0,0 +1,27 @@
+package turing.example.iotsenser.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import turing.example.iotsenser.model.SensorData;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for one page of sensor data in {@code (timestamp, id)} order.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SensorDataPage {
+
+    /**
+     * Readings on this page.
+     */
+    private List<SensorData> items;
+
+    /**
+     * Token for the next page, or null when this is the last page.
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,43 @@
+package turing.example.iotsenser.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only Data Transfer Object (DTO) for a stored sensor reading.
+ * Produced directly by JPQL constructor expressions, so query results are never
+ * managed entities and skip dirty checking and persistence-context bookkeeping.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SensorReadingView {
+
+    /**
+     * Unique identifier of the stored reading.
+     */
+    private Long id;
+
+    /**
+     * Unique identifier for the IoT device that sent the reading.
+     */
+    private String deviceId;
+
+    /**
+     * Temperature reading from the IoT sensor.
+     */
+    private double temperature;
+
+    /**
+     * Humidity reading from the IoT sensor.
+     */
+    private double humidity;
+
+    /**
+     * Timestamp indicating when the reading was recorded.
+     */
+    private LocalDateTime timestamp;
+}
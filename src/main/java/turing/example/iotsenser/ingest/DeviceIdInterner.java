@@ -0,0 +1,49 @@
+package turing.example.iotsenser.ingest;
+
+/**
+ * Lossy, direct-mapped cache of device ID strings keyed by their characters.
+ * Looking up a device ID seen recently returns the cached string without allocating;
+ * a collision simply replaces the slot. Safe for concurrent use because strings are immutable
+ * and slot writes are atomic.
+ */
+final class DeviceIdInterner {
+
+    private final String[] slots;
+    private final int mask;
+
+    DeviceIdInterner(int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+        this.slots = new String[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns a string equal to the given characters.
+     */
+    String intern(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[offset + i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        String cached = slots[slot];
+        if (cached != null && matches(cached, chars, offset, length)) {
+            return cached;
+        }
+        String deviceId = new String(chars, offset, length);
+        slots[slot] = deviceId;
+        return deviceId;
+    }
+
+    private static boolean matches(String cached, char[] chars, int offset, int length) {
+        if (cached.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (cached.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
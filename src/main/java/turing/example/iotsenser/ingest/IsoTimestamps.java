@@ -0,0 +1,112 @@
+package turing.example.iotsenser.ingest;
+
+/**
+ * Allocation-free parser for ISO-8601 local date-times of the form
+ * {@code yyyy-MM-ddTHH:mm[:ss[.fraction]]}, optionally followed by {@code Z}.
+ * Anything else is reported as {@link #INVALID} so the caller can fall back to {@code java.time}.
+ */
+final class IsoTimestamps {
+
+    static final long INVALID = Long.MIN_VALUE;
+
+    private IsoTimestamps() {
+    }
+
+    /**
+     * Parses a local date-time into wall-clock epoch milliseconds (the date-time as if it were UTC).
+     * Digits beyond milliseconds are truncated.
+     *
+     * @return The epoch milliseconds, or {@link #INVALID}.
+     */
+    static long parse(char[] chars, int offset, int length) {
+        int end = offset + length;
+        if (length > 0 && chars[end - 1] == 'Z') {
+            end--;
+        }
+        if (end - offset < 16 || chars[offset + 4] != '-' || chars[offset + 7] != '-'
+                || (chars[offset + 10] != 'T' && chars[offset + 10] != ' ') || chars[offset + 13] != ':') {
+            return INVALID;
+        }
+        int year = digits(chars, offset, 4);
+        int month = digits(chars, offset + 5, 2);
+        int day = digits(chars, offset + 8, 2);
+        int hour = digits(chars, offset + 11, 2);
+        int minute = digits(chars, offset + 14, 2);
+        int second = 0;
+        int millis = 0;
+        int position = offset + 16;
+        if (position < end) {
+            if (chars[position] != ':' || end - position < 3) {
+                return INVALID;
+            }
+            second = digits(chars, position + 1, 2);
+            position += 3;
+            if (position < end) {
+                if (chars[position] != '.' || end - position < 2 || end - position > 10) {
+                    return INVALID;
+                }
+                int fractionDigits = 0;
+                for (position++; position < end; position++, fractionDigits++) {
+                    int digit = chars[position] - '0';
+                    if (digit < 0 || digit > 9) {
+                        return INVALID;
+                    }
+                    if (fractionDigits < 3) {
+                        millis = millis * 10 + digit;
+                    }
+                }
+                for (; fractionDigits < 3; fractionDigits++) {
+                    millis *= 10;
+                }
+            }
+        }
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return INVALID;
+        }
+        long seconds = epochDay(year, month, day) * 86_400L + hour * 3600L + minute * 60L + second;
+        return seconds * 1000L + millis;
+    }
+
+    /**
+     * Returns the value of {@code count} decimal digits, or -1 if any character is not a digit.
+     */
+    private static int digits(char[] chars, int offset, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int digit = chars[offset + i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    /**
+     * Days since 1970-01-01, as computed by {@code LocalDate.toEpochDay()}.
+     */
+    private static long epochDay(int year, int month, int day) {
+        long total = 365L * year;
+        if (year >= 0) {
+            total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        }
+        total += (367L * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!(year % 4 == 0 && (year % 100 != 0 || year % 400 == 0))) {
+                total--;
+            }
+        }
+        return total - 719_528L;
+    }
+}
@@ -0,0 +1,172 @@
+package turing.example.iotsenser.ingest;
+
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.serialization.DeviceIdDictionary;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable, column-oriented batch of readings decoded from an ingest request.
+ *
+ * <p>Each reading is a row across parallel primitive arrays, so filling a warmed-up batch allocates
+ * nothing per reading. Timestamps are wall-clock epoch milliseconds: the local date-time as if it were
+ * UTC, matching {@link turing.example.iotsenser.serialization.SensorDataCodec}. Batches are obtained
+ * from a {@link ReadingBatchPool} and must be released once the request is done with them.</p>
+ */
+public final class ReadingBatch {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private String[] deviceIds = new String[INITIAL_CAPACITY];
+    private double[] temperatures = new double[INITIAL_CAPACITY];
+    private double[] humidities = new double[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] deviceKeys = new int[INITIAL_CAPACITY];
+    private int size;
+    private byte[] body = new byte[4096];
+
+    /**
+     * Appends a reading.
+     *
+     * @param deviceId    Unique identifier of the IoT device.
+     * @param temperature Temperature reading.
+     * @param humidity    Humidity reading.
+     * @param timestamp   Wall-clock epoch milliseconds.
+     */
+    public void add(String deviceId, double temperature, double humidity, long timestamp) {
+        if (size == deviceIds.length) {
+            grow();
+        }
+        deviceIds[size] = deviceId;
+        temperatures[size] = temperature;
+        humidities[size] = humidity;
+        timestamps[size] = timestamp;
+        ids[size] = 0;
+        deviceKeys[size] = DeviceIdDictionary.UNKNOWN;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public String deviceId(int index) {
+        return deviceIds[index];
+    }
+
+    public double temperature(int index) {
+        return temperatures[index];
+    }
+
+    public double humidity(int index) {
+        return humidities[index];
+    }
+
+    public long timestamp(int index) {
+        return timestamps[index];
+    }
+
+    public long id(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Records the database ID assigned to a reading.
+     */
+    public void setId(int index, long id) {
+        ids[index] = id;
+    }
+
+    public int deviceKey(int index) {
+        return deviceKeys[index];
+    }
+
+    /**
+     * Records the registry key of a reading's device.
+     */
+    public void setDeviceKey(int index, int deviceKey) {
+        deviceKeys[index] = deviceKey;
+    }
+
+    /**
+     * Converts a reading's timestamp to the {@link LocalDateTime} stored in the database.
+     */
+    public LocalDateTime dateTime(int index) {
+        long millis = timestamps[index];
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), Math.floorMod(millis, 1000) * 1_000_000,
+                ZoneOffset.UTC);
+    }
+
+    /**
+     * Builds detached entities for consumers that work on {@link SensorData}.
+     * IDs and device keys are included once they have been assigned.
+     */
+    public List<SensorData> toSensorData() {
+        List<SensorData> readings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            readings.add(toSensorData(i));
+        }
+        return readings;
+    }
+
+    /**
+     * Builds detached entities for some readings of the batch.
+     *
+     * @param rows Indexes of the readings.
+     */
+    public List<SensorData> toSensorData(int[] rows) {
+        List<SensorData> readings = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            readings.add(toSensorData(row));
+        }
+        return readings;
+    }
+
+    private SensorData toSensorData(int index) {
+        return new SensorData(ids[index] == 0 ? null : ids[index], deviceIds[index], temperatures[index],
+                humidities[index], dateTime(index),
+                deviceKeys[index] == DeviceIdDictionary.UNKNOWN ? null : deviceKeys[index]);
+    }
+
+    /**
+     * Returns the buffer holding the raw request body; reused across requests.
+     */
+    byte[] body() {
+        return body;
+    }
+
+    /**
+     * Doubles the body buffer, up to {@code maxLength} bytes, keeping the bytes read so far.
+     */
+    byte[] growBody(int used, int maxLength) {
+        body = Arrays.copyOf(body, (int) Math.min((long) Math.max(used, body.length) << 1, maxLength));
+        return body;
+    }
+
+    /**
+     * Empties the batch for reuse, keeping its arrays.
+     */
+    void clear() {
+        Arrays.fill(deviceIds, 0, size, null);
+        size = 0;
+    }
+
+    private void grow() {
+        int capacity = deviceIds.length << 1;
+        deviceIds = Arrays.copyOf(deviceIds, capacity);
+        temperatures = Arrays.copyOf(temperatures, capacity);
+        humidities = Arrays.copyOf(humidities, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        deviceKeys = Arrays.copyOf(deviceKeys, capacity);
+    }
+}
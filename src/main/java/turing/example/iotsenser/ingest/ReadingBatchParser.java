@@ -0,0 +1,347 @@
+package turing.example.iotsenser.ingest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import turing.example.iotsenser.dto.BatchIngestResponse;
+import turing.example.iotsenser.utils.SensorDataValidator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Decodes ingest request bodies straight into a {@link ReadingBatch} with a streaming JSON parser.
+ *
+ * <p>No entity, tree node or intermediate string is built per reading: numbers are read as primitives,
+ * device IDs are resolved through a {@link DeviceIdInterner}, and ISO-8601 timestamps are parsed from
+ * the parser's character buffer. Invalid readings are rejected individually with the same reasons as
+ * {@link SensorDataValidator}; unknown fields are ignored. A body is buffered whole before it is parsed,
+ * so it may be at most {@code maxItemBytes} bytes per accepted item; reading stops as soon as it is larger.</p>
+ */
+@Component
+public class ReadingBatchParser {
+
+    static final String MALFORMED = "Malformed JSON";
+    static final String INVALID_TIMESTAMP = "Invalid timestamp";
+
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final int BODY_TOO_LARGE = -1;
+    private static final int INTERNED_DEVICE_IDS = 1 << 16;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final JsonFactory jsonFactory;
+    private final DeviceIdInterner deviceIds = new DeviceIdInterner(INTERNED_DEVICE_IDS);
+
+    @Value("${iotsenser.ingest.batch.max-item-bytes:512}")
+    private int maxItemBytes = 512;
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param objectMapper Application JSON mapper, whose parser settings are reused.
+     */
+    @Autowired
+    public ReadingBatchParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Parses a JSON array of readings.
+     *
+     * @param body     Request body.
+     * @param batch    Receives the valid readings.
+     * @param response Receives per-item rejections.
+     * @param maxItems Maximum number of items accepted in one request.
+     * @return {@code false} if the array has more than {@code maxItems} items or the body is too large for them.
+     * @throws IOException if the body is not a well-formed JSON array.
+     */
+    public boolean parseArray(InputStream body, ReadingBatch batch, BatchIngestResponse response, int maxItems)
+            throws IOException {
+        int length = readBody(body, batch, maxBodyBytes(maxItems));
+        if (length == BODY_TOO_LARGE) {
+            return false;
+        }
+        long now = NO_TIMESTAMP;
+        try (JsonParser parser = jsonFactory.createParser(batch.body(), 0, length)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected a JSON array");
+            }
+            int index = 0;
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken(), index++) {
+                if (index == maxItems) {
+                    return false;
+                }
+                if (token == JsonToken.START_OBJECT) {
+                    now = parseItem(parser, index, batch, response, now);
+                } else {
+                    response.reject(index, token == JsonToken.VALUE_NULL ? "Reading is empty" : MALFORMED);
+                    parser.skipChildren();
+                }
+            }
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after the JSON array");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses newline-delimited JSON, one reading per line.
+     * A malformed line is rejected and parsing resumes on the next line.
+     *
+     * @param body     Request body.
+     * @param batch    Receives the valid readings.
+     * @param response Receives per-item rejections.
+     * @param maxItems Maximum number of lines accepted in one request.
+     * @return {@code false} if the body has more than {@code maxItems} readings or is too large for them.
+     */
+    public boolean parseNdjson(InputStream body, ReadingBatch batch, BatchIngestResponse response, int maxItems)
+            throws IOException {
+        int length = readBody(body, batch, maxBodyBytes(maxItems));
+        if (length == BODY_TOO_LARGE) {
+            return false;
+        }
+        byte[] bytes = batch.body();
+        long now = NO_TIMESTAMP;
+        int index = 0;
+        int start = 0;
+        while (start < length) {
+            // Offset just past the last complete reading; a malformed line starts after it.
+            int itemEnd = start;
+            try (JsonParser parser = jsonFactory.createParser(bytes, start, length - start)) {
+                for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+                    if (index == maxItems) {
+                        return false;
+                    }
+                    if (token == JsonToken.START_OBJECT) {
+                        now = parseItem(parser, index, batch, response, now);
+                    } else {
+                        response.reject(index, MALFORMED);
+                        parser.skipChildren();
+                    }
+                    index++;
+                    itemEnd = start + (int) parser.currentLocation().getByteOffset();
+                }
+                return true;
+            } catch (JsonProcessingException e) {
+                if (index == maxItems) {
+                    return false;
+                }
+                response.reject(index++, MALFORMED);
+                start = nextLine(bytes, skipWhitespace(bytes, itemEnd, length), length);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses one reading; the parser is positioned on its START_OBJECT.
+     *
+     * @return The wall-clock "now" used for readings without a timestamp, computed on first use.
+     */
+    private long parseItem(JsonParser parser, int index, ReadingBatch batch, BatchIngestResponse response, long now)
+            throws IOException {
+        String deviceId = null;
+        double temperature = 0;
+        double humidity = 0;
+        long timestamp = NO_TIMESTAMP;
+        boolean timestampInvalid = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "deviceId" -> deviceId = value.isScalarValue() && value != JsonToken.VALUE_NULL
+                        ? deviceIds.intern(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength())
+                        : null;
+                case "temperature" -> temperature = readDouble(parser, value);
+                case "humidity" -> humidity = readDouble(parser, value);
+                case "timestamp" -> {
+                    if (value != JsonToken.VALUE_NULL) {
+                        timestamp = readTimestamp(parser, value);
+                        timestampInvalid = timestamp == NO_TIMESTAMP;
+                    }
+                }
+                default -> {
+                }
+            }
+            parser.skipChildren();
+        }
+
+        String reason = SensorDataValidator.rejectionReason(deviceId, temperature, humidity);
+        if (reason == null && timestampInvalid) {
+            reason = INVALID_TIMESTAMP;
+        }
+        if (reason != null) {
+            response.reject(index, reason);
+            return now;
+        }
+        if (timestamp == NO_TIMESTAMP) {
+            if (now == NO_TIMESTAMP) {
+                now = wallClockNow();
+            }
+            timestamp = now;
+        }
+        batch.add(deviceId, temperature, humidity, timestamp);
+        return now;
+    }
+
+    private static double readDouble(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_FLOAT || value == JsonToken.VALUE_NUMBER_INT) {
+            double decimal = shortDecimal(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            return Double.isNaN(decimal) ? parser.getDoubleValue() : decimal;
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            try {
+                return Double.parseDouble(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return value == JsonToken.VALUE_NULL ? 0 : Double.NaN;
+    }
+
+    /**
+     * Converts a plain decimal of at most 15 significant digits without building a string.
+     * Both the digits and the power of ten are exact doubles, so one division rounds correctly.
+     *
+     * @return The value, or NaN if the number has an exponent or too many digits.
+     */
+    private static double shortDecimal(char[] chars, int offset, int length) {
+        int position = offset;
+        int end = offset + length;
+        boolean negative = position < end && chars[position] == '-';
+        if (negative) {
+            position++;
+        }
+        long digits = 0;
+        int digitCount = 0;
+        int scale = -1;
+        for (; position < end; position++) {
+            char c = chars[position];
+            if (c == '.' && scale < 0) {
+                scale = 0;
+            } else if (c >= '0' && c <= '9' && digitCount < 15) {
+                digits = digits * 10 + (c - '0');
+                if (digits != 0) {
+                    digitCount++;
+                }
+                if (scale >= 0 && ++scale == POWERS_OF_TEN.length) {
+                    return Double.NaN;
+                }
+            } else {
+                return Double.NaN;
+            }
+        }
+        double value = scale > 0 ? digits / POWERS_OF_TEN[scale] : digits;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads a timestamp written as an ISO-8601 local date-time string or a
+     * {@code [year, month, day, hour, minute, second, nanos]} array.
+     *
+     * @return Wall-clock epoch milliseconds, or {@link #NO_TIMESTAMP} if the value is not a valid timestamp.
+     */
+    private static long readTimestamp(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            long millis = IsoTimestamps.parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            if (millis != IsoTimestamps.INVALID) {
+                return millis;
+            }
+            try {
+                return toMillis(LocalDateTime.parse(parser.getText()));
+            } catch (DateTimeException e) {
+                return NO_TIMESTAMP;
+            }
+        }
+        if (value == JsonToken.START_ARRAY) {
+            int[] parts = new int[7];
+            int count = 0;
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token != JsonToken.VALUE_NUMBER_INT || count == parts.length) {
+                    parser.skipChildren();
+                    count = parts.length + 1;
+                    continue;
+                }
+                parts[count++] = parser.getIntValue();
+            }
+            if (count < 5 || count > parts.length) {
+                return NO_TIMESTAMP;
+            }
+            try {
+                return toMillis(LocalDateTime.of(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5], parts[6]));
+            } catch (DateTimeException e) {
+                return NO_TIMESTAMP;
+            }
+        }
+        return NO_TIMESTAMP;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Returns {@code LocalDateTime.now()} as wall-clock epoch milliseconds.
+     */
+    private static long wallClockNow() {
+        long now = System.currentTimeMillis();
+        return now + ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochMilli(now)).getTotalSeconds() * 1000L;
+    }
+
+    private int maxBodyBytes(int maxItems) {
+        return (int) Math.min((long) maxItems * maxItemBytes, Integer.MAX_VALUE - 16);
+    }
+
+    /**
+     * Reads the whole body into the batch's buffer.
+     *
+     * @return The body length, or {@link #BODY_TOO_LARGE} once more than {@code maxBytes} have been read.
+     */
+    private static int readBody(InputStream body, ReadingBatch batch, int maxBytes) throws IOException {
+        byte[] buffer = batch.body();
+        int length = 0;
+        for (int read; (read = body.read(buffer, length, buffer.length - length)) != -1; ) {
+            length += read;
+            if (length > maxBytes) {
+                return BODY_TOO_LARGE;
+            }
+            if (length == buffer.length) {
+                buffer = batch.growBody(length, maxBytes + 1);
+            }
+        }
+        return length;
+    }
+
+    private static int skipWhitespace(byte[] bytes, int from, int length) {
+        int position = from;
+        while (position < length && (bytes[position] == ' ' || bytes[position] == '\t'
+                || bytes[position] == '\r' || bytes[position] == '\n')) {
+            position++;
+        }
+        return position;
+    }
+
+    private static int nextLine(byte[] bytes, int from, int length) {
+        for (int position = from; position < length; position++) {
+            if (bytes[position] == '\n') {
+                return position + 1;
+            }
+        }
+        return length;
+    }
+}
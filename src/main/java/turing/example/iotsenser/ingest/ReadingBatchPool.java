@@ -0,0 +1,51 @@
+package turing.example.iotsenser.ingest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded pool of {@link ReadingBatch} instances shared by ingest requests.
+ * When the pool is empty a new batch is created; when it is full a released batch is dropped,
+ * so bursts never block and the pool never holds more than {@code size} batches. Batches whose body
+ * buffer grew past {@link #MAX_RETAINED_BODY_BYTES} for an unusually large request are dropped as well.
+ */
+@Component
+public class ReadingBatchPool {
+
+    static final int MAX_RETAINED_BODY_BYTES = 1 << 20;
+
+    private final BlockingQueue<ReadingBatch> idle;
+
+    /**
+     * Creates a pool.
+     *
+     * @param size Maximum number of idle batches kept; defaults to two per processor.
+     */
+    @Autowired
+    public ReadingBatchPool(@Value("${iotsenser.ingest.batch.pool-size:0}") int size) {
+        this.idle = new ArrayBlockingQueue<>(size > 0 ? size : 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Takes an empty batch from the pool, or creates one.
+     */
+    public ReadingBatch acquire() {
+        ReadingBatch batch = idle.poll();
+        return batch != null ? batch : new ReadingBatch();
+    }
+
+    /**
+     * Returns a batch to the pool. The caller must not use it afterwards.
+     */
+    public void release(ReadingBatch batch) {
+        if (batch.body().length > MAX_RETAINED_BODY_BYTES) {
+            return;
+        }
+        batch.clear();
+        idle.offer(batch);
+    }
+}
@@ -1,28 +1,40 @@
 package turing.example.iotsenser.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import turing.example.iotsenser.detection.Finding;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Entity representing an anomaly detected in IoT sensor data.
  * Stores information about unusual sensor readings.
  */
 @Entity
-@Table(name = "anomalies")
+@Table(name = "anomalies", indexes = {
+        @Index(name = "idx_anomalies_device_detected_at", columnList = "device_id, detected_at"),
+        @Index(name = "idx_anomalies_detected_at", columnList = "detected_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 @ToString
 public class Anomaly {
 
+    /**
+     * Maximum length of a description.
+     */
+    public static final int DESCRIPTION_LENGTH = 500;
+
     /**
      * Unique identifier for each detected anomaly.
+     * Drawn from a pooled sequence so anomalies found in one batch are inserted together.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "anomalies_seq")
+    @SequenceGenerator(name = "anomalies_seq", sequenceName = "anomalies_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -52,6 +64,43 @@ public class Anomaly {
     /**
      * Description of the anomaly, explaining why it was flagged.
      */
-    @Column(nullable = false, length = 500)
+    @Column(nullable = false, length = DESCRIPTION_LENGTH)
     private String description;
+
+    /**
+     * Registry key of the device, see {@link turing.example.iotsenser.device.DeviceRegistry}.
+     * Null on rows written before devices were registered.
+     */
+    private Integer deviceKey;
+
+    /**
+     * Findings the description was built from, used to suppress repeats of the same rule.
+     * Set on detection only; not stored or serialized.
+     */
+    @Transient
+    @JsonIgnore
+    @ToString.Exclude
+    private List<Finding> findings;
+
+    /**
+     * Creates an anomaly.
+     */
+    public Anomaly(Long id, String deviceId, double temperature, double humidity, LocalDateTime detectedAt,
+                   String description, Integer deviceKey) {
+        this.id = id;
+        this.deviceId = deviceId;
+        this.temperature = temperature;
+        this.humidity = humidity;
+        this.detectedAt = detectedAt;
+        this.description = description;
+        this.deviceKey = deviceKey;
+    }
+
+    /**
+     * Creates an anomaly whose device key is filled in by the caller if known.
+     */
+    public Anomaly(Long id, String deviceId, double temperature, double humidity, LocalDateTime detectedAt,
+                   String description) {
+        this(id, deviceId, temperature, humidity, detectedAt, description, null);
+    }
 }
@@ -0,0 +1,59 @@
+package turing.example.iotsenser.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import turing.example.iotsenser.detection.RuleScope;
+
+/**
+ * Entity storing a detection rule, picked up by the rule engine without a redeploy.
+ * See {@link turing.example.iotsenser.detection.RuleDefinition} for the condition syntax.
+ */
+@Entity
+@Table(name = "detection_rules", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_detection_rules_name", columnNames = "name")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class DetectionRule {
+
+    /**
+     * Unique identifier of the rule.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Name of the rule, quoted in the description of the anomalies it raises.
+     * A stored rule replaces a configured rule of the same name.
+     */
+    @Column(nullable = false)
+    private String name;
+
+    /**
+     * Devices the rule applies to.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private RuleScope scope;
+
+    /**
+     * Group name or device ID the rule is scoped to, unless it is global.
+     */
+    private String target;
+
+    /**
+     * Condition under which a reading is anomalous.
+     */
+    @Column(nullable = false, length = 500)
+    private String expression;
+
+    /**
+     * Whether the rule is in force.
+     */
+    @Column(nullable = false)
+    private boolean enabled;
+}
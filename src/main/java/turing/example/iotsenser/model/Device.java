@@ -0,0 +1,33 @@
+package turing.example.iotsenser.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Entity registering an IoT device under a compact integer key.
+ * The key stands in for the device ID in memory, on the wire and in {@code device_key} columns.
+ */
+@Entity
+@Table(name = "devices", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_devices_device_id", columnNames = "device_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class Device {
+
+    /**
+     * Surrogate key of the device, assigned by the database on registration.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer deviceKey;
+
+    /**
+     * Unique identifier of the IoT device, as sent with its readings.
+     */
+    @Column(nullable = false)
+    private String deviceId;
+}
@@ -0,0 +1,76 @@
+package turing.example.iotsenser.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Bucket widths maintained for sensor data rollups.
+ */
+public enum RollupResolution {
+
+    /**
+     * One-minute buckets.
+     */
+    MINUTE("1m", ChronoUnit.MINUTES),
+
+    /**
+     * One-hour buckets.
+     */
+    HOUR("1h", ChronoUnit.HOURS),
+
+    /**
+     * One-day buckets.
+     */
+    DAY("1d", ChronoUnit.DAYS);
+
+    private final String code;
+    private final ChronoUnit unit;
+
+    RollupResolution(String code, ChronoUnit unit) {
+        this.code = code;
+        this.unit = unit;
+    }
+
+    /**
+     * Returns the short code used in query parameters, such as {@code 1h}.
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Returns the start of the bucket containing a timestamp.
+     *
+     * @param timestamp Any point in time.
+     * @return The timestamp truncated to this resolution.
+     */
+    public LocalDateTime bucketStart(LocalDateTime timestamp) {
+        return timestamp.truncatedTo(unit);
+    }
+
+    /**
+     * Returns the number of buckets of this resolution between two points in time.
+     *
+     * @param from Start of the range (inclusive).
+     * @param to   End of the range (exclusive).
+     */
+    public long bucketsBetween(LocalDateTime from, LocalDateTime to) {
+        return unit.between(bucketStart(from), to) + 1;
+    }
+
+    /**
+     * Looks up a resolution by its short code.
+     *
+     * @param code Short code such as {@code 1m}, {@code 1h} or {@code 1d}.
+     * @return The matching resolution.
+     * @throws IllegalArgumentException if the code is unknown.
+     */
+    public static RollupResolution fromCode(String code) {
+        for (RollupResolution resolution : values()) {
+            if (resolution.code.equals(code)) {
+                return resolution;
+            }
+        }
+        throw new IllegalArgumentException("Unknown rollup resolution " + code);
+    }
+}
@@ -10,7 +10,12 @@ import java.time.LocalDateTime;
  * Stores device readings such as temperature, humidity, and timestamp.
  */
 @Entity
-@Table(name = "sensor_data")
+@Table(name = "sensor_data", indexes = {
+        // Keyset pagination and ordered export seek on (timestamp, id)
+        @Index(name = "idx_sensor_data_timestamp_id", columnList = "timestamp, id"),
+        // Per-device time-range queries seek on the device and scan only the requested window
+        @Index(name = "idx_sensor_data_device_timestamp", columnList = "device_id, timestamp")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,9 +25,12 @@ public class SensorData {
 
     /**
      * Unique identifier for each sensor data record.
+     * Drawn from a pooled sequence so Hibernate can batch inserts;
+     * IDENTITY generation forces a round trip per row.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sensor_data_seq")
+    @SequenceGenerator(name = "sensor_data_seq", sequenceName = "sensor_data_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -48,4 +56,17 @@ public class SensorData {
      */
     @Column(nullable = false)
     private LocalDateTime timestamp;
+
+    /**
+     * Registry key of the device, see {@link turing.example.iotsenser.device.DeviceRegistry}.
+     * Null on rows written before devices were registered.
+     */
+    private Integer deviceKey;
+
+    /**
+     * Creates a reading whose device key is assigned when it is persisted.
+     */
+    public SensorData(Long id, String deviceId, double temperature, double humidity, LocalDateTime timestamp) {
+        this(id, deviceId, temperature, humidity, timestamp, null);
+    }
 }
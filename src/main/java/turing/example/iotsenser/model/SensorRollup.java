@@ -0,0 +1,136 @@
+package turing.example.iotsenser.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity holding pre-aggregated sensor statistics for one device and one time bucket.
+ * Stores count, sum, min and max rather than averages so partial aggregates can be merged exactly,
+ * including readings that arrive after their bucket was first written.
+ */
+@Entity
+@Table(name = "sensor_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sensor_rollups_device_resolution_bucket",
+                columnNames = {"device_id", "resolution", "bucket_start"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class SensorRollup {
+
+    /**
+     * Unique identifier for each rollup row.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sensor_rollups_seq")
+    @SequenceGenerator(name = "sensor_rollups_seq", sequenceName = "sensor_rollups_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * Device the bucket belongs to.
+     */
+    @Column(nullable = false)
+    private String deviceId;
+
+    /**
+     * Width of the bucket.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private RollupResolution resolution;
+
+    /**
+     * Start of the bucket (inclusive).
+     */
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    /**
+     * Number of readings folded into the bucket.
+     */
+    @Column(nullable = false)
+    private long count;
+
+    /**
+     * Sum of temperature readings.
+     */
+    @Column(nullable = false)
+    private double temperatureSum;
+
+    /**
+     * Lowest temperature reading.
+     */
+    @Column(nullable = false)
+    private double temperatureMin = Double.POSITIVE_INFINITY;
+
+    /**
+     * Highest temperature reading.
+     */
+    @Column(nullable = false)
+    private double temperatureMax = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Sum of humidity readings.
+     */
+    @Column(nullable = false)
+    private double humiditySum;
+
+    /**
+     * Lowest humidity reading.
+     */
+    @Column(nullable = false)
+    private double humidityMin = Double.POSITIVE_INFINITY;
+
+    /**
+     * Highest humidity reading.
+     */
+    @Column(nullable = false)
+    private double humidityMax = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Creates an empty bucket.
+     *
+     * @param deviceId    Device the bucket belongs to.
+     * @param resolution  Width of the bucket.
+     * @param bucketStart Start of the bucket.
+     */
+    public SensorRollup(String deviceId, RollupResolution resolution, LocalDateTime bucketStart) {
+        this.deviceId = deviceId;
+        this.resolution = resolution;
+        this.bucketStart = bucketStart;
+    }
+
+    /**
+     * Folds one reading into the bucket.
+     *
+     * @param temperature Temperature reading.
+     * @param humidity    Humidity reading.
+     */
+    public void add(double temperature, double humidity) {
+        count++;
+        temperatureSum += temperature;
+        temperatureMin = Math.min(temperatureMin, temperature);
+        temperatureMax = Math.max(temperatureMax, temperature);
+        humiditySum += humidity;
+        humidityMin = Math.min(humidityMin, humidity);
+        humidityMax = Math.max(humidityMax, humidity);
+    }
+
+    /**
+     * Folds another partial aggregate of the same bucket into this one.
+     *
+     * @param other Partial aggregate to merge.
+     */
+    public void merge(SensorRollup other) {
+        count += other.count;
+        temperatureSum += other.temperatureSum;
+        temperatureMin = Math.min(temperatureMin, other.temperatureMin);
+        temperatureMax = Math.max(temperatureMax, other.temperatureMax);
+        humiditySum += other.humiditySum;
+        humidityMin = Math.min(humidityMin, other.humidityMin);
+        humidityMax = Math.max(humidityMax, other.humidityMax);
+    }
+}
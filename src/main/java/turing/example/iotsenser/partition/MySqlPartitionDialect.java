@@ -0,0 +1,70 @@
+package turing.example.iotsenser.partition;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MySQL {@code RANGE COLUMNS} partitioning.
+ * Tables end with a {@code pmax VALUES LESS THAN (MAXVALUE)} partition; new partitions are split
+ * off it with {@code REORGANIZE PARTITION}, which is a metadata-only change while pmax is empty.
+ */
+public class MySqlPartitionDialect implements PartitionDialect {
+
+    static final String CATCH_ALL = "pmax";
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @Override
+    public List<RangePartition> listPartitions(JdbcTemplate jdbcTemplate, String table) {
+        List<String[]> rows = jdbcTemplate.query(
+                "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL "
+                        + "ORDER BY PARTITION_ORDINAL_POSITION",
+                (resultSet, rowNum) -> new String[]{resultSet.getString(1), resultSet.getString(2)},
+                table);
+        List<RangePartition> partitions = new ArrayList<>(rows.size());
+        LocalDateTime from = null;
+        for (String[] row : rows) {
+            LocalDateTime to = parseBound(row[1]);
+            partitions.add(new RangePartition(row[0], from, to));
+            from = to;
+        }
+        return partitions;
+    }
+
+    @Override
+    public void createPartition(JdbcTemplate jdbcTemplate, String table, RangePartition partition) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " REORGANIZE PARTITION " + CATCH_ALL + " INTO ("
+                + "PARTITION " + partition.getName() + " VALUES LESS THAN (" + PartitionDialect.literal(partition.getTo()) + "), "
+                + "PARTITION " + CATCH_ALL + " VALUES LESS THAN (MAXVALUE))");
+    }
+
+    @Override
+    public void dropPartition(JdbcTemplate jdbcTemplate, String table, RangePartition partition) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " DROP PARTITION " + partition.getName());
+    }
+
+    @Override
+    public String partitionName(String table, LocalDate start) {
+        return "p" + NAME_FORMAT.format(start);
+    }
+
+    /**
+     * Parses a {@code PARTITION_DESCRIPTION} such as {@code '2024-01-02 00:00:00'} or {@code MAXVALUE}.
+     */
+    static LocalDateTime parseBound(String description) {
+        if (description == null || description.equalsIgnoreCase("MAXVALUE")) {
+            return null;
+        }
+        String value = description.replace("'", "").trim();
+        if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay();
+        }
+        return LocalDateTime.parse(value, BOUND_FORMAT);
+    }
+}
@@ -0,0 +1,89 @@
+package turing.example.iotsenser.partition;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import java.sql.DatabaseMetaData;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Database-specific DDL for managing range partitions on a timestamp column.
+ * Each managed table has a catch-all partition; the manager keeps dated partitions ahead of it.
+ */
+public interface PartitionDialect {
+
+    /**
+     * Format used for partition bound literals.
+     */
+    DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * Lists the range partitions of a table ordered by upper bound, catch-all last.
+     *
+     * @param jdbcTemplate JDBC access to the database.
+     * @param table        Table name.
+     * @return The partitions, or an empty list if the table is not partitioned.
+     */
+    List<RangePartition> listPartitions(JdbcTemplate jdbcTemplate, String table);
+
+    /**
+     * Creates a partition for {@code [from, to)}. The range must lie above every existing dated partition.
+     *
+     * @param jdbcTemplate JDBC access to the database.
+     * @param table        Table name.
+     * @param partition    Partition to create.
+     */
+    void createPartition(JdbcTemplate jdbcTemplate, String table, RangePartition partition);
+
+    /**
+     * Drops a partition together with all of its rows.
+     *
+     * @param jdbcTemplate JDBC access to the database.
+     * @param table        Table name.
+     * @param partition    Partition to drop.
+     */
+    void dropPartition(JdbcTemplate jdbcTemplate, String table, RangePartition partition);
+
+    /**
+     * Returns the name used for the partition of a table starting on a date.
+     *
+     * @param table Table name.
+     * @param start First day covered by the partition.
+     */
+    String partitionName(String table, LocalDate start);
+
+    /**
+     * Formats a partition bound as a SQL literal.
+     */
+    static String literal(LocalDateTime bound) {
+        return "'" + BOUND_FORMAT.format(bound) + "'";
+    }
+
+    /**
+     * Picks the dialect matching the connected database.
+     *
+     * @param jdbcTemplate JDBC access to the database.
+     * @return The dialect for MySQL/MariaDB or PostgreSQL.
+     * @throws IllegalStateException if the database is not supported.
+     */
+    static PartitionDialect detect(JdbcTemplate jdbcTemplate) {
+        String product;
+        try {
+            product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                    DatabaseMetaData::getDatabaseProductName);
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Cannot determine database type for partitioning", e);
+        }
+        if ("MySQL".equalsIgnoreCase(product) || "MariaDB".equalsIgnoreCase(product)) {
+            return new MySqlPartitionDialect();
+        }
+        if ("PostgreSQL".equalsIgnoreCase(product)) {
+            return new PostgresPartitionDialect();
+        }
+        throw new IllegalStateException("Partitioning is not supported on " + product);
+    }
+}
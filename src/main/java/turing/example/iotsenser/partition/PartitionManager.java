@@ -0,0 +1,193 @@
+package turing.example.iotsenser.partition;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import turing.example.iotsenser.cache.QueryCache;
+import turing.example.iotsenser.shard.ShardRouter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the time-partitioned tables ready for incoming data and enforces retention.
+ *
+ * <p>On startup and every {@code iotsenser.partitioning.check-interval} it creates daily or weekly
+ * partitions up to {@code premake} periods ahead, and drops whole partitions that lie entirely
+ * before the retention cutoff of their data class. Dropping a partition is a metadata operation,
+ * unlike a row-level DELETE, so expiry costs the same regardless of volume.</p>
+ *
+ * <p>The tables must already be partitioned; see {@code db/partitioning/*.sql}.
+ * Tables that are not partitioned are skipped with a warning. Raw readings are maintained on every
+ * shard, rollups on the primary shard where they are stored.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "iotsenser.partitioning.enabled", havingValue = "true")
+public class PartitionManager {
+
+    /**
+     * Raw readings, partitioned on {@code timestamp}.
+     */
+    static final String RAW_TABLE = "sensor_data";
+
+    /**
+     * Rollup buckets, partitioned on {@code bucket_start}.
+     */
+    static final String ROLLUP_TABLE = "sensor_rollups";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PartitionDialect dialect;
+    private final QueryCache queryCache;
+    private final ShardRouter shardRouter;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+
+    @Value("${iotsenser.partitioning.period:daily}")
+    private PartitionPeriod period = PartitionPeriod.DAILY;
+
+    @Value("${iotsenser.partitioning.premake:7}")
+    private int premake = 7;
+
+    @Value("${iotsenser.partitioning.check-interval:1h}")
+    private Duration checkInterval = Duration.ofHours(1);
+
+    @Value("${iotsenser.partitioning.retention.raw:90d}")
+    private Duration rawRetention = Duration.ofDays(90);
+
+    @Value("${iotsenser.partitioning.retention.rollup:730d}")
+    private Duration rollupRetention = Duration.ofDays(730);
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param jdbcTemplate  JDBC access used for partition DDL.
+     * @param queryCache    Query cache, invalidated when raw readings expire.
+     * @param shardRouter   Router to the shards holding raw readings.
+     * @param meterRegistry Registry for created and dropped partition counts.
+     */
+    @Autowired
+    public PartitionManager(JdbcTemplate jdbcTemplate, QueryCache queryCache, ShardRouter shardRouter,
+                            MeterRegistry meterRegistry) {
+        this(jdbcTemplate, PartitionDialect.detect(jdbcTemplate), queryCache, shardRouter, meterRegistry,
+                Clock.systemDefaultZone());
+    }
+
+    PartitionManager(JdbcTemplate jdbcTemplate, PartitionDialect dialect, QueryCache queryCache,
+                     ShardRouter shardRouter, MeterRegistry meterRegistry, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = dialect;
+        this.queryCache = queryCache;
+        this.shardRouter = shardRouter;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    /**
+     * Runs maintenance now and then periodically.
+     */
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "partition-manager");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::maintain, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops periodic maintenance.
+     */
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates upcoming partitions and drops expired ones for every managed table.
+     * A failure on one table or shard is logged and does not stop maintenance of the others.
+     */
+    public void maintain() {
+        for (String shard : shardRouter.shards()) {
+            shardRouter.run(shard, () -> maintain(shard, RAW_TABLE, rawRetention));
+        }
+        maintain(ShardRouter.PRIMARY, ROLLUP_TABLE, rollupRetention);
+    }
+
+    private void maintain(String shard, String table, Duration retention) {
+        try {
+            List<RangePartition> partitions = dialect.listPartitions(jdbcTemplate, table);
+            if (partitions.isEmpty()) {
+                log.warn("Table {} is not partitioned; skipping partition maintenance", table);
+                return;
+            }
+            createUpcoming(table, partitions);
+            dropExpired(table, partitions, LocalDateTime.now(clock).minus(retention));
+        } catch (RuntimeException e) {
+            log.error("Partition maintenance failed for table {} on shard {}", table, shard, e);
+        }
+    }
+
+    /**
+     * Creates partitions covering {@code premake} periods, starting with the current one.
+     * Only ranges above the highest existing dated partition are created, so ranges never overlap.
+     */
+    private void createUpcoming(String table, List<RangePartition> partitions) {
+        LocalDate current = period.startOf(LocalDate.now(clock));
+        LocalDate horizon = current;
+        for (int i = 0; i < premake; i++) {
+            horizon = period.next(horizon);
+        }
+        LocalDate start = current;
+        for (RangePartition partition : partitions) {
+            if (!partition.isCatchAll() && partition.getTo().toLocalDate().isAfter(start)) {
+                start = partition.getTo().toLocalDate();
+            }
+        }
+        for (LocalDate from = start; from.isBefore(horizon); from = period.next(from)) {
+            LocalDate to = period.next(from);
+            RangePartition partition = new RangePartition(dialect.partitionName(table, from),
+                    from.atStartOfDay(), to.atStartOfDay());
+            dialect.createPartition(jdbcTemplate, table, partition);
+            meterRegistry.counter("iotsenser.partitions.created", "table", table).increment();
+            log.info("Created partition {} of {} for [{}, {})", partition.getName(), table, from, to);
+        }
+    }
+
+    /**
+     * Drops every dated partition whose whole range lies before the cutoff.
+     * Cached queries may include expired readings, so dropping raw data invalidates the query cache.
+     */
+    private void dropExpired(String table, List<RangePartition> partitions, LocalDateTime cutoff) {
+        boolean dropped = false;
+        for (RangePartition partition : partitions) {
+            if (partition.isCatchAll() || partition.getTo().isAfter(cutoff)) {
+                continue;
+            }
+            dialect.dropPartition(jdbcTemplate, table, partition);
+            dropped = true;
+            meterRegistry.counter("iotsenser.partitions.dropped", "table", table).increment();
+            log.info("Dropped partition {} of {} (data before {})", partition.getName(), table, partition.getTo());
+        }
+        if (dropped && table.equals(RAW_TABLE)) {
+            queryCache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package turing.example.iotsenser.partition;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Width of the range partitions created for time-partitioned tables.
+ */
+public enum PartitionPeriod {
+
+    /**
+     * One partition per calendar day.
+     */
+    DAILY,
+
+    /**
+     * One partition per ISO week, starting on Monday.
+     */
+    WEEKLY;
+
+    /**
+     * Returns the first day of the period containing a date.
+     *
+     * @param date Any date.
+     */
+    public LocalDate startOf(LocalDate date) {
+        return this == DAILY ? date : date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    /**
+     * Returns the first day of the period following the one that starts on a date.
+     *
+     * @param start First day of a period.
+     */
+    public LocalDate next(LocalDate start) {
+        return this == DAILY ? start.plusDays(1) : start.plusWeeks(1);
+    }
+}
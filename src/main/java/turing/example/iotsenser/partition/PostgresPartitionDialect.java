@@ -0,0 +1,102 @@
+package turing.example.iotsenser.partition;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * PostgreSQL declarative partitioning ({@code PARTITION BY RANGE}).
+ * Each partition is a child table; a {@code DEFAULT} partition catches rows outside every range.
+ *
+ * <p>PostgreSQL refuses to create a partition while the default partition holds rows in its range, which
+ * happens once readings dated beyond the premade partitions have arrived. When the table has a default
+ * partition, a new partition is therefore created standalone, the default partition's rows in its range are
+ * moved into it, and it is attached, all in one statement so the rows are never missing from the table.</p>
+ */
+public class PostgresPartitionDialect implements PartitionDialect {
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final Pattern RANGE_BOUND = Pattern.compile("FROM \\(([^)]+)\\) TO \\(([^)]+)\\)");
+
+    @Override
+    public List<RangePartition> listPartitions(JdbcTemplate jdbcTemplate, String table) {
+        List<RangePartition> partitions = new ArrayList<>(jdbcTemplate.query(
+                "SELECT child.relname, pg_get_expr(child.relpartbound, child.oid) FROM pg_inherits i "
+                        + "JOIN pg_class child ON child.oid = i.inhrelid "
+                        + "JOIN pg_class parent ON parent.oid = i.inhparent "
+                        + "JOIN pg_namespace ns ON ns.oid = parent.relnamespace "
+                        + "WHERE parent.relname = ? AND ns.nspname = current_schema()",
+                (resultSet, rowNum) -> parse(resultSet.getString(1), resultSet.getString(2)),
+                table));
+        partitions.sort(Comparator.comparing(RangePartition::getTo, Comparator.nullsLast(Comparator.naturalOrder())));
+        return partitions;
+    }
+
+    @Override
+    public void createPartition(JdbcTemplate jdbcTemplate, String table, RangePartition partition) {
+        String from = PartitionDialect.literal(partition.getFrom());
+        String to = PartitionDialect.literal(partition.getTo());
+        List<Map<String, Object>> key = jdbcTemplate.queryForList(
+                "SELECT quote_ident(a.attname) AS key_column, "
+                        + "CASE WHEN pt.partdefid = 0 THEN NULL "
+                        + "ELSE pt.partdefid::regclass::text END AS default_partition "
+                        + "FROM pg_partitioned_table pt "
+                        + "JOIN pg_attribute a ON a.attrelid = pt.partrelid AND a.attnum = pt.partattrs[0] "
+                        + "WHERE pt.partrelid = to_regclass(?)",
+                table);
+        String defaultPartition = key.isEmpty() ? null : (String) key.get(0).get("default_partition");
+        if (defaultPartition == null) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition.getName() + " PARTITION OF " + table
+                    + " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+            return;
+        }
+        String column = (String) key.get(0).get("key_column");
+        jdbcTemplate.execute("DO $$ BEGIN IF to_regclass('" + partition.getName() + "') IS NULL THEN "
+                + "CREATE TABLE " + partition.getName() + " (LIKE " + table
+                + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS); "
+                + "WITH moved AS (DELETE FROM " + defaultPartition + " WHERE " + column + " >= " + from
+                + " AND " + column + " < " + to + " RETURNING *) "
+                + "INSERT INTO " + partition.getName() + " SELECT * FROM moved; "
+                + "ALTER TABLE " + table + " ATTACH PARTITION " + partition.getName()
+                + " FOR VALUES FROM (" + from + ") TO (" + to + "); "
+                + "END IF; END $$");
+    }
+
+    @Override
+    public void dropPartition(JdbcTemplate jdbcTemplate, String table, RangePartition partition) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition.getName());
+    }
+
+    @Override
+    public String partitionName(String table, LocalDate start) {
+        return table + "_p" + NAME_FORMAT.format(start);
+    }
+
+    /**
+     * Parses a bound expression such as
+     * {@code FOR VALUES FROM ('2024-01-01 00:00:00') TO ('2024-01-02 00:00:00')} or {@code DEFAULT}.
+     */
+    static RangePartition parse(String name, String bound) {
+        Matcher matcher = RANGE_BOUND.matcher(bound);
+        if (!matcher.find()) {
+            return new RangePartition(name, null, null);
+        }
+        return new RangePartition(name, parseTimestamp(matcher.group(1)), parseTimestamp(matcher.group(2)));
+    }
+
+    private static LocalDateTime parseTimestamp(String literal) {
+        String value = literal.replace("'", "").trim();
+        if (value.equalsIgnoreCase("MINVALUE") || value.equalsIgnoreCase("MAXVALUE")) {
+            return null;
+        }
+        return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value, BOUND_FORMAT);
+    }
+}
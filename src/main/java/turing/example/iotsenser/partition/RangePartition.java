@@ -0,0 +1,41 @@
+package turing.example.iotsenser.partition;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * One range partition of a time-partitioned table, covering {@code [from, to)}.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class RangePartition {
+
+    /**
+     * Partition name as known to the database.
+     */
+    private final String name;
+
+    /**
+     * Lower bound (inclusive), or null if the partition is unbounded below.
+     */
+    private final LocalDateTime from;
+
+    /**
+     * Upper bound (exclusive), or null for the catch-all partition.
+     */
+    private final LocalDateTime to;
+
+    /**
+     * Indicates whether this is the catch-all partition ({@code MAXVALUE} or {@code DEFAULT})
+     * that receives rows outside every managed range. It is never dropped.
+     */
+    public boolean isCatchAll() {
+        return to == null;
+    }
+}
@@ -0,0 +1,37 @@
+package turing.example.iotsenser.pipeline;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import turing.example.iotsenser.service.AnomalyDetectionService;
+
+/**
+ * Third pipeline stage: evaluates the reading against the anomaly detection rules.
+ */
+@Component
+@Order(3)
+public class DetectionStage implements PipelineStage {
+
+    private final AnomalyDetectionService anomalyDetectionService;
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param anomalyDetectionService Service holding the detection rules.
+     */
+    @Autowired
+    public DetectionStage(AnomalyDetectionService anomalyDetectionService) {
+        this.anomalyDetectionService = anomalyDetectionService;
+    }
+
+    @Override
+    public String name() {
+        return "detect";
+    }
+
+    @Override
+    public boolean process(PipelineContext context) {
+        anomalyDetectionService.evaluate(context.getSensorData()).ifPresent(context::setAnomaly);
+        return true;
+    }
+}
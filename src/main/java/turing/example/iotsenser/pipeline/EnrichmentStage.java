@@ -0,0 +1,29 @@
+package turing.example.iotsenser.pipeline;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import turing.example.iotsenser.model.SensorData;
+
+import java.time.LocalDateTime;
+
+/**
+ * Second pipeline stage: fills in attributes later stages rely on.
+ */
+@Component
+@Order(2)
+public class EnrichmentStage implements PipelineStage {
+
+    @Override
+    public String name() {
+        return "enrich";
+    }
+
+    @Override
+    public boolean process(PipelineContext context) {
+        SensorData sensorData = context.getSensorData();
+        if (sensorData.getTimestamp() == null) {
+            sensorData.setTimestamp(LocalDateTime.now());
+        }
+        return true;
+    }
+}
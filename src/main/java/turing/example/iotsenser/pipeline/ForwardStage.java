@@ -0,0 +1,55 @@
+package turing.example.iotsenser.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import turing.example.iotsenser.service.AnomalyDetectionService;
+
+import java.util.List;
+
+/**
+ * Final pipeline stage: records raised anomalies and forwards every reading to registered listeners.
+ * Anomalies suppressed as repeats are dropped from the context, so listeners do not see them either.
+ */
+@Slf4j
+@Component
+@Order(4)
+public class ForwardStage implements PipelineStage {
+
+    private final AnomalyDetectionService anomalyDetectionService;
+    private final List<PipelineListener> listeners;
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param anomalyDetectionService Service used to record anomalies.
+     * @param listeners               Listeners notified of every processed reading.
+     */
+    @Autowired
+    public ForwardStage(AnomalyDetectionService anomalyDetectionService, ObjectProvider<PipelineListener> listeners) {
+        this.anomalyDetectionService = anomalyDetectionService;
+        this.listeners = listeners.orderedStream().toList();
+    }
+
+    @Override
+    public String name() {
+        return "forward";
+    }
+
+    @Override
+    public boolean process(PipelineContext context) {
+        if (context.getAnomaly() != null && !anomalyDetectionService.recordAnomaly(context.getAnomaly())) {
+            context.setAnomaly(null);
+        }
+        for (PipelineListener listener : listeners) {
+            try {
+                listener.onProcessed(context.getSensorData(), context.getAnomaly());
+            } catch (RuntimeException e) {
+                log.warn("Pipeline listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        }
+        return true;
+    }
+}
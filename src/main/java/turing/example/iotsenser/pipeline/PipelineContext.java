@@ -0,0 +1,33 @@
+package turing.example.iotsenser.pipeline;
+
+import lombok.Getter;
+import lombok.Setter;
+import turing.example.iotsenser.model.Anomaly;
+import turing.example.iotsenser.model.SensorData;
+
+/**
+ * State carried by one sensor reading as it moves through the pipeline stages.
+ */
+@Getter
+@Setter
+public class PipelineContext {
+
+    /**
+     * The reading being processed.
+     */
+    private final SensorData sensorData;
+
+    /**
+     * Anomaly raised by the detection stage, if any.
+     */
+    private Anomaly anomaly;
+
+    /**
+     * Creates a context for a newly ingested reading.
+     *
+     * @param sensorData The reading being processed.
+     */
+    public PipelineContext(SensorData sensorData) {
+        this.sensorData = sensorData;
+    }
+}
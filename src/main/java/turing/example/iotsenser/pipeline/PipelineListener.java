@@ -0,0 +1,20 @@
+package turing.example.iotsenser.pipeline;
+
+import turing.example.iotsenser.model.Anomaly;
+import turing.example.iotsenser.model.SensorData;
+
+/**
+ * Receives readings that have made it through the whole pipeline.
+ * Beans implementing this interface are called by the forward stage, on the lane thread
+ * that owns the reading's device, so they must not block.
+ */
+public interface PipelineListener {
+
+    /**
+     * Called once for every processed reading.
+     *
+     * @param sensorData The processed reading.
+     * @param anomaly    The anomaly raised for it, or null if it was normal.
+     */
+    void onProcessed(SensorData sensorData, Anomaly anomaly);
+}
@@ -0,0 +1,22 @@
+package turing.example.iotsenser.pipeline;
+
+/**
+ * A single step of the sensor data pipeline.
+ * Stages run on the pipeline's lane threads; a given device is always handled by the same lane
+ * of each stage, so implementations see a device's readings in ingest order.
+ */
+public interface PipelineStage {
+
+    /**
+     * Name used for configuration keys, thread names and metric tags.
+     */
+    String name();
+
+    /**
+     * Processes a reading.
+     *
+     * @param context The reading and the state gathered by earlier stages.
+     * @return `true` to pass the reading on to the next stage, `false` to stop processing it.
+     */
+    boolean process(PipelineContext context);
+}
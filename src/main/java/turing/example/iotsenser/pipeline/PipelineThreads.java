@@ -0,0 +1,45 @@
+package turing.example.iotsenser.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates lane threads, using virtual threads when the runtime provides them.
+ * Virtual threads are looked up reflectively so the code still compiles for Java 17.
+ */
+@Slf4j
+final class PipelineThreads {
+
+    private PipelineThreads() {
+    }
+
+    /**
+     * Returns a thread factory for a stage's lanes.
+     *
+     * @param prefix  Thread name prefix.
+     * @param virtual Whether to request virtual threads; falls back to platform threads if unavailable.
+     */
+    static ThreadFactory factory(String prefix, boolean virtual) {
+        if (virtual) {
+            try {
+                // Resolve methods on the public Thread.Builder interface, not the JDK-internal implementation.
+                Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+                Method name = builderType.getMethod("name", String.class, long.class);
+                Method factory = builderType.getMethod("factory");
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                return (ThreadFactory) factory.invoke(name.invoke(builder, prefix + "-", 0L));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                log.warn("Virtual threads are not available on this JVM, using platform threads for {}", prefix);
+            }
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,303 @@
+package turing.example.iotsenser.pipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import turing.example.iotsenser.event.SensorDataEvent;
+import turing.example.iotsenser.model.SensorData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous, bounded, multi-stage pipeline for ingested sensor data.
+ *
+ * <p>Every stage owns a set of single-threaded lanes, each with a bounded queue. A reading is routed
+ * to a lane by its device ID, so one device's readings are handled in ingest order while different
+ * devices are processed in parallel. When the first stage is full the ingesting thread waits for room,
+ * and later stages block their upstream lane, so pressure propagates back to ingestion instead of readings
+ * being skipped by detection and the listeners. Events are fed in after the transaction commits, on the request or
+ * Kafka consumer thread, so that wait is bounded: a reading is dropped, and counted in
+ * {@code iotsenser.pipeline.dropped}, when the pipeline has stopped or the wait exceeds
+ * {@code iotsenser.pipeline.submit-timeout-ms} (1 second by default; 0 waits indefinitely).</p>
+ *
+ * <p>On shutdown the pipeline stops taking readings and drains its stages in order for up to
+ * {@code iotsenser.pipeline.shutdown-timeout-ms}; readings still queued after that are logged and counted
+ * as dropped.</p>
+ *
+ * <p>Per stage, {@code iotsenser.pipeline.stages.<name>.lanes} and
+ * {@code iotsenser.pipeline.stages.<name>.queue-capacity} override the pipeline-wide defaults.</p>
+ */
+@Slf4j
+@Component
+public class SensorDataPipeline {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final List<StageRunner> runners = new ArrayList<>();
+    private final long submitTimeoutNanos;
+    private final long shutdownTimeoutNanos;
+    private volatile boolean running;
+    private volatile boolean stopped;
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param stages        Pipeline stages in processing order.
+     * @param environment   Source of lane and queue settings.
+     * @param meterRegistry Registry for queue depth, latency, wait, drop and error metrics.
+     */
+    @Autowired
+    public SensorDataPipeline(List<PipelineStage> stages, Environment environment, MeterRegistry meterRegistry) {
+        int defaultLanes = environment.getProperty("iotsenser.pipeline.lanes", Integer.class,
+                Runtime.getRuntime().availableProcessors());
+        int defaultCapacity = environment.getProperty("iotsenser.pipeline.queue-capacity", Integer.class, 1024);
+        boolean virtualThreads = environment.getProperty("iotsenser.pipeline.virtual-threads", Boolean.class, false);
+        this.submitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(
+                environment.getProperty("iotsenser.pipeline.submit-timeout-ms", Long.class, 1000L));
+        this.shutdownTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(
+                environment.getProperty("iotsenser.pipeline.shutdown-timeout-ms", Long.class, 5000L));
+        for (PipelineStage stage : stages) {
+            String prefix = "iotsenser.pipeline.stages." + stage.name() + ".";
+            int lanes = environment.getProperty(prefix + "lanes", Integer.class, defaultLanes);
+            int capacity = environment.getProperty(prefix + "queue-capacity", Integer.class, defaultCapacity);
+            runners.add(new StageRunner(runners.size(), stage, lanes, capacity,
+                    PipelineThreads.factory("pipeline-" + stage.name(), virtualThreads), meterRegistry));
+        }
+    }
+
+    /**
+     * Starts the lane threads of every stage.
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (StageRunner runner : runners) {
+            runner.start();
+        }
+    }
+
+    /**
+     * Stops taking readings and lets the stages, in order, finish the readings already queued within the
+     * shutdown timeout. Readings still queued when it runs out are discarded, logged and counted as dropped.
+     */
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        running = false;
+        long deadline = System.nanoTime() + shutdownTimeoutNanos;
+        int discarded = 0;
+        for (StageRunner runner : runners) {
+            discarded += runner.stop(deadline);
+        }
+        if (discarded > 0) {
+            log.warn("Pipeline stopped with {} readings still queued; they were discarded", discarded);
+        }
+    }
+
+    /**
+     * Feeds published sensor data events into the pipeline once the surrounding transaction commits,
+     * or immediately when there is no transaction.
+     *
+     * @param event The event carrying the ingested reading.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSensorData(SensorDataEvent event) {
+        submit(event.getSensorData());
+    }
+
+    /**
+     * Enqueues a reading at the first stage, waiting for room while the pipeline runs.
+     *
+     * @param sensorData The reading to process.
+     * @return `true` if the reading was queued, `false` if it was dropped because the pipeline is not running,
+     * the wait timed out or the thread was interrupted.
+     */
+    public boolean submit(SensorData sensorData) {
+        return !runners.isEmpty() && runners.get(0).submit(new PipelineContext(sensorData), submitTimeoutNanos);
+    }
+
+    private void handOff(int nextStage, PipelineContext context) {
+        if (nextStage < runners.size()) {
+            runners.get(nextStage).put(context);
+        }
+    }
+
+    /**
+     * Lanes, queues and meters of a single stage.
+     */
+    private final class StageRunner {
+
+        private final int index;
+        private final PipelineStage stage;
+        private final List<BlockingQueue<PipelineContext>> queues = new ArrayList<>();
+        private final List<Thread> threads = new ArrayList<>();
+        private final ThreadFactory threadFactory;
+        private final Timer latency;
+        private final Timer submitWait;
+        private final Counter dropped;
+        private final Counter errors;
+        private volatile boolean upstreamDone;
+
+        StageRunner(int index, PipelineStage stage, int lanes, int capacity, ThreadFactory threadFactory,
+                    MeterRegistry meterRegistry) {
+            this.index = index;
+            this.stage = stage;
+            this.threadFactory = threadFactory;
+            for (int i = 0; i < lanes; i++) {
+                queues.add(new ArrayBlockingQueue<>(capacity));
+            }
+            Gauge.builder("iotsenser.pipeline.queue.depth", queues,
+                            qs -> qs.stream().mapToInt(BlockingQueue::size).sum())
+                    .description("Readings waiting for a pipeline stage")
+                    .tag("stage", stage.name())
+                    .register(meterRegistry);
+            this.latency = Timer.builder("iotsenser.pipeline.stage.latency")
+                    .description("Time spent processing a reading in a pipeline stage")
+                    .tag("stage", stage.name())
+                    .register(meterRegistry);
+            this.submitWait = Timer.builder("iotsenser.pipeline.submit.wait")
+                    .description("Time ingestion waited for room in a full pipeline stage")
+                    .tag("stage", stage.name())
+                    .register(meterRegistry);
+            this.dropped = Counter.builder("iotsenser.pipeline.dropped")
+                    .description("Readings dropped because a pipeline stage was full or stopped")
+                    .tag("stage", stage.name())
+                    .register(meterRegistry);
+            this.errors = Counter.builder("iotsenser.pipeline.errors")
+                    .description("Readings whose processing failed in a pipeline stage")
+                    .tag("stage", stage.name())
+                    .register(meterRegistry);
+        }
+
+        void start() {
+            for (BlockingQueue<PipelineContext> queue : queues) {
+                Thread thread = threadFactory.newThread(() -> drain(queue));
+                threads.add(thread);
+                thread.start();
+            }
+        }
+
+        /**
+         * Lets the lanes finish their queues, now that no more readings arrive from upstream, until the
+         * deadline; then stops them and discards what is left.
+         *
+         * @return The number of readings discarded.
+         */
+        int stop(long deadline) {
+            upstreamDone = true;
+            for (Thread thread : threads) {
+                try {
+                    TimeUnit.NANOSECONDS.timedJoin(thread, Math.max(0, deadline - System.nanoTime()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                thread.interrupt();
+            }
+            threads.clear();
+            int discarded = 0;
+            for (BlockingQueue<PipelineContext> queue : queues) {
+                discarded += queue.size();
+                queue.clear();
+            }
+            dropped.increment(discarded);
+            return discarded;
+        }
+
+        boolean submit(PipelineContext context, long timeoutNanos) {
+            BlockingQueue<PipelineContext> lane = laneFor(context);
+            if (!stopped && lane.offer(context)) {
+                return true;
+            }
+            long start = System.nanoTime();
+            try {
+                // Waits in short slices so that stop() releases blocked ingest threads promptly
+                while (running) {
+                    long wait = TimeUnit.MILLISECONDS.toNanos(POLL_MILLIS);
+                    if (timeoutNanos > 0) {
+                        long remaining = start + timeoutNanos - System.nanoTime();
+                        if (remaining <= 0) {
+                            break;
+                        }
+                        wait = Math.min(wait, remaining);
+                    }
+                    if (lane.offer(context, wait, TimeUnit.NANOSECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                submitWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            log.warn("Pipeline stage {} is full or stopped; dropped a reading of device {}", stage.name(),
+                    context.getSensorData().getDeviceId());
+            dropped.increment();
+            return false;
+        }
+
+        void put(PipelineContext context) {
+            try {
+                laneFor(context).put(context);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped.increment();
+            }
+        }
+
+        private BlockingQueue<PipelineContext> laneFor(PipelineContext context) {
+            String deviceId = context.getSensorData().getDeviceId();
+            int hash = deviceId == null ? 0 : deviceId.hashCode();
+            return queues.get(Math.floorMod(hash, queues.size()));
+        }
+
+        /**
+         * Processes a lane's readings until the lane is empty and nothing more can arrive from upstream.
+         */
+        private void drain(BlockingQueue<PipelineContext> queue) {
+            while (true) {
+                PipelineContext context;
+                try {
+                    context = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (context != null) {
+                    process(context);
+                } else if (upstreamDone) {
+                    return;
+                }
+            }
+        }
+
+        private void process(PipelineContext context) {
+            long start = System.nanoTime();
+            boolean proceed;
+            try {
+                proceed = stage.process(context);
+            } catch (RuntimeException e) {
+                log.error("Pipeline stage {} failed for device {}", stage.name(),
+                        context.getSensorData().getDeviceId(), e);
+                errors.increment();
+                proceed = false;
+            } finally {
+                latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            if (proceed) {
+                handOff(index + 1, context);
+            }
+        }
+    }
+}
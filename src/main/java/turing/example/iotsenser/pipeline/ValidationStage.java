@@ -0,0 +1,30 @@
+package turing.example.iotsenser.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import turing.example.iotsenser.utils.SensorDataValidator;
+
+/**
+ * First pipeline stage: drops readings that fail validation.
+ */
+@Slf4j
+@Component
+@Order(1)
+public class ValidationStage implements PipelineStage {
+
+    @Override
+    public String name() {
+        return "validate";
+    }
+
+    @Override
+    public boolean process(PipelineContext context) {
+        String reason = SensorDataValidator.rejectionReason(context.getSensorData());
+        if (reason != null) {
+            log.debug("Dropping reading from pipeline: {}", reason);
+            return false;
+        }
+        return true;
+    }
+}
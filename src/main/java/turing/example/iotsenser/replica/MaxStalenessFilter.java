@@ -0,0 +1,54 @@
+package turing.example.iotsenser.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Applies a request's {@value #HEADER} header, such as {@code 2s} or {@code 0}, as its {@link ReadStaleness}.
+ * A tolerance of zero reads from the primary, for clients that must see their own writes.
+ */
+@Component
+@ConditionalOnProperty(name = "iotsenser.replicas.enabled", havingValue = "true")
+public class MaxStalenessFilter extends OncePerRequestFilter {
+
+    /**
+     * Request header carrying the tolerated replication lag.
+     */
+    public static final String HEADER = "X-Max-Staleness";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HEADER);
+        if (header == null || header.isBlank()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Duration maxStaleness;
+        try {
+            maxStaleness = DurationStyle.detectAndParse(header.trim());
+        } catch (IllegalArgumentException e) {
+            maxStaleness = null;
+        }
+        if (maxStaleness == null || maxStaleness.isNegative()) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid " + HEADER + " header");
+            return;
+        }
+        Duration previous = ReadStaleness.current();
+        ReadStaleness.set(maxStaleness);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadStaleness.set(previous);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package turing.example.iotsenser.replica;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Replication lag the current thread's reads tolerate, read by {@link ReplicaRoutingDataSource}.
+ * Unset means the configured default; {@link Duration#ZERO} sends reads to the primary.
+ */
+public final class ReadStaleness {
+
+    private static final ThreadLocal<Duration> CURRENT = new ThreadLocal<>();
+
+    private ReadStaleness() {
+    }
+
+    /**
+     * Returns the current tolerance, or null if none is set.
+     */
+    public static Duration current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs work with a tolerance set, restoring the previous one afterwards.
+     *
+     * @param maxStaleness Largest acceptable replication lag; null for the default.
+     * @param work         Work to run.
+     * @return The work's result.
+     */
+    public static <T> T call(Duration maxStaleness, Supplier<T> work) {
+        Duration previous = CURRENT.get();
+        set(maxStaleness);
+        try {
+            return work.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    /**
+     * Wraps a task so that it runs with the tolerance of the thread submitting it.
+     * Used as the task decorator of thread pools that run reads on a request's behalf.
+     *
+     * @param task Task to wrap.
+     * @return The wrapped task.
+     */
+    public static Runnable propagate(Runnable task) {
+        Duration maxStaleness = CURRENT.get();
+        if (maxStaleness == null) {
+            return task;
+        }
+        return () -> call(maxStaleness, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Sets the current tolerance; callers restore the previous one when done.
+     *
+     * @param maxStaleness Largest acceptable replication lag; null for the default.
+     */
+    public static void set(Duration maxStaleness) {
+        if (maxStaleness == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(maxStaleness);
+        }
+    }
+}
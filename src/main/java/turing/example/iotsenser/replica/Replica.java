@@ -0,0 +1,149 @@
+package turing.example.iotsenser.replica;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * A read replica of one shard, with its last observed health and replication lag.
+ *
+ * <p>A replica starts out healthy with no known lag, is marked down as soon as a connection to it fails,
+ * and is brought back by the next successful {@link #check(Duration)}.</p>
+ */
+@Slf4j
+public class Replica {
+
+    /**
+     * Lag reported while the replica's lag is unknown, for example when replication is stopped.
+     */
+    static final Duration UNKNOWN_LAG = Duration.ofSeconds(Long.MAX_VALUE);
+
+    private final String name;
+    private final DataSource dataSource;
+
+    private volatile boolean healthy = true;
+    private volatile Duration lag = Duration.ZERO;
+
+    /**
+     * Creates a replica.
+     *
+     * @param name       Name used in logs and metrics.
+     * @param dataSource Connections to the replica.
+     */
+    public Replica(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Returns the replica's name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the data source of the replica.
+     */
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Indicates whether the replica answered its last check and no connection to it has failed since.
+     */
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    /**
+     * Returns the replication lag observed at the last check.
+     */
+    public Duration getLag() {
+        return lag;
+    }
+
+    /**
+     * Returns the replication lag observed at the last check in seconds, or NaN while it is unknown.
+     */
+    public double getLagSeconds() {
+        Duration current = lag;
+        return current.equals(UNKNOWN_LAG) ? Double.NaN : current.toMillis() / 1000.0;
+    }
+
+    /**
+     * Indicates whether reads tolerating the given lag may be served by this replica.
+     *
+     * @param maxStaleness Largest acceptable replication lag.
+     */
+    public boolean isUsable(Duration maxStaleness) {
+        return healthy && lag.compareTo(maxStaleness) <= 0;
+    }
+
+    /**
+     * Takes the replica out of rotation until its next successful check.
+     *
+     * @param cause Failure that made the replica unusable.
+     */
+    public void markDown(Exception cause) {
+        if (healthy) {
+            log.warn("Read replica {} is unavailable; reads fail over to the primary", name, cause);
+        }
+        healthy = false;
+    }
+
+    /**
+     * Probes the replica and refreshes its health and lag.
+     *
+     * @param timeout Time the replica has to validate a connection.
+     */
+    public void check(Duration timeout) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!connection.isValid((int) Math.max(1, timeout.toSeconds()))) {
+                throw new SQLException("Connection validation timed out");
+            }
+            lag = measureLag(connection);
+            if (!healthy) {
+                log.info("Read replica {} is available again", name);
+            }
+            healthy = true;
+        } catch (SQLException | RuntimeException e) {
+            markDown(e);
+        }
+    }
+
+    /**
+     * Reads the replication delay with the database's own status query.
+     * Databases without one, or servers that are not replicating, report no lag.
+     */
+    private static Duration measureLag(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        try (Statement statement = connection.createStatement()) {
+            if ("PostgreSQL".equals(product)) {
+                // Fully replayed standbys report the age of their last transaction, which is not lag
+                try (ResultSet result = statement.executeQuery("SELECT CASE WHEN NOT pg_is_in_recovery() "
+                        + "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+                        + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END")) {
+                    result.next();
+                    double seconds = result.getDouble(1);
+                    return result.wasNull() ? UNKNOWN_LAG : Duration.ofMillis((long) (seconds * 1000));
+                }
+            }
+            if ("MySQL".equals(product)) {
+                try (ResultSet result = statement.executeQuery("SHOW REPLICA STATUS")) {
+                    if (!result.next()) {
+                        return Duration.ZERO;
+                    }
+                    long seconds = result.getLong("Seconds_Behind_Source");
+                    return result.wasNull() ? UNKNOWN_LAG : Duration.ofSeconds(seconds);
+                }
+            }
+        }
+        return Duration.ZERO;
+    }
+}
@@ -0,0 +1,114 @@
+package turing.example.iotsenser.replica;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Data source sending read-only transactions to a shard's replicas and everything else to its primary.
+ *
+ * <p>Replicas take turns, skipping those that are down or lag further behind than the reading thread's
+ * {@link ReadStaleness} allows; a tolerance of zero always reads from the primary. A replica whose
+ * connection fails is marked down and the next one tried, and when no replica qualifies the read fails
+ * over to the primary. The read-only flag is only known once the transaction has started, so this data
+ * source must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.</p>
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Duration defaultMaxStaleness;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryReads;
+    private final Counter[] replicaReads;
+
+    /**
+     * Creates a routing data source.
+     *
+     * @param shard               Name of the shard, used as a metric tag.
+     * @param primary             Data source taking writes.
+     * @param replicas            Replicas of the primary.
+     * @param defaultMaxStaleness Replication lag tolerated by reads that set no {@link ReadStaleness}.
+     * @param meterRegistry       Registry for the read split counters.
+     */
+    public ReplicaRoutingDataSource(String shard, DataSource primary, List<Replica> replicas,
+                                    Duration defaultMaxStaleness, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.defaultMaxStaleness = defaultMaxStaleness;
+        this.primaryReads = readCounter(meterRegistry, shard, "primary");
+        this.replicaReads = new Counter[this.replicas.size()];
+        for (int i = 0; i < replicaReads.length; i++) {
+            replicaReads[i] = readCounter(meterRegistry, shard, this.replicas.get(i).getName());
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(target -> target.getConnection(username, password));
+    }
+
+    /**
+     * Picks the data source serving the current work and opens a connection to it.
+     */
+    private Connection route(ConnectionOpener opener) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return opener.open(primary);
+        }
+        Duration maxStaleness = ReadStaleness.current();
+        if (maxStaleness == null) {
+            maxStaleness = defaultMaxStaleness;
+        }
+        if (maxStaleness.isZero()) {
+            primaryReads.increment();
+            return opener.open(primary);
+        }
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(1, replicas.size()));
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = (start + i) % replicas.size();
+            Replica replica = replicas.get(index);
+            if (!replica.isUsable(maxStaleness)) {
+                continue;
+            }
+            try {
+                Connection connection = opener.open(replica.getDataSource());
+                replicaReads[index].increment();
+                return connection;
+            } catch (SQLException e) {
+                replica.markDown(e);
+            }
+        }
+        primaryReads.increment();
+        return opener.open(primary);
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String shard, String target) {
+        return Counter.builder("iotsenser.replicas.reads")
+                .description("Read-only transactions by the data source serving them")
+                .tag("shard", shard)
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a connection to a chosen data source, with or without explicit credentials.
+     */
+    @FunctionalInterface
+    private interface ConnectionOpener {
+
+        Connection open(DataSource dataSource) throws SQLException;
+    }
+}
@@ -0,0 +1,95 @@
+package turing.example.iotsenser.replica;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The read replicas of every shard, probed in the background for health and replication lag.
+ */
+public class ReplicaSet implements AutoCloseable {
+
+    private final Map<String, List<Replica>> replicasByShard;
+    private final Duration checkInterval;
+    private final Duration checkTimeout;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a replica set and registers its gauges.
+     *
+     * @param replicasByShard Replicas by the name of the shard they copy.
+     * @param checkInterval   Time between probes of each replica.
+     * @param checkTimeout    Time a replica has to answer a probe.
+     * @param meterRegistry   Registry for the lag and health gauges.
+     */
+    public ReplicaSet(Map<String, List<Replica>> replicasByShard, Duration checkInterval, Duration checkTimeout,
+                      MeterRegistry meterRegistry) {
+        this.replicasByShard = Map.copyOf(replicasByShard);
+        this.checkInterval = checkInterval;
+        this.checkTimeout = checkTimeout;
+        this.replicasByShard.forEach((shard, replicas) -> {
+            for (Replica replica : replicas) {
+                Gauge.builder("iotsenser.replicas.lag", replica, Replica::getLagSeconds)
+                        .description("Replication lag observed at the last probe")
+                        .baseUnit("seconds")
+                        .tag("shard", shard)
+                        .tag("replica", replica.getName())
+                        .register(meterRegistry);
+                Gauge.builder("iotsenser.replicas.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                        .description("Whether the replica is in rotation")
+                        .tag("shard", shard)
+                        .tag("replica", replica.getName())
+                        .register(meterRegistry);
+            }
+        });
+    }
+
+    /**
+     * Returns the replicas of a shard, empty if it has none.
+     *
+     * @param shard Shard name.
+     */
+    public List<Replica> replicasOf(String shard) {
+        return replicasByShard.getOrDefault(shard, List.of());
+    }
+
+    /**
+     * Probes every replica once.
+     */
+    public void checkAll() {
+        for (List<Replica> replicas : replicasByShard.values()) {
+            for (Replica replica : replicas) {
+                replica.check(checkTimeout);
+            }
+        }
+    }
+
+    /**
+     * Probes the replicas now and then periodically.
+     */
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkAll, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the probes.
+     */
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package turing.example.iotsenser.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import turing.example.iotsenser.model.Anomaly;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository interface for managing Anomaly persistence.
+ * Extends JpaRepository to provide CRUD operations.
+ */
+@Repository
+public interface AnomalyRepository extends JpaRepository<Anomaly, Long> {
+
+    /**
+     * Finds anomalies detected after a point in time, newest first.
+     *
+     * @param since Lower bound (exclusive) on the detection time.
+     * @return List of Anomaly records detected after the given time.
+     */
+    List<Anomaly> findByDetectedAtAfterOrderByDetectedAtDesc(LocalDateTime since);
+
+    /**
+     * Finds all anomalies recorded for a specific device, newest first.
+     *
+     * @param deviceId Unique identifier of the IoT device.
+     * @return List of Anomaly records associated with the given device ID.
+     */
+    List<Anomaly> findByDeviceIdOrderByDetectedAtDesc(String deviceId);
+
+    /**
+     * Finds the page of a device's anomalies that precedes a keyset position, newest first in
+     * {@code (detectedAt, id)} order. Seeks through the {@code (device_id, detected_at)} index,
+     * so deep pages cost the same as the first.
+     *
+     * @param deviceId   Unique identifier of the IoT device.
+     * @param from       Start of the range (inclusive).
+     * @param detectedAt Detection time of the last anomaly already returned.
+     * @param id         ID of the last anomaly already returned.
+     * @param pageable   Page size; only the first page is meaningful.
+     * @return Up to the requested number of anomalies before the position.
+     */
+    @Query("select a from Anomaly a where a.deviceId = :deviceId and a.detectedAt >= :from "
+            + "and a.detectedAt <= :detectedAt and (a.detectedAt < :detectedAt or a.id < :id) "
+            + "order by a.detectedAt desc, a.id desc")
+    List<Anomaly> findDevicePageBefore(@Param("deviceId") String deviceId, @Param("from") LocalDateTime from,
+                                       @Param("detectedAt") LocalDateTime detectedAt, @Param("id") long id,
+                                       Pageable pageable);
+
+    /**
+     * Finds the page of anomalies of every device that precedes a keyset position, newest first in
+     * {@code (detectedAt, id)} order. Seeks through the {@code detected_at} index.
+     *
+     * @param from       Start of the range (inclusive).
+     * @param detectedAt Detection time of the last anomaly already returned.
+     * @param id         ID of the last anomaly already returned.
+     * @param pageable   Page size; only the first page is meaningful.
+     * @return Up to the requested number of anomalies before the position.
+     */
+    @Query("select a from Anomaly a where a.detectedAt >= :from "
+            + "and a.detectedAt <= :detectedAt and (a.detectedAt < :detectedAt or a.id < :id) "
+            + "order by a.detectedAt desc, a.id desc")
+    List<Anomaly> findPageBefore(@Param("from") LocalDateTime from, @Param("detectedAt") LocalDateTime detectedAt,
+                                 @Param("id") long id, Pageable pageable);
+}
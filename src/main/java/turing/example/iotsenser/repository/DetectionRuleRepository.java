@@ -0,0 +1,21 @@
+package turing.example.iotsenser.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import turing.example.iotsenser.model.DetectionRule;
+
+import java.util.List;
+
+/**
+ * Repository interface for managing stored detection rules.
+ */
+@Repository
+public interface DetectionRuleRepository extends JpaRepository<DetectionRule, Long> {
+
+    /**
+     * Retrieves the rules in force, in the order they were created.
+     *
+     * @return List of enabled DetectionRule records.
+     */
+    List<DetectionRule> findByEnabledTrueOrderByIdAsc();
+}
@@ -0,0 +1,38 @@
+package turing.example.iotsenser.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import turing.example.iotsenser.model.Device;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Repository interface for managing the persisted device registry.
+ */
+@Repository
+public interface DeviceRepository extends JpaRepository<Device, Integer> {
+
+    /**
+     * Finds a registered device by its device ID.
+     *
+     * @param deviceId Unique identifier of the IoT device.
+     * @return The device, or empty if it is not registered.
+     */
+    Optional<Device> findByDeviceId(String deviceId);
+
+    /**
+     * Streams every registered device from a database cursor.
+     * Rows are returned as unmanaged instances, so the persistence context does not grow with the fleet;
+     * the stream must be consumed and closed inside a transaction.
+     *
+     * @return Stream of all Device records.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new turing.example.iotsenser.model.Device(d.deviceKey, d.deviceId) from Device d")
+    Stream<Device> streamAll();
+}
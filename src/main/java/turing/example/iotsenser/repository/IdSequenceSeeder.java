@@ -0,0 +1,126 @@
+package turing.example.iotsenser.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+import turing.example.iotsenser.shard.ShardRouter;
+
+import java.sql.DatabaseMetaData;
+import java.util.Map;
+
+/**
+ * Moves the ID sequences of the primary database past the IDs already in their tables.
+ *
+ * <p>Readings, anomalies and rollups draw their IDs from pooled sequences ({@code allocationSize = 50}).
+ * Tables created when IDs were generated with IDENTITY already hold rows, while Hibernate's schema update
+ * creates the new sequences (on MySQL, single-row emulation tables) starting at 1, so the first batches
+ * would collide with existing rows. On startup, once Hibernate has updated the schema, each sequence is
+ * raised so the next block it hands out starts above the table's highest ID. Sequences already past it
+ * are left alone, so the step is idempotent and safe with several instances starting at once.</p>
+ *
+ * <p>Only IDs within the primary's shard range are considered: rows the rebalancer moved in from other
+ * shards keep the IDs of those shards' ranges (see {@code db/sharding/*.sql}).</p>
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class IdSequenceSeeder {
+
+    /**
+     * Size of the ID range each shard draws from; the primary's is {@code [0, SHARD_ID_RANGE)}.
+     */
+    static final long SHARD_ID_RANGE = 1L << 48;
+
+    /**
+     * Block size of the pooled sequences, as in the entities' {@code @SequenceGenerator}s.
+     */
+    static final int ALLOCATION_SIZE = 50;
+
+    /**
+     * Sequence of each table whose IDs are generated.
+     */
+    static final Map<String, String> SEQUENCES = Map.of(
+            "sensor_data", "sensor_data_seq",
+            "anomalies", "anomalies_seq",
+            "sensor_rollups", "sensor_rollups_seq");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param jdbcTemplate JDBC access to the sequences.
+     * @param shardRouter  Router to the primary shard, which holds the pre-sequence rows.
+     */
+    @Autowired
+    public IdSequenceSeeder(JdbcTemplate jdbcTemplate, ShardRouter shardRouter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Seeds the sequences of the primary database.
+     */
+    @PostConstruct
+    public void seed() {
+        shardRouter.run(ShardRouter.PRIMARY, () -> seed(databaseProduct()));
+    }
+
+    /**
+     * Seeds every sequence on a database of the given product; other databases than MySQL, MariaDB and
+     * PostgreSQL are skipped. A failure on one sequence is logged and does not stop the others.
+     *
+     * @param product Database product name, as reported by the JDBC driver.
+     */
+    void seed(String product) {
+        boolean emulated = "MySQL".equalsIgnoreCase(product) || "MariaDB".equalsIgnoreCase(product);
+        if (!emulated && !"PostgreSQL".equalsIgnoreCase(product)) {
+            log.debug("Not seeding ID sequences on {}", product);
+            return;
+        }
+        SEQUENCES.forEach((table, sequence) -> {
+            try {
+                Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table + " WHERE id < ?",
+                        Long.class, SHARD_ID_RANGE);
+                if (maxId != null && (emulated ? raiseEmulated(sequence, maxId) : raise(sequence, maxId))) {
+                    log.info("Raised sequence {} above the highest existing ID {} of {}", sequence, maxId, table);
+                }
+            } catch (DataAccessException e) {
+                log.warn("Cannot seed sequence {} from table {}", sequence, table, e);
+            }
+        });
+    }
+
+    /**
+     * Raises a sequence emulation table, whose row holds the top of the next block handed out.
+     */
+    private boolean raiseEmulated(String sequence, long maxId) {
+        long next = maxId + ALLOCATION_SIZE;
+        return jdbcTemplate.update("UPDATE " + sequence + " SET next_val = ? WHERE next_val < ?", next, next) > 0;
+    }
+
+    /**
+     * Raises a PostgreSQL sequence so the following {@code nextval} returns the top of the block after
+     * {@code maxId}.
+     */
+    private boolean raise(String sequence, long maxId) {
+        return !jdbcTemplate.queryForList("SELECT setval('" + sequence + "', ?) FROM " + sequence
+                + " WHERE last_value < ?", Long.class, maxId, maxId).isEmpty();
+    }
+
+    private String databaseProduct() {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                    DatabaseMetaData::getDatabaseProductName);
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Cannot determine database type for sequence seeding", e);
+        }
+    }
+}
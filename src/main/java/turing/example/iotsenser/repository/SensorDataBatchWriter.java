@@ -0,0 +1,87 @@
+package turing.example.iotsenser.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import turing.example.iotsenser.ingest.ReadingBatch;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.serialization.DeviceIdDictionary;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.stream.IntStream;
+
+/**
+ * Writes a {@link ReadingBatch} to {@code sensor_data} with a plain JDBC batch insert.
+ * Skips the persistence context entirely: no entity instances, snapshots or insert actions are created.
+ * IDs come from the entity's own Hibernate generator, so they share the pooled sequence with JPA inserts.
+ * Must be called inside a transaction, which the JDBC statements join.
+ */
+@Repository
+public class SensorDataBatchWriter {
+
+    private static final String INSERT_SQL =
+            "insert into sensor_data (id, device_id, device_key, temperature, humidity, timestamp) "
+                    + "values (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param jdbcTemplate JDBC template bound to the application data source.
+     */
+    @Autowired
+    public SensorDataBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Assigns IDs to every reading of the batch and inserts them.
+     *
+     * @param batch Readings to insert, with device keys already assigned; their IDs are filled in.
+     */
+    public void insert(ReadingBatch batch) {
+        insert(batch, IntStream.range(0, batch.size()).toArray());
+    }
+
+    /**
+     * Assigns IDs to some readings of the batch and inserts them.
+     *
+     * @param batch Readings, with device keys already assigned; the inserted rows' IDs are filled in.
+     * @param rows  Indexes of the readings to insert.
+     */
+    public void insert(ReadingBatch batch, int[] rows) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator generator = session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(SensorData.class).getIdentifierGenerator();
+        for (int row : rows) {
+            batch.setId(row, ((Number) generator.generate(session, null)).longValue());
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int index) throws SQLException {
+                int i = rows[index];
+                statement.setLong(1, batch.id(i));
+                statement.setString(2, batch.deviceId(i));
+                statement.setObject(3, batch.deviceKey(i) == DeviceIdDictionary.UNKNOWN ? null : batch.deviceKey(i));
+                statement.setDouble(4, batch.temperature(i));
+                statement.setDouble(5, batch.humidity(i));
+                statement.setObject(6, batch.dateTime(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.length;
+            }
+        });
+    }
+}
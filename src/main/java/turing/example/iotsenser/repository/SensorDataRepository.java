@@ -1,10 +1,21 @@
 package turing.example.iotsenser.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import turing.example.iotsenser.dto.SensorReadingView;
 import turing.example.iotsenser.model.SensorData;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing SensorData persistence.
@@ -21,4 +32,75 @@ public interface SensorDataRepository extends JpaRepository<SensorData, Long> {
      */
     List<SensorData> findByDeviceId(String deviceId);
 
+    /**
+     * Finds the most recent reading of a device, using the {@code (device_id, timestamp)} index.
+     *
+     * @param deviceId Unique identifier of the IoT device.
+     * @return The latest SensorData record, or empty if the device has none.
+     */
+    Optional<SensorData> findFirstByDeviceIdOrderByTimestampDesc(String deviceId);
+
+    /**
+     * Finds the most recent reading of each of several devices in one query.
+     * The correlated maximum is resolved per device through the {@code (device_id, timestamp)} index.
+     *
+     * @param deviceIds Unique identifiers of the IoT devices.
+     * @return The latest reading of every device that has one; a device with several readings at its
+     * latest timestamp may appear more than once.
+     */
+    @Query("select s from SensorData s where s.deviceId in :deviceIds and s.timestamp = "
+            + "(select max(t.timestamp) from SensorData t where t.deviceId = s.deviceId)")
+    List<SensorData> findLatestByDeviceIds(@Param("deviceIds") Collection<String> deviceIds);
+
+    /**
+     * Finds a device's readings within a time range, newest first, as read-only views.
+     * Served by the {@code (device_id, timestamp)} index; on a partitioned table only the
+     * partitions overlapping the range are read.
+     *
+     * @param deviceId Unique identifier of the IoT device.
+     * @param from     Start of the range (inclusive).
+     * @param to       End of the range (exclusive).
+     * @param pageable Maximum number of readings; only the first page is meaningful.
+     * @return Up to the requested number of readings in the range.
+     */
+    @Query("select new turing.example.iotsenser.dto.SensorReadingView(s.id, s.deviceId, s.temperature, s.humidity, s.timestamp) "
+            + "from SensorData s where s.deviceId = :deviceId and s.timestamp >= :from and s.timestamp < :to "
+            + "order by s.timestamp desc")
+    List<SensorReadingView> findReadingsInRange(@Param("deviceId") String deviceId, @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to, Pageable pageable);
+
+    /**
+     * Finds the first page of sensor data in {@code (timestamp, id)} order.
+     *
+     * @param pageable Page size; only the first page is meaningful.
+     * @return Up to the requested number of records.
+     */
+    List<SensorData> findAllByOrderByTimestampAscIdAsc(Pageable pageable);
+
+    /**
+     * Finds the page of sensor data that follows a keyset position, in {@code (timestamp, id)} order.
+     * Seeks through the {@code (timestamp, id)} index, so deep pages cost the same as the first.
+     * The plain lower bound on {@code timestamp} also lets a partitioned table skip older partitions.
+     *
+     * @param timestamp Timestamp of the last record already returned.
+     * @param id        ID of the last record already returned.
+     * @param pageable  Page size; only the first page is meaningful.
+     * @return Up to the requested number of records after the position.
+     */
+    @Query("select s from SensorData s where s.timestamp >= :timestamp and (s.timestamp > :timestamp or s.id > :id) "
+            + "order by s.timestamp asc, s.id asc")
+    List<SensorData> findPageAfter(@Param("timestamp") LocalDateTime timestamp, @Param("id") long id, Pageable pageable);
+
+    /**
+     * Streams all sensor data in {@code (timestamp, id)} order from a database cursor.
+     * Rows are fetched in bounded chunks; the stream must be consumed and closed inside a transaction.
+     *
+     * @return Stream of all SensorData records.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select s from SensorData s order by s.timestamp asc, s.id asc")
+    Stream<SensorData> streamAllOrdered();
 }
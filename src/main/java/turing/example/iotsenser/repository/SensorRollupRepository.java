@@ -0,0 +1,43 @@
+package turing.example.iotsenser.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import turing.example.iotsenser.model.RollupResolution;
+import turing.example.iotsenser.model.SensorRollup;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for managing SensorRollup persistence.
+ * Extends JpaRepository to provide CRUD operations.
+ */
+@Repository
+public interface SensorRollupRepository extends JpaRepository<SensorRollup, Long> {
+
+    /**
+     * Finds the existing rollups of one bucket for several devices.
+     *
+     * @param resolution  Width of the bucket.
+     * @param bucketStart Start of the bucket.
+     * @param deviceIds   Devices to look up.
+     * @return Rollup rows that already exist for the given devices.
+     */
+    List<SensorRollup> findByResolutionAndBucketStartAndDeviceIdIn(RollupResolution resolution,
+                                                                    LocalDateTime bucketStart,
+                                                                    Collection<String> deviceIds);
+
+    /**
+     * Finds a device's rollups within a time range, oldest first.
+     * Served by the unique {@code (device_id, resolution, bucket_start)} index.
+     *
+     * @param deviceId   Unique identifier of the IoT device.
+     * @param resolution Width of the buckets.
+     * @param from       Earliest bucket start (inclusive).
+     * @param to         Latest bucket start (exclusive).
+     * @return Rollup rows in the range.
+     */
+    List<SensorRollup> findByDeviceIdAndResolutionAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStartAsc(
+            String deviceId, RollupResolution resolution, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,184 @@
+package turing.example.iotsenser.rollup;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import turing.example.iotsenser.event.SensorDataEvent;
+import turing.example.iotsenser.model.RollupResolution;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.model.SensorRollup;
+import turing.example.iotsenser.service.RollupService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains 1m / 1h / 1d rollups incrementally from the committed write path.
+ *
+ * <p>Readings are taken from the {@link SensorDataEvent}s published for every stored reading, once their
+ * write has committed, so rollups count exactly the stored readings even when the processing pipeline is
+ * saturated or rejects a reading. Each reading is folded into an in-memory partial aggregate per device, resolution
+ * and bucket. A background task periodically takes the partials and merges them into the stored
+ * rollups, so the database sees one write per bucket per flush instead of one per reading.
+ * Partials are removed atomically before flushing; readings arriving meanwhile start a new partial
+ * that is merged on the next flush. Late readings simply merge into their (older) bucket.</p>
+ */
+@Slf4j
+@Component
+public class RollupAggregator {
+
+    private final Map<PartialKey, SensorRollup> partials = new ConcurrentHashMap<>();
+    private final RollupService rollupService;
+    private final Timer flushTimer;
+    private final Counter flushFailures;
+
+    @Value("${iotsenser.rollup.flush-interval:5s}")
+    private Duration flushInterval = Duration.ofSeconds(5);
+
+    private ScheduledExecutorService flusher;
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param rollupService Service that merges partials into the stored rollups.
+     * @param meterRegistry Registry for pending-bucket, flush latency and failure metrics.
+     */
+    @Autowired
+    public RollupAggregator(RollupService rollupService, MeterRegistry meterRegistry) {
+        this.rollupService = rollupService;
+        Gauge.builder("iotsenser.rollup.pending", partials, Map::size)
+                .description("Rollup buckets with readings not yet flushed")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("iotsenser.rollup.flush")
+                .description("Time taken to merge pending rollups into the database")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("iotsenser.rollup.flush.errors")
+                .description("Rollup flushes that failed and were put back for retry")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the periodic flush.
+     */
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rollup-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic flush and writes whatever is still pending.
+     */
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(flushInterval.toMillis() + 1000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Folds a stored reading into the pending rollups once its write has committed,
+     * or immediately when there is no transaction.
+     *
+     * @param event The event carrying the stored reading.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSensorData(SensorDataEvent event) {
+        add(event.getSensorData());
+    }
+
+    /**
+     * Folds a stored reading into the pending rollup of each resolution.
+     *
+     * @param sensorData The stored reading.
+     */
+    public void add(SensorData sensorData) {
+        LocalDateTime timestamp = sensorData.getTimestamp();
+        for (RollupResolution resolution : RollupResolution.values()) {
+            PartialKey key = new PartialKey(sensorData.getDeviceId(), resolution, resolution.bucketStart(timestamp));
+            partials.compute(key, (k, partial) -> {
+                SensorRollup rollup = partial != null ? partial : new SensorRollup(k.deviceId, k.resolution, k.bucketStart);
+                rollup.add(sensorData.getTemperature(), sensorData.getHumidity());
+                return rollup;
+            });
+        }
+    }
+
+    /**
+     * Merges all pending partials into the stored rollups.
+     * On failure the partials are folded back in, so no readings are lost from the aggregates.
+     */
+    public void flush() {
+        List<SensorRollup> batch = new ArrayList<>();
+        for (PartialKey key : partials.keySet()) {
+            SensorRollup partial = partials.remove(key);
+            if (partial != null) {
+                batch.add(partial);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            rollupService.mergeRollups(batch);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} rollup buckets, retrying on next flush", batch.size(), e);
+            flushFailures.increment();
+            for (SensorRollup partial : batch) {
+                restore(partial);
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Returns the number of buckets waiting to be flushed.
+     */
+    public int pendingBuckets() {
+        return partials.size();
+    }
+
+    private void restore(SensorRollup partial) {
+        PartialKey key = new PartialKey(partial.getDeviceId(), partial.getResolution(), partial.getBucketStart());
+        // The failed entity may have been given an ID; merge into a fresh partial so it is inserted cleanly
+        partials.compute(key, (k, current) -> {
+            SensorRollup rollup = current != null ? current : new SensorRollup(k.deviceId, k.resolution, k.bucketStart);
+            rollup.merge(partial);
+            return rollup;
+        });
+    }
+
+    /**
+     * Identifies one bucket of one device at one resolution.
+     */
+    private record PartialKey(String deviceId, RollupResolution resolution, LocalDateTime bucketStart) {
+    }
+}
@@ -0,0 +1,36 @@
+package turing.example.iotsenser.serialization;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the optional device ID dictionary from Kafka client properties.
+ */
+final class DeviceDictionaryConfig {
+
+    private DeviceDictionaryConfig() {
+    }
+
+    /**
+     * Builds a dictionary from {@link SensorDataSerializer#DEVICE_DICTIONARY_CONFIG}.
+     * Accepts a dictionary instance, a comma-separated string or a collection of device IDs.
+     *
+     * @return The dictionary, or null when none is configured.
+     */
+    static DeviceIdDictionary fromConfigs(Map<String, ?> configs) {
+        Object value = configs.get(SensorDataSerializer.DEVICE_DICTIONARY_CONFIG);
+        List<String> deviceIds;
+        if (value instanceof DeviceIdDictionary dictionary) {
+            return dictionary;
+        } else if (value instanceof Collection<?> collection) {
+            deviceIds = collection.stream().map(String::valueOf).toList();
+        } else if (value instanceof String text && !text.isBlank()) {
+            deviceIds = Arrays.asList(text.split(","));
+        } else {
+            return null;
+        }
+        return deviceIds.isEmpty() ? null : new StaticDeviceIdDictionary(deviceIds);
+    }
+}
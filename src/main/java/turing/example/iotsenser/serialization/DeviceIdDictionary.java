@@ -0,0 +1,29 @@
+package turing.example.iotsenser.serialization;
+
+/**
+ * Maps device IDs to compact integer codes for the binary wire format.
+ * Producers and consumers must share the same dictionary for codes to round-trip.
+ */
+public interface DeviceIdDictionary {
+
+    /**
+     * Code returned for device IDs that are not in the dictionary.
+     */
+    int UNKNOWN = -1;
+
+    /**
+     * Looks up the code for a device ID.
+     *
+     * @param deviceId Unique identifier of the IoT device.
+     * @return The device's code, or {@link #UNKNOWN} if it has none.
+     */
+    int codeOf(String deviceId);
+
+    /**
+     * Resolves a code back to its device ID.
+     *
+     * @param code Code previously returned by {@link #codeOf(String)}.
+     * @return The device ID, or null if the code is unknown.
+     */
+    String deviceIdOf(int code);
+}
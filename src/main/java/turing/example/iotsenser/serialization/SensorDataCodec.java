@@ -0,0 +1,148 @@
+package turing.example.iotsenser.serialization;
+
+import turing.example.iotsenser.model.SensorData;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Compact, versioned binary encoding for sensor readings.
+ *
+ * <pre>
+ * version   : 1 byte  (currently 1)
+ * flags     : 1 byte  (bit 0 = device ID is a dictionary code)
+ * timestamp : 8 bytes (epoch millis, UTC; Long.MIN_VALUE when absent)
+ * temperature : 8 bytes (IEEE 754 double)
+ * humidity  : 8 bytes (IEEE 754 double)
+ * device ID : 4-byte dictionary code, or 2-byte length + UTF-8 bytes
+ * </pre>
+ *
+ * The record ID is not encoded; it is assigned when the reading is persisted.
+ */
+public final class SensorDataCodec {
+
+    /**
+     * Current format version, written as the first byte of every record.
+     */
+    public static final byte VERSION = 1;
+
+    static final byte FLAG_DICTIONARY_DEVICE = 0x01;
+
+    private static final int HEADER_SIZE = 2;
+    private static final int BODY_SIZE = Long.BYTES + 2 * Double.BYTES;
+    private static final int MAX_DEVICE_ID_BYTES = 0xFFFF;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private SensorDataCodec() {
+    }
+
+    /**
+     * Encodes a reading into a new byte array.
+     *
+     * @param sensorData The reading to encode.
+     * @param dictionary Optional dictionary for device IDs; may be null.
+     * @return The encoded record.
+     */
+    public static byte[] encode(SensorData sensorData, DeviceIdDictionary dictionary) {
+        return encode(sensorData.getDeviceId(), toEpochMillis(sensorData.getTimestamp()),
+                sensorData.getTemperature(), sensorData.getHumidity(), dictionary);
+    }
+
+    /**
+     * Encodes a reading given as primitive fields, without building an entity.
+     *
+     * @param deviceId    Unique identifier of the IoT device.
+     * @param epochMillis Timestamp as epoch millis (UTC).
+     * @param temperature Temperature reading.
+     * @param humidity    Humidity reading.
+     * @param dictionary  Optional dictionary for device IDs; may be null.
+     * @return The encoded record.
+     */
+    public static byte[] encode(String deviceId, long epochMillis, double temperature, double humidity,
+                                DeviceIdDictionary dictionary) {
+        int code = dictionary == null ? DeviceIdDictionary.UNKNOWN : dictionary.codeOf(deviceId);
+        byte[] deviceIdBytes = code == DeviceIdDictionary.UNKNOWN
+                ? deviceId.getBytes(StandardCharsets.UTF_8)
+                : null;
+        if (deviceIdBytes != null && deviceIdBytes.length > MAX_DEVICE_ID_BYTES) {
+            throw new IllegalArgumentException("Device ID longer than " + MAX_DEVICE_ID_BYTES + " bytes");
+        }
+        int size = HEADER_SIZE + BODY_SIZE + (deviceIdBytes == null ? Integer.BYTES : Short.BYTES + deviceIdBytes.length);
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(VERSION);
+        buffer.put(deviceIdBytes == null ? FLAG_DICTIONARY_DEVICE : 0);
+        buffer.putLong(epochMillis);
+        buffer.putDouble(temperature);
+        buffer.putDouble(humidity);
+        if (deviceIdBytes == null) {
+            buffer.putInt(code);
+        } else {
+            buffer.putShort((short) deviceIdBytes.length);
+            buffer.put(deviceIdBytes);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a reading from the buffer's current position, advancing past it.
+     *
+     * @param buffer     Buffer positioned at the start of a record.
+     * @param dictionary Dictionary used when encoding; may be null if none was used.
+     * @return The decoded reading.
+     * @throws IllegalArgumentException if the record is truncated, of an unknown version,
+     *                                  or refers to an unknown dictionary code.
+     */
+    public static SensorData decode(ByteBuffer buffer, DeviceIdDictionary dictionary) {
+        try {
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported sensor data format version " + version);
+            }
+            byte flags = buffer.get();
+            long epochMillis = buffer.getLong();
+            double temperature = buffer.getDouble();
+            double humidity = buffer.getDouble();
+            String deviceId;
+            if ((flags & FLAG_DICTIONARY_DEVICE) != 0) {
+                int code = buffer.getInt();
+                deviceId = dictionary == null ? null : dictionary.deviceIdOf(code);
+                if (deviceId == null) {
+                    throw new IllegalArgumentException("Unknown device dictionary code " + code);
+                }
+            } else {
+                int length = Short.toUnsignedInt(buffer.getShort());
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                deviceId = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return new SensorData(null, deviceId, temperature, humidity, fromEpochMillis(epochMillis));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated sensor data record", e);
+        }
+    }
+
+    /**
+     * Decodes a reading from a byte array.
+     *
+     * @param data       The encoded record.
+     * @param dictionary Dictionary used when encoding; may be null if none was used.
+     * @return The decoded reading.
+     */
+    public static SensorData decode(byte[] data, DeviceIdDictionary dictionary) {
+        return decode(ByteBuffer.wrap(data), dictionary);
+    }
+
+    private static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp == null ? NO_TIMESTAMP : timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromEpochMillis(long epochMillis) {
+        return epochMillis == NO_TIMESTAMP
+                ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,50 @@
+package turing.example.iotsenser.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import turing.example.iotsenser.model.SensorData;
+
+import java.util.Map;
+
+/**
+ * Kafka deserializer reading {@link SensorData} written by {@link SensorDataSerializer}.
+ * Must be configured with the same device ID dictionary as the producer.
+ */
+public class SensorDataDeserializer implements Deserializer<SensorData> {
+
+    private DeviceIdDictionary dictionary;
+
+    /**
+     * Creates a deserializer without a dictionary; used when Kafka instantiates it by class name.
+     */
+    public SensorDataDeserializer() {
+    }
+
+    /**
+     * Creates a deserializer that resolves dictionary-encoded device IDs.
+     *
+     * @param dictionary Dictionary shared with the producer side.
+     */
+    public SensorDataDeserializer(DeviceIdDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (dictionary == null) {
+            dictionary = DeviceDictionaryConfig.fromConfigs(configs);
+        }
+    }
+
+    @Override
+    public SensorData deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return SensorDataCodec.decode(data, dictionary);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Cannot decode sensor data from topic " + topic, e);
+        }
+    }
+}
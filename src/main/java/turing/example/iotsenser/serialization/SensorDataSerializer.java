@@ -0,0 +1,48 @@
+package turing.example.iotsenser.serialization;
+
+import org.apache.kafka.common.serialization.Serializer;
+import turing.example.iotsenser.model.SensorData;
+
+import java.util.Map;
+
+/**
+ * Kafka serializer writing {@link SensorData} in the {@link SensorDataCodec} binary format.
+ * A device ID dictionary can be supplied directly or through the
+ * {@value #DEVICE_DICTIONARY_CONFIG} property (a dictionary instance, or comma-separated device IDs in code order).
+ */
+public class SensorDataSerializer implements Serializer<SensorData> {
+
+    /**
+     * Producer property listing dictionary-encoded device IDs.
+     */
+    public static final String DEVICE_DICTIONARY_CONFIG = "iotsenser.serialization.device-dictionary";
+
+    private DeviceIdDictionary dictionary;
+
+    /**
+     * Creates a serializer without a dictionary; used when Kafka instantiates it by class name.
+     */
+    public SensorDataSerializer() {
+    }
+
+    /**
+     * Creates a serializer that dictionary-encodes known device IDs.
+     *
+     * @param dictionary Dictionary shared with the consumer side.
+     */
+    public SensorDataSerializer(DeviceIdDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (dictionary == null) {
+            dictionary = DeviceDictionaryConfig.fromConfigs(configs);
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, SensorData data) {
+        return data == null ? null : SensorDataCodec.encode(data, dictionary);
+    }
+}
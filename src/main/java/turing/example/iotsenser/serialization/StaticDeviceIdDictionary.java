@@ -0,0 +1,43 @@
+package turing.example.iotsenser.serialization;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable device ID dictionary built from a fixed, ordered list of device IDs.
+ * A device's code is its position in the list.
+ */
+public class StaticDeviceIdDictionary implements DeviceIdDictionary {
+
+    private final String[] deviceIds;
+    private final Map<String, Integer> codes;
+
+    /**
+     * Creates a dictionary from an ordered list of device IDs.
+     *
+     * @param deviceIds Device IDs in code order; blank entries are ignored.
+     */
+    public StaticDeviceIdDictionary(List<String> deviceIds) {
+        List<String> cleaned = deviceIds.stream()
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .distinct()
+                .toList();
+        this.deviceIds = cleaned.toArray(new String[0]);
+        this.codes = new HashMap<>(cleaned.size() * 2);
+        for (int i = 0; i < this.deviceIds.length; i++) {
+            codes.put(this.deviceIds[i], i);
+        }
+    }
+
+    @Override
+    public int codeOf(String deviceId) {
+        return codes.getOrDefault(deviceId, UNKNOWN);
+    }
+
+    @Override
+    public String deviceIdOf(int code) {
+        return code >= 0 && code < deviceIds.length ? deviceIds[code] : null;
+    }
+}
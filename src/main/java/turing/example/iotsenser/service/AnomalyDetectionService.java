@@ -1,53 +1,345 @@
 package turing.example.iotsenser.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import turing.example.iotsenser.detection.BatchScorer;
+import turing.example.iotsenser.detection.DeviceStatisticsStore;
+import turing.example.iotsenser.detection.Finding;
+import turing.example.iotsenser.detection.RuleEngine;
+import turing.example.iotsenser.detection.ScoringBatch;
+import turing.example.iotsenser.detection.WindowDetector;
+import turing.example.iotsenser.device.DeviceRegistry;
+import turing.example.iotsenser.dto.AnomalyCursor;
+import turing.example.iotsenser.dto.AnomalyPage;
+import turing.example.iotsenser.model.Anomaly;
 import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.repository.AnomalyRepository;
+import turing.example.iotsenser.shard.ShardRouter;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for detecting anomalies in IoT sensor data.
- * Uses basic threshold-based anomaly detection logic.
+ * Readings are checked against the {@link RuleEngine}'s rules, which may compare against fixed thresholds,
+ * rates of change and a per-device z-score against each device's rolling baseline, and by the
+ * {@link WindowDetector}'s sliding-window detectors. Devices that stop reporting are recorded as gap anomalies
+ * by a background check every {@code iotsenser.anomaly.window.gap-tick}.
+ * Each reading is evaluated once by the ingest pipeline and hits are persisted as {@link Anomaly} records
+ * through the {@link AnomalySink}, which drops repeats of a rule within its cooldown and writes in batches,
+ * so queries read the indexed anomalies table instead of rescanning sensor data. Anomalies are written by the
+ * sink's own thread after their readings have been stored, not in the readings' transaction, so an anomaly may
+ * appear shortly after its reading and is lost if the sink is full or its write fails.
+ * Anomalies are stored on the shard owning their device, next to its readings.
  */
+@Slf4j
 @Service
 public class AnomalyDetectionService {
 
-    private static final double TEMPERATURE_THRESHOLD = 80.0;
-    private static final double HUMIDITY_THRESHOLD = 90.0;
+    // Rows scored per column batch; a multiple of 64 so each batch fills whole bitmap words
+    private static final int SCORING_BATCH_SIZE = 65_536;
 
-    private final SensorDataService sensorDataService;
+    private static final ThreadLocal<double[]> Z_SCORES = ThreadLocal.withInitial(() -> new double[2]);
+
+    private static final Comparator<Anomaly> NEWEST_FIRST =
+            Comparator.comparing(Anomaly::getDetectedAt).reversed();
+
+    private static final Comparator<Anomaly> PAGE_ORDER =
+            Comparator.comparing(Anomaly::getDetectedAt).thenComparing(Anomaly::getId).reversed();
+
+    private final AnomalyRepository anomalyRepository;
+    private final DeviceStatisticsStore deviceStatisticsStore;
+    private final DeviceRegistry deviceRegistry;
+    private final ShardRouter shardRouter;
+    private final RuleEngine ruleEngine;
+    private final WindowDetector windowDetector;
+    private final AnomalySink anomalySink;
+
+    @Value("${iotsenser.anomaly.window.gap-tick:1s}")
+    private Duration gapTick = Duration.ofSeconds(1);
+
+    @Value("${iotsenser.anomaly.batch.vectorized:true}")
+    private boolean vectorizedScoring = true;
+
+    private ScheduledExecutorService gapMonitor;
 
     /**
-     * Constructor-based dependency injection for SensorDataService.
+     * Constructor-based dependency injection.
      *
-     * @param sensorDataService Service for retrieving sensor data.
+     * @param anomalyRepository     Repository for persisting and querying anomalies.
+     * @param deviceStatisticsStore Rolling per-device statistics for the z-score rule.
+     * @param deviceRegistry        Registry resolving device keys for readings that do not carry one.
+     * @param shardRouter           Router to the shard owning each device.
+     * @param ruleEngine            Detection rules in force.
+     * @param windowDetector        Sliding-window detectors for sudden changes, flatlines and gaps.
+     * @param anomalySink           Sink suppressing repeated anomalies and writing the rest in batches.
      */
     @Autowired
-    public AnomalyDetectionService(SensorDataService sensorDataService) {
-        this.sensorDataService = sensorDataService;
+    public AnomalyDetectionService(AnomalyRepository anomalyRepository, DeviceStatisticsStore deviceStatisticsStore,
+                                   DeviceRegistry deviceRegistry, ShardRouter shardRouter, RuleEngine ruleEngine,
+                                   WindowDetector windowDetector, AnomalySink anomalySink) {
+        this.anomalyRepository = anomalyRepository;
+        this.deviceStatisticsStore = deviceStatisticsStore;
+        this.deviceRegistry = deviceRegistry;
+        this.shardRouter = shardRouter;
+        this.ruleEngine = ruleEngine;
+        this.windowDetector = windowDetector;
+        this.anomalySink = anomalySink;
+    }
+
+    /**
+     * Starts the background check for devices that stopped reporting.
+     */
+    @PostConstruct
+    public void start() {
+        gapMonitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gap-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tickMillis = gapTick.toMillis();
+        gapMonitor.scheduleWithFixedDelay(() -> {
+            try {
+                recordGaps(System.currentTimeMillis());
+            } catch (RuntimeException e) {
+                log.warn("Could not record device gaps", e);
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background gap check.
+     */
+    @PreDestroy
+    public void stop() {
+        if (gapMonitor != null) {
+            gapMonitor.shutdownNow();
+        }
+    }
+
+    /**
+     * Queues an anomaly raised by {@link #evaluate(SensorData)} for a batched write,
+     * unless its rules already fired for the device within the cooldown.
+     *
+     * @param anomaly The anomaly to record; repeated reasons are removed from its description.
+     * @return `true` if the anomaly is not a repeat, `false` if it was suppressed.
+     * An anomaly that is not a repeat is still dropped, and counted, when the write queue is full.
+     */
+    public boolean recordAnomaly(Anomaly anomaly) {
+        if (!anomalySink.admit(anomaly)) {
+            return false;
+        }
+        anomalySink.offer(anomaly);
+        return true;
+    }
+
+    /**
+     * Persists an anomaly for every device that went silent by the given time.
+     * Each silent device is recorded once, until it reports again, and at most once per cooldown.
+     *
+     * @param nowMillis Current time.
+     * @return The gap anomalies that were recorded.
+     */
+    public List<Anomaly> recordGaps(long nowMillis) {
+        List<Anomaly> anomalies = new ArrayList<>();
+        for (WindowDetector.Gap gap : windowDetector.expireGaps(nowMillis)) {
+            String deviceId = deviceRegistry.deviceIdOf(gap.deviceKey());
+            if (deviceId != null) {
+                Anomaly anomaly = new Anomaly(null, deviceId, gap.temperature(), gap.humidity(),
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(nowMillis), ZoneId.systemDefault()),
+                        gap.finding().description(), gap.deviceKey());
+                anomaly.setFindings(List.of(gap.finding()));
+                if (anomalySink.admit(anomaly)) {
+                    anomalies.add(anomaly);
+                }
+            }
+        }
+        return save(anomalies);
+    }
+
+    /**
+     * Evaluates a single reading against the detection rules without persisting anything.
+     * The reading is scored against its device's baseline and then folded into it,
+     * so each reading must be evaluated exactly once.
+     *
+     * @param sensorData The sensor data record to be evaluated.
+     * @return The anomaly naming the matched rules, or empty if the reading is normal.
+     */
+    public Optional<Anomaly> evaluate(SensorData sensorData) {
+        double[] zScores = Z_SCORES.get();
+        int deviceKey = sensorData.getDeviceKey() != null
+                ? sensorData.getDeviceKey()
+                : deviceRegistry.keyOf(sensorData.getDeviceId());
+        deviceStatisticsStore.observe(deviceKey, sensorData.getTemperature(), sensorData.getHumidity(), zScores);
+        List<Finding> findings = ruleEngine.evaluate(sensorData, zScores);
+        long timeMillis = sensorData.getTimestamp() != null
+                ? sensorData.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : System.currentTimeMillis();
+        List<Finding> windowFindings = windowDetector.observe(deviceKey, timeMillis, sensorData.getTemperature(),
+                sensorData.getHumidity());
+        if (windowFindings != null) {
+            if (findings == null) {
+                findings = windowFindings;
+            } else {
+                findings.addAll(windowFindings);
+            }
+        }
+        if (findings == null) {
+            return Optional.empty();
+        }
+        Anomaly anomaly = new Anomaly(null, sensorData.getDeviceId(), sensorData.getTemperature(),
+                sensorData.getHumidity(), LocalDateTime.now(), Finding.describe(findings, Anomaly.DESCRIPTION_LENGTH),
+                deviceKey);
+        anomaly.setFindings(findings);
+        return Optional.of(anomaly);
+    }
+
+    /**
+     * Scores readings in bulk against the threshold and z-score rules in force, for backfills and re-scoring
+     * history. Readings are loaded into primitive column batches and scored by a {@link BatchScorer} built from
+     * {@link RuleEngine#scoringThresholds()}, vectorized where the build and JVM allow. Z-scores use the devices'
+     * current baselines, which are not updated, and windowed, scoped and other rules are not applied.
+     *
+     * @param readings Readings to score.
+     * @return Bitmap with the bit of every anomalous reading set, reading {@code i} being bit {@code i & 63}
+     * of word {@code i >>> 6}.
+     */
+    public long[] scoreBatch(List<SensorData> readings) {
+        BatchScorer batchScorer = BatchScorer.create(ruleEngine.scoringThresholds(), vectorizedScoring);
+        long[] anomalies = new long[ScoringBatch.words(readings.size())];
+        ScoringBatch batch = new ScoringBatch(Math.min(readings.size(), SCORING_BATCH_SIZE));
+        long[] batchAnomalies = new long[ScoringBatch.words(SCORING_BATCH_SIZE)];
+        double[] baseline = new double[4];
+        for (int start = 0; start < readings.size(); start += SCORING_BATCH_SIZE) {
+            batch.clear();
+            for (SensorData reading : readings.subList(start, Math.min(start + SCORING_BATCH_SIZE, readings.size()))) {
+                int deviceKey = reading.getDeviceKey() != null
+                        ? reading.getDeviceKey()
+                        : deviceRegistry.codeOf(reading.getDeviceId());
+                if (deviceStatisticsStore.baseline(deviceKey, baseline)) {
+                    batch.add(reading.getTemperature(), reading.getHumidity(), baseline[0], baseline[1], baseline[2],
+                            baseline[3]);
+                } else {
+                    batch.add(reading.getTemperature(), reading.getHumidity());
+                }
+            }
+            batchScorer.score(batch, batchAnomalies);
+            System.arraycopy(batchAnomalies, 0, anomalies, start >>> 6, ScoringBatch.words(batch.size()));
+        }
+        return anomalies;
+    }
+
+    /**
+     * Returns the readings the threshold and z-score rules in force flag, as scored by {@link #scoreBatch(List)}.
+     *
+     * @param readings Readings to score.
+     * @return The anomalous readings, in their original order.
+     */
+    public List<SensorData> findAnomalousReadings(List<SensorData> readings) {
+        long[] anomalies = scoreBatch(readings);
+        List<SensorData> anomalous = new ArrayList<>();
+        for (int i = 0; i < readings.size(); i++) {
+            if (ScoringBatch.isSet(anomalies, i)) {
+                anomalous.add(readings.get(i));
+            }
+        }
+        return anomalous;
     }
 
     /**
-     * Detects anomalies in the most recent sensor data.
-     * An anomaly is identified if the temperature or humidity exceeds predefined thresholds.
+     * Retrieves anomalies detected after a point in time, newest first.
+     * When sharded, every shard is scanned in parallel and the results are merged.
      *
-     * @return List of SensorData records that are considered anomalies.
+     * @param since Lower bound (exclusive) on the detection time.
+     * @return List of recent Anomaly records.
      */
-    public List<SensorData> detectAnomalies() {
-        List<SensorData> recentData = sensorDataService.getAllSensorData();
-        return recentData.stream()
-                .filter(data -> data.getTemperature() > TEMPERATURE_THRESHOLD || data.getHumidity() > HUMIDITY_THRESHOLD)
-                .toList();
+    public List<Anomaly> getAnomaliesSince(LocalDateTime since) {
+        List<List<Anomaly>> results =
+                shardRouter.readEachShard(shard -> anomalyRepository.findByDetectedAtAfterOrderByDetectedAtDesc(since));
+        return results.size() == 1
+                ? results.get(0)
+                : results.stream().flatMap(List::stream).sorted(NEWEST_FIRST).toList();
     }
 
     /**
-     * Checks if a specific sensor data record contains an anomaly.
+     * Retrieves one page of anomalies detected within a time range, newest first in {@code (detected_at, id)} order.
+     * Seeks through the {@code (device_id, detected_at)} index for one device, or the {@code detected_at} index
+     * for the whole fleet, so deep pages cost the same as the first.
+     * When sharded, a device's page is read from its shard; a fleet-wide page is read from every shard in parallel
+     * and the results are merged.
+     *
+     * @param deviceId Unique identifier of the IoT device, or null for every device.
+     * @param from     Start of the range (inclusive).
+     * @param to       End of the range (exclusive).
+     * @param after    Position of the last anomaly already returned, or null for the first page.
+     * @param size     Maximum number of anomalies to return.
+     * @return The page and the token for the next one.
+     */
+    public AnomalyPage getAnomalyPage(String deviceId, LocalDateTime from, LocalDateTime to, AnomalyCursor after,
+                                      int size) {
+        // The first page starts just before the end of the range; no anomaly has an ID below Long.MIN_VALUE
+        AnomalyCursor position = after == null || !after.getDetectedAt().isBefore(to)
+                ? new AnomalyCursor(to, Long.MIN_VALUE)
+                : after;
+        PageRequest limit = PageRequest.of(0, size);
+        List<Anomaly> items;
+        if (deviceId != null) {
+            items = shardRouter.read(shardRouter.shardOf(deviceId), () -> anomalyRepository.findDevicePageBefore(
+                    deviceId, from, position.getDetectedAt(), position.getId(), limit));
+        } else {
+            List<List<Anomaly>> pages = shardRouter.readEachShard(shard -> anomalyRepository.findPageBefore(
+                    from, position.getDetectedAt(), position.getId(), limit));
+            items = pages.size() == 1
+                    ? pages.get(0)
+                    : pages.stream().flatMap(List::stream).sorted(PAGE_ORDER).limit(size).toList();
+        }
+        String nextCursor = items.size() < size ? null : AnomalyCursor.after(items.get(items.size() - 1)).encode();
+        return new AnomalyPage(List.copyOf(items), nextCursor);
+    }
+
+    /**
+     * Retrieves anomalies recorded for a specific IoT device, newest first.
+     *
+     * @param deviceId Unique identifier of the IoT device.
+     * @return List of Anomaly records for the given device.
+     */
+    public List<Anomaly> getAnomaliesByDevice(String deviceId) {
+        return shardRouter.read(shardRouter.shardOf(deviceId),
+                () -> anomalyRepository.findByDeviceIdOrderByDetectedAtDesc(deviceId));
+    }
+
+    /**
+     * Checks if a specific sensor data record contains an anomaly judging by its values alone,
+     * without the device history that rate-of-change, flatline and z-score rules need.
      *
      * @param sensorData The sensor data record to be evaluated.
      * @return `true` if an anomaly is detected, otherwise `false`.
      */
     public boolean isAnomalous(SensorData sensorData) {
-        return sensorData.getTemperature() > TEMPERATURE_THRESHOLD || sensorData.getHumidity() > HUMIDITY_THRESHOLD;
+        return ruleEngine.matches(sensorData);
+    }
+
+    private List<Anomaly> save(List<Anomaly> anomalies) {
+        if (anomalies.isEmpty()) {
+            return anomalies;
+        }
+        List<Anomaly> saved = new ArrayList<>(anomalies.size());
+        shardRouter.groupByShard(anomalies, Anomaly::getDeviceId).forEach((shard, group) ->
+                saved.addAll(shardRouter.write(shard, () -> anomalyRepository.saveAll(group))));
+        return saved;
     }
 }
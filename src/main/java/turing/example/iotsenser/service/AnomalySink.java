@@ -0,0 +1,246 @@
+package turing.example.iotsenser.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import turing.example.iotsenser.detection.Finding;
+import turing.example.iotsenser.model.Anomaly;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Suppresses repeated anomalies and writes the rest in batches.
+ *
+ * <p>An anomaly carries one {@link Finding} per matched rule or detector, identified by its rule name, so the
+ * same rule firing again with other values counts as a repeat. Within the cooldown after a device last
+ * reported a rule, that rule's findings are dropped from the device's anomalies, and anomalies left without
+ * findings are not written at all. An anomaly without findings counts as a single rule named by its whole
+ * description. The last report of each device and rule is kept in a map bounded to the most recently reported
+ * keys, so a flood of new keys evicts the oldest reports rather than being refused; an evicted key simply lets
+ * one repeat through. Anomalies are admitted from the pipeline lanes and the gap check, so admission is
+ * serialized on the sink; it only runs for readings that are already anomalous.</p>
+ *
+ * <p>Anomalies that pass are queued and written by a single background thread, whenever a batch fills up or
+ * the flush interval elapses, like {@link WriteBehindBuffer} does for readings.</p>
+ */
+@Slf4j
+public class AnomalySink implements AutoCloseable {
+
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final long cooldownMillis;
+    private final Map<Key, Long> lastReported;
+    private final BlockingQueue<Anomaly> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Consumer<List<Anomaly>> writer;
+    private final Thread flusher;
+
+    private final Counter suppressedCounter;
+    private final Timer flushTimer;
+    private final Counter rejectedCounter;
+    private final Counter flushFailureCounter;
+
+    private volatile boolean running;
+
+    /**
+     * Creates a sink.
+     *
+     * @param cooldown      Time during which a rule firing again for the same device is suppressed;
+     *                      zero disables suppression.
+     * @param trackedKeys   Maximum number of device and rule pairs whose last report is remembered.
+     * @param capacity      Maximum number of anomalies waiting to be written before offers are refused.
+     * @param batchSize     Maximum number of anomalies written at once.
+     * @param flushInterval Maximum time an anomaly waits before being written.
+     * @param writer        Receives each batch; typically a batch insert.
+     * @param meterRegistry Registry for suppression, queue depth, write latency and drop metrics.
+     */
+    public AnomalySink(Duration cooldown, int trackedKeys, int capacity, int batchSize, Duration flushInterval,
+                       Consumer<List<Anomaly>> writer, MeterRegistry meterRegistry) {
+        this.cooldownMillis = cooldown.toMillis();
+        this.lastReported = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest) {
+                return size() > trackedKeys;
+            }
+        };
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.writer = writer;
+        this.flusher = new Thread(this::runFlusher, "anomaly-writer");
+        this.flusher.setDaemon(true);
+
+        this.suppressedCounter = Counter.builder("iotsenser.anomaly.sink.suppressed")
+                .description("Anomalies not written because their rules fired for the device within the cooldown")
+                .register(meterRegistry);
+        Gauge.builder("iotsenser.anomaly.sink.depth", queue, BlockingQueue::size)
+                .description("Anomalies waiting to be written")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("iotsenser.anomaly.sink.flush")
+                .description("Time taken to write a batch of anomalies")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("iotsenser.anomaly.sink.dropped")
+                .description("Anomalies refused or lost by the anomaly sink")
+                .tag("reason", "full")
+                .register(meterRegistry);
+        this.flushFailureCounter = Counter.builder("iotsenser.anomaly.sink.dropped")
+                .description("Anomalies refused or lost by the anomaly sink")
+                .tag("reason", "flush-error")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the background writer.
+     */
+    public void start() {
+        running = true;
+        flusher.start();
+    }
+
+    /**
+     * Checks an anomaly against the cooldown and records its findings as reported.
+     * Findings reported for the device within the cooldown are removed from the anomaly and its description.
+     *
+     * @param anomaly The anomaly, timed by its detection time.
+     * @return `true` if any finding is left and the anomaly should be written, `false` if it is a repeat.
+     */
+    public synchronized boolean admit(Anomaly anomaly) {
+        if (cooldownMillis <= 0) {
+            return true;
+        }
+        long timeMillis = anomaly.getDetectedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        List<Finding> findings = anomaly.getFindings() != null
+                ? anomaly.getFindings()
+                : List.of(new Finding(anomaly.getDescription(), anomaly.getDescription()));
+        List<Finding> fresh = new ArrayList<>(findings.size());
+        for (Finding finding : findings) {
+            Key key = new Key(anomaly.getDeviceId(), finding.rule());
+            Long last = lastReported.get(key);
+            if (last == null || Math.abs(timeMillis - last) >= cooldownMillis) {
+                lastReported.put(key, timeMillis);
+                fresh.add(finding);
+            }
+        }
+        if (fresh.isEmpty()) {
+            suppressedCounter.increment();
+            return false;
+        }
+        if (fresh.size() < findings.size()) {
+            anomaly.setFindings(fresh);
+            anomaly.setDescription(Finding.describe(fresh, Anomaly.DESCRIPTION_LENGTH));
+        }
+        return true;
+    }
+
+    /**
+     * Queues an anomaly for writing without blocking. Call {@link #admit} first to suppress repeats.
+     *
+     * @param anomaly The anomaly to write.
+     * @return `true` if the anomaly was queued, `false` if the queue is full.
+     */
+    public boolean offer(Anomaly anomaly) {
+        if (queue.offer(anomaly)) {
+            return true;
+        }
+        rejectedCounter.increment();
+        return false;
+    }
+
+    /**
+     * Returns the number of anomalies waiting to be written.
+     */
+    public int depth() {
+        return queue.size();
+    }
+
+    /**
+     * Stops the writer and writes whatever is still queued.
+     */
+    @Override
+    public void close() {
+        // No interrupt: the writer may be inside a JDBC call; it exits after its current poll.
+        running = false;
+        try {
+            flusher.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Anomaly> remaining = new ArrayList<>(batchSize);
+        while (queue.drainTo(remaining, batchSize) > 0) {
+            flush(remaining);
+            remaining = new ArrayList<>(batchSize);
+        }
+    }
+
+    private void runFlusher() {
+        while (running) {
+            List<Anomaly> batch = new ArrayList<>(batchSize);
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                // Shutdown requested; close() drains what is left.
+                flush(batch);
+                return;
+            }
+            flush(batch);
+        }
+    }
+
+    /**
+     * Blocks until a batch is full or the flush interval has passed since its first anomaly.
+     */
+    private void collect(List<Anomaly> batch) throws InterruptedException {
+        // Idle polls are capped so close() is noticed promptly even with long flush intervals.
+        Anomaly first = queue.poll(Math.min(flushIntervalNanos, IDLE_POLL_NANOS), TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            Anomaly next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<Anomaly> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            writer.accept(batch);
+        } catch (RuntimeException e) {
+            log.error("Failed to write {} anomalies", batch.size(), e);
+            flushFailureCounter.increment(batch.size());
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Cache key of a device's last report of a rule.
+     */
+    private record Key(String deviceId, String rule) {
+    }
+}
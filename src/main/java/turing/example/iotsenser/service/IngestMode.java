@@ -0,0 +1,29 @@
+package turing.example.iotsenser.service;
+
+/**
+ * Strategies for handing ingested sensor data over to persistence.
+ * Selected through the {@code iotsenser.ingest.mode} property.
+ */
+public enum IngestMode {
+
+    /**
+     * Readings are written to the database on the request thread before replying.
+     */
+    SYNC,
+
+    /**
+     * Readings are queued in a bounded in-memory buffer and written by a background flusher.
+     */
+    WRITE_BEHIND,
+
+    /**
+     * Readings are only produced to Kafka; a batch consumer writes them to the database.
+     */
+    KAFKA,
+
+    /**
+     * Readings are appended to a local write-ahead log and acknowledged once it is on disk;
+     * a replayer drains the log into the database or Kafka.
+     */
+    WAL
+}
@@ -0,0 +1,260 @@
+package turing.example.iotsenser.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import turing.example.iotsenser.dto.SensorReadingView;
+import turing.example.iotsenser.model.SensorData;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Last-known reading per device, kept in memory so "current value" lookups never reach the database.
+ *
+ * <p>The cache is bounded: once it holds more than {@code maxDevices} entries the least recently
+ * used tenth is evicted in one pass, and a background sweep drops devices that have been neither
+ * written nor read for {@code idleTimeout}.</p>
+ *
+ * <p>Devices found to have no readings are remembered as absent for {@code absentTtl}, so repeated lookups
+ * of unknown devices do not reach the database either. A device's first write replaces its absent entry.</p>
+ */
+@Component
+public class LatestReadingCache implements AutoCloseable {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final int maxDevices;
+    private final long idleTimeoutNanos;
+    private final long absentTtlNanos;
+    private final Duration sweepInterval;
+    private final LongSupplier clock;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter idleEvictions;
+
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxDevices    Maximum number of devices held before least recently used ones are evicted.
+     * @param idleTimeout   Time after which a device that is neither written nor read is evicted.
+     * @param absentTtl     Time a device found to have no readings is remembered as absent.
+     * @param sweepInterval How often idle devices are swept.
+     * @param meterRegistry Registry for size, hit/miss and eviction metrics.
+     */
+    @Autowired
+    public LatestReadingCache(@Value("${iotsenser.latest.max-devices:100000}") int maxDevices,
+                              @Value("${iotsenser.latest.idle-timeout:24h}") Duration idleTimeout,
+                              @Value("${iotsenser.latest.absent-ttl:1m}") Duration absentTtl,
+                              @Value("${iotsenser.latest.sweep-interval:1m}") Duration sweepInterval,
+                              MeterRegistry meterRegistry) {
+        this(maxDevices, idleTimeout, absentTtl, sweepInterval, meterRegistry, System::nanoTime);
+    }
+
+    LatestReadingCache(int maxDevices, Duration idleTimeout, Duration absentTtl, Duration sweepInterval,
+                       MeterRegistry meterRegistry, LongSupplier clock) {
+        this.maxDevices = maxDevices;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.absentTtlNanos = absentTtl.toNanos();
+        this.sweepInterval = sweepInterval;
+        this.clock = clock;
+
+        Gauge.builder("iotsenser.latest.cache.size", entries, Map::size)
+                .description("Devices held in the latest-reading cache")
+                .register(meterRegistry);
+        this.hits = Counter.builder("iotsenser.latest.cache.gets")
+                .description("Latest-reading cache lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("iotsenser.latest.cache.gets")
+                .description("Latest-reading cache lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.sizeEvictions = Counter.builder("iotsenser.latest.cache.evictions")
+                .description("Devices evicted from the latest-reading cache")
+                .tag("cause", "size")
+                .register(meterRegistry);
+        this.idleEvictions = Counter.builder("iotsenser.latest.cache.evictions")
+                .description("Devices evicted from the latest-reading cache")
+                .tag("cause", "idle")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the background idle sweep.
+     */
+    @PostConstruct
+    public void start() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "latest-reading-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = sweepInterval.toMillis();
+        sweeper.scheduleWithFixedDelay(this::evictIdle, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background idle sweep.
+     */
+    @PreDestroy
+    @Override
+    public void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * Records a reading as its device's latest, unless a newer one is already cached.
+     *
+     * @param sensorData A persisted reading.
+     * @return The reading now cached for the device.
+     */
+    public SensorReadingView put(SensorData sensorData) {
+        SensorReadingView reading = new SensorReadingView(sensorData.getId(), sensorData.getDeviceId(),
+                sensorData.getTemperature(), sensorData.getHumidity(), sensorData.getTimestamp());
+        long now = clock.getAsLong();
+        Entry entry = entries.compute(sensorData.getDeviceId(), (deviceId, current) -> {
+            if (current != null && current.reading != null
+                    && reading.getTimestamp().isBefore(current.reading.getTimestamp())) {
+                current.lastAccess = now;
+                return current;
+            }
+            return new Entry(reading, now);
+        });
+        evictIfFull();
+        return entry.reading;
+    }
+
+    /**
+     * Records that a device has no readings, unless a reading was cached for it meanwhile.
+     *
+     * @param deviceId Unique identifier of the IoT device.
+     */
+    public void putAbsent(String deviceId) {
+        if (absentTtlNanos <= 0) {
+            return;
+        }
+        entries.putIfAbsent(deviceId, new Entry(null, clock.getAsLong()));
+        evictIfFull();
+    }
+
+    /**
+     * Looks up a device's latest reading.
+     *
+     * @param deviceId Unique identifier of the IoT device.
+     * @return The cached reading, an empty Optional if the device is known to have no readings,
+     * or null if the device is not cached.
+     */
+    public Optional<SensorReadingView> get(String deviceId) {
+        Entry entry = entries.get(deviceId);
+        long now = clock.getAsLong();
+        if (entry != null && entry.reading == null && now - entry.createdAt > absentTtlNanos) {
+            entries.remove(deviceId, entry);
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        entry.lastAccess = now;
+        hits.increment();
+        return Optional.ofNullable(entry.reading);
+    }
+
+    /**
+     * Returns the number of cached devices.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Evicts every device that has been idle for longer than the idle timeout.
+     */
+    void evictIdle() {
+        long now = clock.getAsLong();
+        for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+            Entry entry = candidate.getValue();
+            if (now - entry.lastAccess > idleTimeoutNanos && entries.remove(candidate.getKey(), entry)) {
+                idleEvictions.increment();
+            }
+        }
+    }
+
+    private void evictIfFull() {
+        if (entries.size() > maxDevices) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    /**
+     * Brings the cache back to 90% of its bound by evicting the least recently used devices.
+     * Only one thread evicts at a time; others carry on without waiting.
+     */
+    private void evictLeastRecentlyUsed() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int excess = entries.size() - (maxDevices - maxDevices / 10);
+            if (excess <= 0) {
+                return;
+            }
+            // Access times keep moving while we look, so pick a cutoff from a copy rather than sorting live entries
+            long[] accessTimes = entries.values().stream().mapToLong(entry -> entry.lastAccess).toArray();
+            if (accessTimes.length == 0) {
+                return;
+            }
+            Arrays.sort(accessTimes);
+            long cutoff = accessTimes[Math.min(excess, accessTimes.length) - 1];
+            int evicted = 0;
+            for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+                if (evicted >= excess) {
+                    break;
+                }
+                Entry entry = candidate.getValue();
+                if (entry.lastAccess <= cutoff && entries.remove(candidate.getKey(), entry)) {
+                    sizeEvictions.increment();
+                    evicted++;
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * A cached reading, or null for a device known to have none, and the last time its device was written or read.
+     */
+    private static final class Entry {
+
+        private final SensorReadingView reading;
+        private final long createdAt;
+        private volatile long lastAccess;
+
+        Entry(SensorReadingView reading, long createdAt) {
+            this.reading = reading;
+            this.createdAt = createdAt;
+            this.lastAccess = createdAt;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package turing.example.iotsenser.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import turing.example.iotsenser.dto.RollupView;
+import turing.example.iotsenser.model.RollupResolution;
+import turing.example.iotsenser.model.SensorRollup;
+import turing.example.iotsenser.repository.SensorRollupRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service for reading and maintaining pre-aggregated sensor rollups.
+ * Partial aggregates built in memory are merged into the stored buckets,
+ * so buckets stay exact when readings arrive late.
+ */
+@Service
+public class RollupService {
+
+    private static final int LOOKUP_CHUNK = 1000;
+
+    private final SensorRollupRepository sensorRollupRepository;
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param sensorRollupRepository Repository for rollup rows.
+     */
+    @Autowired
+    public RollupService(SensorRollupRepository sensorRollupRepository) {
+        this.sensorRollupRepository = sensorRollupRepository;
+    }
+
+    /**
+     * Merges partial aggregates into the stored rollups, creating buckets that do not exist yet.
+     * Existing rows are loaded per bucket with one query for many devices.
+     *
+     * @param partials Partial aggregates, at most one per device and bucket.
+     */
+    @Transactional
+    public void mergeRollups(Collection<SensorRollup> partials) {
+        Map<BucketKey, List<SensorRollup>> byBucket = new LinkedHashMap<>();
+        for (SensorRollup partial : partials) {
+            byBucket.computeIfAbsent(new BucketKey(partial.getResolution(), partial.getBucketStart()),
+                    key -> new ArrayList<>()).add(partial);
+        }
+        List<SensorRollup> toSave = new ArrayList<>(partials.size());
+        for (Map.Entry<BucketKey, List<SensorRollup>> bucket : byBucket.entrySet()) {
+            List<SensorRollup> group = bucket.getValue();
+            for (int start = 0; start < group.size(); start += LOOKUP_CHUNK) {
+                List<SensorRollup> chunk = group.subList(start, Math.min(group.size(), start + LOOKUP_CHUNK));
+                Map<String, SensorRollup> existing = new HashMap<>();
+                List<String> deviceIds = chunk.stream().map(SensorRollup::getDeviceId).toList();
+                for (SensorRollup stored : sensorRollupRepository.findByResolutionAndBucketStartAndDeviceIdIn(
+                        bucket.getKey().resolution(), bucket.getKey().bucketStart(), deviceIds)) {
+                    existing.put(stored.getDeviceId(), stored);
+                }
+                for (SensorRollup partial : chunk) {
+                    SensorRollup stored = existing.get(partial.getDeviceId());
+                    if (stored == null) {
+                        toSave.add(partial);
+                    } else {
+                        stored.merge(partial);
+                        toSave.add(stored);
+                    }
+                }
+            }
+        }
+        sensorRollupRepository.saveAll(toSave);
+    }
+
+    /**
+     * Retrieves a device's rollups within a time range, oldest first.
+     *
+     * @param deviceId   Unique identifier of the IoT device.
+     * @param resolution Width of the buckets.
+     * @param from       Start of the range; the bucket containing it is included.
+     * @param to         End of the range (exclusive).
+     * @return One view per non-empty bucket.
+     */
+    @Transactional(readOnly = true)
+    public List<RollupView> getRollups(String deviceId, RollupResolution resolution, LocalDateTime from,
+                                       LocalDateTime to) {
+        return sensorRollupRepository
+                .findByDeviceIdAndResolutionAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStartAsc(
+                        deviceId, resolution, resolution.bucketStart(from), to)
+                .stream()
+                .map(RollupView::of)
+                .toList();
+    }
+
+    private record BucketKey(RollupResolution resolution, LocalDateTime bucketStart) {
+    }
+}
@@ -0,0 +1,94 @@
+package turing.example.iotsenser.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import turing.example.iotsenser.model.SensorData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes sensor data to Kafka.
+ * Records are keyed by device ID so each device's readings land on one partition in order,
+ * and every send completion feeds latency and error metrics.
+ */
+@Slf4j
+@Service
+public class SensorDataPublisher {
+
+    static final String TOPIC = "sensor-data";
+
+    private final KafkaTemplate<String, SensorData> kafkaTemplate;
+    private final Timer sendTimer;
+    private final Counter errorCounter;
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param kafkaTemplate Kafka template for event publishing.
+     * @param meterRegistry Registry for send latency and error metrics.
+     */
+    @Autowired
+    public SensorDataPublisher(KafkaTemplate<String, SensorData> kafkaTemplate, MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.sendTimer = Timer.builder("iotsenser.kafka.send")
+                .description("Time from send to broker acknowledgement")
+                .register(meterRegistry);
+        this.errorCounter = Counter.builder("iotsenser.kafka.send.errors")
+                .description("Sensor data sends that failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sends a reading to the sensor-data topic, keyed by its device ID.
+     *
+     * @param sensorData The reading to publish.
+     * @return Future completed when the broker acknowledges or rejects the record.
+     */
+    public CompletableFuture<SendResult<String, SensorData>> publish(SensorData sensorData) {
+        long start = System.nanoTime();
+        CompletableFuture<SendResult<String, SensorData>> future =
+                kafkaTemplate.send(TOPIC, sensorData.getDeviceId(), sensorData);
+        return future.whenComplete((result, error) -> {
+            sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (error != null) {
+                errorCounter.increment();
+                log.warn("Failed to publish sensor data for device {}", sensorData.getDeviceId(), error);
+            }
+        });
+    }
+
+    /**
+     * Produces readings and waits until the broker has acknowledged all of them.
+     * Used when Kafka is the system of record, so a reading is never acknowledged before it is durable.
+     *
+     * @param readings  The readings to publish.
+     * @param timeoutMs Maximum time to wait for the acknowledgements, in milliseconds.
+     * @return `true` if every send succeeded within the timeout.
+     */
+    public boolean publishAndAwait(List<SensorData> readings, long timeoutMs) {
+        List<CompletableFuture<SendResult<String, SensorData>>> sends = new ArrayList<>(readings.size());
+        for (SensorData sensorData : readings) {
+            sends.add(publish(sensorData));
+        }
+        try {
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0])).get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+}
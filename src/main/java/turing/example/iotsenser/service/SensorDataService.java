@@ -1,22 +1,155 @@
 package turing.example.iotsenser.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+import turing.example.iotsenser.cache.QueryCache;
+import turing.example.iotsenser.device.DeviceRegistry;
+import turing.example.iotsenser.dto.SensorDataCursor;
+import turing.example.iotsenser.dto.SensorDataPage;
+import turing.example.iotsenser.dto.SensorReadingView;
+import turing.example.iotsenser.event.SensorDataEvent;
 import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.ingest.ReadingBatch;
+import turing.example.iotsenser.repository.SensorDataBatchWriter;
 import turing.example.iotsenser.repository.SensorDataRepository;
+import turing.example.iotsenser.shard.ShardRouter;
+import turing.example.iotsenser.storage.TimeSeriesStore;
+import turing.example.iotsenser.wal.WalReplayer;
+import turing.example.iotsenser.wal.WalTarget;
+import turing.example.iotsenser.wal.WriteAheadLog;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Service for managing IoT sensor data.
  * Handles data persistence and retrieval operations.
+ * Every persisted reading is published as a {@link SensorDataEvent}, which feeds the asynchronous
+ * processing pipeline once the write has committed.
+ * Device and fleet-wide queries are served through the {@link QueryCache}, which every write invalidates.
+ * Readings are stored on the shard owning their device; see {@link ShardRouter}.
+ * The ID sequences are seeded before the service starts, as buffered readings may be written right away.
  */
 @Service
+@DependsOn("idSequenceSeeder")
 public class SensorDataService {
 
+    /**
+     * Cache key of {@link #getSensorDataByDevice(String)}.
+     */
+    private static final String DEVICE_READINGS_QUERY = "device-readings";
+
+    private static final Comparator<SensorData> PAGE_ORDER =
+            Comparator.comparing(SensorData::getTimestamp).thenComparing(SensorData::getId);
+
     @Autowired
     private SensorDataRepository sensorDataRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private LatestReadingCache latestReadingCache;
+
+    @Autowired
+    private SensorDataBatchWriter sensorDataBatchWriter;
+
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+
+    @Autowired
+    private TimeSeriesStore timeSeriesStore;
+
+    @Autowired
+    private SensorDataPublisher sensorDataPublisher;
+
+    @Autowired
+    private QueryCache queryCache;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${iotsenser.ingest.mode:sync}")
+    private IngestMode ingestMode = IngestMode.SYNC;
+
+    @Value("${iotsenser.ingest.write-behind.capacity:10000}")
+    private int writeBehindCapacity = 10000;
+
+    @Value("${iotsenser.ingest.write-behind.batch-size:500}")
+    private int writeBehindBatchSize = 500;
+
+    @Value("${iotsenser.ingest.write-behind.flush-interval:200ms}")
+    private Duration writeBehindFlushInterval = Duration.ofMillis(200);
+
+    @Value("${iotsenser.ingest.wal.directory:./data/wal}")
+    private Path walDirectory = Path.of("./data/wal");
+
+    @Value("${iotsenser.ingest.wal.segment-size:64MB}")
+    private DataSize walSegmentSize = DataSize.ofMegabytes(64);
+
+    @Value("${iotsenser.ingest.wal.max-backlog:4GB}")
+    private DataSize walMaxBacklog = DataSize.ofGigabytes(4);
+
+    @Value("${iotsenser.ingest.wal.fsync:true}")
+    private boolean walFsync = true;
+
+    @Value("${iotsenser.ingest.wal.sync-timeout:5s}")
+    private Duration walSyncTimeout = Duration.ofSeconds(5);
+
+    @Value("${iotsenser.ingest.wal.target:database}")
+    private WalTarget walTarget = WalTarget.DATABASE;
+
+    @Value("${iotsenser.ingest.wal.replay-batch-size:1000}")
+    private int walReplayBatchSize = 1000;
+
+    @Value("${iotsenser.ingest.wal.max-attempts:5}")
+    private int walMaxAttempts = 5;
+
+    @Value("${iotsenser.ingest.wal.retry-backoff:1s}")
+    private Duration walRetryBackoff = Duration.ofSeconds(1);
+
+    @Value("${iotsenser.ingest.kafka.send-timeout-ms:5000}")
+    private long kafkaSendTimeoutMs = 5000;
+
+    private WriteBehindBuffer writeBehindBuffer;
+
+    private WriteAheadLog writeAheadLog;
+
+    private WalReplayer walReplayer;
+
     /**
      * Constructor-based dependency injection for repository access.
      *
@@ -28,31 +161,434 @@ public class SensorDataService {
 //    }
 
     /**
-     * Saves sensor data to the database.
+     * Starts the write-behind flusher when the service runs in write-behind mode.
+     * Batches are flushed through {@link #saveSensorDataBatch(List)}; the repository's
+     * {@code saveAll} supplies the transaction since the call does not go through the proxy.
+     */
+    @PostConstruct
+    void startWriteBehind() {
+        if (ingestMode == IngestMode.WRITE_BEHIND) {
+            writeBehindBuffer = new WriteBehindBuffer(writeBehindCapacity, writeBehindBatchSize,
+                    writeBehindFlushInterval, this::saveSensorDataBatch, meterRegistry);
+            writeBehindBuffer.start();
+        }
+    }
+
+    /**
+     * Opens the write-ahead log and starts replaying it when the service runs in WAL mode.
+     * Readings left in the log by a previous run are replayed first.
+     */
+    @PostConstruct
+    void startWal() {
+        if (ingestMode != IngestMode.WAL) {
+            return;
+        }
+        writeAheadLog = new WriteAheadLog(walDirectory, (int) walSegmentSize.toBytes(), walMaxBacklog.toBytes(),
+                walFsync, meterRegistry);
+        writeAheadLog.start();
+        Consumer<List<SensorData>> sink = walTarget == WalTarget.KAFKA ? this::forwardToKafka : this::saveSensorDataBatch;
+        walReplayer = new WalReplayer(writeAheadLog, walReplayBatchSize, walMaxAttempts, walRetryBackoff, sink,
+                meterRegistry);
+        walReplayer.start();
+    }
+
+    /**
+     * Flushes any buffered readings before the application shuts down.
+     */
+    @PreDestroy
+    void stopWriteBehind() {
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.close();
+        }
+    }
+
+    /**
+     * Stops replaying and closes the write-ahead log; unreplayed readings are kept for the next start.
+     */
+    @PreDestroy
+    void stopWal() {
+        if (walReplayer != null) {
+            walReplayer.close();
+        }
+        if (writeAheadLog != null) {
+            writeAheadLog.close();
+        }
+    }
+
+    /**
+     * Indicates whether readings are accepted into the write-behind buffer instead of saved inline.
+     *
+     * @return `true` when running in write-behind mode.
+     */
+    public boolean isWriteBehindEnabled() {
+        return writeBehindBuffer != null;
+    }
+
+    /**
+     * Indicates whether the REST layer should only produce to Kafka and leave persistence to the consumer.
+     *
+     * @return `true` when running in Kafka-first mode.
+     */
+    public boolean isKafkaFirstEnabled() {
+        return ingestMode == IngestMode.KAFKA;
+    }
+
+    /**
+     * Indicates whether readings are acknowledged once appended to the write-ahead log.
+     *
+     * @return `true` when running in WAL mode.
+     */
+    public boolean isWalEnabled() {
+        return writeAheadLog != null;
+    }
+
+    /**
+     * Appends readings to the write-ahead log and waits until they are on disk.
+     * Concurrent callers share one fsync, so the wait is bounded by the group-commit latency.
+     *
+     * @param readings The readings to log.
+     * @return `true` if the readings are durable, `false` if the log is full or did not sync in time.
+     */
+    public boolean appendToWal(List<SensorData> readings) {
+        return awaitWal(writeAheadLog.append(readings));
+    }
+
+    /**
+     * Appends a decoded ingest batch to the write-ahead log and waits until it is on disk.
+     *
+     * @param batch The readings to log.
+     * @return `true` if the readings are durable, `false` if the log is full or did not sync in time.
+     */
+    public boolean appendToWal(ReadingBatch batch) {
+        return awaitWal(writeAheadLog.append(batch));
+    }
+
+    private boolean awaitWal(long position) {
+        if (position < 0) {
+            return false;
+        }
+        try {
+            return writeAheadLog.awaitDurable(position, walSyncTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Replays a batch from the write-ahead log to Kafka; throws so the batch is retried if any send fails.
+     */
+    private void forwardToKafka(List<SensorData> batch) {
+        if (!sensorDataPublisher.publishAndAwait(batch, kafkaSendTimeoutMs)) {
+            throw new IllegalStateException("Kafka did not acknowledge " + batch.size() + " replayed readings");
+        }
+    }
+
+    /**
+     * Accepts sensor data into the write-behind buffer without waiting for the database.
+     *
+     * @param sensorData The sensor data to be saved later.
+     * @return `true` if the reading was buffered, `false` if the buffer is full.
+     */
+    public boolean submitSensorData(SensorData sensorData) {
+        return writeBehindBuffer.offer(sensorData);
+    }
+
+    /**
+     * Saves sensor data to the database, hands it to the time-series store and records it as the device's
+     * latest reading once the write has committed, and publishes it for asynchronous processing.
      *
      * @param sensorData The sensor data to be saved.
      * @return The saved SensorData entity.
      */
     public SensorData saveSensorData(SensorData sensorData) {
-        return sensorDataRepository.save(sensorData);
+        assignDeviceKey(sensorData);
+        return shardRouter.write(shardRouter.shardOf(sensorData.getDeviceId()), () -> {
+            SensorData saved = sensorDataRepository.save(sensorData);
+            onWritten(List.of(saved));
+            return saved;
+        });
+    }
+
+    /**
+     * Saves a batch of sensor data in a single transaction, or one transaction per shard when sharded.
+     * Inserts are grouped into JDBC batches according to {@code hibernate.jdbc.batch_size};
+     * the saved readings are published for asynchronous processing after their transaction commits,
+     * so when a shard fails the readings already committed on other shards are still published.
+     *
+     * @param batch The sensor data records to be saved.
+     * @return The saved SensorData entities.
+     */
+    @Transactional
+    public List<SensorData> saveSensorDataBatch(List<SensorData> batch) {
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        List<String> deviceIds = batch.stream().map(SensorData::getDeviceId).toList();
+        deviceRegistry.registerAll(deviceIds);
+        for (SensorData sensorData : batch) {
+            assignDeviceKey(sensorData);
+        }
+        List<SensorData> saved = new ArrayList<>(batch.size());
+        shardRouter.groupByShard(batch, SensorData::getDeviceId).forEach((shard, readings) ->
+                saved.addAll(shardRouter.write(shard, () -> {
+                    List<SensorData> written = sensorDataRepository.saveAll(readings);
+                    onWritten(written);
+                    return written;
+                })));
+        return saved;
+    }
+
+    /**
+     * Saves a decoded ingest batch in a single transaction with a JDBC batch insert,
+     * bypassing the persistence context; when sharded, each shard's rows are inserted in their own transaction.
+     * Once committed, the saved readings are handed to the time-series store, the latest-reading cache and the
+     * processing pipeline, which work on detached {@link SensorData} instances.
+     *
+     * @param batch The readings to be saved; their IDs and device keys are filled in.
+     * @return The saved readings, grouped by shard when sharded.
+     */
+    @Transactional
+    public List<SensorData> saveReadingBatch(ReadingBatch batch) {
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+        List<String> deviceIds = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            deviceIds.add(batch.deviceId(i));
+        }
+        deviceRegistry.registerAll(deviceIds);
+        for (int i = 0; i < batch.size(); i++) {
+            batch.setDeviceKey(i, deviceRegistry.keyOf(batch.deviceId(i)));
+        }
+        return insertByShard(batch);
+    }
+
+    /**
+     * Hands readings that have just been written to the time-series store, the caches and the processing
+     * pipeline once their transaction commits. Called inside the write, so that when sharded each shard's
+     * readings follow that shard's transaction and are not lost with a failure on another shard.
+     */
+    private void onWritten(List<SensorData> saved) {
+        afterCommit(() -> {
+            timeSeriesStore.append(saved);
+            saved.forEach(latestReadingCache::put);
+        });
+        queryCache.invalidateDevices(saved.stream().map(SensorData::getDeviceId).toList());
+        for (SensorData sensorData : saved) {
+            eventPublisher.publishEvent(new SensorDataEvent(this, sensorData));
+        }
+    }
+
+    /**
+     * Runs an action once the surrounding transaction commits, or at once when there is none,
+     * so in-memory views never show a write that is rolled back. The query cache defers its own
+     * invalidation the same way; registering it after this action keeps cached ranges from being
+     * refilled before the time-series store has the new readings.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Inserts a decoded batch, split into one JDBC batch per shard when sharded.
+     *
+     * @return The inserted readings.
+     */
+    private List<SensorData> insertByShard(ReadingBatch batch) {
+        if (!shardRouter.isSharded()) {
+            sensorDataBatchWriter.insert(batch);
+            List<SensorData> saved = batch.toSensorData();
+            onWritten(saved);
+            return saved;
+        }
+        Map<String, List<Integer>> rowsByShard =
+                shardRouter.groupByShard(IntStream.range(0, batch.size()).boxed().toList(), batch::deviceId);
+        List<SensorData> saved = new ArrayList<>(batch.size());
+        rowsByShard.forEach((shard, rows) -> saved.addAll(shardRouter.write(shard, () -> {
+            int[] indexes = rows.stream().mapToInt(Integer::intValue).toArray();
+            sensorDataBatchWriter.insert(batch, indexes);
+            List<SensorData> written = batch.toSensorData(indexes);
+            onWritten(written);
+            return written;
+        })));
+        return saved;
     }
 
     /**
-     * Retrieves all stored sensor data.
+     * Stamps a reading with its device key and swaps in the registry's copy of the device ID,
+     * so the caches fed from it share one string per device.
+     */
+    private void assignDeviceKey(SensorData sensorData) {
+        int deviceKey = deviceRegistry.keyOf(sensorData.getDeviceId());
+        sensorData.setDeviceKey(deviceKey);
+        String deviceId = deviceRegistry.deviceIdOf(deviceKey);
+        if (deviceId != null) {
+            sensorData.setDeviceId(deviceId);
+        }
+    }
+
+    /**
+     * Retrieves one page of sensor data in {@code (timestamp, id)} order.
+     * Cached until the next write; a cache hit does not open a transaction.
+     * When sharded, every shard is asked for a page in parallel and the pages are merged.
      *
-     * @return List of all SensorData records.
+     * @param after Position to resume after, or null for the first page.
+     * @param size  Maximum number of records to return.
+     * @return The page, with a cursor for the next one if more records may follow.
      */
-    public List<SensorData> getAllSensorData() {
-        return sensorDataRepository.findAll();
+    public SensorDataPage getSensorDataPage(SensorDataCursor after, int size) {
+        PageQuery query = after == null
+                ? new PageQuery(null, null, size)
+                : new PageQuery(after.getTimestamp(), after.getId(), size);
+        return queryCache.getFleetWide(query, page -> page.getItems().size(), () -> loadSensorDataPage(after, size));
+    }
+
+    private SensorDataPage loadSensorDataPage(SensorDataCursor after, int size) {
+        PageRequest limit = PageRequest.of(0, size);
+        List<List<SensorData>> pages = shardRouter.readEachShard(shard -> after == null
+                ? sensorDataRepository.findAllByOrderByTimestampAscIdAsc(limit)
+                : sensorDataRepository.findPageAfter(after.getTimestamp(), after.getId(), limit));
+        List<SensorData> items = pages.size() == 1
+                ? pages.get(0)
+                : pages.stream().flatMap(List::stream).sorted(PAGE_ORDER).limit(size).toList();
+        String nextCursor = items.size() < size ? null : SensorDataCursor.after(items.get(items.size() - 1)).encode();
+        return new SensorDataPage(List.copyOf(items), nextCursor);
+    }
+
+    /**
+     * Streams every stored reading, in {@code (timestamp, id)} order, to a sink.
+     * Rows are read from a database cursor and detached once handed over,
+     * so heap use stays constant regardless of table size.
+     * When sharded, shards are exported one after another, each in order.
+     *
+     * @param sink Receives each reading; runs inside the read transaction.
+     * @return Number of readings exported.
+     */
+    @Transactional(readOnly = true)
+    public long exportSensorData(Consumer<SensorData> sink) {
+        long count = 0;
+        for (String shard : shardRouter.shards()) {
+            count += shardRouter.read(shard, () -> exportShard(sink));
+        }
+        return count;
+    }
+
+    private long exportShard(Consumer<SensorData> sink) {
+        long count = 0;
+        try (Stream<SensorData> rows = sensorDataRepository.streamAllOrdered()) {
+            Iterator<SensorData> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                SensorData sensorData = iterator.next();
+                sink.accept(sensorData);
+                entityManager.detach(sensorData);
+                count++;
+            }
+        }
+        return count;
     }
 
     /**
      * Retrieves sensor data for a specific IoT device.
+     * Cached until the device's next write.
      *
      * @param deviceId Unique identifier of the IoT device.
-     * @return List of SensorData records for the given device.
+     * @return Unmodifiable list of SensorData records for the given device.
      */
     public List<SensorData> getSensorDataByDevice(String deviceId) {
-        return sensorDataRepository.findByDeviceId(deviceId);
+        return queryCache.get(deviceId, DEVICE_READINGS_QUERY, List::size,
+                () -> shardRouter.read(shardRouter.shardOf(deviceId),
+                        () -> List.copyOf(sensorDataRepository.findByDeviceId(deviceId))));
+    }
+
+    /**
+     * Retrieves a device's readings within a time range, newest first, from the time-series store.
+     * Cached until the device's next write; a cache hit does not open a transaction.
+     *
+     * @param deviceId Unique identifier of the IoT device.
+     * @param from     Start of the range (inclusive).
+     * @param to       End of the range (exclusive).
+     * @param limit    Maximum number of readings to return.
+     * @return Read-only views of the matching readings.
+     */
+    public List<SensorReadingView> getSensorDataByDevice(String deviceId, LocalDateTime from, LocalDateTime to,
+                                                         int limit) {
+        return queryCache.get(deviceId, new RangeQuery(from, to, limit), List::size,
+                () -> shardRouter.read(shardRouter.shardOf(deviceId),
+                        () -> List.copyOf(timeSeriesStore.findReadingsInRange(deviceId, from, to, limit))));
+    }
+
+    /**
+     * Retrieves the latest reading of a device.
+     * Served from the latest-reading cache; a miss falls back to one indexed lookup and fills the cache,
+     * remembering devices without readings as absent.
+     *
+     * @param deviceId Unique identifier of the IoT device.
+     * @return The latest reading, or empty if the device has never reported.
+     */
+    public Optional<SensorReadingView> getLatestReading(String deviceId) {
+        Optional<SensorReadingView> cached = latestReadingCache.get(deviceId);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<SensorReadingView> loaded = shardRouter.read(shardRouter.shardOf(deviceId),
+                () -> sensorDataRepository.findFirstByDeviceIdOrderByTimestampDesc(deviceId))
+                .map(latestReadingCache::put);
+        if (loaded.isEmpty()) {
+            latestReadingCache.putAbsent(deviceId);
+        }
+        return loaded;
+    }
+
+    /**
+     * Retrieves the latest reading of each of several devices.
+     * Cache misses are loaded with one query per shard, and devices without readings are remembered as absent.
+     *
+     * @param deviceIds Unique identifiers of the IoT devices.
+     * @return The latest readings, in request order; devices that have never reported are omitted.
+     */
+    public List<SensorReadingView> getLatestReadings(Collection<String> deviceIds) {
+        Map<String, SensorReadingView> found = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String deviceId : new LinkedHashSet<>(deviceIds)) {
+            Optional<SensorReadingView> cached = latestReadingCache.get(deviceId);
+            if (cached == null) {
+                misses.add(deviceId);
+            } else {
+                cached.ifPresent(reading -> found.put(deviceId, reading));
+            }
+        }
+        if (!misses.isEmpty()) {
+            shardRouter.groupByShard(misses, deviceId -> deviceId).forEach((shard, ids) ->
+                    shardRouter.read(shard, () -> sensorDataRepository.findLatestByDeviceIds(ids))
+                            .forEach(reading -> found.put(reading.getDeviceId(), latestReadingCache.put(reading))));
+            for (String deviceId : misses) {
+                if (!found.containsKey(deviceId)) {
+                    latestReadingCache.putAbsent(deviceId);
+                }
+            }
+        }
+        return deviceIds.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Cache key of {@link #getSensorDataPage(SensorDataCursor, int)}.
+     */
+    private record PageQuery(LocalDateTime afterTimestamp, Long afterId, int size) {
+    }
+
+    /**
+     * Cache key of {@link #getSensorDataByDevice(String, LocalDateTime, LocalDateTime, int)}.
+     */
+    private record RangeQuery(LocalDateTime from, LocalDateTime to, int limit) {
     }
 }
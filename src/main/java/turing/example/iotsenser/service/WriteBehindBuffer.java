@@ -0,0 +1,195 @@
+package turing.example.iotsenser.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.utils.DataAccessFailures;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Bounded write-behind buffer for sensor data.
+ * Request threads enqueue readings without touching the database; a single background
+ * flusher drains the queue into batches, flushing whenever a batch fills up or the
+ * flush interval elapses, whichever comes first.
+ *
+ * <p>A batch the database rejects because of its rows is split in halves and retried, so only the failing
+ * readings are dropped. A batch that fails because the database is unavailable is dropped whole.</p>
+ */
+@Slf4j
+public class WriteBehindBuffer implements AutoCloseable {
+
+    private final BlockingQueue<SensorData> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Consumer<List<SensorData>> sink;
+    private final Thread flusher;
+
+    private final Timer flushTimer;
+    private final Counter rejectedCounter;
+    private final Counter flushFailureCounter;
+
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private volatile boolean running;
+
+    /**
+     * Creates a new write-behind buffer.
+     *
+     * @param capacity      Maximum number of readings held before offers are refused.
+     * @param batchSize     Maximum number of readings handed to the sink at once.
+     * @param flushInterval Maximum time a reading waits before being flushed.
+     * @param sink          Receives each drained batch; typically a batch insert.
+     * @param meterRegistry Registry for queue depth, flush latency and drop metrics.
+     */
+    public WriteBehindBuffer(int capacity, int batchSize, Duration flushInterval,
+                             Consumer<List<SensorData>> sink, MeterRegistry meterRegistry) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.sink = sink;
+        this.flusher = new Thread(this::runFlusher, "sensor-write-behind");
+        this.flusher.setDaemon(true);
+
+        Gauge.builder("iotsenser.ingest.buffer.depth", queue, BlockingQueue::size)
+                .description("Readings waiting in the write-behind buffer")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("iotsenser.ingest.buffer.flush")
+                .description("Time taken to persist a write-behind batch")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("iotsenser.ingest.buffer.dropped")
+                .description("Readings refused or lost by the write-behind buffer")
+                .tag("reason", "full")
+                .register(meterRegistry);
+        this.flushFailureCounter = Counter.builder("iotsenser.ingest.buffer.dropped")
+                .description("Readings refused or lost by the write-behind buffer")
+                .tag("reason", "flush-error")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the background flusher.
+     */
+    public void start() {
+        running = true;
+        flusher.start();
+    }
+
+    /**
+     * Enqueues a reading without blocking.
+     *
+     * @param sensorData The reading to buffer.
+     * @return `true` if the reading was accepted, `false` if the buffer is full.
+     */
+    public boolean offer(SensorData sensorData) {
+        if (queue.offer(sensorData)) {
+            return true;
+        }
+        rejectedCounter.increment();
+        return false;
+    }
+
+    /**
+     * Returns the number of readings waiting to be flushed.
+     */
+    public int depth() {
+        return queue.size();
+    }
+
+    /**
+     * Stops the flusher and persists whatever is still buffered.
+     */
+    @Override
+    public void close() {
+        // No interrupt: the flusher may be inside a JDBC call; it exits after its current poll.
+        running = false;
+        try {
+            flusher.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<SensorData> remaining = new ArrayList<>(batchSize);
+        while (queue.drainTo(remaining, batchSize) > 0) {
+            flush(remaining);
+            remaining = new ArrayList<>(batchSize);
+        }
+    }
+
+    private void runFlusher() {
+        while (running) {
+            List<SensorData> batch = new ArrayList<>(batchSize);
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                // Shutdown requested; close() drains what is left.
+                flush(batch);
+                return;
+            }
+            flush(batch);
+        }
+    }
+
+    /**
+     * Blocks until a batch is full or the flush interval has passed since its first reading.
+     */
+    private void collect(List<SensorData> batch) throws InterruptedException {
+        // Idle polls are capped so close() is noticed promptly even with long flush intervals.
+        SensorData first = queue.poll(Math.min(flushIntervalNanos, IDLE_POLL_NANOS), TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            SensorData next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<SensorData> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            write(batch);
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Hands readings to the sink, bisecting a rejected batch until the failing readings are isolated.
+     */
+    private void write(List<SensorData> batch) {
+        try {
+            sink.accept(batch);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1 || DataAccessFailures.isUnavailable(e)) {
+                log.error("Failed to flush {} buffered sensor readings", batch.size(), e);
+                flushFailureCounter.increment(batch.size());
+                return;
+            }
+            int half = batch.size() / 2;
+            write(batch.subList(0, half));
+            write(batch.subList(half, batch.size()));
+        }
+    }
+}
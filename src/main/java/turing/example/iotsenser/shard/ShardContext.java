@@ -0,0 +1,39 @@
+package turing.example.iotsenser.shard;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard the current thread's database work is routed to, read by {@link ShardRoutingDataSource}.
+ * A connection is bound to a shard when it is obtained, so the shard must be set before a transaction begins.
+ */
+final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * Returns the current shard, or null for the primary.
+     */
+    static String current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs work with the current shard set, restoring the previous one afterwards.
+     */
+    static <T> T call(String shard, Supplier<T> work) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package turing.example.iotsenser.shard;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import turing.example.iotsenser.cache.QueryCache;
+import turing.example.iotsenser.replica.ReadStaleness;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves readings and anomalies to the shard that owns their device after shards are added or removed.
+ *
+ * <p>Each shard is scanned for devices it no longer owns. A misplaced device is moved in chunks of
+ * {@code iotsenser.sharding.rebalance.chunk-size} rows: a chunk is copied to the owning shard, replacing
+ * any rows with the same IDs, and only then deleted from the old one. IDs are unique across shards, so an
+ * interrupted run leaves at worst a chunk present on both shards, and running again completes the move.</p>
+ *
+ * <p>New writes already go to the owning shard while a move is in progress, but reads see only the rows
+ * moved so far; run the rebalancer right after changing the shard list.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "iotsenser.sharding.enabled", havingValue = "true")
+public class ShardRebalancer {
+
+    /**
+     * Tables whose rows are spread over the shards by device ID.
+     */
+    static final List<String> SHARDED_TABLES = List.of("sensor_data", "anomalies");
+
+    private final ShardRouter shardRouter;
+    private final JdbcTemplate jdbcTemplate;
+    private final QueryCache queryCache;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${iotsenser.sharding.rebalance.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${iotsenser.sharding.rebalance-on-startup:false}")
+    private boolean rebalanceOnStartup = false;
+
+    private Thread worker;
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param shardRouter   Router to the shards.
+     * @param jdbcTemplate  JDBC access over the shard-routing data source.
+     * @param queryCache    Query cache, invalidated for each moved device.
+     * @param meterRegistry Registry for moved device and row counts.
+     */
+    @Autowired
+    public ShardRebalancer(ShardRouter shardRouter, JdbcTemplate jdbcTemplate, QueryCache queryCache,
+                           MeterRegistry meterRegistry) {
+        this.shardRouter = shardRouter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.queryCache = queryCache;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Starts a rebalance in the background if {@code iotsenser.sharding.rebalance-on-startup} is set.
+     */
+    @PostConstruct
+    public void start() {
+        if (!rebalanceOnStartup) {
+            return;
+        }
+        worker = new Thread(() -> {
+            try {
+                rebalance();
+            } catch (RuntimeException e) {
+                log.error("Shard rebalance failed; run it again to finish moving devices", e);
+            }
+        }, "shard-rebalancer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Interrupts a background rebalance; the chunk in flight is finished or redone by the next run.
+     */
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Moves every misplaced device to its owning shard.
+     * Reads come from the shards' primaries, since a lagging replica would hide rows still to be moved.
+     *
+     * @return The number of rows moved.
+     */
+    public long rebalance() {
+        return ReadStaleness.call(Duration.ZERO, this::moveMisplaced);
+    }
+
+    private long moveMisplaced() {
+        long moved = 0;
+        for (String source : shardRouter.shards()) {
+            for (String table : SHARDED_TABLES) {
+                List<String> deviceIds = shardRouter.read(source, () -> jdbcTemplate.queryForList(
+                        "SELECT DISTINCT device_id FROM " + table, String.class));
+                for (String deviceId : deviceIds) {
+                    String target = shardRouter.shardOf(deviceId);
+                    if (target.equals(source)) {
+                        continue;
+                    }
+                    if (Thread.currentThread().isInterrupted()) {
+                        log.info("Shard rebalance interrupted after moving {} rows", moved);
+                        return moved;
+                    }
+                    long rows = move(table, deviceId, source, target);
+                    moved += rows;
+                    queryCache.invalidateDevice(deviceId);
+                    meterRegistry.counter("iotsenser.sharding.rebalance.devices", "table", table).increment();
+                    log.info("Moved {} rows of device {} in {} from shard {} to {}", rows, deviceId, table,
+                            source, target);
+                }
+            }
+        }
+        log.info("Shard rebalance finished; moved {} rows", moved);
+        return moved;
+    }
+
+    /**
+     * Moves one device's rows of a table from one shard to another, a chunk at a time.
+     */
+    private long move(String table, String deviceId, String source, String target) {
+        long moved = 0;
+        while (true) {
+            List<Map<String, Object>> rows = shardRouter.read(source, () -> jdbcTemplate.queryForList(
+                    "SELECT * FROM " + table + " WHERE device_id = ? ORDER BY id LIMIT ?", deviceId, chunkSize));
+            if (rows.isEmpty()) {
+                return moved;
+            }
+            List<Object> ids = rows.stream().map(row -> row.get("id")).toList();
+            shardRouter.write(target, () -> {
+                deleteIds(table, ids);
+                insert(table, rows);
+                return null;
+            });
+            shardRouter.write(source, () -> deleteIds(table, ids));
+            moved += rows.size();
+            meterRegistry.counter("iotsenser.sharding.rebalance.rows", "table", table).increment(rows.size());
+        }
+    }
+
+    private int deleteIds(String table, List<Object> ids) {
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.update("DELETE FROM " + table + " WHERE id IN (" + placeholders + ")", ids.toArray());
+    }
+
+    private void insert(String table, List<Map<String, Object>> rows) {
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        List<Object[]> arguments = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            Object[] values = new Object[columns.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = row.get(columns.get(i));
+            }
+            arguments.add(values);
+        }
+        jdbcTemplate.batchUpdate(sql, arguments);
+    }
+}
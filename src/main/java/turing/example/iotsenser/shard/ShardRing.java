@@ -0,0 +1,94 @@
+package turing.example.iotsenser.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Consistent hash ring assigning device IDs to shards.
+ *
+ * <p>Each shard is placed on a 64-bit ring at {@code virtualNodes} points derived from its name, and a
+ * device belongs to the shard owning the first point at or after the device ID's hash. Adding a shard
+ * therefore only moves the devices that land on the new shard's points, about 1/N of them, and the
+ * assignment depends only on shard names, never on their order or on the process.</p>
+ */
+public final class ShardRing {
+
+    private final List<String> shards;
+    private final long[] points;
+    private final String[] owners;
+
+    /**
+     * Creates a ring.
+     *
+     * @param shards       Shard names; renaming a shard moves its devices.
+     * @param virtualNodes Points per shard; more points spread devices more evenly.
+     */
+    public ShardRing(Collection<String> shards, int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must be positive");
+        }
+        this.shards = List.copyOf(shards);
+        int count = this.shards.size() * virtualNodes;
+        long[][] entries = new long[count][2];
+        int next = 0;
+        for (int shard = 0; shard < this.shards.size(); shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                entries[next][0] = hash(this.shards.get(shard) + "#" + node);
+                entries[next][1] = shard;
+                next++;
+            }
+        }
+        Arrays.sort(entries, (left, right) -> Long.compare(left[0], right[0]));
+        this.points = new long[count];
+        this.owners = new String[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = entries[i][0];
+            owners[i] = this.shards.get((int) entries[i][1]);
+        }
+    }
+
+    /**
+     * Returns the shard owning a device.
+     *
+     * @param deviceId Unique identifier of the IoT device.
+     */
+    public String shardOf(String deviceId) {
+        if (shards.size() == 1) {
+            return shards.get(0);
+        }
+        int index = Arrays.binarySearch(points, hash(deviceId));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * Returns the shard names, in configuration order.
+     */
+    public List<String> shards() {
+        return shards;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with a MurmurHash3 mix so nearby names spread out.
+     */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
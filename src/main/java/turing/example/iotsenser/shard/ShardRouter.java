@@ -0,0 +1,219 @@
+package turing.example.iotsenser.shard;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs database work on the shard owning a device, or on every shard in parallel.
+ *
+ * <p>With several shards, work runs in a new transaction on its shard, so it never joins a transaction
+ * the caller holds on another shard; writes spanning shards commit per shard, not atomically. With a
+ * single shard writes run as is and reads join the caller's transaction, or start a read-only one if there
+ * is none, so that read replicas can serve them.</p>
+ */
+public class ShardRouter implements AutoCloseable {
+
+    /**
+     * Name of the shard backed by {@code spring.datasource}.
+     */
+    public static final String PRIMARY = "primary";
+
+    private final ShardRing ring;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readTransaction;
+    private final ExecutorService fanOut;
+    private TaskDecorator taskDecorator = task -> task;
+
+    /**
+     * Creates a router.
+     *
+     * @param ring               Assignment of devices to shards.
+     * @param transactionManager Transaction manager over the {@link ShardRoutingDataSource};
+     *                           may be null for a single shard, whose work then runs as is.
+     * @param fanOutThreads      Threads for cross-shard reads; 0 for one per shard.
+     */
+    public ShardRouter(ShardRing ring, PlatformTransactionManager transactionManager, int fanOutThreads) {
+        this.ring = ring;
+        if (ring.shards().size() == 1) {
+            this.writeTransaction = null;
+            this.readTransaction = transactionManager == null ? null : new TransactionTemplate(transactionManager);
+            if (readTransaction != null) {
+                readTransaction.setReadOnly(true);
+            }
+            this.fanOut = null;
+            return;
+        }
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fanOut = Executors.newFixedThreadPool(fanOutThreads > 0 ? fanOutThreads : ring.shards().size(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "shard-fan-out-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Creates a router for an unsharded deployment, where all work runs on the primary.
+     */
+    public static ShardRouter singleShard() {
+        return new ShardRouter(new ShardRing(List.of(PRIMARY), 1), null, 0);
+    }
+
+    /**
+     * Sets the decorator applied to cross-shard reads before they run on fan-out threads,
+     * for carrying thread-bound state of the caller over.
+     *
+     * @param taskDecorator Decorator of fan-out tasks.
+     */
+    public void setTaskDecorator(TaskDecorator taskDecorator) {
+        this.taskDecorator = taskDecorator;
+    }
+
+    /**
+     * Indicates whether data is spread over more than one shard.
+     */
+    public boolean isSharded() {
+        return fanOut != null;
+    }
+
+    /**
+     * Returns the shard names.
+     */
+    public List<String> shards() {
+        return ring.shards();
+    }
+
+    /**
+     * Returns the shard owning a device.
+     *
+     * @param deviceId Unique identifier of the IoT device.
+     */
+    public String shardOf(String deviceId) {
+        return ring.shardOf(deviceId);
+    }
+
+    /**
+     * Splits items by the shard owning their device, keeping their order within each shard.
+     *
+     * @param items      Items to split.
+     * @param deviceIdOf Extracts an item's device ID.
+     * @return Items by shard name.
+     */
+    public <T> Map<String, List<T>> groupByShard(Collection<T> items, Function<? super T, String> deviceIdOf) {
+        if (!isSharded()) {
+            return Map.of(PRIMARY, items instanceof List<T> list ? list : new ArrayList<>(items));
+        }
+        Map<String, List<T>> groups = new LinkedHashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(shardOf(deviceIdOf.apply(item)), shard -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    /**
+     * Runs writes on a shard, in their own transaction there when sharded.
+     * After-commit work registered by the writes, including transactional events, then follows the shard's
+     * transaction, so it runs for every shard that commits even if a later shard fails.
+     *
+     * @param shard Shard name.
+     * @param work  Database work.
+     * @return The work's result.
+     */
+    public <T> T write(String shard, Supplier<T> work) {
+        if (!isSharded()) {
+            return work.get();
+        }
+        return ShardContext.call(shard, () -> writeTransaction.execute(status -> work.get()));
+    }
+
+    /**
+     * Runs reads on a shard, in their own read-only transaction there when sharded.
+     * Unsharded, they join the caller's transaction or start a read-only one.
+     *
+     * @param shard Shard name.
+     * @param work  Database work.
+     * @return The work's result.
+     */
+    public <T> T read(String shard, Supplier<T> work) {
+        if (!isSharded()) {
+            return readTransaction == null ? work.get() : readTransaction.execute(status -> work.get());
+        }
+        return ShardContext.call(shard, () -> readTransaction.execute(status -> work.get()));
+    }
+
+    /**
+     * Runs work with connections routed to a shard but without starting a transaction,
+     * for statements that manage their own, such as DDL.
+     *
+     * @param shard Shard name.
+     * @param work  Database work.
+     */
+    public void run(String shard, Runnable work) {
+        if (!isSharded()) {
+            work.run();
+            return;
+        }
+        ShardContext.call(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs reads on every shard in parallel and waits for all of them.
+     *
+     * @param work Database work, given the shard name.
+     * @return Each shard's result, in shard order.
+     * @throws RuntimeException The first failure, once every shard has finished.
+     */
+    public <T> List<T> readEachShard(Function<String, T> work) {
+        if (!isSharded()) {
+            return Collections.singletonList(read(PRIMARY, () -> work.apply(PRIMARY)));
+        }
+        List<CompletableFuture<T>> results = new ArrayList<>();
+        for (String shard : ring.shards()) {
+            results.add(CompletableFuture.supplyAsync(() -> read(shard, () -> work.apply(shard)),
+                    task -> fanOut.execute(taskDecorator.decorate(task))));
+        }
+        try {
+            CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results.stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+     * Stops the fan-out threads.
+     */
+    @Override
+    public void close() {
+        if (fanOut != null) {
+            fanOut.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package turing.example.iotsenser.shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Data source handing out connections to the shard selected by the current thread,
+ * or to the primary shard when none is selected.
+ * Tables that are not sharded, such as the device registry and rollups, therefore live on the primary.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * Creates a routing data source.
+     *
+     * @param shards  Data source of every shard, by shard name.
+     * @param primary Name of the shard used when none is selected.
+     */
+    public ShardRoutingDataSource(Map<String, DataSource> shards, String primary) {
+        if (!shards.containsKey(primary)) {
+            throw new IllegalArgumentException("No data source for primary shard " + primary);
+        }
+        setTargetDataSources(new HashMap<>(shards));
+        setDefaultTargetDataSource(shards.get(primary));
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
@@ -0,0 +1,44 @@
+package turing.example.iotsenser.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * MSB-first bit reader over a byte buffer; reads directly from mapped memory without copying.
+ */
+final class BitInput {
+
+    private final ByteBuffer buffer;
+    private long pending;
+    private int pendingBits;
+
+    BitInput(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    boolean readBit() {
+        return readBits(1) != 0;
+    }
+
+    /**
+     * Reads {@code count} bits, most significant first.
+     *
+     * @param count Number of bits, 0 to 64.
+     */
+    long readBits(int count) {
+        if (count > 32) {
+            long high = readBits(count - 32);
+            return (high << 32) | readBits(32);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        while (pendingBits < count) {
+            pending = (pending << 8) | (buffer.get() & 0xFF);
+            pendingBits += 8;
+        }
+        pendingBits -= count;
+        long value = (pending >>> pendingBits) & ((1L << count) - 1);
+        pending &= (1L << pendingBits) - 1;
+        return value;
+    }
+}
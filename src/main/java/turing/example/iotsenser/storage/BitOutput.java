@@ -0,0 +1,70 @@
+package turing.example.iotsenser.storage;
+
+import java.util.Arrays;
+
+/**
+ * Growable MSB-first bit writer.
+ */
+final class BitOutput {
+
+    private byte[] bytes;
+    private int size;
+    private long pending;
+    private int pendingBits;
+
+    BitOutput(int initialCapacity) {
+        bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    void writeBit(boolean bit) {
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * Writes the low {@code count} bits of a value, most significant first.
+     *
+     * @param value Bits to write.
+     * @param count Number of bits, 0 to 64.
+     */
+    void writeBits(long value, int count) {
+        if (count > 32) {
+            writeBits(value >>> 32, count - 32);
+            count = 32;
+        }
+        if (count == 0) {
+            return;
+        }
+        pending = (pending << count) | (value & ((1L << count) - 1));
+        pendingBits += count;
+        while (pendingBits >= 8) {
+            pendingBits -= 8;
+            put((byte) (pending >>> pendingBits));
+        }
+        pending &= (1L << pendingBits) - 1;
+    }
+
+    /**
+     * Returns the number of bytes the written bits occupy, including a final partial byte.
+     */
+    int byteLength() {
+        return size + (pendingBits > 0 ? 1 : 0);
+    }
+
+    /**
+     * Copies the written bits into a new array, zero-padding the final byte.
+     */
+    byte[] toByteArray() {
+        byte[] copy = Arrays.copyOf(bytes, byteLength());
+        if (pendingBits > 0) {
+            copy[size] = (byte) (pending << (8 - pendingBits));
+        }
+        return copy;
+    }
+
+    private void put(byte value) {
+        if (size == bytes.length) {
+            bytes = Arrays.copyOf(bytes, size << 1);
+        }
+        bytes[size++] = value;
+    }
+}
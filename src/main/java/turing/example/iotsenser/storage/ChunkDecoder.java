@@ -0,0 +1,110 @@
+package turing.example.iotsenser.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Iterates over the points of a chunk written by {@link ChunkEncoder}.
+ */
+final class ChunkDecoder {
+
+    private final BitInput in;
+    private final int count;
+    private final XorState temperatureState = new XorState();
+    private final XorState humidityState = new XorState();
+    private int position;
+    private long timestamp;
+    private long delta;
+    private double temperature;
+    private double humidity;
+
+    /**
+     * Creates a decoder.
+     *
+     * @param payload Compressed payload, positioned at its start; read without copying.
+     * @param count   Number of points in the chunk.
+     */
+    ChunkDecoder(ByteBuffer payload, int count) {
+        this.in = new BitInput(payload);
+        this.count = count;
+    }
+
+    /**
+     * Advances to the next point.
+     *
+     * @return {@code false} once every point has been read.
+     */
+    boolean next() {
+        if (position == count) {
+            return false;
+        }
+        if (position == 0) {
+            timestamp = in.readBits(64);
+            temperatureState.previous = in.readBits(64);
+            humidityState.previous = in.readBits(64);
+        } else {
+            delta += readDeltaOfDelta();
+            timestamp += delta;
+            temperatureState.read(in);
+            humidityState.read(in);
+        }
+        temperature = Double.longBitsToDouble(temperatureState.previous);
+        humidity = Double.longBitsToDouble(humidityState.previous);
+        position++;
+        return true;
+    }
+
+    long timestamp() {
+        return timestamp;
+    }
+
+    double temperature() {
+        return temperature;
+    }
+
+    double humidity() {
+        return humidity;
+    }
+
+    private long readDeltaOfDelta() {
+        if (!in.readBit()) {
+            return 0;
+        }
+        if (!in.readBit()) {
+            return signed(in.readBits(7), 7);
+        }
+        if (!in.readBit()) {
+            return signed(in.readBits(9), 9);
+        }
+        if (!in.readBit()) {
+            return signed(in.readBits(12), 12);
+        }
+        return in.readBits(64);
+    }
+
+    private static long signed(long value, int bits) {
+        int shift = 64 - bits;
+        return (value << shift) >> shift;
+    }
+
+    /**
+     * XOR decompression state for one value column.
+     */
+    private static final class XorState {
+
+        private long previous;
+        private int leading;
+        private int trailing;
+
+        void read(BitInput in) {
+            if (!in.readBit()) {
+                return;
+            }
+            if (in.readBit()) {
+                leading = (int) in.readBits(5);
+                int significant = (int) in.readBits(6) + 1;
+                trailing = 64 - leading - significant;
+            }
+            previous ^= in.readBits(64 - leading - trailing) << trailing;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package turing.example.iotsenser.storage;
+
+/**
+ * Compresses one chunk of a device's readings in the Gorilla style.
+ *
+ * <p>The first point is stored raw. Timestamps (epoch millis) are then stored as the
+ * delta-of-delta against the previous interval, so evenly spaced readings cost one bit:</p>
+ * <pre>
+ * '0'                      delta-of-delta is 0
+ * '10'   +  7 bits         [-64, 63]
+ * '110'  +  9 bits         [-256, 255]
+ * '1110' + 12 bits         [-2048, 2047]
+ * '1111' + 64 bits         anything else
+ * </pre>
+ * <p>Temperature and humidity are stored as the XOR with the previous value: {@code '0'} when equal,
+ * {@code '10'} + meaningful bits when they fit the previous leading/trailing-zero window, otherwise
+ * {@code '11'} + 5 bits of leading zeros + 6 bits of (meaningful length - 1) + the meaningful bits.</p>
+ *
+ * <p>Timestamps must be non-decreasing within a chunk; callers seal the chunk before an older one.</p>
+ */
+final class ChunkEncoder {
+
+    private final BitOutput out;
+    private final XorState temperature = new XorState();
+    private final XorState humidity = new XorState();
+    private int count;
+    private long firstTimestamp;
+    private long lastTimestamp;
+    private long lastDelta;
+    private double temperatureMin = Double.POSITIVE_INFINITY;
+    private double temperatureMax = Double.NEGATIVE_INFINITY;
+    private double temperatureSum;
+    private double humidityMin = Double.POSITIVE_INFINITY;
+    private double humidityMax = Double.NEGATIVE_INFINITY;
+    private double humiditySum;
+
+    ChunkEncoder(int expectedPoints) {
+        out = new BitOutput(expectedPoints * 4);
+    }
+
+    /**
+     * Appends a point.
+     *
+     * @param timestamp   Epoch millis, not earlier than the previous point's.
+     * @param temperature Temperature reading.
+     * @param humidity    Humidity reading.
+     */
+    void add(long timestamp, double temperature, double humidity) {
+        if (count == 0) {
+            firstTimestamp = timestamp;
+            out.writeBits(timestamp, 64);
+            out.writeBits(Double.doubleToRawLongBits(temperature), 64);
+            out.writeBits(Double.doubleToRawLongBits(humidity), 64);
+            this.temperature.previous = Double.doubleToRawLongBits(temperature);
+            this.humidity.previous = Double.doubleToRawLongBits(humidity);
+        } else {
+            long delta = timestamp - lastTimestamp;
+            writeDeltaOfDelta(delta - lastDelta);
+            lastDelta = delta;
+            this.temperature.write(out, Double.doubleToRawLongBits(temperature));
+            this.humidity.write(out, Double.doubleToRawLongBits(humidity));
+        }
+        lastTimestamp = timestamp;
+        temperatureMin = Math.min(temperatureMin, temperature);
+        temperatureMax = Math.max(temperatureMax, temperature);
+        temperatureSum += temperature;
+        humidityMin = Math.min(humidityMin, humidity);
+        humidityMax = Math.max(humidityMax, humidity);
+        humiditySum += humidity;
+        count++;
+    }
+
+    private void writeDeltaOfDelta(long dod) {
+        if (dod == 0) {
+            out.writeBit(false);
+        } else if (dod >= -64 && dod <= 63) {
+            out.writeBits(0b10, 2);
+            out.writeBits(dod, 7);
+        } else if (dod >= -256 && dod <= 255) {
+            out.writeBits(0b110, 3);
+            out.writeBits(dod, 9);
+        } else if (dod >= -2048 && dod <= 2047) {
+            out.writeBits(0b1110, 4);
+            out.writeBits(dod, 12);
+        } else {
+            out.writeBits(0b1111, 4);
+            out.writeBits(dod, 64);
+        }
+    }
+
+    int count() {
+        return count;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    long firstTimestamp() {
+        return firstTimestamp;
+    }
+
+    long lastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /**
+     * Returns the compressed payload written so far.
+     */
+    byte[] payload() {
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns the chunk's summary statistics, in the order stored in segment records:
+     * temperature min, max, sum, then humidity min, max, sum.
+     */
+    double[] stats() {
+        return new double[]{temperatureMin, temperatureMax, temperatureSum, humidityMin, humidityMax, humiditySum};
+    }
+
+    /**
+     * XOR compression state for one value column.
+     */
+    private static final class XorState {
+
+        private long previous;
+        private int leading = -1;
+        private int trailing;
+
+        void write(BitOutput out, long bits) {
+            long xor = bits ^ previous;
+            previous = bits;
+            if (xor == 0) {
+                out.writeBit(false);
+                return;
+            }
+            out.writeBit(true);
+            int newLeading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int newTrailing = Long.numberOfTrailingZeros(xor);
+            if (leading >= 0 && newLeading >= leading && newTrailing >= trailing) {
+                out.writeBit(false);
+                out.writeBits(xor >>> trailing, 64 - leading - trailing);
+                return;
+            }
+            int significant = 64 - newLeading - newTrailing;
+            out.writeBit(true);
+            out.writeBits(newLeading, 5);
+            out.writeBits(significant - 1, 6);
+            out.writeBits(xor >>> newTrailing, significant);
+            leading = newLeading;
+            trailing = newTrailing;
+        }
+    }
+}
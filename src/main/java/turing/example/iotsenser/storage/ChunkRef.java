@@ -0,0 +1,26 @@
+package turing.example.iotsenser.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Location and summary of a sealed chunk inside a segment.
+ *
+ * @param deviceId      Device the chunk belongs to.
+ * @param minTimestamp  Timestamp of the first point (epoch millis, UTC).
+ * @param maxTimestamp  Timestamp of the last point.
+ * @param count         Number of points.
+ * @param stats         Temperature min/max/sum and humidity min/max/sum.
+ * @param segment       Segment holding the payload.
+ * @param payloadOffset Offset of the compressed payload in the segment.
+ * @param payloadLength Length of the compressed payload.
+ */
+record ChunkRef(String deviceId, long minTimestamp, long maxTimestamp, int count, double[] stats,
+                SegmentFile segment, int payloadOffset, int payloadLength) {
+
+    /**
+     * Returns a decoder reading the payload straight from the mapped segment.
+     */
+    ChunkDecoder decoder() {
+        return new ChunkDecoder(segment.slice(payloadOffset, payloadLength), count);
+    }
+}
@@ -0,0 +1,441 @@
+package turing.example.iotsenser.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import turing.example.iotsenser.dto.SensorReadingView;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.repository.SensorDataRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Embedded columnar storage engine for raw readings.
+ *
+ * <p>Each device's readings are accumulated in an open chunk compressed with {@link ChunkEncoder}
+ * (delta-of-delta timestamps, XOR-compressed doubles). A chunk is sealed once it holds
+ * {@code chunkPoints} points, when an out-of-order reading arrives, or when it has been open
+ * longer than {@code sealInterval}; sealed chunks are appended to memory-mapped segment files.
+ * Range scans decode chunks directly from the mapping, skipping chunks whose time span does not
+ * overlap the query.</p>
+ *
+ * <p>On startup the in-memory chunk index is rebuilt by scanning the segments. Points still in an
+ * open chunk live only in memory until sealed, so the store only vouches for readings timestamped
+ * at or after its coverage start: the time it was first opened, carried over a clean shutdown and
+ * reset to the current time after a crash. Earlier parts of a range, including readings that were
+ * stored before the engine was enabled, are read from {@code sensor_data}. The store only sees readings
+ * written by this instance. Record IDs are not stored, so views have a null ID.</p>
+ *
+ * <p>The store keeps one series per device it is handed readings of. Readings reach it only after their
+ * device has been registered, so the number of series is bounded by {@code iotsenser.devices.max}.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "iotsenser.storage.engine", havingValue = "columnar")
+public class ColumnarTimeSeriesStore implements TimeSeriesStore, AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final String COVERAGE_FILE = "covered-from";
+
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+    private final List<SegmentFile> segments = new ArrayList<>();
+    private final Object segmentLock = new Object();
+    private final Path directory;
+    private final int segmentSize;
+    private final int chunkPoints;
+    private final Duration sealInterval;
+    private final SensorDataRepository sensorDataRepository;
+    private final Clock clock;
+    private final Counter appendedPoints;
+    private final Counter sealedChunks;
+
+    private SegmentFile activeSegment;
+    private int nextSegmentNumber;
+    private long coveredFrom;
+    private ScheduledExecutorService sealer;
+
+    /**
+     * Opens the store, rebuilding the chunk index from existing segments.
+     *
+     * @param directory            Directory holding the segment files; created if missing.
+     * @param segmentSize          Size of each memory-mapped segment file.
+     * @param chunkPoints          Number of points after which a chunk is sealed.
+     * @param sealInterval         Maximum time a chunk stays open before it is sealed to disk.
+     * @param sensorDataRepository Repository serving the parts of a range the store does not cover.
+     * @param meterRegistry        Registry for point, chunk and disk usage metrics.
+     */
+    @Autowired
+    public ColumnarTimeSeriesStore(@Value("${iotsenser.storage.columnar.directory:./data/columnar}") Path directory,
+                                   @Value("${iotsenser.storage.columnar.segment-size:64MB}") DataSize segmentSize,
+                                   @Value("${iotsenser.storage.columnar.chunk-points:1024}") int chunkPoints,
+                                   @Value("${iotsenser.storage.columnar.seal-interval:1m}") Duration sealInterval,
+                                   SensorDataRepository sensorDataRepository, MeterRegistry meterRegistry) {
+        this(directory, segmentSize, chunkPoints, sealInterval, sensorDataRepository, meterRegistry,
+                Clock.systemDefaultZone());
+    }
+
+    /**
+     * Opens the store with the clock that sets the coverage start of a fresh store.
+     *
+     * @param clock Clock read when no coverage start survives from a clean shutdown.
+     * @see #ColumnarTimeSeriesStore(Path, DataSize, int, Duration, SensorDataRepository, MeterRegistry)
+     */
+    public ColumnarTimeSeriesStore(Path directory, DataSize segmentSize, int chunkPoints, Duration sealInterval,
+                                   SensorDataRepository sensorDataRepository, MeterRegistry meterRegistry,
+                                   Clock clock) {
+        if (segmentSize.toBytes() < 1024 * 1024 || segmentSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be between 1MB and 2GB");
+        }
+        this.directory = directory;
+        this.segmentSize = (int) segmentSize.toBytes();
+        this.chunkPoints = chunkPoints;
+        this.sealInterval = sealInterval;
+        this.sensorDataRepository = sensorDataRepository;
+        this.clock = clock;
+        recover();
+
+        this.appendedPoints = Counter.builder("iotsenser.storage.points")
+                .description("Readings appended to the columnar store")
+                .register(meterRegistry);
+        this.sealedChunks = Counter.builder("iotsenser.storage.chunks")
+                .description("Chunks sealed to segment files")
+                .register(meterRegistry);
+        Gauge.builder("iotsenser.storage.bytes", this, ColumnarTimeSeriesStore::bytesOnDisk)
+                .description("Bytes occupied by sealed chunks")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the periodic sealing of chunks that have been open longer than the seal interval.
+     */
+    @PostConstruct
+    public void start() {
+        sealer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "columnar-sealer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = Math.max(1, sealInterval.toMillis() / 2);
+        sealer.scheduleWithFixedDelay(this::sealIdleChunks, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Seals every open chunk and flushes the segments to disk.
+     */
+    @PreDestroy
+    @Override
+    public void close() {
+        if (sealer != null) {
+            sealer.shutdownNow();
+        }
+        sealAll();
+        synchronized (segmentLock) {
+            for (SegmentFile segment : segments) {
+                segment.close();
+            }
+            segments.clear();
+            activeSegment = null;
+        }
+        writeCoverage();
+    }
+
+    @Override
+    public void append(List<SensorData> readings) {
+        for (SensorData reading : readings) {
+            if (reading.getTimestamp() == null) {
+                continue;
+            }
+            long timestamp = toEpochMillis(reading.getTimestamp());
+            Series deviceSeries = series.computeIfAbsent(reading.getDeviceId(), Series::new);
+            synchronized (deviceSeries) {
+                if (deviceSeries.open != null && timestamp < deviceSeries.open.lastTimestamp()) {
+                    seal(deviceSeries);
+                }
+                if (deviceSeries.open == null) {
+                    deviceSeries.open = new ChunkEncoder(chunkPoints);
+                    deviceSeries.openedAt = System.nanoTime();
+                }
+                deviceSeries.open.add(timestamp, reading.getTemperature(), reading.getHumidity());
+                if (deviceSeries.open.count() >= chunkPoints) {
+                    seal(deviceSeries);
+                }
+            }
+        }
+        appendedPoints.increment(readings.size());
+    }
+
+    /**
+     * {@inheritDoc}
+     * The part of the range before the coverage start is read from the repository, after the newer
+     * readings found in the store.
+     */
+    @Override
+    public List<SensorReadingView> findReadingsInRange(String deviceId, LocalDateTime from, LocalDateTime to,
+                                                       int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        long fromMillis = toEpochMillis(from);
+        long toMillis = toEpochMillis(to);
+        if (toMillis <= coveredFrom) {
+            return sensorDataRepository.findReadingsInRange(deviceId, from, to, PageRequest.of(0, limit));
+        }
+        if (fromMillis >= coveredFrom) {
+            return scan(deviceId, fromMillis, toMillis, limit);
+        }
+        List<SensorReadingView> covered = scan(deviceId, coveredFrom, toMillis, limit);
+        if (covered.size() == limit) {
+            return covered;
+        }
+        List<SensorReadingView> readings = new ArrayList<>(covered);
+        readings.addAll(sensorDataRepository.findReadingsInRange(deviceId, from, fromEpochMillis(coveredFrom),
+                PageRequest.of(0, limit - covered.size())));
+        return readings;
+    }
+
+    private List<SensorReadingView> scan(String deviceId, long fromMillis, long toMillis, int limit) {
+        Series deviceSeries = series.get(deviceId);
+        if (deviceSeries == null) {
+            return List.of();
+        }
+        List<ChunkRef> sealed;
+        ChunkDecoder open = null;
+        synchronized (deviceSeries) {
+            sealed = new ArrayList<>(deviceSeries.chunks);
+            if (deviceSeries.open != null) {
+                open = openDecoder(deviceSeries.open, fromMillis, toMillis);
+            }
+        }
+
+        // Min-heap of the newest points seen so far; chunks are visited newest first, so older
+        // chunks are skipped as soon as they cannot displace anything already kept.
+        PriorityQueue<Point> newest = new PriorityQueue<>(Math.min(limit, 1024), Comparator.comparingLong(Point::timestamp));
+        if (open != null) {
+            keepNewest(open, fromMillis, toMillis, newest, limit);
+        }
+        for (int i = sealed.size() - 1; i >= 0; i--) {
+            ChunkRef chunk = sealed.get(i);
+            if (chunk.maxTimestamp() < fromMillis || chunk.minTimestamp() >= toMillis) {
+                continue;
+            }
+            if (newest.size() == limit && chunk.maxTimestamp() <= newest.peek().timestamp()) {
+                continue;
+            }
+            keepNewest(chunk.decoder(), fromMillis, toMillis, newest, limit);
+        }
+
+        SensorReadingView[] readings = new SensorReadingView[newest.size()];
+        for (int i = readings.length - 1; i >= 0; i--) {
+            Point point = newest.poll();
+            readings[i] = new SensorReadingView(null, deviceId, point.temperature(), point.humidity(),
+                    fromEpochMillis(point.timestamp()));
+        }
+        return Arrays.asList(readings);
+    }
+
+    /**
+     * Returns the number of bytes occupied by sealed chunks across all segments.
+     */
+    public long bytesOnDisk() {
+        synchronized (segmentLock) {
+            long total = 0;
+            for (SegmentFile segment : segments) {
+                total += segment.usedBytes();
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Seals every open chunk, making all appended points durable in the segments.
+     */
+    public void sealAll() {
+        for (Series deviceSeries : series.values()) {
+            synchronized (deviceSeries) {
+                if (deviceSeries.open != null) {
+                    seal(deviceSeries);
+                }
+            }
+        }
+        synchronized (segmentLock) {
+            if (activeSegment != null) {
+                activeSegment.force();
+            }
+        }
+    }
+
+    private void sealIdleChunks() {
+        long cutoff = System.nanoTime() - sealInterval.toNanos();
+        try {
+            for (Series deviceSeries : series.values()) {
+                synchronized (deviceSeries) {
+                    if (deviceSeries.open != null && deviceSeries.openedAt - cutoff <= 0) {
+                        seal(deviceSeries);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to seal idle chunks", e);
+        }
+    }
+
+    private static void keepNewest(ChunkDecoder chunk, long fromMillis, long toMillis, PriorityQueue<Point> newest,
+                                   int limit) {
+        while (chunk.next()) {
+            long timestamp = chunk.timestamp();
+            if (timestamp < fromMillis || timestamp >= toMillis) {
+                continue;
+            }
+            if (newest.size() < limit) {
+                newest.add(new Point(timestamp, chunk.temperature(), chunk.humidity()));
+            } else if (timestamp > newest.peek().timestamp()) {
+                newest.poll();
+                newest.add(new Point(timestamp, chunk.temperature(), chunk.humidity()));
+            }
+        }
+    }
+
+    private static ChunkDecoder openDecoder(ChunkEncoder open, long fromMillis, long toMillis) {
+        if (open.lastTimestamp() < fromMillis || open.firstTimestamp() >= toMillis) {
+            return null;
+        }
+        return new ChunkDecoder(ByteBuffer.wrap(open.payload()), open.count());
+    }
+
+    private void seal(Series deviceSeries) {
+        ChunkEncoder chunk = deviceSeries.open;
+        deviceSeries.open = null;
+        synchronized (segmentLock) {
+            ChunkRef ref = activeSegment.append(deviceSeries.deviceId, chunk);
+            if (ref == null) {
+                activeSegment.force();
+                activeSegment = openSegment(nextSegmentNumber++);
+                ref = activeSegment.append(deviceSeries.deviceId, chunk);
+                if (ref == null) {
+                    throw new IllegalStateException("Chunk does not fit in an empty segment of " + segmentSize + " bytes");
+                }
+            }
+            deviceSeries.chunks.add(ref);
+        }
+        sealedChunks.increment();
+    }
+
+    private void recover() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                }).sorted().toList();
+            }
+            synchronized (segmentLock) {
+                for (Path file : files) {
+                    SegmentFile segment = SegmentFile.open(file, segmentSize);
+                    segments.add(segment);
+                    segment.recover(ref -> series.computeIfAbsent(ref.deviceId(), Series::new).chunks.add(ref));
+                }
+                nextSegmentNumber = files.isEmpty() ? 1 : segmentNumber(files.get(files.size() - 1)) + 1;
+                activeSegment = segments.isEmpty() ? openSegment(nextSegmentNumber++) : segments.get(segments.size() - 1);
+            }
+            coveredFrom = readCoverage();
+            log.info("Opened columnar store in {} with {} segments and {} devices", directory, segments.size(),
+                    series.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open columnar store in " + directory, e);
+        }
+    }
+
+    /**
+     * Reads the coverage start left by a clean shutdown and removes it, so that a crash, which loses the
+     * open chunks, restarts coverage from now.
+     */
+    private long readCoverage() throws IOException {
+        Path file = directory.resolve(COVERAGE_FILE);
+        if (!Files.exists(file)) {
+            return toEpochMillis(LocalDateTime.now(clock));
+        }
+        long millis = Long.parseLong(Files.readString(file, StandardCharsets.US_ASCII).trim());
+        Files.delete(file);
+        return millis;
+    }
+
+    private void writeCoverage() {
+        try {
+            Files.writeString(directory.resolve(COVERAGE_FILE), Long.toString(coveredFrom), StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            log.error("Failed to record the coverage of the columnar store in {}", directory, e);
+        }
+    }
+
+    private SegmentFile openSegment(int number) {
+        Path path = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        SegmentFile segment = SegmentFile.open(path, segmentSize);
+        segments.add(segment);
+        return segment;
+    }
+
+    private static int segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromEpochMillis(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    /**
+     * Chunks of one device, in the order they were sealed, plus the chunk still being filled.
+     */
+    private static final class Series {
+
+        private final String deviceId;
+        private final List<ChunkRef> chunks = new ArrayList<>();
+        private ChunkEncoder open;
+        private long openedAt;
+
+        Series(String deviceId) {
+            this.deviceId = deviceId;
+        }
+    }
+
+    private record Point(long timestamp, double temperature, double humidity) {
+    }
+}
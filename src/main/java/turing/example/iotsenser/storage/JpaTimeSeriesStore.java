@@ -0,0 +1,44 @@
+package turing.example.iotsenser.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import turing.example.iotsenser.dto.SensorReadingView;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.repository.SensorDataRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Default storage engine: reads come straight from the {@code sensor_data} table.
+ * Appending is a no-op because the rows are already written by the service.
+ */
+@Component
+@ConditionalOnProperty(name = "iotsenser.storage.engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaTimeSeriesStore implements TimeSeriesStore {
+
+    private final SensorDataRepository sensorDataRepository;
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param sensorDataRepository Repository for sensor data.
+     */
+    @Autowired
+    public JpaTimeSeriesStore(SensorDataRepository sensorDataRepository) {
+        this.sensorDataRepository = sensorDataRepository;
+    }
+
+    @Override
+    public void append(List<SensorData> readings) {
+        // Rows are committed by SensorDataService before they reach the store
+    }
+
+    @Override
+    public List<SensorReadingView> findReadingsInRange(String deviceId, LocalDateTime from, LocalDateTime to,
+                                                       int limit) {
+        return sensorDataRepository.findReadingsInRange(deviceId, from, to, PageRequest.of(0, limit));
+    }
+}
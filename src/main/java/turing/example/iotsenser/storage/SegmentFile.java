@@ -0,0 +1,169 @@
+package turing.example.iotsenser.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Fixed-size, memory-mapped file holding a sequence of sealed chunks.
+ *
+ * <pre>
+ * length        : 4 bytes (size of the rest of the record; 0 marks the end of the data)
+ * device ID     : 2-byte length + UTF-8 bytes
+ * min timestamp : 8 bytes (epoch millis, UTC)
+ * max timestamp : 8 bytes
+ * count         : 4 bytes
+ * stats         : 6 doubles (temperature min/max/sum, humidity min/max/sum)
+ * payload       : 4-byte length + compressed points
+ * </pre>
+ *
+ * The length prefix is written after the rest of the record, so a record cut short by a crash
+ * reads as the end of the data. Appends are serialized by the caller; reads use independent
+ * views of the mapping and may run concurrently with appends.
+ */
+final class SegmentFile implements AutoCloseable {
+
+    private static final int FIXED_RECORD_SIZE = Short.BYTES + 2 * Long.BYTES + Integer.BYTES
+            + 6 * Double.BYTES + Integer.BYTES;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int position;
+
+    private SegmentFile(Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Opens or creates a segment, mapping {@code size} bytes of it.
+     *
+     * @param path Segment file.
+     * @param size Mapped size; an existing file keeps its records.
+     */
+    static SegmentFile open(Path path, int size) {
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            int mapped = (int) Math.max(size, channel.size());
+            return new SegmentFile(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, mapped));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open segment " + path, e);
+        }
+    }
+
+    /**
+     * Reads every complete record from the start of the segment and positions appends after the last one.
+     *
+     * @param sink Receives each record.
+     */
+    void recover(Consumer<ChunkRef> sink) {
+        int offset = 0;
+        while (offset + Integer.BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length < FIXED_RECORD_SIZE || length > buffer.capacity() - offset - Integer.BYTES) {
+                break;
+            }
+            int cursor = offset + Integer.BYTES;
+            int deviceIdLength = Short.toUnsignedInt(buffer.getShort(cursor));
+            cursor += Short.BYTES;
+            byte[] deviceId = new byte[deviceIdLength];
+            buffer.get(cursor, deviceId);
+            cursor += deviceIdLength;
+            long minTimestamp = buffer.getLong(cursor);
+            long maxTimestamp = buffer.getLong(cursor + Long.BYTES);
+            int count = buffer.getInt(cursor + 2 * Long.BYTES);
+            cursor += 2 * Long.BYTES + Integer.BYTES;
+            double[] stats = new double[6];
+            for (int i = 0; i < stats.length; i++) {
+                stats[i] = buffer.getDouble(cursor);
+                cursor += Double.BYTES;
+            }
+            int payloadLength = buffer.getInt(cursor);
+            cursor += Integer.BYTES;
+            sink.accept(new ChunkRef(new String(deviceId, StandardCharsets.UTF_8), minTimestamp, maxTimestamp,
+                    count, stats, this, cursor, payloadLength));
+            offset = cursor + payloadLength;
+        }
+        position = offset;
+    }
+
+    /**
+     * Appends a sealed chunk.
+     *
+     * @return A reference to the stored chunk, or null if the segment has no room left for it.
+     */
+    ChunkRef append(String deviceId, ChunkEncoder chunk) {
+        byte[] deviceIdBytes = deviceId.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = chunk.payload();
+        double[] stats = chunk.stats();
+        int length = FIXED_RECORD_SIZE + deviceIdBytes.length + payload.length;
+        if (length > buffer.capacity() - position - Integer.BYTES) {
+            return null;
+        }
+        int cursor = position + Integer.BYTES;
+        buffer.putShort(cursor, (short) deviceIdBytes.length);
+        cursor += Short.BYTES;
+        buffer.put(cursor, deviceIdBytes);
+        cursor += deviceIdBytes.length;
+        buffer.putLong(cursor, chunk.firstTimestamp());
+        buffer.putLong(cursor + Long.BYTES, chunk.lastTimestamp());
+        buffer.putInt(cursor + 2 * Long.BYTES, chunk.count());
+        cursor += 2 * Long.BYTES + Integer.BYTES;
+        for (double stat : stats) {
+            buffer.putDouble(cursor, stat);
+            cursor += Double.BYTES;
+        }
+        buffer.putInt(cursor, payload.length);
+        cursor += Integer.BYTES;
+        buffer.put(cursor, payload);
+        buffer.putInt(position, length);
+        ChunkRef ref = new ChunkRef(deviceId, chunk.firstTimestamp(), chunk.lastTimestamp(), chunk.count(), stats,
+                this, cursor, payload.length);
+        position = cursor + payload.length;
+        return ref;
+    }
+
+    /**
+     * Returns a read-only view of part of the mapping; no bytes are copied.
+     */
+    ByteBuffer slice(int offset, int length) {
+        return buffer.slice(offset, length).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the number of bytes occupied by records.
+     */
+    int usedBytes() {
+        return position;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * Writes modified pages of the mapping to the storage device.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() {
+        force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close segment " + path, e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package turing.example.iotsenser.storage;
+
+import turing.example.iotsenser.dto.SensorReadingView;
+import turing.example.iotsenser.model.SensorData;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Storage engine for per-device, time-ordered sensor readings.
+ * {@link turing.example.iotsenser.service.SensorDataService} hands every committed batch to the
+ * active engine and serves device time-range queries from it. The engine is selected with
+ * {@code iotsenser.storage.engine} ({@code jpa} or {@code columnar}).
+ */
+public interface TimeSeriesStore {
+
+    /**
+     * Adds readings that have just been committed.
+     *
+     * @param readings Committed readings, in ingest order.
+     */
+    void append(List<SensorData> readings);
+
+    /**
+     * Finds a device's readings within a time range, newest first.
+     *
+     * @param deviceId Unique identifier of the IoT device.
+     * @param from     Start of the range (inclusive).
+     * @param to       End of the range (exclusive).
+     * @param limit    Maximum number of readings to return.
+     * @return Up to {@code limit} readings in the range.
+     */
+    List<SensorReadingView> findReadingsInRange(String deviceId, LocalDateTime from, LocalDateTime to, int limit);
+}
@@ -0,0 +1,30 @@
+package turing.example.iotsenser.stream;
+
+import java.io.IOException;
+
+/**
+ * Connection a live subscription's events are written to.
+ */
+interface EventSink {
+
+    /**
+     * Writes one named event.
+     *
+     * @param name Event name.
+     * @param data Event payload, serialized as JSON.
+     * @throws IOException if the client has gone away.
+     */
+    void send(String name, Object data) throws IOException;
+
+    /**
+     * Writes a comment that keeps idle connections open through proxies.
+     *
+     * @throws IOException if the client has gone away.
+     */
+    void heartbeat() throws IOException;
+
+    /**
+     * Ends the connection.
+     */
+    void close();
+}
@@ -0,0 +1,300 @@
+package turing.example.iotsenser.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import turing.example.iotsenser.model.Anomaly;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.pipeline.PipelineListener;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans processed readings and anomalies out to clients subscribed to their devices over Server-Sent Events.
+ *
+ * <p>Connections are held by the servlet container's asynchronous support, not by threads. The pipeline
+ * only queues an update on each interested subscription, which never blocks; a small pool of sender threads
+ * flushes a subscription {@code iotsenser.stream.coalesce-interval} after its first pending update, sending
+ * the latest reading of every changed device as one {@code readings} event and new anomalies as one
+ * {@code anomalies} event. A slow client therefore costs at most one pending reading per device and a
+ * bounded anomaly backlog, never unbounded memory, and clients whose connection fails are dropped.</p>
+ */
+@Slf4j
+@Component
+public class LiveStreamHub implements PipelineListener {
+
+    private static final LiveSubscription[] NONE = new LiveSubscription[0];
+
+    private final Map<String, LiveSubscription[]> subscriptionsByDevice = new ConcurrentHashMap<>();
+    private final Map<Long, LiveSubscription> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter readingsSent;
+    private final Counter anomaliesSent;
+    private final Counter conflatedReadings;
+    private final Counter droppedAnomalies;
+    private final Counter rejectedSubscriptions;
+
+    @Value("${iotsenser.stream.max-subscribers:10000}")
+    private int maxSubscribers = 10000;
+
+    @Value("${iotsenser.stream.max-devices-per-subscriber:1000}")
+    private int maxDevicesPerSubscriber = 1000;
+
+    @Value("${iotsenser.stream.max-pending-anomalies:256}")
+    private int maxPendingAnomalies = 256;
+
+    @Value("${iotsenser.stream.coalesce-interval:200ms}")
+    private Duration coalesceInterval = Duration.ofMillis(200);
+
+    @Value("${iotsenser.stream.heartbeat-interval:15s}")
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    @Value("${iotsenser.stream.timeout:30m}")
+    private Duration timeout = Duration.ofMinutes(30);
+
+    @Value("${iotsenser.stream.sender-threads:4}")
+    private int senderThreads = 4;
+
+    private ScheduledExecutorService senders;
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param meterRegistry Registry for subscriber, delivery, conflation and drop metrics.
+     */
+    @Autowired
+    public LiveStreamHub(MeterRegistry meterRegistry) {
+        Gauge.builder("iotsenser.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Clients subscribed to the live stream")
+                .register(meterRegistry);
+        this.readingsSent = Counter.builder("iotsenser.stream.sent")
+                .description("Live stream updates sent to clients")
+                .tag("type", "reading")
+                .register(meterRegistry);
+        this.anomaliesSent = Counter.builder("iotsenser.stream.sent")
+                .description("Live stream updates sent to clients")
+                .tag("type", "anomaly")
+                .register(meterRegistry);
+        this.conflatedReadings = Counter.builder("iotsenser.stream.conflated")
+                .description("Readings replaced by a newer reading of the same device before being sent")
+                .register(meterRegistry);
+        this.droppedAnomalies = Counter.builder("iotsenser.stream.dropped")
+                .description("Anomalies discarded because a client fell too far behind")
+                .register(meterRegistry);
+        this.rejectedSubscriptions = Counter.builder("iotsenser.stream.rejected")
+                .description("Subscriptions refused because the hub was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the sender threads and the heartbeat.
+     */
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(Math.max(1, senderThreads),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "live-stream-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.setRemoveOnCancelPolicy(true);
+        senders = executor;
+        long heartbeatMillis = heartbeatInterval.toMillis();
+        senders.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the sender threads and ends every open stream.
+     */
+    @PreDestroy
+    public void stop() {
+        if (senders != null) {
+            senders.shutdownNow();
+        }
+        for (LiveSubscription subscription : subscriptions.values()) {
+            unsubscribe(subscription);
+            subscription.sink().close();
+        }
+    }
+
+    /**
+     * Opens a live stream of a set of devices.
+     *
+     * @param deviceIds Devices to receive readings and anomalies of.
+     * @return The stream, or null if the hub already holds its maximum number of subscribers.
+     * @throws IllegalArgumentException if no devices or more than the per-subscriber maximum are given.
+     */
+    public SseEmitter subscribe(Collection<String> deviceIds) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        LiveSubscription subscription = subscribe(deviceIds, new SseSink(emitter));
+        if (subscription == null) {
+            return null;
+        }
+        emitter.onCompletion(() -> unsubscribe(subscription));
+        emitter.onTimeout(() -> unsubscribe(subscription));
+        emitter.onError(e -> unsubscribe(subscription));
+        return emitter;
+    }
+
+    /**
+     * Registers a subscription writing to the given sink.
+     *
+     * @return The subscription, or null if the hub is full.
+     */
+    LiveSubscription subscribe(Collection<String> deviceIds, EventSink sink) {
+        Set<String> devices = new LinkedHashSet<>(deviceIds);
+        devices.removeIf(deviceId -> deviceId == null || deviceId.isBlank());
+        if (devices.isEmpty() || devices.size() > maxDevicesPerSubscriber) {
+            throw new IllegalArgumentException("Subscribe to between 1 and " + maxDevicesPerSubscriber + " devices");
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            rejectedSubscriptions.increment();
+            return null;
+        }
+        LiveSubscription subscription = new LiveSubscription(nextId.incrementAndGet(), Set.copyOf(devices), sink,
+                maxPendingAnomalies);
+        subscriptions.put(subscription.id(), subscription);
+        for (String deviceId : devices) {
+            subscriptionsByDevice.merge(deviceId, new LiveSubscription[]{subscription}, (current, added) -> {
+                LiveSubscription[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = subscription;
+                return grown;
+            });
+        }
+        return subscription;
+    }
+
+    /**
+     * Removes a subscription; pending updates are discarded. Safe to call more than once.
+     */
+    void unsubscribe(LiveSubscription subscription) {
+        if (!subscription.close()) {
+            return;
+        }
+        subscriptions.remove(subscription.id());
+        subscriberCount.decrementAndGet();
+        for (String deviceId : subscription.deviceIds()) {
+            subscriptionsByDevice.computeIfPresent(deviceId, (key, current) -> {
+                LiveSubscription[] remaining = Arrays.stream(current)
+                        .filter(other -> other != subscription)
+                        .toArray(LiveSubscription[]::new);
+                return remaining.length == 0 ? null : remaining;
+            });
+        }
+    }
+
+    /**
+     * Returns the number of open subscriptions.
+     */
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Queues a processed reading, and its anomaly if any, on every subscription to its device.
+     * Runs on a pipeline lane thread and never blocks.
+     */
+    @Override
+    public void onProcessed(SensorData sensorData, Anomaly anomaly) {
+        LiveSubscription[] interested = subscriptionsByDevice.getOrDefault(sensorData.getDeviceId(), NONE);
+        for (LiveSubscription subscription : interested) {
+            if (subscription.offer(sensorData, anomaly)) {
+                senders.schedule(() -> flush(subscription), coalesceInterval.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Sends a subscription's pending updates, rescheduling itself if more arrived meanwhile.
+     */
+    void flush(LiveSubscription subscription) {
+        LiveSubscription.Pending pending = subscription.drain();
+        if (pending == null) {
+            return;
+        }
+        conflatedReadings.increment(pending.conflated());
+        droppedAnomalies.increment(pending.dropped());
+        try {
+            if (!pending.readings().isEmpty()) {
+                subscription.sink().send("readings", pending.readings());
+                readingsSent.increment(pending.readings().size());
+            }
+            if (!pending.anomalies().isEmpty()) {
+                subscription.sink().send("anomalies", pending.anomalies());
+                anomaliesSent.increment(pending.anomalies().size());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Dropping live stream subscriber {}: {}", subscription.id(), e.getMessage());
+            unsubscribe(subscription);
+            subscription.sink().close();
+            return;
+        }
+        if (subscription.sent()) {
+            senders.execute(() -> flush(subscription));
+        }
+    }
+
+    /**
+     * Writes a heartbeat to every subscription that has been idle for a heartbeat interval,
+     * which also detects clients that went away without closing the connection.
+     */
+    void heartbeat() {
+        long idleSince = System.nanoTime() - heartbeatInterval.toNanos();
+        for (LiveSubscription subscription : subscriptions.values()) {
+            if (subscription.lastSentNanos() - idleSince > 0) {
+                continue;
+            }
+            try {
+                subscription.sink().heartbeat();
+            } catch (IOException | RuntimeException e) {
+                unsubscribe(subscription);
+                subscription.sink().close();
+            }
+        }
+    }
+
+    /**
+     * Writes events to an {@link SseEmitter}.
+     */
+    private record SseSink(SseEmitter emitter) implements EventSink {
+
+        @Override
+        public void send(String name, Object data) throws IOException {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment("keep-alive"));
+        }
+
+        @Override
+        public void close() {
+            emitter.complete();
+        }
+    }
+}
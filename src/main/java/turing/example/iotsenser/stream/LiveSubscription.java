@@ -0,0 +1,144 @@
+package turing.example.iotsenser.stream;
+
+import turing.example.iotsenser.model.Anomaly;
+import turing.example.iotsenser.model.SensorData;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One client's subscription to the live stream, holding the updates not yet sent to it.
+ *
+ * <p>Pending readings are conflated per device: a newer reading replaces an unsent one, so a slow client
+ * holds at most one reading per subscribed device and always receives the latest values. Pending anomalies
+ * are kept in order up to a bound, beyond which the oldest are dropped. At most one flush per subscription
+ * is scheduled or running at a time, so events reach the client in order.</p>
+ */
+final class LiveSubscription {
+
+    private final long id;
+    private final Set<String> deviceIds;
+    private final EventSink sink;
+    private final int maxPendingAnomalies;
+
+    private Map<String, SensorData> readings = new LinkedHashMap<>();
+    private ArrayDeque<Anomaly> anomalies = new ArrayDeque<>();
+    private boolean scheduled;
+    private boolean closed;
+    private long conflated;
+    private long dropped;
+    private volatile long lastSentNanos = System.nanoTime();
+
+    LiveSubscription(long id, Set<String> deviceIds, EventSink sink, int maxPendingAnomalies) {
+        this.id = id;
+        this.deviceIds = deviceIds;
+        this.sink = sink;
+        this.maxPendingAnomalies = maxPendingAnomalies;
+    }
+
+    long id() {
+        return id;
+    }
+
+    Set<String> deviceIds() {
+        return deviceIds;
+    }
+
+    EventSink sink() {
+        return sink;
+    }
+
+    long lastSentNanos() {
+        return lastSentNanos;
+    }
+
+    /**
+     * Queues an update for the client.
+     *
+     * @param sensorData The processed reading.
+     * @param anomaly    The anomaly raised for it, or null.
+     * @return Whether the caller must schedule a flush.
+     */
+    synchronized boolean offer(SensorData sensorData, Anomaly anomaly) {
+        if (closed) {
+            return false;
+        }
+        if (readings.put(sensorData.getDeviceId(), sensorData) != null) {
+            conflated++;
+        }
+        if (anomaly != null) {
+            if (anomalies.size() >= maxPendingAnomalies) {
+                anomalies.pollFirst();
+                dropped++;
+            }
+            anomalies.addLast(anomaly);
+        }
+        if (scheduled) {
+            return false;
+        }
+        scheduled = true;
+        return true;
+    }
+
+    /**
+     * Takes the pending updates for sending; the subscription stays scheduled until {@link #sent()}.
+     *
+     * @return The pending updates, or null if the subscription is closed.
+     */
+    synchronized Pending drain() {
+        if (closed) {
+            return null;
+        }
+        Pending pending = new Pending(new ArrayList<>(readings.values()), new ArrayList<>(anomalies),
+                conflated, dropped);
+        readings = new LinkedHashMap<>();
+        anomalies = new ArrayDeque<>();
+        conflated = 0;
+        dropped = 0;
+        return pending;
+    }
+
+    /**
+     * Marks a flush as finished.
+     *
+     * @return Whether updates arrived during the flush and another one must be scheduled.
+     */
+    synchronized boolean sent() {
+        lastSentNanos = System.nanoTime();
+        if (!closed && (!readings.isEmpty() || !anomalies.isEmpty())) {
+            return true;
+        }
+        scheduled = false;
+        return false;
+    }
+
+    /**
+     * Stops accepting updates and discards pending ones.
+     *
+     * @return Whether this call closed the subscription.
+     */
+    synchronized boolean close() {
+        if (closed) {
+            return false;
+        }
+        closed = true;
+        readings = Map.of();
+        anomalies = new ArrayDeque<>();
+        return true;
+    }
+
+    /**
+     * Updates taken from a subscription by one flush.
+     *
+     * @param readings  Latest unsent reading of each device.
+     * @param anomalies Unsent anomalies, oldest first.
+     * @param conflated Readings replaced by a newer one before they were sent.
+     * @param dropped   Anomalies discarded because the client fell too far behind.
+     */
+    record Pending(List<SensorData> readings, List<Anomaly> anomalies, long conflated, long dropped) {
+    }
+}
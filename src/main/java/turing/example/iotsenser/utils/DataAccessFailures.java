@@ -0,0 +1,30 @@
+package turing.example.iotsenser.utils;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.TransactionException;
+
+/**
+ * Utility class for classifying failed database writes.
+ * Tells failures of the database itself, which retrying the same rows later can fix,
+ * from rows the database rejects, which no retry will get written.
+ */
+public class DataAccessFailures {
+
+    /**
+     * Checks whether a failure, or any of its causes, means the database is unavailable.
+     *
+     * @param failure The exception a write failed with.
+     * @return True if the database could not be reached or the failure is transient, false otherwise.
+     */
+    public static boolean isUnavailable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException || cause instanceof TransactionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,6 +1,7 @@
 package turing.example.iotsenser.utils;
 
 import turing.example.iotsenser.dto.SensorDataRequest;
+import turing.example.iotsenser.model.SensorData;
 
 /**
  * Utility class for validating sensor data before processing.
@@ -14,6 +15,11 @@ public class SensorDataValidator {
     private static final double MIN_HUMIDITY = 0.0;
     private static final double MAX_HUMIDITY = 100.0;
 
+    /**
+     * Longest device ID accepted, the length of the {@code device_id} columns.
+     */
+    public static final int MAX_DEVICE_ID_LENGTH = 255;
+
     /**
      * Validates the sensor data request for acceptable value ranges.
      *
@@ -24,6 +30,53 @@ public class SensorDataValidator {
         return isTemperatureValid(request.getTemperature()) && isHumidityValid(request.getHumidity());
     }
 
+    /**
+     * Validates a sensor data entity received through a bulk ingest path.
+     *
+     * @param sensorData The sensor data entity to validate.
+     * @return True if the data is valid, false otherwise.
+     */
+    public static boolean isValid(SensorData sensorData) {
+        return rejectionReason(sensorData) == null;
+    }
+
+    /**
+     * Explains why a sensor data entity would be rejected.
+     *
+     * @param sensorData The sensor data entity to validate.
+     * @return A human-readable reason, or null if the data is valid.
+     */
+    public static String rejectionReason(SensorData sensorData) {
+        if (sensorData == null) {
+            return "Reading is empty";
+        }
+        return rejectionReason(sensorData.getDeviceId(), sensorData.getTemperature(), sensorData.getHumidity());
+    }
+
+    /**
+     * Explains why a reading given as primitive fields would be rejected.
+     *
+     * @param deviceId    Unique identifier of the IoT device.
+     * @param temperature Temperature reading.
+     * @param humidity    Humidity reading.
+     * @return A human-readable reason, or null if the reading is valid.
+     */
+    public static String rejectionReason(String deviceId, double temperature, double humidity) {
+        if (deviceId == null || deviceId.isBlank()) {
+            return "Device ID cannot be empty";
+        }
+        if (deviceId.length() > MAX_DEVICE_ID_LENGTH) {
+            return "Device ID longer than " + MAX_DEVICE_ID_LENGTH + " characters";
+        }
+        if (!isTemperatureValid(temperature)) {
+            return "Temperature out of range";
+        }
+        if (!isHumidityValid(humidity)) {
+            return "Humidity out of range";
+        }
+        return null;
+    }
+
     /**
      * Validates if the temperature falls within the acceptable range.
      *
@@ -0,0 +1,158 @@
+package turing.example.iotsenser.wal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import turing.example.iotsenser.model.SensorData;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Drains the write-ahead log downstream on a background thread.
+ * Reads batches from the last checkpoint, hands each to a sink and advances the checkpoint only once
+ * the sink has returned. A failing sink is retried with the same batch after a back-off, so readings
+ * are neither skipped nor reordered; a crash between the sink and the checkpoint replays the batch.
+ *
+ * <p>A batch that keeps failing is split in halves until the readings causing it are isolated; a single
+ * reading that still fails is moved to the log's {@link WriteAheadLog#deadLetter dead-letter file} so it
+ * cannot hold up the readings behind it. Full batches resume once the split range has been replayed.</p>
+ */
+@Slf4j
+public class WalReplayer implements AutoCloseable {
+
+    private static final long IDLE_WAIT_MILLIS = 100;
+
+    private final WriteAheadLog wal;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Consumer<List<SensorData>> sink;
+    private final Thread replayer;
+
+    private final Counter replayedCounter;
+    private final Counter failureCounter;
+    private final Counter deadLetteredCounter;
+
+    private volatile boolean running;
+
+    private int readSize;
+    private long splitEnd;
+    private int attempts;
+
+    /**
+     * Creates a replayer.
+     *
+     * @param wal           Log to drain.
+     * @param batchSize     Maximum number of readings handed to the sink at once.
+     * @param maxAttempts   Attempts at a batch before it is split, or its reading dead-lettered.
+     * @param retryBackoff  Delay before a failed batch is retried.
+     * @param sink          Receives each batch; must throw if the batch was not committed.
+     * @param meterRegistry Registry for replay, failure and dead-letter metrics.
+     */
+    public WalReplayer(WriteAheadLog wal, int batchSize, int maxAttempts, Duration retryBackoff,
+                       Consumer<List<SensorData>> sink, MeterRegistry meterRegistry) {
+        this.wal = wal;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.readSize = batchSize;
+        this.sink = sink;
+        this.replayer = new Thread(this::run, "wal-replayer");
+        this.replayer.setDaemon(true);
+        this.replayedCounter = Counter.builder("iotsenser.wal.replayed")
+                .description("Readings replayed from the WAL and committed downstream")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("iotsenser.wal.replay.errors")
+                .description("WAL batches that failed downstream and were retried")
+                .register(meterRegistry);
+        this.deadLetteredCounter = Counter.builder("iotsenser.wal.dead-lettered")
+                .description("Readings that kept failing downstream and were moved to the dead-letter file")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts replaying from the log's checkpoint.
+     */
+    public void start() {
+        running = true;
+        replayer.start();
+    }
+
+    /**
+     * Stops the replayer; readings not yet replayed stay in the log for the next start.
+     */
+    @Override
+    public void close() {
+        // No interrupt: the sink may be inside a JDBC call; the replayer exits after its current batch.
+        running = false;
+        try {
+            replayer.join(retryBackoff.toMillis() + 5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Replays one batch.
+     *
+     * @return {@code true} if a batch was committed or dead-lettered, {@code false} if the log had nothing
+     * to replay.
+     * @throws RuntimeException from the sink if the batch is to be retried.
+     */
+    boolean replayOnce() {
+        List<SensorData> batch = new ArrayList<>(readSize);
+        long next = wal.read(wal.checkpoint(), readSize, batch);
+        if (next == wal.checkpoint()) {
+            return false;
+        }
+        if (!batch.isEmpty()) {
+            try {
+                sink.accept(batch);
+                replayedCounter.increment(batch.size());
+            } catch (RuntimeException e) {
+                if (++attempts < maxAttempts) {
+                    throw e;
+                }
+                attempts = 0;
+                if (batch.size() > 1) {
+                    readSize = (batch.size() + 1) / 2;
+                    splitEnd = Math.max(splitEnd, next);
+                    throw e;
+                }
+                wal.deadLetter(batch.get(0));
+                deadLetteredCounter.increment();
+                log.error("Moved WAL reading {} to the dead-letter file after {} failed attempts",
+                        batch.get(0), maxAttempts, e);
+            }
+        }
+        attempts = 0;
+        wal.checkpoint(next);
+        if (next >= splitEnd) {
+            readSize = batchSize;
+        }
+        return true;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (!replayOnce()) {
+                    wal.awaitData(wal.checkpoint(), IDLE_WAIT_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                failureCounter.increment();
+                log.error("Failed to replay WAL batch, retrying in {}", retryBackoff, e);
+                try {
+                    Thread.sleep(retryBackoff.toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package turing.example.iotsenser.wal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * One fixed-size, memory-mapped file of the write-ahead log.
+ *
+ * <pre>
+ * length  : 4 bytes (payload size; 0 marks the end of the segment's data)
+ * crc     : 4 bytes (CRC-32C of the payload)
+ * payload : one {@link turing.example.iotsenser.serialization.SensorDataCodec} record
+ * </pre>
+ *
+ * A segment covers log positions {@code [base, base + capacity)}; a frame's position is its base
+ * plus its offset in the file.
+ */
+final class WalSegment implements AutoCloseable {
+
+    static final int FRAME_HEADER = 2 * Integer.BYTES;
+
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+
+    private final long base;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private WalSegment(long base, Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.base = base;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Opens or creates the segment starting at a log position.
+     */
+    static WalSegment open(Path directory, long base, int size) {
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, base, SUFFIX));
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            return new WalSegment(base, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open WAL segment " + path, e);
+        }
+    }
+
+    /**
+     * Returns the base position encoded in a segment file name, or -1 if the file is not a segment.
+     */
+    static long baseOf(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    long base() {
+        return base;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Returns whether a frame with the given payload size fits at an offset.
+     */
+    boolean fits(int offset, int payloadLength) {
+        return offset + FRAME_HEADER + payloadLength <= buffer.capacity();
+    }
+
+    /**
+     * Writes a frame at an offset; the caller guarantees it {@link #fits(int, int) fits}.
+     *
+     * @return Offset just past the frame.
+     */
+    int write(int offset, byte[] payload, int checksum) {
+        buffer.putInt(offset + Integer.BYTES, checksum);
+        buffer.put(offset + FRAME_HEADER, payload);
+        buffer.putInt(offset, payload.length);
+        return offset + FRAME_HEADER + payload.length;
+    }
+
+    /**
+     * Returns the payload length of the frame at an offset, or 0 if no frame starts there.
+     */
+    int frameLength(int offset) {
+        if (offset + FRAME_HEADER > buffer.capacity()) {
+            return 0;
+        }
+        int length = buffer.getInt(offset);
+        return length > 0 && offset + FRAME_HEADER + length <= buffer.capacity() ? length : 0;
+    }
+
+    /**
+     * Returns a view of the payload of the frame at an offset if its checksum matches, otherwise null.
+     */
+    ByteBuffer payload(int offset, int length) {
+        ByteBuffer payload = buffer.slice(offset + FRAME_HEADER, length);
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue() == buffer.getInt(offset + Integer.BYTES) ? payload : null;
+    }
+
+    /**
+     * Finds the end of the valid frames and zeroes everything after it, so a torn or stale tail
+     * can never be read back as data.
+     *
+     * @return Offset just past the last valid frame.
+     */
+    int recoverEnd() {
+        int offset = 0;
+        for (int length = frameLength(0); length > 0 && payload(offset, length) != null; length = frameLength(offset)) {
+            offset += FRAME_HEADER + length;
+        }
+        byte[] zeros = new byte[8192];
+        for (int position = offset; position < buffer.capacity(); position += zeros.length) {
+            buffer.put(position, zeros, 0, Math.min(zeros.length, buffer.capacity() - position));
+        }
+        force(offset, buffer.capacity() - offset);
+        return offset;
+    }
+
+    /**
+     * Writes a range of the mapping to the storage device.
+     */
+    void force(int offset, int length) {
+        if (length > 0) {
+            buffer.force(offset, length);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close WAL segment " + path, e);
+        }
+    }
+
+    /**
+     * Closes and removes the segment file.
+     */
+    void delete() {
+        close();
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete WAL segment " + path, e);
+        }
+    }
+
+    static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,18 @@
+package turing.example.iotsenser.wal;
+
+/**
+ * Destinations the write-ahead log is drained into.
+ * Selected through the {@code iotsenser.ingest.wal.target} property.
+ */
+public enum WalTarget {
+
+    /**
+     * Readings are saved in batches through the service, which also feeds the processing pipeline.
+     */
+    DATABASE,
+
+    /**
+     * Readings are produced to Kafka; the Kafka consumer persists them.
+     */
+    KAFKA
+}
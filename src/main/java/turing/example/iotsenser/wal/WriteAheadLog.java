@@ -0,0 +1,470 @@
+package turing.example.iotsenser.wal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import turing.example.iotsenser.ingest.ReadingBatch;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.serialization.SensorDataCodec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Local append-only log that makes buffered readings crash-safe.
+ *
+ * <p>Readings are encoded with {@link SensorDataCodec} into checksummed frames and copied into
+ * memory-mapped segment files under a short lock. A single sync thread forces the written range to
+ * disk and then releases every appender waiting on it, so concurrent requests share one fsync
+ * (group commit). Positions in the log are byte offsets that only grow; a segment is rolled when
+ * the next frame does not fit, and deleted once the replay checkpoint has passed it.</p>
+ *
+ * <p>On startup the last segment is scanned for the end of its valid frames; anything after a
+ * torn frame is discarded. Everything from the stored checkpoint onwards is replayed again,
+ * so delivery downstream is at-least-once.</p>
+ *
+ * <p>Readings the replayer gives up on are appended to a separate {@value #DEAD_LETTER_FILE} file in the
+ * same frame format, so they can be inspected and re-ingested.</p>
+ */
+@Slf4j
+public class WriteAheadLog implements AutoCloseable {
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String DEAD_LETTER_FILE = "dead-letter.log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxBacklog;
+    private final boolean fsync;
+    private final ConcurrentSkipListMap<Long, WalSegment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pendingSync = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private final Thread syncer;
+
+    private final Timer syncTimer;
+    private final Counter rejectedCounter;
+
+    private WalSegment active;
+    private FileChannel deadLetters;
+    private long writtenPosition;
+    private volatile long durablePosition;
+    private volatile long checkpoint;
+    private volatile boolean running;
+
+    /**
+     * Opens the log, recovering its segments and checkpoint.
+     *
+     * @param directory     Directory holding the segment files and checkpoint; created if missing.
+     * @param segmentSize   Size of each memory-mapped segment file.
+     * @param maxBacklog    Maximum number of bytes written but not yet replayed before appends are refused.
+     * @param fsync         Whether appends wait for the data to be forced to disk.
+     * @param meterRegistry Registry for backlog, sync latency and rejection metrics.
+     */
+    public WriteAheadLog(Path directory, int segmentSize, long maxBacklog, boolean fsync, MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxBacklog = maxBacklog;
+        this.fsync = fsync;
+        this.syncer = new Thread(this::runSyncer, "wal-sync");
+        this.syncer.setDaemon(true);
+        recover();
+
+        Gauge.builder("iotsenser.wal.backlog", this, WriteAheadLog::backlog)
+                .description("Bytes written to the WAL but not yet replayed downstream")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.syncTimer = Timer.builder("iotsenser.wal.sync")
+                .description("Time taken to force a group of WAL appends to disk")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("iotsenser.wal.rejected")
+                .description("Readings refused because the WAL backlog is full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the sync thread.
+     */
+    public void start() {
+        running = true;
+        syncer.start();
+    }
+
+    /**
+     * Appends readings to the log. The readings are not durable until {@link #awaitDurable} returns true.
+     *
+     * @param readings Readings to append, written contiguously.
+     * @return Log position just past the last reading, or -1 if the backlog is full.
+     */
+    public long append(List<SensorData> readings) {
+        byte[][] payloads = new byte[readings.size()][];
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = SensorDataCodec.encode(readings.get(i), null);
+        }
+        return appendPayloads(payloads);
+    }
+
+    /**
+     * Appends a decoded ingest batch without building entities.
+     *
+     * @param batch Readings to append, written contiguously.
+     * @return Log position just past the last reading, or -1 if the backlog is full.
+     */
+    public long append(ReadingBatch batch) {
+        byte[][] payloads = new byte[batch.size()][];
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = SensorDataCodec.encode(batch.deviceId(i), batch.timestamp(i), batch.temperature(i),
+                    batch.humidity(i), null);
+        }
+        return appendPayloads(payloads);
+    }
+
+    private long appendPayloads(byte[][] payloads) {
+        int[] checksums = new int[payloads.length];
+        for (int i = 0; i < payloads.length; i++) {
+            checksums[i] = WalSegment.checksum(payloads[i]);
+            if (WalSegment.FRAME_HEADER + payloads[i].length > segmentSize) {
+                throw new IllegalArgumentException("Reading does not fit in a WAL segment");
+            }
+        }
+        lock.lock();
+        try {
+            if (writtenPosition - checkpoint > maxBacklog) {
+                rejectedCounter.increment(payloads.length);
+                return -1;
+            }
+            for (int i = 0; i < payloads.length; i++) {
+                int offset = (int) (writtenPosition - active.base());
+                if (!active.fits(offset, payloads[i].length)) {
+                    roll(offset);
+                    offset = 0;
+                }
+                writtenPosition = active.base() + active.write(offset, payloads[i], checksums[i]);
+            }
+            if (fsync) {
+                pendingSync.signal();
+            } else {
+                durablePosition = writtenPosition;
+                synced.signalAll();
+            }
+            return writtenPosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the log is durable up to a position.
+     *
+     * @param position Position returned by {@link #append(List)}.
+     * @param timeout  Maximum time to wait, in milliseconds.
+     * @return {@code true} if the position is durable.
+     */
+    public boolean awaitDurable(long position, long timeout) throws InterruptedException {
+        if (durablePosition >= position) {
+            return true;
+        }
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+        lock.lock();
+        try {
+            while (durablePosition < position) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = synced.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads durable readings starting at a position.
+     *
+     * @param from  Position to read from, normally the last checkpoint.
+     * @param max   Maximum number of readings to read.
+     * @param sink  Receives the decoded readings.
+     * @return Position just past the last reading read; equal to {@code from} if nothing was available.
+     */
+    public long read(long from, int max, List<SensorData> sink) {
+        long limit = durablePosition;
+        long position = from;
+        int read = 0;
+        while (position < limit && read < max) {
+            Map.Entry<Long, WalSegment> entry = segments.floorEntry(position);
+            if (entry == null) {
+                throw new IllegalStateException("WAL position " + position + " is before the oldest segment");
+            }
+            WalSegment segment = entry.getValue();
+            int offset = (int) (position - segment.base());
+            int length = segment.frameLength(offset);
+            if (length == 0) {
+                // End of a rolled segment; the next one starts at the following base.
+                position = segment.base() + segment.capacity();
+                continue;
+            }
+            ByteBuffer payload = segment.payload(offset, length);
+            if (payload == null) {
+                throw new IllegalStateException("Corrupt WAL frame at position " + position);
+            }
+            sink.add(SensorDataCodec.decode(payload, null));
+            position += WalSegment.FRAME_HEADER + length;
+            read++;
+        }
+        return position;
+    }
+
+    /**
+     * Waits until durable data exists beyond a position.
+     *
+     * @param position Position the caller has read up to.
+     * @param timeout  Maximum time to wait, in milliseconds.
+     */
+    public void awaitData(long position, long timeout) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+        lock.lock();
+        try {
+            while (durablePosition <= position && remaining > 0) {
+                remaining = synced.awaitNanos(remaining);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the position up to which readings have been committed downstream.
+     */
+    public long checkpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Records that every reading before a position has been committed downstream, persists the
+     * checkpoint and deletes segments that lie entirely before it.
+     *
+     * @param position New checkpoint, as returned by {@link #read(long, int, List)}.
+     */
+    public void checkpoint(long position) {
+        writeCheckpoint(position);
+        checkpoint = position;
+        lock.lock();
+        try {
+            for (Map.Entry<Long, WalSegment> entry : segments.headMap(position, true).entrySet()) {
+                WalSegment segment = entry.getValue();
+                if (segment != active && segment.base() + segment.capacity() <= position) {
+                    segments.remove(entry.getKey());
+                    segment.delete();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a reading that cannot be delivered downstream to the dead-letter file, outside the log.
+     *
+     * @param reading Reading to set aside.
+     */
+    public synchronized void deadLetter(SensorData reading) {
+        byte[] payload = SensorDataCodec.encode(reading, null);
+        ByteBuffer frame = ByteBuffer.allocate(WalSegment.FRAME_HEADER + payload.length)
+                .putInt(payload.length)
+                .putInt(WalSegment.checksum(payload))
+                .put(payload)
+                .flip();
+        try {
+            if (deadLetters == null) {
+                deadLetters = FileChannel.open(directory.resolve(DEAD_LETTER_FILE), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            while (frame.hasRemaining()) {
+                deadLetters.write(frame);
+            }
+            if (fsync) {
+                deadLetters.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write WAL dead-letter file", e);
+        }
+    }
+
+    /**
+     * Returns the number of bytes written but not yet replayed.
+     */
+    public long backlog() {
+        return durablePosition - checkpoint;
+    }
+
+    /**
+     * Stops the sync thread after a final sync and closes the segments.
+     */
+    @Override
+    public void close() {
+        running = false;
+        lock.lock();
+        try {
+            pendingSync.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            syncer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sync();
+        for (WalSegment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+        synchronized (this) {
+            if (deadLetters != null) {
+                try {
+                    deadLetters.close();
+                } catch (IOException e) {
+                    log.warn("Failed to close the WAL dead-letter file", e);
+                }
+            }
+        }
+    }
+
+    private void runSyncer() {
+        while (running) {
+            lock.lock();
+            try {
+                while (running && durablePosition == writtenPosition) {
+                    pendingSync.await();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                sync();
+            } catch (RuntimeException e) {
+                log.error("Failed to sync the write-ahead log", e);
+            }
+        }
+    }
+
+    /**
+     * Forces everything written so far and releases the appenders waiting on it.
+     * Earlier segments were forced when they were rolled, so only the active one needs syncing.
+     */
+    private void sync() {
+        long target;
+        long from;
+        WalSegment segment;
+        lock.lock();
+        try {
+            target = writtenPosition;
+            from = durablePosition;
+            segment = active;
+        } finally {
+            lock.unlock();
+        }
+        if (target == from) {
+            return;
+        }
+        long start = System.nanoTime();
+        int offset = (int) Math.max(0, from - segment.base());
+        segment.force(offset, (int) (target - segment.base()) - offset);
+        syncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        lock.lock();
+        try {
+            durablePosition = Math.max(durablePosition, target);
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces the unsynced part of the active segment and opens the next one. Called with the lock held.
+     */
+    private void roll(int endOffset) {
+        if (fsync) {
+            int from = (int) Math.max(0, durablePosition - active.base());
+            active.force(from, endOffset - from);
+        }
+        active = WalSegment.open(directory, active.base() + active.capacity(), segmentSize);
+        segments.put(active.base(), active);
+        writtenPosition = active.base();
+    }
+
+    private void recover() {
+        try {
+            Files.createDirectories(directory);
+            checkpoint = readCheckpoint();
+            try (Stream<Path> listing = Files.list(directory)) {
+                listing.mapToLong(WalSegment::baseOf).filter(base -> base >= 0).sorted().forEach(base ->
+                        segments.put(base, WalSegment.open(directory, base, segmentSize)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open WAL in " + directory, e);
+        }
+        if (segments.isEmpty()) {
+            active = WalSegment.open(directory, checkpoint, segmentSize);
+            segments.put(active.base(), active);
+            writtenPosition = checkpoint;
+        } else {
+            active = segments.lastEntry().getValue();
+            writtenPosition = active.base() + active.recoverEnd();
+            if (checkpoint < segments.firstKey()) {
+                checkpoint = segments.firstKey();
+            }
+        }
+        durablePosition = writtenPosition;
+        log.info("Opened WAL in {} with {} segments, {} bytes to replay", directory, segments.size(),
+                writtenPosition - checkpoint);
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(file)).getLong();
+    }
+
+    /**
+     * Replaces the checkpoint file atomically so a crash leaves either the old or the new value.
+     */
+    private void writeCheckpoint(long position) {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, position));
+            if (fsync) {
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write WAL checkpoint", e);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write WAL checkpoint", e);
+        }
+    }
+}
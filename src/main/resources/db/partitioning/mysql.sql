@@ -0,0 +1,21 @@
+-- One-time conversion of sensor_data and sensor_rollups to RANGE COLUMNS partitioning (MySQL 8).
+-- Rewrites both tables, so run it in a maintenance window, then set iotsenser.partitioning.enabled=true.
+-- Existing rows land in a history partition ending tomorrow; PartitionManager adds dated partitions
+-- after it and drops the history partition once it falls behind the retention cutoff.
+-- MySQL requires the partitioning column in every unique key, hence the widened primary keys.
+
+ALTER TABLE sensor_data DROP PRIMARY KEY, ADD PRIMARY KEY (id, timestamp);
+SET @ddl = CONCAT('ALTER TABLE sensor_data PARTITION BY RANGE COLUMNS(timestamp) (',
+                  'PARTITION p_history VALUES LESS THAN (''', CURRENT_DATE + INTERVAL 1 DAY, '''), ',
+                  'PARTITION pmax VALUES LESS THAN (MAXVALUE))');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+ALTER TABLE sensor_rollups DROP PRIMARY KEY, ADD PRIMARY KEY (id, bucket_start);
+SET @ddl = CONCAT('ALTER TABLE sensor_rollups PARTITION BY RANGE COLUMNS(bucket_start) (',
+                  'PARTITION p_history VALUES LESS THAN (''', CURRENT_DATE + INTERVAL 1 DAY, '''), ',
+                  'PARTITION pmax VALUES LESS THAN (MAXVALUE))');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
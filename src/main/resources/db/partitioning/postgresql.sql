@@ -0,0 +1,59 @@
+-- One-time conversion of sensor_data and sensor_rollups to declarative range partitioning (PostgreSQL 12+).
+-- PostgreSQL cannot partition a table in place, so each table is rebuilt and its rows copied.
+-- Run it in a maintenance window, then set iotsenser.partitioning.enabled=true.
+-- Existing rows land in a history partition ending tomorrow; PartitionManager adds dated partitions
+-- after it and drops the history partition once it falls behind the retention cutoff.
+-- Rows dated past the premade partitions wait in the DEFAULT partitions; PartitionManager moves them
+-- into each new partition as it creates it.
+
+BEGIN;
+
+CREATE TABLE sensor_data_partitioned (
+    id          BIGINT           NOT NULL,
+    device_id   VARCHAR(255)     NOT NULL,
+    device_key  INTEGER,
+    temperature DOUBLE PRECISION NOT NULL,
+    humidity    DOUBLE PRECISION NOT NULL,
+    timestamp   TIMESTAMP(6)     NOT NULL,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+DO $$ BEGIN
+    EXECUTE format('CREATE TABLE sensor_data_p_history PARTITION OF sensor_data_partitioned '
+                   'FOR VALUES FROM (MINVALUE) TO (%L)', current_date + 1);
+END $$;
+CREATE TABLE sensor_data_default PARTITION OF sensor_data_partitioned DEFAULT;
+INSERT INTO sensor_data_partitioned (id, device_id, device_key, temperature, humidity, timestamp)
+    SELECT id, device_id, device_key, temperature, humidity, timestamp FROM sensor_data;
+DROP TABLE sensor_data;
+ALTER TABLE sensor_data_partitioned RENAME TO sensor_data;
+CREATE INDEX idx_sensor_data_timestamp_id ON sensor_data (timestamp, id);
+CREATE INDEX idx_sensor_data_device_timestamp ON sensor_data (device_id, timestamp);
+
+CREATE TABLE sensor_rollups_partitioned (
+    id              BIGINT           NOT NULL,
+    device_id       VARCHAR(255)     NOT NULL,
+    resolution      VARCHAR(8)       NOT NULL,
+    bucket_start    TIMESTAMP(6)     NOT NULL,
+    count           BIGINT           NOT NULL,
+    temperature_sum DOUBLE PRECISION NOT NULL,
+    temperature_min DOUBLE PRECISION NOT NULL,
+    temperature_max DOUBLE PRECISION NOT NULL,
+    humidity_sum    DOUBLE PRECISION NOT NULL,
+    humidity_min    DOUBLE PRECISION NOT NULL,
+    humidity_max    DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (id, bucket_start)
+) PARTITION BY RANGE (bucket_start);
+DO $$ BEGIN
+    EXECUTE format('CREATE TABLE sensor_rollups_p_history PARTITION OF sensor_rollups_partitioned '
+                   'FOR VALUES FROM (MINVALUE) TO (%L)', current_date + 1);
+END $$;
+CREATE TABLE sensor_rollups_default PARTITION OF sensor_rollups_partitioned DEFAULT;
+INSERT INTO sensor_rollups_partitioned SELECT id, device_id, resolution, bucket_start, count,
+    temperature_sum, temperature_min, temperature_max, humidity_sum, humidity_min, humidity_max
+    FROM sensor_rollups;
+DROP TABLE sensor_rollups;
+ALTER TABLE sensor_rollups_partitioned RENAME TO sensor_rollups;
+ALTER TABLE sensor_rollups ADD CONSTRAINT uk_sensor_rollups_device_resolution_bucket
+    UNIQUE (device_id, resolution, bucket_start);
+
+COMMIT;
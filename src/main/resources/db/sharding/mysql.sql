@@ -0,0 +1,37 @@
+-- Schema for an additional shard (MySQL 8), run once against the shard's database before adding it
+-- under iotsenser.sharding.shards. Hibernate only manages the primary's schema, so shards are set up here.
+-- Set @shard_index to a number from 1 up that no other shard uses; the primary is shard 0.
+-- Each shard draws IDs from its own range of 2^48 values so IDs stay unique across shards,
+-- which lets the rebalancer move rows between shards as they are.
+-- To partition sensor_data on the shard as well, run db/partitioning/mysql.sql afterwards.
+
+SET @shard_index = 1;
+
+CREATE TABLE sensor_data (
+    id          BIGINT       NOT NULL PRIMARY KEY,
+    device_id   VARCHAR(255) NOT NULL,
+    device_key  INT,
+    temperature DOUBLE       NOT NULL,
+    humidity    DOUBLE       NOT NULL,
+    timestamp   DATETIME(6)  NOT NULL,
+    INDEX idx_sensor_data_timestamp_id (timestamp, id),
+    INDEX idx_sensor_data_device_timestamp (device_id, timestamp)
+);
+
+CREATE TABLE anomalies (
+    id          BIGINT       NOT NULL PRIMARY KEY,
+    device_id   VARCHAR(255) NOT NULL,
+    device_key  INT,
+    temperature DOUBLE       NOT NULL,
+    humidity    DOUBLE       NOT NULL,
+    detected_at DATETIME(6)  NOT NULL,
+    description VARCHAR(500) NOT NULL,
+    INDEX idx_anomalies_device_detected_at (device_id, detected_at),
+    INDEX idx_anomalies_detected_at (detected_at)
+);
+
+-- Hibernate emulates sequences on MySQL with single-row tables
+CREATE TABLE sensor_data_seq (next_val BIGINT);
+CREATE TABLE anomalies_seq (next_val BIGINT);
+INSERT INTO sensor_data_seq VALUES (@shard_index * 281474976710656 + 50);
+INSERT INTO anomalies_seq VALUES (@shard_index * 281474976710656 + 50);
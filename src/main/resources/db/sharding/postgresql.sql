@@ -0,0 +1,41 @@
+-- Schema for an additional shard (PostgreSQL 12+), run once against the shard's database before adding it
+-- under iotsenser.sharding.shards. Hibernate only manages the primary's schema, so shards are set up here.
+-- Set shard_index to a number from 1 up that no other shard uses; the primary is shard 0.
+-- Each shard draws IDs from its own range of 2^48 values so IDs stay unique across shards,
+-- which lets the rebalancer move rows between shards as they are.
+-- To partition sensor_data on the shard as well, run db/partitioning/postgresql.sql afterwards.
+
+\set shard_index 1
+
+BEGIN;
+
+CREATE TABLE sensor_data (
+    id          BIGINT           NOT NULL PRIMARY KEY,
+    device_id   VARCHAR(255)     NOT NULL,
+    device_key  INTEGER,
+    temperature DOUBLE PRECISION NOT NULL,
+    humidity    DOUBLE PRECISION NOT NULL,
+    timestamp   TIMESTAMP(6)     NOT NULL
+);
+CREATE INDEX idx_sensor_data_timestamp_id ON sensor_data (timestamp, id);
+CREATE INDEX idx_sensor_data_device_timestamp ON sensor_data (device_id, timestamp);
+
+CREATE TABLE anomalies (
+    id          BIGINT           NOT NULL PRIMARY KEY,
+    device_id   VARCHAR(255)     NOT NULL,
+    device_key  INTEGER,
+    temperature DOUBLE PRECISION NOT NULL,
+    humidity    DOUBLE PRECISION NOT NULL,
+    detected_at TIMESTAMP(6)     NOT NULL,
+    description VARCHAR(500)     NOT NULL
+);
+CREATE INDEX idx_anomalies_device_detected_at ON anomalies (device_id, detected_at);
+CREATE INDEX idx_anomalies_detected_at ON anomalies (detected_at);
+
+-- Sequences step by the entities' allocation size of 50
+CREATE SEQUENCE sensor_data_seq INCREMENT BY 50;
+CREATE SEQUENCE anomalies_seq INCREMENT BY 50;
+SELECT setval('sensor_data_seq', :shard_index * 281474976710656 + 50, false);
+SELECT setval('anomalies_seq', :shard_index * 281474976710656 + 50, false);
+
+COMMIT;
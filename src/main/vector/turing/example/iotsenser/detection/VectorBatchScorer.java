@@ -0,0 +1,78 @@
+package turing.example.iotsenser.detection;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * {@link BatchScorer} using the Vector API: each step compares as many rows as fit in the widest vector register,
+ * and the resulting lane mask lands in the bitmap as is. Rows past the last full vector are scored by
+ * {@link ScalarBatchScorer}.
+ *
+ * <p>Only built with the {@code vector} Maven profile, which compiles {@code src/main/vector} against the
+ * incubator module; {@link BatchScorer#create} loads it reflectively after checking
+ * {@link BatchScorer#vectorApiAvailable()}, since without the module it fails to link.</p>
+ */
+public class VectorBatchScorer implements BatchScorer {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private final ScoringThresholds thresholds;
+
+    /**
+     * Creates a scorer.
+     *
+     * @param thresholds Thresholds to apply.
+     */
+    public VectorBatchScorer(ScoringThresholds thresholds) {
+        this.thresholds = thresholds;
+    }
+
+    /**
+     * Returns the number of rows compared per step on this machine.
+     */
+    public static int lanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    public int score(ScoringBatch batch, long[] anomalies) {
+        int size = batch.size();
+        Arrays.fill(anomalies, 0, ScoringBatch.words(size), 0);
+        double[] temperatures = batch.temperatures;
+        double[] humidities = batch.humidities;
+        double[] temperatureMeans = batch.temperatureMeans;
+        double[] temperatureStdDevs = batch.temperatureStdDevs;
+        double[] humidityMeans = batch.humidityMeans;
+        double[] humidityStdDevs = batch.humidityStdDevs;
+        double maxTemperature = thresholds.maxTemperature();
+        double maxHumidity = thresholds.maxHumidity();
+        double temperatureZScore = thresholds.temperatureZScore();
+        double humidityZScore = thresholds.humidityZScore();
+        // Lane counts are powers of two up to 64, so a vector's mask never straddles two bitmap words
+        int lanes = SPECIES.length();
+        int bound = SPECIES.loopBound(size);
+        int count = 0;
+        for (int i = 0; i < bound; i += lanes) {
+            DoubleVector temperature = DoubleVector.fromArray(SPECIES, temperatures, i);
+            DoubleVector humidity = DoubleVector.fromArray(SPECIES, humidities, i);
+            DoubleVector temperatureStdDev = DoubleVector.fromArray(SPECIES, temperatureStdDevs, i);
+            DoubleVector humidityStdDev = DoubleVector.fromArray(SPECIES, humidityStdDevs, i);
+            VectorMask<Double> anomalous = temperature.compare(VectorOperators.GT, maxTemperature)
+                    .or(humidity.compare(VectorOperators.GT, maxHumidity))
+                    .or(temperature.sub(DoubleVector.fromArray(SPECIES, temperatureMeans, i)).abs()
+                            .compare(VectorOperators.GT, temperatureStdDev.mul(temperatureZScore))
+                            .and(temperatureStdDev.compare(VectorOperators.GT, 0)))
+                    .or(humidity.sub(DoubleVector.fromArray(SPECIES, humidityMeans, i)).abs()
+                            .compare(VectorOperators.GT, humidityStdDev.mul(humidityZScore))
+                            .and(humidityStdDev.compare(VectorOperators.GT, 0)));
+            long bits = anomalous.toLong();
+            anomalies[i >>> 6] |= bits << i;
+            count += Long.bitCount(bits);
+        }
+        return count + ScalarBatchScorer.scoreRange(batch, bound, size, anomalies, thresholds);
+    }
+}
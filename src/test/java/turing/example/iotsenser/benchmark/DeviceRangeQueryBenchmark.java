@@ -0,0 +1,119 @@
+package turing.example.iotsenser.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures "device X, last 15 minutes" query latency as the readings table grows from 1M to 100M rows.
+ * Uses a dedicated {@code sensor_data_bench} table with the same columns and {@code (device_id, timestamp)}
+ * index as {@code sensor_data}, and the same SQL shape as {@code findReadingsInRange}.
+ *
+ * <p>Needs a MySQL database: pass {@code -Diotsenser.bench.url=...}, {@code .user} and {@code .password}.
+ * Rows are seeded incrementally, so each larger table size only inserts the difference.
+ * Run through {@link #main(String[])} from the test classpath.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DeviceRangeQueryBenchmark {
+
+    private static final int DEVICES = 10_000;
+    private static final int INSERT_BATCH = 10_000;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Param({"1000000", "10000000", "100000000"})
+    private long rows;
+
+    private Connection connection;
+    private PreparedStatement query;
+    private long minutesPerDevice;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("iotsenser.bench.url", "jdbc:mysql://localhost:3306/iotdb?rewriteBatchedStatements=true"),
+                System.getProperty("iotsenser.bench.user", "root"),
+                System.getProperty("iotsenser.bench.password", ""));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS sensor_data_bench ("
+                    + "id BIGINT PRIMARY KEY, device_id VARCHAR(255) NOT NULL, temperature DOUBLE NOT NULL, "
+                    + "humidity DOUBLE NOT NULL, timestamp DATETIME(6) NOT NULL, "
+                    + "INDEX idx_sensor_data_bench_device_timestamp (device_id, timestamp))");
+        }
+        seed();
+        minutesPerDevice = rows / DEVICES;
+        query = connection.prepareStatement("SELECT id, device_id, temperature, humidity, timestamp "
+                + "FROM sensor_data_bench WHERE device_id = ? AND timestamp >= ? AND timestamp < ? "
+                + "ORDER BY timestamp DESC LIMIT 1000");
+    }
+
+    /**
+     * Tops the table up to {@link #rows}; reading {@code i} belongs to device {@code i % DEVICES}
+     * and is stamped one minute after that device's previous reading.
+     */
+    private void seed() throws SQLException {
+        long existing;
+        try (Statement statement = connection.createStatement();
+             ResultSet count = statement.executeQuery("SELECT COUNT(*) FROM sensor_data_bench")) {
+            count.next();
+            existing = count.getLong(1);
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO sensor_data_bench (id, device_id, temperature, humidity, timestamp) VALUES (?, ?, ?, ?, ?)")) {
+            for (long i = existing; i < rows; i++) {
+                insert.setLong(1, i);
+                insert.setString(2, "device-" + (i % DEVICES));
+                insert.setDouble(3, 20.0 + (i & 15));
+                insert.setDouble(4, 50.0);
+                insert.setTimestamp(5, Timestamp.valueOf(EPOCH.plusMinutes(i / DEVICES)));
+                insert.addBatch();
+                if ((i + 1) % INSERT_BATCH == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public int lastFifteenMinutes() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime to = EPOCH.plusMinutes(random.nextLong(15, minutesPerDevice + 1));
+        query.setString(1, "device-" + random.nextInt(DEVICES));
+        query.setTimestamp(2, Timestamp.valueOf(to.minusMinutes(15)));
+        query.setTimestamp(3, Timestamp.valueOf(to));
+        int found = 0;
+        try (ResultSet resultSet = query.executeQuery()) {
+            while (resultSet.next()) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DeviceRangeQueryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,137 @@
+package turing.example.iotsenser.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import turing.example.iotsenser.detection.DeviceStatisticsStore;
+import turing.example.iotsenser.device.DeviceRegistry;
+import turing.example.iotsenser.model.Device;
+import turing.example.iotsenser.repository.DeviceRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Measures device ID to key lookups across a large synthetic fleet.
+ * {@link #main} first prints the heap footprint per device of the registry and of the statistics store keyed by it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class DeviceRegistryBenchmark {
+
+    @Param({"1000", "1000000"})
+    private int devices;
+
+    private DeviceRegistry registry;
+    private String[] deviceIds;
+
+    @Setup
+    public void setUp() {
+        registry = loadedRegistry(devices);
+        // Distinct instances, as a request or Kafka record would carry them
+        deviceIds = new String[devices];
+        for (int i = 0; i < devices; i++) {
+            deviceIds[i] = new String(deviceId(i + 1).toCharArray());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public int keyOf(Cursor cursor) {
+        int index = cursor.next;
+        cursor.next = index + 1 == devices ? 0 : index + 1;
+        return registry.keyOf(deviceIds[index]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int keyOfContended(Cursor cursor) {
+        return keyOf(cursor);
+    }
+
+    @Benchmark
+    public String deviceIdOf(Cursor cursor) {
+        int index = cursor.next;
+        cursor.next = index + 1 == devices ? 0 : index + 1;
+        return registry.deviceIdOf(index + 1);
+    }
+
+    /**
+     * Builds a registry loaded with keys {@code 1..devices}, backed by an in-memory repository stub.
+     */
+    static DeviceRegistry loadedRegistry(int devices) {
+        DeviceRepository repository = (DeviceRepository) Proxy.newProxyInstance(
+                DeviceRepository.class.getClassLoader(), new Class<?>[]{DeviceRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("streamAll")) {
+                        return IntStream.rangeClosed(1, devices).mapToObj(key -> new Device(key, deviceId(key)));
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        PlatformTransactionManager transactionManager = new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+            }
+        };
+        DeviceRegistry registry = new DeviceRegistry(repository, transactionManager, devices, 0, new SimpleMeterRegistry());
+        registry.load();
+        return registry;
+    }
+
+    private static String deviceId(int key) {
+        return "gateway-" + (key % 1000) + "/device-" + key;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void main(String[] args) throws RunnerException, InterruptedException {
+        int devices = 1_000_000;
+        long before = usedHeap();
+        DeviceRegistry registry = loadedRegistry(devices);
+        long afterRegistry = usedHeap();
+        DeviceStatisticsStore store = new DeviceStatisticsStore(0.05, 30, 64, devices);
+        double[] zScores = new double[2];
+        for (int deviceKey = 1; deviceKey <= devices; deviceKey++) {
+            store.observe(deviceKey, 20.0, 50.0, zScores);
+        }
+        long afterStore = usedHeap();
+        System.out.printf("%d devices: registry %.1f B/device, statistics store %.1f B/device%n",
+                registry.size(), (afterRegistry - before) / (double) devices,
+                (afterStore - afterRegistry) / (double) store.size());
+
+        new Runner(new OptionsBuilder()
+                .include(DeviceRegistryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,63 @@
+package turing.example.iotsenser.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import turing.example.iotsenser.detection.DeviceStatisticsStore;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of one statistics update across a large device fleet.
+ * Run with {@code -prof gc} to confirm the steady-state update allocates nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class DeviceStatisticsStoreBenchmark {
+
+    @Param({"1000", "1000000"})
+    private int devices;
+
+    private DeviceStatisticsStore store;
+
+    @Setup
+    public void setUp() {
+        store = new DeviceStatisticsStore(0.05, 30, 64, devices);
+        double[] zScores = new double[2];
+        for (int deviceKey = 1; deviceKey <= devices; deviceKey++) {
+            store.observe(deviceKey, 20.0, 50.0, zScores);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+        final double[] zScores = new double[2];
+    }
+
+    @Benchmark
+    public double observe(Cursor cursor) {
+        int index = cursor.next;
+        cursor.next = index + 1 == devices ? 0 : index + 1;
+        store.observe(index + 1, 20.0 + (index & 7), 50.0, cursor.zScores);
+        return cursor.zScores[0];
+    }
+
+    @Benchmark
+    @Threads(8)
+    public double observeContended(Cursor cursor) {
+        return observe(cursor);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DeviceStatisticsStoreBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
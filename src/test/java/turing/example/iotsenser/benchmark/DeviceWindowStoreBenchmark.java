@@ -0,0 +1,71 @@
+package turing.example.iotsenser.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import turing.example.iotsenser.detection.DeviceWindowStore;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of adding one reading to its device's window and scanning it, across a large device fleet.
+ * Run with {@code -prof gc} to confirm the steady-state update allocates nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class DeviceWindowStoreBenchmark {
+
+    @Param({"1000", "1000000"})
+    private int devices;
+
+    private DeviceWindowStore store;
+
+    @Setup
+    public void setUp() {
+        store = new DeviceWindowStore(8, 60_000, 1_000, 0, devices);
+        double[] findings = new double[DeviceWindowStore.FINDINGS];
+        for (int sample = 0; sample < 8; sample++) {
+            for (int deviceKey = 1; deviceKey <= devices; deviceKey++) {
+                store.observe(deviceKey, sample * 5_000L, 20.0 + sample, 50.0, findings);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+        long timeMillis = 40_000;
+        final double[] findings = new double[DeviceWindowStore.FINDINGS];
+    }
+
+    @Benchmark
+    public double observe(Cursor cursor) {
+        int index = cursor.next;
+        if (index + 1 == devices) {
+            cursor.next = 0;
+            cursor.timeMillis += 5_000;
+        } else {
+            cursor.next = index + 1;
+        }
+        store.observe(index + 1, cursor.timeMillis, 20.0 + (index & 7), 50.0, cursor.findings);
+        return cursor.findings[DeviceWindowStore.TEMPERATURE_RATE];
+    }
+
+    @Benchmark
+    @Threads(8)
+    public double observeContended(Cursor cursor) {
+        return observe(cursor);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DeviceWindowStoreBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
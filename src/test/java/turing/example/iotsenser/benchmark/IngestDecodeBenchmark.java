@@ -0,0 +1,97 @@
+package turing.example.iotsenser.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import turing.example.iotsenser.dto.BatchIngestResponse;
+import turing.example.iotsenser.ingest.ReadingBatch;
+import turing.example.iotsenser.ingest.ReadingBatchParser;
+import turing.example.iotsenser.ingest.ReadingBatchPool;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.utils.SensorDataValidator;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding a batch ingest body into entities with decoding it into a pooled {@link ReadingBatch}.
+ * {@code entities} is the previous path: Jackson databind into {@code List<SensorData>}, then validation.
+ * Run through {@link #main(String[])} from the test classpath; the GC profiler reports
+ * {@code gc.alloc.rate.norm}, the bytes allocated per decoded body.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestDecodeBenchmark {
+
+    @Param({"1000"})
+    private int readings;
+
+    private byte[] body;
+    private ObjectReader entityReader;
+    private ReadingBatchParser parser;
+    private ReadingBatchPool pool;
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < readings; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"deviceId\":\"device-").append(i % 100)
+                    .append("\",\"temperature\":").append(20 + i % 10).append(".25")
+                    .append(",\"humidity\":").append(40 + i % 30).append(".5")
+                    .append(",\"timestamp\":\"2024-01-01T10:").append(String.format("%02d", i % 60)).append(":00\"}");
+        }
+        body = json.append("]").toString().getBytes(StandardCharsets.UTF_8);
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        entityReader = objectMapper.readerFor(new TypeReference<List<SensorData>>() { });
+        parser = new ReadingBatchParser(objectMapper);
+        pool = new ReadingBatchPool(1);
+    }
+
+    @Benchmark
+    public List<SensorData> entities() throws IOException {
+        List<SensorData> decoded = entityReader.readValue(body);
+        List<SensorData> accepted = new ArrayList<>(decoded.size());
+        for (SensorData sensorData : decoded) {
+            if (SensorDataValidator.rejectionReason(sensorData) == null) {
+                if (sensorData.getTimestamp() == null) {
+                    sensorData.setTimestamp(LocalDateTime.now());
+                }
+                accepted.add(sensorData);
+            }
+        }
+        return accepted;
+    }
+
+    @Benchmark
+    public int readingBatch() throws IOException {
+        ReadingBatch batch = pool.acquire();
+        try {
+            parser.parseArray(new ByteArrayInputStream(body), batch, new BatchIngestResponse(), Integer.MAX_VALUE);
+            return batch.size();
+        } finally {
+            pool.release(batch);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IngestDecodeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
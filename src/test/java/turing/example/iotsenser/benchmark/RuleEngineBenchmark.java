@@ -0,0 +1,83 @@
+package turing.example.iotsenser.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import turing.example.iotsenser.detection.Finding;
+import turing.example.iotsenser.detection.RuleDefinition;
+import turing.example.iotsenser.detection.RuleEngine;
+import turing.example.iotsenser.detection.RuleScope;
+import turing.example.iotsenser.model.SensorData;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of evaluating one reading against a hundred mixed rules:
+ * compound thresholds, rates of change, z-scores, flatline checks and negations.
+ * Run with {@code -prof gc} to confirm that readings matching no rule allocate nothing in the engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleEngineBenchmark {
+
+    private static final int DEVICES = 1024;
+
+    @Param({"100"})
+    private int rules;
+
+    private RuleEngine engine;
+    private SensorData[] readings;
+
+    @Setup
+    public void setUp() {
+        List<RuleDefinition> definitions = new ArrayList<>(rules);
+        for (int i = 0; i < rules; i++) {
+            String condition = switch (i % 4) {
+                case 0 -> "temperature > " + (60 + i) + " and humidity < " + (10 + i % 7);
+                case 1 -> "abs(rate(temperature)) > " + (5 + i % 3) + " or abs(zscore(humidity)) > 4";
+                case 2 -> "flat(humidity, 10m, 0.1)";
+                default -> "not (humidity >= 5 and humidity <= 95)";
+            };
+            definitions.add(new RuleDefinition("rule-" + i, RuleScope.GLOBAL, null, condition));
+        }
+        engine = new RuleEngine(definitions, Map.of(), List::of, Duration.ofSeconds(30));
+        readings = new SensorData[DEVICES];
+        LocalDateTime start = LocalDateTime.now();
+        for (int i = 0; i < DEVICES; i++) {
+            readings[i] = new SensorData(null, "device-" + i, 20.0 + (i & 7), 50.0, start);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+        final double[] zScores = new double[2];
+    }
+
+    @Benchmark
+    public List<Finding> evaluate(Cursor cursor) {
+        int index = cursor.next;
+        cursor.next = index + 1 == DEVICES ? 0 : index + 1;
+        SensorData reading = readings[index];
+        reading.setTimestamp(reading.getTimestamp().plusSeconds(10));
+        reading.setHumidity(100.0 - reading.getHumidity());
+        return engine.evaluate(reading, cursor.zScores);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RuleEngineBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,77 @@
+package turing.example.iotsenser.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.serialization.DeviceIdDictionary;
+import turing.example.iotsenser.serialization.SensorDataCodec;
+import turing.example.iotsenser.serialization.StaticDeviceIdDictionary;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the binary Kafka wire format with the original {@code toString()} payload.
+ * Run through {@link #main(String[])} from the test classpath;
+ * message sizes are printed before the measurements start.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SensorDataSerializationBenchmark {
+
+    private SensorData reading;
+    private DeviceIdDictionary dictionary;
+    private byte[] binary;
+    private byte[] dictionaryBinary;
+
+    @Setup
+    public void setUp() {
+        reading = new SensorData(null, "gateway-17/device-00421", 23.75, 48.5, LocalDateTime.now());
+        dictionary = new StaticDeviceIdDictionary(List.of("gateway-17/device-00421"));
+        binary = SensorDataCodec.encode(reading, null);
+        dictionaryBinary = SensorDataCodec.encode(reading, dictionary);
+    }
+
+    @Benchmark
+    public byte[] encodeString() {
+        return reading.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return SensorDataCodec.encode(reading, null);
+    }
+
+    @Benchmark
+    public byte[] encodeBinaryWithDictionary() {
+        return SensorDataCodec.encode(reading, dictionary);
+    }
+
+    @Benchmark
+    public SensorData decodeBinary() {
+        return SensorDataCodec.decode(binary, null);
+    }
+
+    @Benchmark
+    public SensorData decodeBinaryWithDictionary() {
+        return SensorDataCodec.decode(dictionaryBinary, dictionary);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        SensorDataSerializationBenchmark sizes = new SensorDataSerializationBenchmark();
+        sizes.setUp();
+        System.out.printf("bytes/message: string=%d binary=%d binary+dictionary=%d%n",
+                sizes.encodeString().length, sizes.binary.length, sizes.dictionaryBinary.length);
+        new Runner(new OptionsBuilder()
+                .include(SensorDataSerializationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,183 @@
+package turing.example.iotsenser.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.unit.DataSize;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.storage.ColumnarTimeSeriesStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the columnar store with the row-oriented table for ingest rate, scan speed and bytes per point.
+ *
+ * <p>{@code columnar} writes to a {@link ColumnarTimeSeriesStore} in a temporary directory;
+ * {@code jdbc} writes the same readings with batched inserts into a {@code sensor_data_store_bench} table
+ * shaped like {@code sensor_data} and scans it with the {@code findReadingsInRange} SQL.
+ * The jdbc engine needs a MySQL database: pass {@code -Diotsenser.bench.url=...}, {@code .user} and
+ * {@code .password}. Bytes per point are printed when each trial ends. Run through {@link #main(String[])}
+ * from the test classpath.</p>
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TimeSeriesStoreBenchmark {
+
+    private static final int DEVICES = 1_000;
+    private static final int SEED_POINTS = 2_000_000;
+    private static final int BATCH = 1_000;
+    private static final long INTERVAL_SECONDS = 10;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Param({"columnar", "jdbc"})
+    private String engine;
+
+    private ColumnarTimeSeriesStore store;
+    private Path directory;
+    private Connection connection;
+    private PreparedStatement insert;
+    private PreparedStatement query;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        if ("columnar".equals(engine)) {
+            directory = Files.createTempDirectory("columnar-bench");
+            // Covered from the start of the seeded history, so scans never reach the (absent) repository
+            store = new ColumnarTimeSeriesStore(directory, DataSize.ofMegabytes(64), 1024, Duration.ofMinutes(1),
+                    null, new SimpleMeterRegistry(), Clock.fixed(EPOCH.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        } else {
+            connection = DriverManager.getConnection(
+                    System.getProperty("iotsenser.bench.url", "jdbc:mysql://localhost:3306/iotdb?rewriteBatchedStatements=true"),
+                    System.getProperty("iotsenser.bench.user", "root"),
+                    System.getProperty("iotsenser.bench.password", ""));
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS sensor_data_store_bench");
+                statement.execute("CREATE TABLE sensor_data_store_bench ("
+                        + "id BIGINT AUTO_INCREMENT PRIMARY KEY, device_id VARCHAR(255) NOT NULL, "
+                        + "temperature DOUBLE NOT NULL, humidity DOUBLE NOT NULL, timestamp DATETIME(6) NOT NULL, "
+                        + "INDEX idx_sensor_data_store_bench_device_timestamp (device_id, timestamp))");
+            }
+            insert = connection.prepareStatement("INSERT INTO sensor_data_store_bench "
+                    + "(device_id, temperature, humidity, timestamp) VALUES (?, ?, ?, ?)");
+            query = connection.prepareStatement("SELECT id, device_id, temperature, humidity, timestamp "
+                    + "FROM sensor_data_store_bench WHERE device_id = ? AND timestamp >= ? AND timestamp < ? "
+                    + "ORDER BY timestamp DESC LIMIT 5000");
+        }
+        while (next < SEED_POINTS) {
+            ingestBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        long bytes;
+        if (store != null) {
+            store.sealAll();
+            bytes = store.bytesOnDisk();
+            store.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(TimeSeriesStoreBenchmark::delete);
+            }
+        } else {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE TABLE sensor_data_store_bench");
+                try (ResultSet size = statement.executeQuery("SELECT data_length + index_length "
+                        + "FROM information_schema.tables WHERE table_schema = DATABASE() "
+                        + "AND table_name = 'sensor_data_store_bench'")) {
+                    size.next();
+                    bytes = size.getLong(1);
+                }
+            }
+            connection.close();
+        }
+        System.out.printf("%n%s: %d points, %.2f bytes/point%n", engine, next, bytes / (double) next);
+    }
+
+    /**
+     * Appends one batch of readings; reading {@code i} belongs to device {@code i % DEVICES}
+     * and is stamped ten seconds after that device's previous reading.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void ingestBatch() throws SQLException {
+        List<SensorData> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++, next++) {
+            batch.add(new SensorData(null, "device-" + (next % DEVICES), 20.0 + (next % 97) / 10.0,
+                    40.0 + (next % 13), EPOCH.plusSeconds(next / DEVICES * INTERVAL_SECONDS)));
+        }
+        if (store != null) {
+            store.append(batch);
+            return;
+        }
+        for (SensorData reading : batch) {
+            insert.setString(1, reading.getDeviceId());
+            insert.setDouble(2, reading.getTemperature());
+            insert.setDouble(3, reading.getHumidity());
+            insert.setTimestamp(4, Timestamp.valueOf(reading.getTimestamp()));
+            insert.addBatch();
+        }
+        insert.executeBatch();
+    }
+
+    /**
+     * Reads one device's readings over a random one-hour window of the seeded history.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int scanLastHour() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long secondsSeeded = SEED_POINTS / DEVICES * INTERVAL_SECONDS;
+        LocalDateTime to = EPOCH.plusSeconds(random.nextLong(3600, secondsSeeded + 1));
+        LocalDateTime from = to.minusHours(1);
+        String deviceId = "device-" + random.nextInt(DEVICES);
+        if (store != null) {
+            return store.findReadingsInRange(deviceId, from, to, 5000).size();
+        }
+        query.setString(1, deviceId);
+        query.setTimestamp(2, Timestamp.valueOf(from));
+        query.setTimestamp(3, Timestamp.valueOf(to));
+        int found = 0;
+        try (ResultSet resultSet = query.executeQuery()) {
+            while (resultSet.next()) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.delete(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TimeSeriesStoreBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,49 @@
+package turing.example.iotsenser.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FrequencySketch.
+ * Ensures counts saturate and age.
+ */
+class FrequencySketchTest {
+
+    /**
+     * Test case verifying that increments are counted up to the 4-bit maximum.
+     */
+    @Test
+    void testCountsSaturate() {
+        FrequencySketch sketch = new FrequencySketch();
+        sketch.ensureCapacity(1024);
+
+        for (int i = 0; i < 5; i++) {
+            sketch.increment(42);
+        }
+        assertEquals(5, sketch.frequency(42));
+        for (int i = 0; i < 20; i++) {
+            sketch.increment(42);
+        }
+        assertEquals(15, sketch.frequency(42), "Counters should saturate at 15.");
+        assertEquals(0, sketch.frequency(7), "Unseen keys should have no frequency.");
+    }
+
+    /**
+     * Test case verifying that counts are halved once enough increments have been sampled.
+     */
+    @Test
+    void testCountsAge() {
+        FrequencySketch sketch = new FrequencySketch();
+        for (int i = 0; i < 8; i++) {
+            sketch.increment(42);
+        }
+
+        // The default width of 16 samples 160 increments before halving
+        for (int i = 0; i < 160; i++) {
+            sketch.increment(1000 + i);
+        }
+
+        assertTrue(sketch.frequency(42) <= 4, "Old counts should be halved.");
+    }
+}
@@ -0,0 +1,218 @@
+package turing.example.iotsenser.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for QueryCache.
+ * Ensures results are served until the data they read changes and that metrics are exported.
+ */
+class QueryCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LocalTier secondTier;
+    private QueryCache queryCache;
+    private AtomicInteger loads;
+    private AtomicLong now;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        secondTier = new LocalTier();
+        now = new AtomicLong();
+        queryCache = newCache(1 << 20, secondTier, meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    /**
+     * Test case verifying that a repeated query is loaded once.
+     */
+    @Test
+    void testRepeatedQueryIsLoadedOnce() {
+        assertEquals(List.of("r1"), query("device-a", "q"));
+        assertEquals(List.of("r1"), query("device-a", "q"));
+
+        assertEquals(1, loads.get(), "Second lookup should be a hit.");
+        assertEquals(1, meterRegistry.get("iotsenser.query.cache.gets").tag("tier", "local").tag("result", "hit")
+                .counter().count());
+        assertEquals(1, meterRegistry.get("iotsenser.query.cache.load").timer().count());
+        assertEquals(0.5, meterRegistry.get("iotsenser.query.cache.hit.ratio").gauge().value(), 1e-9);
+    }
+
+    /**
+     * Test case verifying that ingest for a device invalidates its queries and fleet-wide ones only.
+     */
+    @Test
+    void testIngestInvalidatesDeviceAndFleet() {
+        query("device-a", "q");
+        query("device-b", "q");
+        fleetQuery("page");
+
+        queryCache.invalidateDevice("device-a");
+
+        assertEquals(List.of("r4"), query("device-a", "q"), "Written device should be reloaded.");
+        assertEquals(List.of("r2"), query("device-b", "q"), "Other devices should still be cached.");
+        assertEquals(List.of("r5"), fleetQuery("page"), "Fleet-wide queries should be reloaded.");
+    }
+
+    /**
+     * Test case verifying that invalidation inside a transaction waits for the commit.
+     */
+    @Test
+    void testInvalidationDeferredToCommit() {
+        query("device-a", "q");
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            queryCache.invalidateDevices(List.of("device-a"));
+            assertEquals(List.of("r1"), query("device-a", "q"), "Uncommitted writes should not invalidate.");
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(List.of("r2"), query("device-a", "q"), "Committed writes should invalidate.");
+    }
+
+    /**
+     * Test case verifying that invalidating everything reloads every query.
+     */
+    @Test
+    void testInvalidateAll() {
+        query("device-a", "q");
+        fleetQuery("page");
+
+        queryCache.invalidateAll();
+
+        assertEquals(List.of("r3"), query("device-a", "q"));
+        assertEquals(List.of("r4"), fleetQuery("page"));
+    }
+
+    /**
+     * Test case verifying that the second tier serves results the first tier does not hold.
+     */
+    @Test
+    void testSecondTierHit() {
+        // Room for a single one-reading result in the first tier
+        QueryCache small = newCache(QueryCache.ENTRY_WEIGHT + QueryCache.READING_WEIGHT, secondTier, meterRegistry);
+        small.get("device-a", "q", List::size, this::load);
+        small.get("device-b", "q", List::size, this::load);
+
+        small.get("device-a", "q", List::size, this::load);
+        small.get("device-b", "q", List::size, this::load);
+
+        assertEquals(2, loads.get(), "Results evicted from the first tier should come from the second.");
+        assertEquals(1, meterRegistry.get("iotsenser.query.cache.gets").tag("tier", "second").tag("result", "hit")
+                .counter().count());
+    }
+
+    /**
+     * Test case verifying that a restarted cache does not serve second-tier results from before the restart,
+     * since writes made in between never moved its versions.
+     */
+    @Test
+    void testRestartIgnoresEarlierSecondTierEntries() {
+        query("device-a", "q");
+        QueryCache restarted = newCache(1 << 20, secondTier, new SimpleMeterRegistry());
+
+        List<String> result = restarted.get("device-a", "q", List::size, this::load);
+
+        assertEquals(List.of("r2"), result, "Result should be loaded again.");
+    }
+
+    /**
+     * Test case verifying that results older than the maximum staleness are loaded again,
+     * picking up writes this instance was not told about.
+     */
+    @Test
+    void testReloadsStaleResults() {
+        query("device-a", "q");
+        now.addAndGet(Duration.ofSeconds(29).toNanos());
+        assertEquals(List.of("r1"), query("device-a", "q"), "Results younger than the bound should be served.");
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertEquals(List.of("r2"), query("device-a", "q"), "Stale results should be loaded again.");
+        assertEquals(List.of("r2"), query("device-a", "q"));
+    }
+
+    /**
+     * Test case verifying that a failing second tier is treated as a miss.
+     */
+    @Test
+    void testFailingSecondTierIsAMiss() {
+        QueryCache cache = newCache(1 << 20, new QueryCacheTier() {
+            @Override
+            public Object get(QueryCacheKey key) {
+                throw new IllegalStateException("unavailable");
+            }
+
+            @Override
+            public void put(QueryCacheKey key, Object value, long weight) {
+                throw new IllegalStateException("unavailable");
+            }
+        }, new SimpleMeterRegistry());
+
+        assertEquals(List.of("r1"), cache.get("device-a", "q", List::size, this::load));
+    }
+
+    /**
+     * Test case verifying that a disabled cache loads every time.
+     */
+    @Test
+    void testDisabled() {
+        QueryCache disabled = new QueryCache(false, 1 << 20, 1024, Duration.ofSeconds(30), null,
+                new SimpleMeterRegistry(), now::get);
+
+        disabled.get("device-a", "q", List::size, this::load);
+        disabled.get("device-a", "q", List::size, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    private QueryCache newCache(long maxWeight, QueryCacheTier tier, SimpleMeterRegistry registry) {
+        return new QueryCache(true, maxWeight, 1024, Duration.ofSeconds(30), tier, registry, now::get);
+    }
+
+    private List<String> query(String deviceId, String query) {
+        return queryCache.get(deviceId, query, List::size, this::load);
+    }
+
+    private List<String> fleetQuery(String query) {
+        return queryCache.getFleetWide(query, List::size, this::load);
+    }
+
+    private List<String> load() {
+        return List.of("r" + loads.incrementAndGet());
+    }
+
+    /**
+     * Local stand-in for a second tier.
+     */
+    private static final class LocalTier implements QueryCacheTier {
+
+        private final Map<QueryCacheKey, Object> entries = new ConcurrentHashMap<>();
+
+        @Override
+        public Object get(QueryCacheKey key) {
+            return entries.get(key);
+        }
+
+        @Override
+        public void put(QueryCacheKey key, Object value, long weight) {
+            entries.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package turing.example.iotsenser.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TinyLfuCache.
+ * Ensures the weight bound holds and frequently read entries survive a scan of one-off keys.
+ */
+class TinyLfuCacheTest {
+
+    /**
+     * Test case verifying that cached values are returned and replaced.
+     */
+    @Test
+    void testPutAndGet() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(1000);
+
+        cache.put("a", "first", 10);
+        cache.put("a", "second", 20);
+
+        assertEquals("second", cache.get("a"), "Put should replace the cached value.");
+        assertNull(cache.get("b"), "Unknown keys should miss.");
+        assertEquals(1, cache.size());
+        assertEquals(20, cache.weightedSize(), "Replacing a value should replace its weight.");
+    }
+
+    /**
+     * Test case verifying that the summed weight never exceeds the bound.
+     */
+    @Test
+    void testWeightBound() {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(1000);
+
+        for (int i = 0; i < 500; i++) {
+            cache.put(i, "value", 1 + i % 30);
+            assertTrue(cache.weightedSize() <= 1000, "Weight should stay within the bound.");
+        }
+        cache.put(-1, "huge", 1001);
+
+        assertNull(cache.get(-1), "Values heavier than the cache should not be stored.");
+        assertTrue(cache.evictionCount() > 0, "Evictions should be counted.");
+    }
+
+    /**
+     * Test case verifying that popular entries are kept while a scan of one-off keys passes through.
+     * The popular entries are read too rarely for an LRU cache of this size to keep them.
+     */
+    @Test
+    void testFrequentEntriesSurviveScan() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(100);
+        for (int i = 0; i < 50; i++) {
+            cache.put("hot-" + i, i, 1);
+        }
+        for (int round = 0; round < 5; round++) {
+            readAll(cache, "hot-", 50);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            cache.get("scan-" + i);
+            cache.put("scan-" + i, i, 1);
+            if (i % 200 == 199) {
+                readAll(cache, "hot-", 50);
+            }
+        }
+
+        int retained = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.get("hot-" + i) != null) {
+                retained++;
+            }
+        }
+        assertEquals(50, retained, "Frequently read entries should not be flushed out by a scan.");
+        assertTrue(cache.weightedSize() <= 100);
+    }
+
+    /**
+     * Test case verifying that a key asked for repeatedly is admitted over rarely used ones.
+     */
+    @Test
+    void testRepeatedMissesEarnAdmission() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(100);
+        for (int i = 0; i < 100; i++) {
+            cache.put("cold-" + i, i, 1);
+        }
+        for (int i = 0; i < 5; i++) {
+            cache.get("popular");
+        }
+
+        cache.put("popular", 1, 1);
+        for (int i = 0; i < 5; i++) {
+            cache.put("filler-" + i, i, 1);
+        }
+
+        assertEquals(1, cache.get("popular"), "A key with many recent requests should win admission.");
+    }
+
+    private static void readAll(TinyLfuCache<String, Integer> cache, String prefix, int count) {
+        for (int i = 0; i < count; i++) {
+            cache.get(prefix + i);
+        }
+    }
+}
@@ -14,6 +14,12 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.serialization.SensorDataDeserializer;
+import turing.example.iotsenser.serialization.SensorDataSerializer;
 
 import java.util.Map;
 
@@ -31,10 +37,10 @@ class KafkaConfigTest {
     private KafkaConfig kafkaConfig;
 
     @Mock
-    private ProducerFactory<String, String> producerFactoryMock;
+    private ProducerFactory<String, SensorData> producerFactoryMock;
 
     @Mock
-    private ConsumerFactory<String, String> consumerFactoryMock;
+    private ConsumerFactory<String, SensorData> consumerFactoryMock;
 
     @BeforeEach
     void setUp() {
@@ -54,19 +60,34 @@ class KafkaConfigTest {
         assertEquals((short) 1, topic.replicationFactor(), "Kafka topic replication factor should be 1.");
     }
 
+    /**
+     * Tests that the dead-letter topic matches the partitions of the sensor data topic.
+     */
+    @Test
+    void testDeadLetterTopicCreation() {
+        NewTopic topic = kafkaConfig.deadLetterTopic();
+        assertEquals("sensor-data.DLT", topic.name(), "Dead-letter topic name should match.");
+        assertEquals(3, topic.numPartitions(), "Records should keep their partition when dead-lettered.");
+    }
+
     /**
      * Tests that the Kafka ProducerFactory is properly configured.
      */
     @Test
     void testProducerFactoryConfiguration() {
-        ProducerFactory<String, String> producerFactory = kafkaConfig.producerFactory();
+        ProducerFactory<String, SensorData> producerFactory = kafkaConfig.producerFactory();
         assertNotNull(producerFactory, "ProducerFactory should not be null.");
 
         // Verify producer configurations
-        Map<String, Object> configProps = ((DefaultKafkaProducerFactory<String, String>) producerFactory).getConfigurationProperties();
+        Map<String, Object> configProps = ((DefaultKafkaProducerFactory<String, SensorData>) producerFactory).getConfigurationProperties();
         assertEquals("localhost:9092", configProps.get(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG), "Producer bootstrap servers should match.");
         assertEquals(StringSerializer.class, configProps.get(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG), "Producer key serializer should match.");
-        assertEquals(StringSerializer.class, configProps.get(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG), "Producer value serializer should match.");
+        assertEquals(SensorDataSerializer.class, configProps.get(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG), "Producer value serializer should match.");
+        assertEquals("lz4", configProps.get(ProducerConfig.COMPRESSION_TYPE_CONFIG), "Producer should compress batches.");
+        assertEquals(20, configProps.get(ProducerConfig.LINGER_MS_CONFIG), "Producer should linger to fill batches.");
+        assertEquals(65536, configProps.get(ProducerConfig.BATCH_SIZE_CONFIG), "Producer batch size should match.");
+        assertEquals(true, configProps.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG), "Producer should be idempotent.");
+        assertEquals("all", configProps.get(ProducerConfig.ACKS_CONFIG), "Idempotence requires acks=all.");
     }
 
     /**
@@ -74,7 +95,7 @@ class KafkaConfigTest {
      */
 //    @Test
 //    void testKafkaTemplateCreation() {
-//        KafkaTemplate<String, String> kafkaTemplate = kafkaConfig.kafkaTemplate();
+//        KafkaTemplate<String, SensorData> kafkaTemplate = kafkaConfig.kafkaTemplate();
 //        assertNotNull(kafkaTemplate, "KafkaTemplate should not be null.");
 //        assertEquals(producerFactoryMock.getClass(), kafkaTemplate.getProducerFactory().getClass(), "KafkaTemplate should use the correct ProducerFactory.");
 //    }
@@ -84,15 +105,33 @@ class KafkaConfigTest {
      */
     @Test
     void testConsumerFactoryConfiguration() {
-        ConsumerFactory<String, String> consumerFactory = kafkaConfig.consumerFactory();
+        ConsumerFactory<String, SensorData> consumerFactory = kafkaConfig.consumerFactory();
         assertNotNull(consumerFactory, "ConsumerFactory should not be null.");
 
         // Verify consumer configurations
-        Map<String, Object> configProps = ((DefaultKafkaConsumerFactory<String, String>) consumerFactory).getConfigurationProperties();
+        Map<String, Object> configProps = ((DefaultKafkaConsumerFactory<String, SensorData>) consumerFactory).getConfigurationProperties();
         assertEquals("localhost:9092", configProps.get(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG), "Consumer bootstrap servers should match.");
         assertEquals("sensor-group", configProps.get(ConsumerConfig.GROUP_ID_CONFIG), "Consumer group ID should match.");
         assertEquals(StringDeserializer.class, configProps.get(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG), "Consumer key deserializer should match.");
-        assertEquals(StringDeserializer.class, configProps.get(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG), "Consumer value deserializer should match.");
+        assertEquals(ErrorHandlingDeserializer.class, configProps.get(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG), "Consumer value deserializer should match.");
+        assertEquals(SensorDataDeserializer.class, configProps.get(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS), "Consumer value delegate should match.");
+        assertEquals(false, configProps.get(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG), "Offsets should be committed manually.");
+    }
+
+    /**
+     * Tests that the listener container factory consumes batches, one consumer per partition.
+     */
+    @Test
+    void testKafkaListenerContainerFactoryConfiguration() {
+        DefaultErrorHandler errorHandler = kafkaConfig.kafkaErrorHandler(kafkaConfig.kafkaTemplate());
+        ConcurrentKafkaListenerContainerFactory<String, SensorData> factory =
+                kafkaConfig.kafkaListenerContainerFactory(kafkaConfig.consumerFactory(), errorHandler);
+
+        assertTrue(factory.isBatchListener(), "Listener factory should deliver batches.");
+        assertEquals(ContainerProperties.AckMode.MANUAL, factory.getContainerProperties().getAckMode(),
+                "Offsets should be acknowledged by the listener.");
+        assertSame(errorHandler, factory.createContainer("sensor-data").getCommonErrorHandler(),
+                "Failed records should be handled by the dead-lettering error handler.");
     }
 
 }
@@ -0,0 +1,162 @@
+package turing.example.iotsenser.consumer;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import turing.example.iotsenser.config.KafkaConfig;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.serialization.SensorDataSerializer;
+import turing.example.iotsenser.service.SensorDataService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Integration test for SensorDataConsumer against the embedded Kafka broker.
+ * Ensures readings produced to the topic are persisted in bulk by the batch listener
+ * and that a reading the database rejects is dead-lettered without losing the others.
+ */
+@SpringJUnitConfig
+@EmbeddedKafka(partitions = 3, topics = {"sensor-data", "sensor-data.DLT"})
+@TestPropertySource(properties = "iotsenser.ingest.mode=kafka")
+class SensorDataConsumerIntegrationTest {
+
+    @Autowired
+    private KafkaTemplate<String, SensorData> kafkaTemplate;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @MockBean
+    private SensorDataService sensorDataService;
+
+    /**
+     * Test case verifying that every produced reading reaches the bulk write.
+     */
+    @Test
+    void testConsumedReadingsArePersisted() throws InterruptedException {
+        List<SensorData> persisted = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<SensorData> batch = invocation.getArgument(0);
+            persisted.addAll(batch);
+            return batch;
+        }).when(sensorDataService).saveSensorDataBatch(anyList());
+
+        for (int i = 0; i < 10; i++) {
+            kafkaTemplate.send("sensor-data", "device" + i,
+                    new SensorData(null, "device" + i, 20.0 + i, 50.0, LocalDateTime.now()));
+        }
+        kafkaTemplate.flush();
+
+        long deadline = System.currentTimeMillis() + 30000;
+        while (persisted.size() < 10 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(10, persisted.size(), "All produced readings should be persisted.");
+    }
+
+    /**
+     * Test case verifying that a record the database keeps rejecting is dead-lettered
+     * while the readings around it are still persisted.
+     */
+    @Test
+    void testFailingReadingIsDeadLettered() throws InterruptedException {
+        List<SensorData> persisted = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<SensorData> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(reading -> reading.getDeviceId().equals("poison"))) {
+                throw new IllegalArgumentException("value too long");
+            }
+            persisted.addAll(batch);
+            return batch;
+        }).when(sensorDataService).saveSensorDataBatch(anyList());
+
+        for (int i = 0; i < 10; i++) {
+            String deviceId = i == 5 ? "poison" : "device" + i;
+            kafkaTemplate.send("sensor-data", "device0",
+                    new SensorData(null, deviceId, 20.0 + i, 50.0, LocalDateTime.now()));
+        }
+        kafkaTemplate.flush();
+
+        Map<String, Object> props = KafkaTestUtils.consumerProps("dead-letter-test", "false", broker);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        try (Consumer<String, byte[]> consumer = new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new ByteArrayDeserializer()).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, "sensor-data.DLT");
+            ConsumerRecord<String, byte[]> deadLetter =
+                    KafkaTestUtils.getSingleRecord(consumer, "sensor-data.DLT", Duration.ofSeconds(30));
+            assertNotNull(deadLetter.headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_MESSAGE),
+                    "The dead letter should record why it failed.");
+        }
+
+        long deadline = System.currentTimeMillis() + 30000;
+        while (persisted.size() < 9 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(9, persisted.size(), "Every other reading should be persisted once.");
+        assertTrue(persisted.stream().noneMatch(reading -> reading.getDeviceId().equals("poison")));
+    }
+
+    /**
+     * Wires the listener to the embedded broker using the application's container settings.
+     */
+    @Configuration
+    @EnableKafka
+    @Import(SensorDataConsumer.class)
+    static class TestConfig {
+
+        @Bean
+        public ConsumerFactory<String, SensorData> consumerFactory(EmbeddedKafkaBroker broker) {
+            Map<String, Object> props = ((DefaultKafkaConsumerFactory<String, SensorData>)
+                    new KafkaConfig().consumerFactory()).getConfigurationProperties();
+            Map<String, Object> overrides = new HashMap<>(props);
+            overrides.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+            return new DefaultKafkaConsumerFactory<>(overrides);
+        }
+
+        @Bean
+        public ConcurrentKafkaListenerContainerFactory<String, SensorData> kafkaListenerContainerFactory(
+                ConsumerFactory<String, SensorData> consumerFactory, KafkaTemplate<String, SensorData> kafkaTemplate) {
+            KafkaConfig kafkaConfig = new KafkaConfig();
+            return kafkaConfig.kafkaListenerContainerFactory(consumerFactory,
+                    kafkaConfig.kafkaErrorHandler(kafkaTemplate));
+        }
+
+        @Bean
+        public KafkaTemplate<String, SensorData> kafkaTemplate(EmbeddedKafkaBroker broker) {
+            Map<String, Object> props = KafkaTestUtils.producerProps(broker);
+            props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+            props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, SensorDataSerializer.class);
+            return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+        }
+    }
+}
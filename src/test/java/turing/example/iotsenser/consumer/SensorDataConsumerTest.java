@@ -0,0 +1,112 @@
+package turing.example.iotsenser.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.service.SensorDataService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SensorDataConsumer.
+ * Ensures batches are persisted before offsets are committed and failing records are reported by index.
+ */
+@ExtendWith(MockitoExtension.class)
+class SensorDataConsumerTest {
+
+    @Mock
+    private SensorDataService sensorDataService;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    @InjectMocks
+    private SensorDataConsumer sensorDataConsumer;
+
+    /**
+     * Test case verifying that a batch is saved in one call and then acknowledged.
+     */
+    @Test
+    void testConsumePersistsThenAcknowledges() {
+        SensorData first = new SensorData(null, "device123", 25.0, 60.0, LocalDateTime.now());
+        SensorData second = new SensorData(null, "device456", 30.0, 70.0, LocalDateTime.now());
+
+        sensorDataConsumer.consume(List.of(record(0, first), record(1, second)), acknowledgment);
+
+        InOrder inOrder = inOrder(sensorDataService, acknowledgment);
+        inOrder.verify(sensorDataService).saveSensorDataBatch(List.of(first, second));
+        inOrder.verify(acknowledgment).acknowledge();
+    }
+
+    /**
+     * Test case verifying that undecodable records are skipped without failing the batch.
+     */
+    @Test
+    void testConsumeSkipsUndecodableRecords() {
+        SensorData valid = new SensorData(null, "device123", 25.0, 60.0, LocalDateTime.now());
+
+        sensorDataConsumer.consume(List.of(record(0, null), record(1, valid)), acknowledgment);
+
+        verify(sensorDataService).saveSensorDataBatch(List.of(valid));
+        verify(acknowledgment).acknowledge();
+    }
+
+    /**
+     * Test case verifying that offsets are not committed when the write fails,
+     * and that the failing record is reported by its index.
+     */
+    @Test
+    void testConsumeDoesNotAcknowledgeOnFailure() {
+        SensorData valid = new SensorData(null, "device123", 25.0, 60.0, LocalDateTime.now());
+        when(sensorDataService.saveSensorDataBatch(anyList())).thenThrow(new IllegalStateException("database down"));
+
+        BatchListenerFailedException e = assertThrows(BatchListenerFailedException.class,
+                () -> sensorDataConsumer.consume(List.of(record(0, valid)), acknowledgment));
+
+        assertEquals(0, e.getIndex());
+        verifyNoInteractions(acknowledgment);
+    }
+
+    /**
+     * Test case verifying that when the bulk write fails, the readings before the failing record are written
+     * one by one and the failing record's index in the polled batch is reported, so the container commits
+     * the offsets before it and retries or dead-letters it alone.
+     */
+    @Test
+    void testConsumeIsolatesFailingRecord() {
+        SensorData first = new SensorData(null, "device123", 25.0, 60.0, LocalDateTime.now());
+        SensorData poison = new SensorData(null, "device456", 30.0, 70.0, LocalDateTime.now());
+        SensorData last = new SensorData(null, "device789", 35.0, 80.0, LocalDateTime.now());
+        when(sensorDataService.saveSensorDataBatch(anyList())).thenAnswer(invocation -> {
+            List<SensorData> batch = invocation.getArgument(0);
+            if (batch.contains(poison)) {
+                throw new IllegalArgumentException("value too long");
+            }
+            return batch;
+        });
+
+        BatchListenerFailedException e = assertThrows(BatchListenerFailedException.class,
+                () -> sensorDataConsumer.consume(List.of(record(0, null), record(1, first), record(2, poison),
+                        record(3, last)), acknowledgment));
+
+        assertEquals(2, e.getIndex(), "The index should point at the failing record, counting skipped records.");
+        verify(sensorDataService).saveSensorDataBatch(List.of(first));
+        verify(sensorDataService, never()).saveSensorDataBatch(List.of(last));
+        verifyNoInteractions(acknowledgment);
+    }
+
+    private static ConsumerRecord<String, SensorData> record(long offset, SensorData value) {
+        return new ConsumerRecord<>("sensor-data", 0, offset, null, value);
+    }
+}
@@ -0,0 +1,129 @@
+package turing.example.iotsenser.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import turing.example.iotsenser.dto.AnomalyCursor;
+import turing.example.iotsenser.dto.AnomalyPage;
+import turing.example.iotsenser.model.Anomaly;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.service.AnomalyDetectionService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AnomalyController.
+ */
+@ExtendWith(MockitoExtension.class)
+class AnomalyControllerTest {
+
+    @InjectMocks
+    private AnomalyController anomalyController;
+
+    @Mock
+    private AnomalyDetectionService anomalyDetectionService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    /**
+     * Test case for fetching the page that follows a cursor.
+     */
+    @Test
+    void testGetAnomalies() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        AnomalyCursor cursor = new AnomalyCursor(from.plusHours(12), 42L);
+        Anomaly anomaly = new Anomaly(41L, "device123", 85.0, 50.0, from.plusHours(11), "Temperature");
+        AnomalyPage page = new AnomalyPage(List.of(anomaly), null);
+        when(anomalyDetectionService.getAnomalyPage("device123", from, to, cursor, 100)).thenReturn(page);
+
+        ResponseEntity<AnomalyPage> response =
+                anomalyController.getAnomalies("device123", from, to, cursor.encode(), 100);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertSame(page, response.getBody());
+    }
+
+    /**
+     * Test case for rejecting empty ranges, invalid sizes and malformed cursors.
+     */
+    @Test
+    void testGetAnomaliesRejectsBadRequest() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        assertEquals(400, anomalyController.getAnomalies(null, from, from, null, 100).getStatusCodeValue());
+        assertEquals(400, anomalyController.getAnomalies(null, from, from.plusDays(1), null, 0).getStatusCodeValue());
+        assertEquals(400, anomalyController.getAnomalies(null, from, from.plusDays(1), null, 5001).getStatusCodeValue());
+        assertEquals(400, anomalyController.getAnomalies(null, from, from.plusDays(1), "%%%", 100).getStatusCodeValue());
+
+        verifyNoInteractions(anomalyDetectionService);
+    }
+
+    /**
+     * Test case for re-scoring readings in bulk.
+     */
+    @Test
+    void testScoreReadings() throws IOException {
+        SensorData hot = new SensorData(null, "device123", 85.0, 60.0, LocalDateTime.now());
+        when(anomalyDetectionService.findAnomalousReadings(anyList())).thenReturn(List.of(hot));
+
+        ResponseEntity<List<SensorData>> response = anomalyController.scoreReadings(json("["
+                + "{\"deviceId\":\"device123\",\"temperature\":25.0,\"humidity\":60.0,"
+                + "\"timestamp\":\"2024-01-01T00:00:00\"},"
+                + "{\"deviceId\":\"device123\",\"temperature\":85.0,\"humidity\":60.0,"
+                + "\"timestamp\":\"2024-01-01T00:01:00\"}]"));
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(List.of(hot), response.getBody());
+        ArgumentCaptor<List<SensorData>> scored = ArgumentCaptor.forClass(List.class);
+        verify(anomalyDetectionService).findAnomalousReadings(scored.capture());
+        assertEquals(List.of(25.0, 85.0), scored.getValue().stream().map(SensorData::getTemperature).toList(),
+                "Readings should be scored in request order.");
+        assertEquals(LocalDateTime.of(2024, 1, 1, 0, 1), scored.getValue().get(1).getTimestamp());
+    }
+
+    /**
+     * Test case for refusing oversized requests before the rest of the body is read.
+     */
+    @Test
+    void testScoreReadingsRejectsTooManyReadings() throws IOException {
+        String reading = "{\"deviceId\":\"device123\",\"temperature\":25.0,\"humidity\":60.0},";
+        InputStream body = json("[" + reading.repeat(101_000) + "{\"deviceId\":\"device123\"}]");
+
+        assertEquals(413, anomalyController.scoreReadings(body).getStatusCodeValue());
+        assertTrue(body.available() > 0, "Reading should stop once the limit is exceeded.");
+        verifyNoInteractions(anomalyDetectionService);
+    }
+
+    /**
+     * Test case for rejecting bodies that are not a JSON array of readings.
+     */
+    @Test
+    void testScoreReadingsRejectsBadRequest() throws IOException {
+        assertEquals(400, anomalyController.scoreReadings(json("{\"deviceId\":\"device123\"}")).getStatusCodeValue());
+        assertEquals(400, anomalyController.scoreReadings(json("[1, 2]")).getStatusCodeValue());
+        assertEquals(400, anomalyController.scoreReadings(json("[{\"deviceId\":")).getStatusCodeValue());
+
+        verifyNoInteractions(anomalyDetectionService);
+    }
+
+    private static InputStream json(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
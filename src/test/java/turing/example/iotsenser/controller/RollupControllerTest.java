@@ -0,0 +1,60 @@
+package turing.example.iotsenser.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import turing.example.iotsenser.dto.RollupView;
+import turing.example.iotsenser.model.RollupResolution;
+import turing.example.iotsenser.service.RollupService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RollupController.
+ */
+@ExtendWith(MockitoExtension.class)
+class RollupControllerTest {
+
+    @InjectMocks
+    private RollupController rollupController;
+
+    @Mock
+    private RollupService rollupService;
+
+    /**
+     * Test case for retrieving rollups at a given resolution.
+     */
+    @Test
+    void testGetRollups() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        RollupView view = new RollupView(from, 10, 20.0, 30.0, 25.0, 40.0, 60.0, 50.0);
+        when(rollupService.getRollups("device123", RollupResolution.HOUR, from, to)).thenReturn(List.of(view));
+
+        ResponseEntity<List<RollupView>> response = rollupController.getRollups("device123", "1h", from, to);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(List.of(view), response.getBody());
+    }
+
+    /**
+     * Test case for rejecting unknown resolutions, empty ranges and ranges with too many buckets.
+     */
+    @Test
+    void testGetRollupsRejectsBadRequest() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        assertEquals(400, rollupController.getRollups("device123", "5m", from, from.plusHours(1)).getStatusCodeValue());
+        assertEquals(400, rollupController.getRollups("device123", "1h", from, from).getStatusCodeValue());
+        assertEquals(400, rollupController.getRollups("device123", "1m", from, from.plusYears(1)).getStatusCodeValue());
+
+        verifyNoInteractions(rollupService);
+    }
+}
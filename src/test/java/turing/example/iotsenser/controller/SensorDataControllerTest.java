@@ -1,18 +1,40 @@
 package turing.example.iotsenser.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import turing.example.iotsenser.device.DeviceLimitExceededException;
+import turing.example.iotsenser.dto.BatchIngestResponse;
+import turing.example.iotsenser.dto.SensorDataCursor;
+import turing.example.iotsenser.dto.SensorDataPage;
+import turing.example.iotsenser.dto.SensorReadingView;
+import turing.example.iotsenser.ingest.ReadingBatch;
+import turing.example.iotsenser.ingest.ReadingBatchParser;
+import turing.example.iotsenser.ingest.ReadingBatchPool;
 import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.service.SensorDataPublisher;
 import turing.example.iotsenser.service.SensorDataService;
+import turing.example.iotsenser.stream.LiveStreamHub;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,7 +49,19 @@ class SensorDataControllerTest {
     private SensorDataService sensorDataService;
 
     @Mock
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private SensorDataPublisher sensorDataPublisher;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Spy
+    private ReadingBatchParser readingBatchParser = new ReadingBatchParser(new ObjectMapper());
+
+    @Spy
+    private ReadingBatchPool readingBatchPool = new ReadingBatchPool(2);
+
+    @Mock
+    private LiveStreamHub liveStreamHub;
 
     private SensorData sensorData;
 
@@ -51,25 +85,321 @@ class SensorDataControllerTest {
         assertEquals("Sensor data ingested successfully.", response.getBody());
 
         verify(sensorDataService, times(1)).saveSensorData(sensorData);
-        verify(kafkaTemplate, times(1)).send("sensor-data", sensorData.toString());
+        verify(sensorDataPublisher, times(1)).publish(sensorData);
+    }
+
+    /**
+     * Test case for ingesting a reading of a new device when the device registry is full.
+     */
+    @Test
+    void testIngestSensorDataDeviceLimitReached() {
+        when(sensorDataService.saveSensorData(sensorData)).thenThrow(new DeviceLimitExceededException("device123", 1));
+
+        ResponseEntity<String> response = sensorDataController.ingestSensorData(sensorData);
+
+        assertEquals(507, response.getStatusCodeValue());
+        verifyNoInteractions(sensorDataPublisher);
+    }
+
+    /**
+     * Test case for ingesting sensor data in Kafka-first mode.
+     * Ensures the reading is only produced to Kafka and 202 is returned after the broker acknowledges it.
+     */
+    @Test
+    void testIngestSensorDataKafkaFirst() {
+        when(sensorDataService.isKafkaFirstEnabled()).thenReturn(true);
+        when(sensorDataPublisher.publishAndAwait(List.of(sensorData), 5000)).thenReturn(true);
+
+        ResponseEntity<String> response = sensorDataController.ingestSensorData(sensorData);
+
+        assertEquals(202, response.getStatusCodeValue());
+        verify(sensorDataService, never()).saveSensorData(any());
+    }
+
+    /**
+     * Test case for Kafka-first ingest when the broker rejects the reading.
+     */
+    @Test
+    void testIngestSensorDataKafkaFirstPublishFailure() {
+        when(sensorDataService.isKafkaFirstEnabled()).thenReturn(true);
+        when(sensorDataPublisher.publishAndAwait(List.of(sensorData), 5000)).thenReturn(false);
+
+        ResponseEntity<String> response = sensorDataController.ingestSensorData(sensorData);
+
+        assertEquals(503, response.getStatusCodeValue());
+        verify(sensorDataService, never()).saveSensorData(any());
+    }
+
+    /**
+     * Test case for Kafka-first mode with an out-of-range reading.
+     * Ensures it is rejected with 400 instead of being published for the consumer to skip.
+     */
+    @Test
+    void testIngestSensorDataKafkaFirstRejectsInvalidReading() {
+        sensorData.setHumidity(-5.0);
+
+        ResponseEntity<String> response = sensorDataController.ingestSensorData(sensorData);
+
+        assertEquals(400, response.getStatusCodeValue());
+        assertEquals("Humidity out of range", response.getBody());
+        verifyNoInteractions(sensorDataPublisher);
+    }
+
+    /**
+     * Test case for ingesting sensor data in WAL mode.
+     * Ensures the reading is only appended to the write-ahead log and 202 is returned.
+     */
+    @Test
+    void testIngestSensorDataWal() {
+        when(sensorDataService.isWalEnabled()).thenReturn(true);
+        when(sensorDataService.appendToWal(List.of(sensorData))).thenReturn(true);
+
+        ResponseEntity<String> response = sensorDataController.ingestSensorData(sensorData);
+
+        assertEquals(202, response.getStatusCodeValue());
+        verify(sensorDataService, never()).saveSensorData(any());
+        verifyNoInteractions(sensorDataPublisher);
+    }
+
+    /**
+     * Test case for WAL mode when the log refuses the reading.
+     */
+    @Test
+    void testIngestSensorDataWalUnavailable() {
+        when(sensorDataService.isWalEnabled()).thenReturn(true);
+        when(sensorDataService.appendToWal(List.of(sensorData))).thenReturn(false);
+
+        ResponseEntity<String> response = sensorDataController.ingestSensorData(sensorData);
+
+        assertEquals(503, response.getStatusCodeValue());
+        assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+    }
+
+    /**
+     * Test case for WAL mode with an invalid reading.
+     * Ensures it is rejected with 400 before it reaches the log, where it could not be replayed.
+     */
+    @Test
+    void testIngestSensorDataWalRejectsInvalidReading() {
+        sensorData.setDeviceId(null);
+
+        ResponseEntity<String> response = sensorDataController.ingestSensorData(sensorData);
+
+        assertEquals(400, response.getStatusCodeValue());
+        assertEquals("Device ID cannot be empty", response.getBody());
+        verify(sensorDataService, never()).appendToWal(anyList());
+        verifyNoInteractions(sensorDataPublisher);
+    }
+
+    /**
+     * Test case for ingesting sensor data in write-behind mode.
+     * Ensures the reading is buffered instead of saved and 202 is returned.
+     */
+    @Test
+    void testIngestSensorDataWriteBehind() {
+        when(sensorDataService.isWriteBehindEnabled()).thenReturn(true);
+        when(sensorDataService.submitSensorData(sensorData)).thenReturn(true);
+
+        ResponseEntity<String> response = sensorDataController.ingestSensorData(sensorData);
+
+        assertEquals(202, response.getStatusCodeValue());
+        verify(sensorDataService, never()).saveSensorData(any());
+        verify(sensorDataPublisher, times(1)).publish(sensorData);
+    }
+
+    /**
+     * Test case for write-behind mode with an out-of-range reading.
+     * Ensures it is rejected with 400 instead of being acknowledged and dropped at flush time.
+     */
+    @Test
+    void testIngestSensorDataWriteBehindRejectsInvalidReading() {
+        sensorData.setTemperature(150.0);
+
+        ResponseEntity<String> response = sensorDataController.ingestSensorData(sensorData);
+
+        assertEquals(400, response.getStatusCodeValue());
+        assertEquals("Temperature out of range", response.getBody());
+        verify(sensorDataService, never()).submitSensorData(any());
+    }
+
+    /**
+     * Test case for backpressure when the write-behind buffer is full.
+     */
+    @Test
+    void testIngestSensorDataWriteBehindFull() {
+        when(sensorDataService.isWriteBehindEnabled()).thenReturn(true);
+        when(sensorDataService.submitSensorData(sensorData)).thenReturn(false);
+
+        ResponseEntity<String> response = sensorDataController.ingestSensorData(sensorData);
+
+        assertEquals(429, response.getStatusCodeValue());
+        assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+        verifyNoInteractions(sensorDataPublisher);
+    }
+
+    /**
+     * Test case for ingesting a JSON array batch.
+     * Ensures valid readings are saved together and invalid ones are reported.
+     */
+    @Test
+    void testIngestSensorDataBatch() throws IOException {
+        List<SensorData> saved = new ArrayList<>();
+        when(sensorDataService.saveReadingBatch(any())).thenAnswer(invocation -> {
+            saved.addAll(invocation.<ReadingBatch>getArgument(0).toSensorData());
+            return saved;
+        });
+        String body = "[{\"deviceId\":\"device123\",\"temperature\":25.5,\"humidity\":60.0},"
+                + "{\"deviceId\":\"device123\",\"temperature\":150.0,\"humidity\":60.0}]";
+
+        ResponseEntity<BatchIngestResponse> response = sensorDataController.ingestSensorDataBatch(stream(body));
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(1, response.getBody().getAccepted());
+        assertEquals(1, response.getBody().getRejected());
+        assertEquals(1, response.getBody().getErrors().get(0).getIndex());
+        assertEquals(1, saved.size(), "Only the valid reading should be saved.");
+        assertNotNull(saved.get(0).getTimestamp(), "Missing timestamps should default to now.");
+
+        verify(sensorDataPublisher, times(1)).publish(saved.get(0));
+        verify(readingBatchPool, times(1)).release(any());
     }
 
     /**
-     * Test case for retrieving all sensor data.
-     * Ensures the response contains the expected list.
+     * Test case for batch bodies that are not a JSON array or exceed the maximum batch size.
+     */
+    @Test
+    void testIngestSensorDataBatchRejectsBadRequest() throws IOException {
+        StringBuilder tooLarge = new StringBuilder("[");
+        for (int i = 0; i <= 5000; i++) {
+            tooLarge.append(i == 0 ? "" : ",").append("{\"deviceId\":\"d\",\"temperature\":1,\"humidity\":1}");
+        }
+
+        assertEquals(400, sensorDataController.ingestSensorDataBatch(stream("{\"deviceId\":")).getStatusCodeValue());
+        assertEquals(413, sensorDataController.ingestSensorDataBatch(stream(tooLarge.append("]").toString()))
+                .getStatusCodeValue());
+
+        verify(sensorDataService, never()).saveReadingBatch(any());
+        verify(readingBatchPool, times(2)).release(any());
+    }
+
+    /**
+     * Test case for a batch bringing new devices the device registry has no room for.
+     */
+    @Test
+    void testIngestSensorDataBatchDeviceLimitReached() throws IOException {
+        when(sensorDataService.saveReadingBatch(any())).thenThrow(new DeviceLimitExceededException("device123", 1));
+
+        ResponseEntity<BatchIngestResponse> response = sensorDataController.ingestSensorDataBatch(
+                stream("[{\"deviceId\":\"device123\",\"temperature\":25.5,\"humidity\":60.0}]"));
+
+        assertEquals(507, response.getStatusCodeValue());
+        verifyNoInteractions(sensorDataPublisher);
+        verify(readingBatchPool, times(1)).release(any());
+    }
+
+    /**
+     * Test case for ingesting a batch in WAL mode.
+     * Ensures the decoded batch goes straight to the write-ahead log.
+     */
+    @Test
+    void testIngestSensorDataBatchWal() throws IOException {
+        when(sensorDataService.isWalEnabled()).thenReturn(true);
+        when(sensorDataService.appendToWal(any(ReadingBatch.class))).thenReturn(true);
+
+        ResponseEntity<BatchIngestResponse> response = sensorDataController.ingestSensorDataBatch(
+                stream("[{\"deviceId\":\"device123\",\"temperature\":25.5,\"humidity\":60.0}]"));
+
+        assertEquals(202, response.getStatusCodeValue());
+        assertEquals(1, response.getBody().getAccepted());
+        verify(sensorDataService, never()).saveReadingBatch(any());
+        verifyNoInteractions(sensorDataPublisher);
+    }
+
+    /**
+     * Test case for ingesting an NDJSON batch containing a malformed line.
+     */
+    @Test
+    void testIngestSensorDataNdjson() throws IOException {
+        when(sensorDataService.saveReadingBatch(any()))
+                .thenAnswer(invocation -> invocation.<ReadingBatch>getArgument(0).toSensorData());
+        String body = "{\"deviceId\":\"device123\",\"temperature\":25.5,\"humidity\":60.0}\n"
+                + "not-json\n"
+                + "{\"deviceId\":\"device456\",\"temperature\":20.0,\"humidity\":40.0,"
+                + "\"timestamp\":\"2024-01-01T10:00:00\"}\n";
+
+        ResponseEntity<BatchIngestResponse> response = sensorDataController.ingestSensorDataNdjson(stream(body));
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(2, response.getBody().getAccepted());
+        assertEquals(1, response.getBody().getRejected());
+        assertEquals(1, response.getBody().getErrors().get(0).getIndex());
+        assertEquals("Malformed JSON", response.getBody().getErrors().get(0).getReason());
+
+        verify(sensorDataService, times(1)).saveReadingBatch(any());
+        verify(sensorDataPublisher, times(2)).publish(any(SensorData.class));
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test case for paging through all sensor data.
+     * Ensures the cursor is decoded and the service page is returned.
      */
     @Test
     void testGetAllSensorData() {
-        List<SensorData> mockData = Arrays.asList(sensorData);
-        when(sensorDataService.getAllSensorData()).thenReturn(mockData);
+        SensorDataCursor cursor = new SensorDataCursor(LocalDateTime.of(2024, 1, 1, 12, 0), 42L);
+        SensorDataPage page = new SensorDataPage(Arrays.asList(sensorData), "next");
+        when(sensorDataService.getSensorDataPage(cursor, 100)).thenReturn(page);
 
-        ResponseEntity<List<SensorData>> response = sensorDataController.getAllSensorData();
+        ResponseEntity<SensorDataPage> response = sensorDataController.getAllSensorData(cursor.encode(), 100);
 
         assertEquals(200, response.getStatusCodeValue());
-        assertEquals(1, response.getBody().size());
-        assertEquals("device123", response.getBody().get(0).getDeviceId());
+        assertEquals(1, response.getBody().getItems().size());
+        assertEquals("device123", response.getBody().getItems().get(0).getDeviceId());
+        assertEquals("next", response.getBody().getNextCursor());
 
-        verify(sensorDataService, times(1)).getAllSensorData();
+        verify(sensorDataService, times(1)).getSensorDataPage(cursor, 100);
+    }
+
+    /**
+     * Test case for paging with an invalid cursor or page size.
+     * Ensures the request is rejected without querying the database.
+     */
+    @Test
+    void testGetAllSensorDataRejectsBadRequest() {
+        assertEquals(400, sensorDataController.getAllSensorData("not-a-cursor", 100).getStatusCodeValue());
+        assertEquals(400, sensorDataController.getAllSensorData(null, 0).getStatusCodeValue());
+        assertEquals(400, sensorDataController.getAllSensorData(null, 5001).getStatusCodeValue());
+
+        verifyNoInteractions(sensorDataService);
+    }
+
+    /**
+     * Test case for exporting sensor data as NDJSON.
+     * Ensures every exported reading is written as one JSON line.
+     */
+    @Test
+    void testExportSensorData() throws IOException {
+        sensorData.setTimestamp(LocalDateTime.of(2024, 1, 1, 12, 0));
+        SensorData second = new SensorData(2L, "device456", 30.0, 70.0, LocalDateTime.of(2024, 1, 1, 12, 1));
+        doAnswer(invocation -> {
+            Consumer<SensorData> sink = invocation.getArgument(0);
+            sink.accept(sensorData);
+            sink.accept(second);
+            return 2L;
+        }).when(sensorDataService).exportSensorData(any());
+
+        ResponseEntity<StreamingResponseBody> response = sensorDataController.exportSensorData();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(2, lines.length, "Each reading should be written on its own line.");
+        assertEquals("device123", objectMapper.readTree(lines[0]).get("deviceId").asText());
+        assertEquals("device456", objectMapper.readTree(lines[1]).get("deviceId").asText());
     }
 
     /**
@@ -90,6 +420,101 @@ class SensorDataControllerTest {
         verify(sensorDataService, times(1)).getSensorDataByDevice("device123");
     }
 
+    /**
+     * Test case for retrieving a device's latest reading.
+     * Ensures a cached reading is returned and an unknown device yields 404.
+     */
+    @Test
+    void testGetLatestReading() {
+        SensorReadingView view = new SensorReadingView(1L, "device123", 25.5, 60.0, LocalDateTime.now());
+        when(sensorDataService.getLatestReading("device123")).thenReturn(Optional.of(view));
+        when(sensorDataService.getLatestReading("unknown")).thenReturn(Optional.empty());
+
+        ResponseEntity<SensorReadingView> found = sensorDataController.getLatestReading("device123");
+        ResponseEntity<SensorReadingView> missing = sensorDataController.getLatestReading("unknown");
+
+        assertEquals(200, found.getStatusCodeValue());
+        assertSame(view, found.getBody());
+        assertEquals(404, missing.getStatusCodeValue());
+    }
+
+    /**
+     * Test case for retrieving the latest readings of many devices.
+     */
+    @Test
+    void testGetLatestReadings() {
+        SensorReadingView view = new SensorReadingView(1L, "device123", 25.5, 60.0, LocalDateTime.now());
+        when(sensorDataService.getLatestReadings(List.of("device123", "unknown"))).thenReturn(List.of(view));
+
+        ResponseEntity<List<SensorReadingView>> response =
+                sensorDataController.getLatestReadings(List.of("device123", "unknown"));
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(List.of(view), response.getBody());
+    }
+
+    /**
+     * Test case for retrieving a device's readings within a time range.
+     * Ensures the bounds and limit are passed through to the service.
+     */
+    @Test
+    void testGetSensorDataByDeviceInRange() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 12, 0);
+        LocalDateTime to = from.plusMinutes(15);
+        SensorReadingView view = new SensorReadingView(1L, "device123", 25.5, 60.0, from.plusMinutes(1));
+        when(sensorDataService.getSensorDataByDevice("device123", from, to, 100)).thenReturn(List.of(view));
+
+        ResponseEntity<List<SensorReadingView>> response =
+                sensorDataController.getSensorDataByDeviceInRange("device123", from, to, 100);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(List.of(view), response.getBody());
+    }
+
+    /**
+     * Test case for time-range queries with an empty range or invalid limit.
+     * Ensures the request is rejected without querying the database.
+     */
+    @Test
+    void testGetSensorDataByDeviceInRangeRejectsBadRequest() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        assertEquals(400, sensorDataController.getSensorDataByDeviceInRange("device123", from, from, 100)
+                .getStatusCodeValue());
+        assertEquals(400, sensorDataController.getSensorDataByDeviceInRange("device123", from, null, 0)
+                .getStatusCodeValue());
+
+        verifyNoInteractions(sensorDataService);
+    }
+
+    /**
+     * Test case for subscribing to the live stream.
+     * Ensures the hub's emitter is returned for the requested devices.
+     */
+    @Test
+    void testStreamSensorData() {
+        SseEmitter emitter = new SseEmitter();
+        when(liveStreamHub.subscribe(List.of("device123", "device456"))).thenReturn(emitter);
+
+        ResponseEntity<SseEmitter> response = sensorDataController.streamSensorData(List.of("device123", "device456"));
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertSame(emitter, response.getBody());
+    }
+
+    /**
+     * Test case for subscribing to the live stream when the node is full or the device list is invalid.
+     * Ensures 503 and 400 are returned respectively.
+     */
+    @Test
+    void testStreamSensorDataRejected() {
+        when(liveStreamHub.subscribe(List.of("device123"))).thenReturn(null);
+        when(liveStreamHub.subscribe(List.of())).thenThrow(new IllegalArgumentException("no devices"));
+
+        assertEquals(503, sensorDataController.streamSensorData(List.of("device123")).getStatusCodeValue());
+        assertEquals(400, sensorDataController.streamSensorData(List.of()).getStatusCodeValue());
+    }
+
     /**
      * Test case for the health check endpoint.
      * Ensures it returns the correct status message.
@@ -0,0 +1,123 @@
+package turing.example.iotsenser.detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CompiledRules.
+ * Ensures the flattened program agrees with the rules it was compiled from.
+ */
+class CompiledRulesTest {
+
+    private static final int TEMPERATURE =
+            CompiledRules.input(RuleExpression.ValueKind.VALUE, RuleExpression.Metric.TEMPERATURE);
+    private static final int HUMIDITY =
+            CompiledRules.input(RuleExpression.ValueKind.VALUE, RuleExpression.Metric.HUMIDITY);
+
+    /**
+     * Test case verifying that compound conditions evaluate like their boolean expressions.
+     */
+    @Test
+    void testCompoundConditions() {
+        CompiledRules rules = compile(
+                "hot-and-dry", "temperature > 20 and humidity < 20",
+                "either", "temperature > 80 or humidity > 90",
+                "not-mild", "not (temperature >= 10 and temperature <= 25)");
+
+        assertNull(rules.evaluate(inputs(20, 50), 0, null, null), "A mild reading should match nothing.");
+        assertEquals(List.of(
+                        new Finding("hot-and-dry", "Rule hot-and-dry matched: temperature > 20 and humidity < 20")),
+                rules.evaluate(inputs(24, 15), 0, null, null));
+        assertEquals(List.of(new Finding("either", "Rule either matched: temperature > 80 or humidity > 90"),
+                        new Finding("not-mild",
+                                "Rule not-mild matched: not (temperature >= 10 and temperature <= 25)")),
+                rules.evaluate(inputs(85, 50), 0, null, null));
+    }
+
+    /**
+     * Test case verifying that unknown inputs fail comparisons.
+     */
+    @Test
+    void testUnknownInputsFailComparisons() {
+        CompiledRules rules = compile("fast", "abs(rate(temperature)) > 5");
+        double[] inputs = inputs(20, 50);
+
+        assertNull(rules.evaluate(inputs, 0, null, null), "An unknown rate should not match.");
+        inputs[CompiledRules.input(RuleExpression.ValueKind.RATE, RuleExpression.Metric.TEMPERATURE)] = -6;
+        assertNotNull(rules.evaluate(inputs, 0, null, null), "A fast drop should match.");
+    }
+
+    /**
+     * Test case verifying that a flat condition holds once the value has stayed put for the duration.
+     */
+    @Test
+    void testFlatCondition() {
+        CompiledRules rules = compile("stuck", "flat(humidity, 10s, 0.5)");
+        double[] flatValues = new double[rules.flatSlots()];
+        long[] flatSince = new long[rules.flatSlots()];
+        Arrays.fill(flatSince, Long.MIN_VALUE);
+
+        assertNull(rules.evaluate(inputs(20, 50.0), 0, flatValues, flatSince));
+        assertNull(rules.evaluate(inputs(20, 50.4), 5_000, flatValues, flatSince));
+        assertNotNull(rules.evaluate(inputs(20, 49.6), 10_000, flatValues, flatSince), "Humidity has not moved.");
+        assertNull(rules.evaluate(inputs(20, 52.0), 11_000, flatValues, flatSince), "A change should reset it.");
+        assertNull(rules.evaluate(inputs(20, 52.0), 20_000, flatValues, flatSince));
+        assertNotNull(rules.evaluate(inputs(20, 52.0), 21_000, flatValues, flatSince));
+        assertNull(rules.evaluate(inputs(20, 52.0), 30_000, null, null), "Without state flat should not hold.");
+    }
+
+    /**
+     * Test case verifying that conditions nesting deeper than the evaluation stack are rejected.
+     */
+    @Test
+    void testRejectsDeepNesting() {
+        StringBuilder condition = new StringBuilder("temperature > 0");
+        for (int i = 0; i < 70; i++) {
+            condition = new StringBuilder("humidity > 0 and (").append(condition).append(")");
+        }
+        String deep = condition.toString();
+
+        assertThrows(IllegalArgumentException.class, () -> compile("deep", deep));
+    }
+
+    /**
+     * Test case verifying that every matching rule is reported under its name, whatever the name looks like.
+     */
+    @Test
+    void testReportsEveryMatchingRule() {
+        List<String> namesAndConditions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            namesAndConditions.add(i + "-zone");
+            namesAndConditions.add("temperature > 0");
+        }
+        CompiledRules rules = compile(namesAndConditions.toArray(String[]::new));
+
+        List<Finding> findings = rules.evaluate(inputs(20, 50), 0, null, null);
+        assertEquals(20, findings.size());
+        assertEquals("7-zone", findings.get(7).rule());
+    }
+
+    private static CompiledRules compile(String... namesAndConditions) {
+        List<RuleDefinition> definitions = new ArrayList<>();
+        List<RuleExpression> conditions = new ArrayList<>();
+        for (int i = 0; i < namesAndConditions.length; i += 2) {
+            definitions.add(new RuleDefinition(namesAndConditions[i], RuleScope.GLOBAL, null,
+                    namesAndConditions[i + 1]));
+            conditions.add(RuleParser.parse(namesAndConditions[i + 1]));
+        }
+        return CompiledRules.compile(definitions, conditions);
+    }
+
+    private static double[] inputs(double temperature, double humidity) {
+        double[] inputs = new double[CompiledRules.INPUTS];
+        Arrays.fill(inputs, Double.NaN);
+        inputs[TEMPERATURE] = temperature;
+        inputs[HUMIDITY] = humidity;
+        return inputs;
+    }
+}
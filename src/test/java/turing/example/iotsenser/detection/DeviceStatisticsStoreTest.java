@@ -0,0 +1,110 @@
+package turing.example.iotsenser.detection;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DeviceStatisticsStore.
+ * Ensures per-device baselines are tracked independently and score outliers.
+ */
+class DeviceStatisticsStoreTest {
+
+    /**
+     * Test case verifying that z-scores are suppressed until the device has warmed up.
+     */
+    @Test
+    void testWarmupSuppressesScores() {
+        DeviceStatisticsStore store = new DeviceStatisticsStore(0.1, 5, 4, 16);
+        double[] zScores = new double[2];
+
+        for (int i = 0; i < 5; i++) {
+            store.observe(1, i % 2 == 0 ? 20.0 : 22.0, 50.0, zScores);
+            assertEquals(0.0, zScores[0], "Scores should be zero during warmup.");
+        }
+        assertEquals(5, store.sampleCount(1));
+    }
+
+    /**
+     * Test case verifying that a jump away from the device's baseline yields a large z-score.
+     */
+    @Test
+    void testOutlierScoresHigh() {
+        DeviceStatisticsStore store = new DeviceStatisticsStore(0.1, 10, 4, 16);
+        double[] zScores = new double[2];
+        for (int i = 0; i < 200; i++) {
+            store.observe(1, i % 2 == 0 ? 20.0 : 22.0, i % 2 == 0 ? 50.0 : 51.0, zScores);
+        }
+
+        store.observe(1, 21.0, 50.5, zScores);
+        assertTrue(Math.abs(zScores[0]) < 1.0, "A typical reading should score low.");
+
+        store.observe(1, 40.0, 50.5, zScores);
+        assertTrue(zScores[0] > 10.0, "A 19-degree jump should score far above the baseline.");
+        assertTrue(Math.abs(zScores[1]) < 1.0, "Humidity should be scored independently.");
+    }
+
+    /**
+     * Test case verifying that a baseline is only reported once the device has warmed up, and is not updated by reading it.
+     */
+    @Test
+    void testBaseline() {
+        DeviceStatisticsStore store = new DeviceStatisticsStore(0.1, 10, 4, 16);
+        double[] zScores = new double[2];
+        double[] baseline = new double[4];
+        assertFalse(store.baseline(1, baseline), "An unknown device has no baseline.");
+        for (int i = 0; i < 200; i++) {
+            store.observe(1, i % 2 == 0 ? 20.0 : 22.0, 50.0, zScores);
+            assertEquals(i >= 9, store.baseline(1, baseline), "Baseline should appear after warmup, sample " + i);
+        }
+
+        assertEquals(21.0, baseline[0], 0.2, "Temperature mean should sit between the alternating readings.");
+        assertEquals(1.0, baseline[1], 0.2, "Temperature deviation should match the alternation.");
+        assertEquals(50.0, baseline[2], 1e-9, "Humidity mean should match the constant readings.");
+        assertEquals(0.0, baseline[3], 1e-9, "Constant humidity has no deviation.");
+        assertEquals(200, store.sampleCount(1), "Reading the baseline should not count as a sample.");
+    }
+
+    /**
+     * Test case verifying that devices keep separate baselines, so a hot device is not an outlier.
+     */
+    @Test
+    void testDevicesAreIndependent() {
+        DeviceStatisticsStore store = new DeviceStatisticsStore(0.1, 10, 4, 16);
+        double[] zScores = new double[2];
+        for (int i = 0; i < 100; i++) {
+            store.observe(1, i % 2 == 0 ? 5.0 : 6.0, 40.0, zScores);
+            store.observe(2, i % 2 == 0 ? 85.0 : 86.0, 40.0, zScores);
+        }
+
+        store.observe(2, 85.5, 40.0, zScores);
+        assertTrue(Math.abs(zScores[0]) < 1.0, "Hot device should be judged against its own baseline.");
+        assertEquals(2, store.size());
+    }
+
+    /**
+     * Test case verifying that the tables grow past their initial sizing without losing state.
+     */
+    @Test
+    void testGrowsBeyondExpectedDevices() {
+        DeviceStatisticsStore store = new DeviceStatisticsStore(0.1, 1, 2, 16);
+        double[] zScores = new double[2];
+        for (int i = 0; i < 10_000; i++) {
+            store.observe(i, 20.0, 50.0, zScores);
+        }
+        store.observe(42, 20.0, 50.0, zScores);
+
+        assertEquals(10_000, store.size());
+        assertEquals(2, store.sampleCount(42));
+        assertEquals(0, store.sampleCount(-1));
+    }
+
+    /**
+     * Test case verifying invalid smoothing factors are rejected.
+     */
+    @Test
+    void testRejectsInvalidAlpha() {
+        assertThrows(IllegalArgumentException.class, () -> new DeviceStatisticsStore(0.0, 1, 1, 16));
+        assertThrows(IllegalArgumentException.class, () -> new DeviceStatisticsStore(1.5, 1, 1, 16));
+    }
+}
@@ -0,0 +1,117 @@
+package turing.example.iotsenser.detection;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DeviceWindowStore.
+ * Ensures windows yield rates of change and flatline durations per device, and track silence.
+ */
+class DeviceWindowStoreTest {
+
+    private final double[] findings = new double[DeviceWindowStore.FINDINGS];
+
+    /**
+     * Test case verifying that the rate is taken against the sample that changed fastest relative to the reading.
+     */
+    @Test
+    void testRateOfChange() {
+        DeviceWindowStore store = new DeviceWindowStore(8, 60_000, 1_000, 0, 16);
+
+        assertTrue(store.observe(1, 0, 20.0, 50.0, findings), "A new device should be watched for gaps.");
+        assertTrue(Double.isNaN(findings[DeviceWindowStore.TEMPERATURE_RATE]), "No rate without history.");
+        assertFalse(store.observe(1, 500, 20.5, 50.0, findings));
+        assertTrue(Double.isNaN(findings[DeviceWindowStore.TEMPERATURE_RATE]), "Samples under 1s old are skipped.");
+
+        store.observe(1, 10_000, 40.0, 49.0, findings);
+        assertEquals(19.5 / 9.5, findings[DeviceWindowStore.TEMPERATURE_RATE], 1e-9);
+        assertEquals(9_500, findings[DeviceWindowStore.TEMPERATURE_RATE_SPAN]);
+        assertEquals(-1.0 / 9.5, findings[DeviceWindowStore.HUMIDITY_RATE], 1e-9);
+    }
+
+    /**
+     * Test case verifying that samples beyond the window's span or capacity are not considered.
+     */
+    @Test
+    void testWindowBounds() {
+        DeviceWindowStore store = new DeviceWindowStore(4, 30_000, 1_000, 0, 16);
+        store.observe(1, 0, 0.0, 50.0, findings);
+        for (int i = 1; i <= 4; i++) {
+            store.observe(1, i * 10_000L, 100.0, 50.0, findings);
+        }
+
+        store.observe(1, 50_000, 100.0, 50.0, findings);
+        assertEquals(0.0, findings[DeviceWindowStore.TEMPERATURE_RATE], "The 0 reading has left the ring.");
+
+        store.observe(1, 200_000, 100.0, 50.0, findings);
+        assertTrue(Double.isNaN(findings[DeviceWindowStore.TEMPERATURE_RATE]), "Everything is older than 30s.");
+    }
+
+    /**
+     * Test case verifying that flatline durations accumulate while a metric stays within tolerance.
+     */
+    @Test
+    void testFlatline() {
+        DeviceWindowStore store = new DeviceWindowStore(8, 60_000, 1_000, 0.1, 16);
+        store.observe(1, 0, 20.0, 50.0, findings);
+        store.observe(1, 60_000, 20.05, 55.0, findings);
+        store.observe(1, 120_000, 19.95, 55.0, findings);
+
+        assertEquals(120_000, findings[DeviceWindowStore.TEMPERATURE_FLAT], "Temperature stayed within 0.1.");
+        assertEquals(60_000, findings[DeviceWindowStore.HUMIDITY_FLAT], "Humidity moved after the first reading.");
+
+        store.observe(1, 180_000, 21.0, 55.0, findings);
+        assertEquals(0, findings[DeviceWindowStore.TEMPERATURE_FLAT], "A change should restart the flatline.");
+    }
+
+    /**
+     * Test case verifying that out-of-order readings are ignored.
+     */
+    @Test
+    void testIgnoresOlderReadings() {
+        DeviceWindowStore store = new DeviceWindowStore(8, 60_000, 1_000, 0, 16);
+        store.observe(1, 10_000, 20.0, 50.0, findings);
+
+        store.observe(1, 5_000, 90.0, 50.0, findings);
+        store.observe(1, 20_000, 20.0, 50.0, findings);
+
+        assertEquals(0.0, findings[DeviceWindowStore.TEMPERATURE_RATE], "The late reading should not be in the window.");
+    }
+
+    /**
+     * Test case verifying that a device goes silent once its timeout passes and is watched again when it reports.
+     */
+    @Test
+    void testExpire() {
+        DeviceWindowStore store = new DeviceWindowStore(8, 60_000, 1_000, 0, 16);
+        double[] lastReading = new double[3];
+        store.observe(1, 1_000, 20.0, 50.0, findings);
+
+        assertEquals(DeviceWindowStore.UNWATCHED, store.expire(2, 100_000, 60_000, lastReading));
+        assertEquals(61_000, store.expire(1, 30_000, 60_000, lastReading), "The device is still reporting.");
+        assertEquals(DeviceWindowStore.SILENT, store.expire(1, 61_000, 60_000, lastReading));
+        assertEquals(20.0, lastReading[0], "Last temperature should be reported.");
+        assertEquals(50.0, lastReading[1], "Last humidity should be reported.");
+        assertEquals(1_000, lastReading[2], "Last reading time should be reported.");
+        assertEquals(DeviceWindowStore.UNWATCHED, store.expire(1, 62_000, 60_000, lastReading), "Reported once.");
+
+        assertTrue(store.observe(1, 70_000, 20.0, 50.0, findings), "A returning device should be watched again.");
+    }
+
+    /**
+     * Test case verifying that windows survive the page table growing well past its initial size.
+     */
+    @Test
+    void testManyDevices() {
+        DeviceWindowStore store = new DeviceWindowStore(8, 60_000, 1_000, 0, 16);
+        for (int deviceKey = 1; deviceKey <= 10_000; deviceKey++) {
+            store.observe(deviceKey, 0, deviceKey, 50.0, findings);
+        }
+        for (int deviceKey = 1; deviceKey <= 10_000; deviceKey++) {
+            store.observe(deviceKey, 10_000, deviceKey + 10.0, 50.0, findings);
+            assertEquals(1.0, findings[DeviceWindowStore.TEMPERATURE_RATE], 1e-9, "Device " + deviceKey);
+        }
+        assertEquals(10_000, store.size());
+    }
+}
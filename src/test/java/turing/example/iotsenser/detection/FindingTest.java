@@ -0,0 +1,28 @@
+package turing.example.iotsenser.detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Finding.
+ * Ensures findings are joined into one description capped at the given length.
+ */
+class FindingTest {
+
+    /**
+     * Test case verifying that descriptions are joined in order and cut off at the maximum length.
+     */
+    @Test
+    void testDescribe() {
+        List<Finding> findings = List.of(
+                new Finding("high-temperature", "Rule high-temperature matched: temperature > 80"),
+                new Finding(WindowDetector.HUMIDITY_FLAT, "Humidity flat at 50.0 for 1800s"));
+
+        assertEquals("Rule high-temperature matched: temperature > 80; Humidity flat at 50.0 for 1800s",
+                Finding.describe(findings, 500));
+        assertEquals("Rule high-temperature", Finding.describe(findings, 21), "The description should be capped.");
+    }
+}
@@ -0,0 +1,85 @@
+package turing.example.iotsenser.detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GapTimerWheel.
+ * Ensures keys come back once their tick has passed, including deadlines beyond one turn.
+ */
+class GapTimerWheelTest {
+
+    /**
+     * Test case verifying that keys are handed back on their deadline's tick and not before.
+     */
+    @Test
+    void testHandsBackDueKeys() {
+        GapTimerWheel wheel = new GapTimerWheel(16, 1_000, 0);
+        wheel.schedule(1, 3_500);
+        wheel.schedule(2, 5_000);
+        wheel.schedule(3, -1_000);
+        List<Integer> due = new ArrayList<>();
+
+        wheel.advance(2_999, due::add);
+        assertEquals(List.of(3), due, "A past deadline comes back on the next tick.");
+        wheel.advance(4_000, due::add);
+        assertEquals(List.of(3, 1), due);
+        assertEquals(1, wheel.size());
+        wheel.advance(5_000, due::add);
+        assertEquals(List.of(3, 1, 2), due);
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Test case verifying that a deadline beyond one turn comes back early, at the end of the turn.
+     */
+    @Test
+    void testCapsDistantDeadlines() {
+        GapTimerWheel wheel = new GapTimerWheel(4, 1_000, 0);
+        wheel.schedule(7, 60_000);
+        List<Integer> due = new ArrayList<>();
+
+        wheel.advance(3_000, due::add);
+        assertTrue(due.isEmpty());
+        wheel.advance(4_000, due::add);
+        assertEquals(List.of(7), due, "The key should come back after one turn for the owner to reschedule.");
+    }
+
+    /**
+     * Test case verifying that a consumer may reschedule the key it is handed.
+     */
+    @Test
+    void testRescheduleFromConsumer() {
+        GapTimerWheel wheel = new GapTimerWheel(8, 1_000, 0);
+        wheel.schedule(1, 1_000);
+        List<Integer> due = new ArrayList<>();
+
+        wheel.advance(1_000, key -> {
+            due.add(key);
+            wheel.schedule(key, 3_000);
+        });
+        assertEquals(1, wheel.size(), "The key should be scheduled again.");
+        wheel.advance(3_000, due::add);
+        assertEquals(List.of(1, 1), due);
+    }
+
+    /**
+     * Test case verifying that many keys spread over the wheel are all handed back.
+     */
+    @Test
+    void testManyKeys() {
+        GapTimerWheel wheel = new GapTimerWheel(64, 100, 0);
+        for (int key = 0; key < 100_000; key++) {
+            wheel.schedule(key, 100 + key % 6_000);
+        }
+        int[] count = new int[1];
+
+        wheel.advance(6_100, key -> count[0]++);
+        assertEquals(100_000, count[0]);
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,185 @@
+package turing.example.iotsenser.detection;
+
+import org.junit.jupiter.api.Test;
+import turing.example.iotsenser.model.SensorData;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RuleEngine.
+ * Ensures rules apply to the right devices, keep per-device state and are reloaded when stored rules change.
+ */
+class RuleEngineTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final double[] NO_SCORES = new double[2];
+
+    /**
+     * Test case verifying that the default rules reproduce the fixed thresholds and the z-score rule.
+     */
+    @Test
+    void testDefaultRules() {
+        RuleEngine engine = new RuleEngine(RuleEngine.defaultRules(4.0), Map.of(), List::of, Duration.ofSeconds(30));
+
+        assertNull(engine.evaluate(reading("device-1", 25.0, 60.0, 0), NO_SCORES));
+        assertEquals(List.of(new Finding("high-temperature", "Rule high-temperature matched: temperature > 80"),
+                        new Finding("high-humidity", "Rule high-humidity matched: humidity > 90")),
+                engine.evaluate(reading("device-1", 85.0, 95.0, 1), NO_SCORES));
+        assertEquals(List.of(
+                        new Finding("humidity-outlier", "Rule humidity-outlier matched: abs(zscore(humidity)) > 4.0")),
+                engine.evaluate(reading("device-1", 25.0, 60.0, 2), new double[]{1.0, -5.0}));
+        assertTrue(engine.matches(reading("device-2", 81.0, 50.0, 0)));
+        assertFalse(engine.matches(reading("device-2", 25.0, 50.0, 0)));
+    }
+
+    /**
+     * Test case verifying that group and device rules apply only to their devices.
+     */
+    @Test
+    void testScopes() {
+        RuleEngine engine = new RuleEngine(List.of(
+                new RuleDefinition("freezer-warm", RuleScope.GROUP, "freezers", "temperature > -10"),
+                new RuleDefinition("lab-humid", RuleScope.DEVICE, "lab-1", "humidity > 40")),
+                Map.of("freezers", List.of("freezer-*", "cold-room")), List::of, Duration.ofSeconds(30));
+
+        assertNotNull(engine.evaluate(reading("freezer-7", -5.0, 30.0, 0), NO_SCORES));
+        assertNotNull(engine.evaluate(reading("cold-room", -5.0, 30.0, 0), NO_SCORES));
+        assertNull(engine.evaluate(reading("lab-1", -5.0, 30.0, 0), NO_SCORES), "lab-1 is not a freezer.");
+        assertEquals(List.of(new Finding("lab-humid", "Rule lab-humid matched: humidity > 40")),
+                engine.evaluate(reading("lab-1", 20.0, 45.0, 1), NO_SCORES));
+        assertNull(engine.evaluate(reading("lab-2", 20.0, 45.0, 0), NO_SCORES));
+    }
+
+    /**
+     * Test case verifying that rates of change are per minute between a device's consecutive readings.
+     */
+    @Test
+    void testRateOfChange() {
+        RuleEngine engine = new RuleEngine(List.of(
+                new RuleDefinition("heating-fast", RuleScope.GLOBAL, null, "rate(temperature) > 5")),
+                Map.of(), List::of, Duration.ofSeconds(30));
+
+        assertNull(engine.evaluate(reading("device-1", 20.0, 50.0, 0), NO_SCORES), "The first reading has no rate.");
+        assertNull(engine.evaluate(reading("device-1", 24.0, 50.0, 60), NO_SCORES), "4 degrees a minute is fine.");
+        assertNotNull(engine.evaluate(reading("device-1", 27.0, 50.0, 90), NO_SCORES), "6 degrees a minute is not.");
+        assertNull(engine.evaluate(reading("device-2", 40.0, 50.0, 90), NO_SCORES), "Devices are tracked apart.");
+        assertFalse(engine.matches(reading("device-1", 90.0, 50.0, 100)), "Rates are unknown to stateless checks.");
+    }
+
+    /**
+     * Test case verifying that a flatlining sensor is flagged once it has been stuck for the duration.
+     */
+    @Test
+    void testFlatline() {
+        RuleEngine engine = new RuleEngine(List.of(
+                new RuleDefinition("stuck-sensor", RuleScope.GLOBAL, null, "flat(temperature, 5m)")),
+                Map.of(), List::of, Duration.ofSeconds(30));
+
+        for (int minute = 0; minute < 5; minute++) {
+            assertNull(engine.evaluate(reading("device-1", 21.5, 50.0, minute * 60), NO_SCORES));
+        }
+        assertNotNull(engine.evaluate(reading("device-1", 21.5, 50.0, 300), NO_SCORES));
+    }
+
+    /**
+     * Test case verifying that changed stored rules are swapped in, replacing configured rules of the same
+     * name, and that invalid stored rules are skipped.
+     */
+    @Test
+    void testReloadsStoredRules() {
+        AtomicReference<List<RuleDefinition>> stored = new AtomicReference<>(List.of());
+        RuleEngine engine = new RuleEngine(RuleEngine.defaultRules(4.0), Map.of(), stored::get,
+                Duration.ofSeconds(30));
+        assertFalse(engine.reload(), "Nothing changed.");
+
+        stored.set(List.of(
+                new RuleDefinition("high-temperature", RuleScope.GLOBAL, null, "temperature > 60"),
+                new RuleDefinition("broken", RuleScope.GLOBAL, null, "temperature >"),
+                new RuleDefinition("unknown-group", RuleScope.GROUP, "nowhere", "temperature > 0")));
+        assertNull(engine.evaluate(reading("device-1", 65.0, 50.0, 0), NO_SCORES));
+        assertTrue(engine.reload(), "The stored rules changed.");
+
+        assertEquals(List.of("high-temperature", "high-humidity", "temperature-outlier", "humidity-outlier"),
+                engine.ruleNames());
+        assertEquals(List.of(new Finding("high-temperature", "Rule high-temperature matched: temperature > 60")),
+                engine.evaluate(reading("device-1", 65.0, 50.0, 1), NO_SCORES));
+        assertFalse(engine.reload(), "Nothing changed since the last reload.");
+    }
+
+    /**
+     * Test case verifying that bulk scoring thresholds follow the global threshold and z-score rules in force,
+     * including reloaded ones, and leave out other rules.
+     */
+    @Test
+    void testScoringThresholds() {
+        AtomicReference<List<RuleDefinition>> stored = new AtomicReference<>(List.of());
+        RuleEngine engine = new RuleEngine(RuleEngine.defaultRules(4.0), Map.of(), stored::get,
+                Duration.ofSeconds(30));
+        assertEquals(new ScoringThresholds(80.0, 90.0, 4.0, 4.0), engine.scoringThresholds());
+
+        stored.set(List.of(
+                new RuleDefinition("high-temperature", RuleScope.GLOBAL, null, "temperature > 60"),
+                new RuleDefinition("lab-hot", RuleScope.DEVICE, "lab-1", "temperature > 30"),
+                new RuleDefinition("hot-and-humid", RuleScope.GLOBAL, null, "temperature > 40 and humidity > 70"),
+                new RuleDefinition("humidity-outlier", RuleScope.GLOBAL, null, "abs(zscore(humidity)) > 2.5")));
+        assertTrue(engine.reload());
+
+        assertEquals(new ScoringThresholds(60.0, 90.0, 4.0, 2.5), engine.scoringThresholds(),
+                "Reloaded global rules should apply; scoped and compound rules should not.");
+    }
+
+    /**
+     * Test case verifying that a failure to load stored rules keeps the current rules.
+     */
+    @Test
+    void testKeepsRulesWhenLoadingFails() {
+        RuleEngine engine = new RuleEngine(RuleEngine.defaultRules(4.0), Map.of(), () -> {
+            throw new IllegalStateException("Database down");
+        }, Duration.ofSeconds(30));
+
+        assertFalse(engine.reload());
+        assertEquals(4, engine.ruleNames().size());
+    }
+
+    /**
+     * Test case verifying that invalid configured rules fail fast.
+     */
+    @Test
+    void testRejectsInvalidConfiguredRules() {
+        assertThrows(IllegalArgumentException.class, () -> new RuleEngine(List.of(
+                new RuleDefinition("no-target", RuleScope.DEVICE, null, "temperature > 0")),
+                Map.of(), List::of, Duration.ofSeconds(30)));
+        assertThrows(IllegalArgumentException.class, () -> new RuleEngine(List.of(
+                new RuleDefinition("typo", RuleScope.GLOBAL, null, "temprature > 0")),
+                Map.of(), List::of, Duration.ofSeconds(30)));
+    }
+
+    /**
+     * Test case verifying that a hundred rules are evaluated per reading without matching spuriously.
+     */
+    @Test
+    void testHundredRules() {
+        List<RuleDefinition> rules = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rules.add(new RuleDefinition("rule-" + i, RuleScope.GLOBAL, null,
+                    "temperature > " + (100 + i) + " and (abs(rate(humidity)) > 10 or not humidity < 99)"));
+        }
+        RuleEngine engine = new RuleEngine(rules, Map.of(), List::of, Duration.ofSeconds(30));
+
+        assertNull(engine.evaluate(reading("device-1", 50.0, 50.0, 0), NO_SCORES));
+        assertEquals(List.of(new Finding("rule-0",
+                        "Rule rule-0 matched: temperature > 100 and (abs(rate(humidity)) > 10 or not humidity < 99)")),
+                engine.evaluate(reading("device-1", 100.5, 99.5, 60), NO_SCORES));
+    }
+
+    private static SensorData reading(String deviceId, double temperature, double humidity, int second) {
+        return new SensorData(null, deviceId, temperature, humidity, START.plusSeconds(second));
+    }
+}
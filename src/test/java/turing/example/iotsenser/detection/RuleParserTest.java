@@ -0,0 +1,63 @@
+package turing.example.iotsenser.detection;
+
+import org.junit.jupiter.api.Test;
+import turing.example.iotsenser.detection.RuleExpression.And;
+import turing.example.iotsenser.detection.RuleExpression.Compare;
+import turing.example.iotsenser.detection.RuleExpression.Comparison;
+import turing.example.iotsenser.detection.RuleExpression.Flat;
+import turing.example.iotsenser.detection.RuleExpression.Metric;
+import turing.example.iotsenser.detection.RuleExpression.Not;
+import turing.example.iotsenser.detection.RuleExpression.Or;
+import turing.example.iotsenser.detection.RuleExpression.ValueKind;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RuleParser.
+ * Ensures conditions parse with the expected precedence and malformed ones are rejected.
+ */
+class RuleParserTest {
+
+    /**
+     * Test case verifying that each kind of term parses into a comparison.
+     */
+    @Test
+    void testParsesTerms() {
+        assertEquals(new Compare(ValueKind.VALUE, Metric.TEMPERATURE, false, Comparison.GT, 80),
+                RuleParser.parse("temperature > 80"));
+        assertEquals(new Compare(ValueKind.RATE, Metric.HUMIDITY, true, Comparison.GE, 2.5),
+                RuleParser.parse("ABS(rate(humidity)) >= 2.5"));
+        assertEquals(new Compare(ValueKind.ZSCORE, Metric.TEMPERATURE, false, Comparison.LE, -3),
+                RuleParser.parse("zscore(temperature)<=-3"));
+        assertEquals(new Flat(Metric.HUMIDITY, 600_000, 0.1), RuleParser.parse("flat(humidity, 10m, 0.1)"));
+        assertEquals(new Flat(Metric.TEMPERATURE, 30_000, 0), RuleParser.parse("flat(temperature, 30s)"));
+    }
+
+    /**
+     * Test case verifying that "and" binds tighter than "or" and that parentheses and negation are honoured.
+     */
+    @Test
+    void testPrecedence() {
+        Compare hot = new Compare(ValueKind.VALUE, Metric.TEMPERATURE, false, Comparison.GT, 80);
+        Compare humid = new Compare(ValueKind.VALUE, Metric.HUMIDITY, false, Comparison.GT, 90);
+        Compare dry = new Compare(ValueKind.VALUE, Metric.HUMIDITY, false, Comparison.LT, 10);
+
+        assertEquals(new Or(hot, new And(humid, dry)),
+                RuleParser.parse("temperature > 80 or humidity > 90 and humidity < 10"));
+        assertEquals(new And(new Or(hot, humid), new Not(dry)),
+                RuleParser.parse("(temperature > 80 || humidity > 90) && !humidity < 10"));
+    }
+
+    /**
+     * Test case verifying that malformed conditions are rejected with an explanation.
+     */
+    @Test
+    void testRejectsMalformedConditions() {
+        for (String malformed : new String[]{"", "temperature", "pressure > 1", "temperature > hot",
+                "temperature > 80 humidity", "(temperature > 80", "flat(humidity, soon)", "flat(humidity, 1m, -1)",
+                "temperature = 80", "orbit > 1"}) {
+            assertThrows(IllegalArgumentException.class, () -> RuleParser.parse(malformed),
+                    "'" + malformed + "' should be rejected.");
+        }
+    }
+}
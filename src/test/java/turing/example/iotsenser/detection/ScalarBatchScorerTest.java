@@ -0,0 +1,80 @@
+package turing.example.iotsenser.detection;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ScalarBatchScorer.
+ * Ensures rows are flagged by the thresholds and by their device's baseline into a bitmap.
+ */
+class ScalarBatchScorerTest {
+
+    private final BatchScorer scorer = new ScalarBatchScorer(new ScoringThresholds(80.0, 90.0, 4.0, 4.0));
+
+    /**
+     * Test case verifying each rule on its own row.
+     */
+    @Test
+    void testScore() {
+        ScoringBatch batch = new ScoringBatch(8);
+        batch.add(25.0, 60.0);
+        batch.add(85.0, 60.0);
+        batch.add(25.0, 95.0);
+        batch.add(45.0, 60.0, 20.0, 1.0, 60.0, 2.0);
+        batch.add(21.0, 75.0, 20.0, 1.0, 60.0, 2.0);
+        batch.add(23.0, 67.0, 20.0, 1.0, 60.0, 2.0);
+        batch.add(23.0, 60.0, 20.0, 0.0, 60.0, 0.0);
+        long[] anomalies = new long[ScoringBatch.words(batch.size())];
+
+        assertEquals(4, scorer.score(batch, anomalies), "Four rows should be anomalous.");
+        assertFalse(ScoringBatch.isSet(anomalies, 0), "A normal reading should pass.");
+        assertTrue(ScoringBatch.isSet(anomalies, 1), "High temperature should be flagged.");
+        assertTrue(ScoringBatch.isSet(anomalies, 2), "High humidity should be flagged.");
+        assertTrue(ScoringBatch.isSet(anomalies, 3), "A temperature 25 deviations out should be flagged.");
+        assertTrue(ScoringBatch.isSet(anomalies, 4), "A humidity 7.5 deviations out should be flagged.");
+        assertFalse(ScoringBatch.isSet(anomalies, 5), "Readings within 4 deviations should pass.");
+        assertFalse(ScoringBatch.isSet(anomalies, 6), "A baseline without deviation should not flag anything.");
+    }
+
+    /**
+     * Test case verifying that each metric uses its own z-score threshold and that unset thresholds flag nothing.
+     */
+    @Test
+    void testThresholdsPerMetric() {
+        ScoringBatch batch = new ScoringBatch(8);
+        batch.add(26.0, 60.0, 20.0, 1.0, 60.0, 2.0);
+        batch.add(20.0, 72.0, 20.0, 1.0, 60.0, 2.0);
+        batch.add(500.0, 100.0);
+        long[] anomalies = new long[ScoringBatch.words(batch.size())];
+
+        BatchScorer temperatureOnly = new ScalarBatchScorer(
+                new ScoringThresholds(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, 5.0, 10.0));
+        assertEquals(1, temperatureOnly.score(batch, anomalies));
+        assertTrue(ScoringBatch.isSet(anomalies, 0), "A temperature 6 deviations out should be flagged.");
+        assertFalse(ScoringBatch.isSet(anomalies, 1), "A humidity 6 deviations out is within its threshold.");
+
+        assertEquals(0, new ScalarBatchScorer(ScoringThresholds.NONE).score(batch, anomalies),
+                "Without thresholds nothing should be flagged.");
+    }
+
+    /**
+     * Test case verifying that rows span bitmap words and that stale bits are cleared.
+     */
+    @Test
+    void testBitmapAcrossWords() {
+        ScoringBatch batch = new ScoringBatch(16);
+        for (int i = 0; i < 130; i++) {
+            batch.add(i % 64 == 63 ? 90.0 : 20.0, 50.0);
+        }
+        long[] anomalies = {-1L, -1L, -1L};
+
+        assertEquals(2, scorer.score(batch, anomalies));
+        assertEquals(1L << 63, anomalies[0]);
+        assertEquals(1L << 63, anomalies[1]);
+        assertEquals(0L, anomalies[2], "Bits of the last, partial word should be cleared.");
+
+        batch.clear();
+        assertEquals(0, batch.size(), "A cleared batch should be empty.");
+    }
+}
@@ -0,0 +1,73 @@
+package turing.example.iotsenser.detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WindowDetector.
+ * Ensures sudden changes, flatlined sensors and silent devices are reported.
+ */
+class WindowDetectorTest {
+
+    /**
+     * Test case verifying that a 20 degree jump within 10 seconds is reported and steady readings are not.
+     */
+    @Test
+    void testSuddenChange() {
+        WindowDetector detector = detector(Duration.ofMinutes(30), Duration.ofMinutes(5));
+
+        assertNull(detector.observe(1, 0, 20.0, 50.0));
+        assertNull(detector.observe(1, 5_000, 20.5, 50.5), "Half a degree in 5 seconds is normal.");
+        assertEquals(List.of(
+                        new Finding(WindowDetector.TEMPERATURE_RATE, "Temperature changed by 19.5 in 5.0s (3.90/s)")),
+                detector.observe(1, 10_000, 40.0, 50.5));
+        assertNull(detector.observe(2, 10_000, 40.0, 50.5), "Another device has its own window.");
+    }
+
+    /**
+     * Test case verifying that a sensor stuck at one value is reported once the flatline duration has passed.
+     */
+    @Test
+    void testFlatline() {
+        WindowDetector detector = detector(Duration.ofMinutes(10), Duration.ofMinutes(5));
+        for (int minute = 0; minute < 10; minute++) {
+            assertNull(detector.observe(1, minute * 60_000L, 21.5, 40.0 + minute));
+        }
+
+        assertEquals(List.of(new Finding(WindowDetector.TEMPERATURE_FLAT, "Temperature flat at 21.5 for 600s")),
+                detector.observe(1, 600_000, 21.5, 55.0));
+    }
+
+    /**
+     * Test case verifying that a silent device is reported once, and again after it returns and goes quiet.
+     */
+    @Test
+    void testGaps() {
+        WindowDetector detector = detector(Duration.ofMinutes(30), Duration.ofMinutes(5));
+        detector.observe(1, 0, 20.0, 50.0);
+        detector.observe(2, 0, 25.0, 60.0);
+        assertEquals(2, detector.watchedDevices());
+
+        detector.observe(2, 240_000, 25.0, 60.0);
+        List<WindowDetector.Gap> gaps = detector.expireGaps(300_000);
+        assertEquals(List.of(new WindowDetector.Gap(1, 0, 20.0, 50.0,
+                new Finding(WindowDetector.GAP, "No reading for 300s"))), gaps);
+        assertEquals(1, detector.watchedDevices(), "Device 2 should be rescheduled for its latest reading.");
+
+        assertTrue(detector.expireGaps(400_000).isEmpty(), "Device 1 is reported only once.");
+        assertEquals(2, detector.expireGaps(540_000).get(0).deviceKey());
+
+        detector.observe(1, 600_000, 20.0, 50.0);
+        assertEquals(1, detector.watchedDevices(), "A returning device should be watched again.");
+        assertEquals(1, detector.expireGaps(900_000).get(0).deviceKey());
+    }
+
+    private static WindowDetector detector(Duration flatline, Duration gap) {
+        return new WindowDetector(new DeviceWindowStore(8, 60_000, 1_000, 0, 16),
+                new GapTimerWheel(64, 1_000, 0), 1.0, 2.0, flatline, gap);
+    }
+}
@@ -0,0 +1,186 @@
+package turing.example.iotsenser.device;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import turing.example.iotsenser.model.Device;
+import turing.example.iotsenser.repository.DeviceRepository;
+import turing.example.iotsenser.serialization.DeviceIdDictionary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for DeviceRegistry.
+ * Ensures devices get one stable key, new devices are persisted once and keys resolve in both directions.
+ */
+@ExtendWith(MockitoExtension.class)
+class DeviceRegistryTest {
+
+    @Mock
+    private DeviceRepository deviceRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DeviceRegistry deviceRegistry;
+    private final AtomicInteger nextKey = new AtomicInteger(100);
+
+    @BeforeEach
+    void setUp() {
+        deviceRegistry = new DeviceRegistry(deviceRepository, transactionManager, 16, 0, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Test case verifying that persisted devices are loaded and resolvable without further queries.
+     */
+    @Test
+    void testLoadsPersistedDevices() {
+        when(deviceRepository.streamAll()).thenReturn(Stream.of(new Device(1, "device-a"), new Device(2, "device-b")));
+
+        deviceRegistry.load();
+
+        assertEquals(2, deviceRegistry.size());
+        assertEquals(1, deviceRegistry.keyOf("device-a"));
+        assertEquals("device-b", deviceRegistry.deviceIdOf(2));
+        assertEquals(DeviceIdDictionary.UNKNOWN, deviceRegistry.codeOf("device-c"), "Lookups should not register.");
+        verify(deviceRepository, never()).saveAndFlush(any());
+    }
+
+    /**
+     * Test case verifying that a new device is registered once and then served from memory.
+     */
+    @Test
+    void testRegistersNewDeviceOnce() {
+        when(deviceRepository.saveAndFlush(any(Device.class))).thenAnswer(invocation -> assignKey(invocation.getArgument(0)));
+
+        int key = deviceRegistry.keyOf("device-a");
+
+        assertEquals(key, deviceRegistry.keyOf("device-a"), "Key should be stable.");
+        assertEquals(key, deviceRegistry.codeOf("device-a"));
+        assertEquals("device-a", deviceRegistry.deviceIdOf(key));
+        verify(deviceRepository, times(1)).saveAndFlush(any(Device.class));
+    }
+
+    /**
+     * Test case verifying that a batch of new devices is registered in one write.
+     */
+    @Test
+    void testRegisterAllInOneWrite() {
+        when(deviceRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> {
+            List<Device> devices = invocation.getArgument(0);
+            devices.forEach(this::assignKey);
+            return devices;
+        });
+
+        deviceRegistry.registerAll(List.of("device-a", "device-b", "device-a"));
+
+        assertEquals(2, deviceRegistry.size());
+        assertNotEquals(DeviceIdDictionary.UNKNOWN, deviceRegistry.codeOf("device-b"));
+        verify(deviceRepository, times(1)).saveAllAndFlush(argThat((List<Device> devices) -> devices.size() == 2));
+        verify(deviceRepository, never()).saveAndFlush(any());
+    }
+
+    /**
+     * Test case verifying that a device registered concurrently by another instance adopts its key.
+     */
+    @Test
+    void testAdoptsKeyRegisteredElsewhere() {
+        when(deviceRepository.saveAndFlush(any(Device.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_devices_device_id"));
+        when(deviceRepository.findByDeviceId("device-a")).thenReturn(Optional.of(new Device(9, "device-a")));
+
+        assertEquals(9, deviceRegistry.keyOf("device-a"));
+        assertEquals("device-a", deviceRegistry.deviceIdOf(9));
+    }
+
+    /**
+     * Test case verifying that keys registered by another instance are read through from the database.
+     */
+    @Test
+    void testResolvesForeignKeyFromDatabase() {
+        when(deviceRepository.findById(3)).thenReturn(Optional.of(new Device(3, "remote")));
+        when(deviceRepository.findById(4)).thenReturn(Optional.empty());
+
+        assertEquals("remote", deviceRegistry.deviceIdOf(3));
+        assertEquals(3, deviceRegistry.codeOf("remote"), "Resolved devices should be cached in both directions.");
+        assertNull(deviceRegistry.deviceIdOf(4), "Unknown keys should resolve to null.");
+        assertNull(deviceRegistry.deviceIdOf(DeviceIdDictionary.UNKNOWN));
+        verify(deviceRepository, times(1)).findById(3);
+    }
+
+    /**
+     * Test case verifying that concurrent registrations beyond the initial sizing keep every key consistent.
+     */
+    @Test
+    void testConcurrentRegistrationBeyondExpectedDevices() throws Exception {
+        when(deviceRepository.saveAndFlush(any(Device.class))).thenAnswer(invocation -> assignKey(invocation.getArgument(0)));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            Set<Integer> keys = ConcurrentHashMap.newKeySet();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        String deviceId = "device-" + i;
+                        int key = deviceRegistry.keyOf(deviceId);
+                        assertEquals(deviceId, deviceRegistry.deviceIdOf(key));
+                        keys.add(key);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            assertEquals(5_000, keys.size(), "Every device should have exactly one key.");
+            assertEquals(5_000, deviceRegistry.size());
+            verify(deviceRepository, times(5_000)).saveAndFlush(any(Device.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Test case verifying that new devices are refused once the registry is full, while registered devices
+     * keep resolving and a batch that does not fit registers none of its devices.
+     */
+    @Test
+    void testRefusesNewDevicesWhenFull() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        deviceRegistry = new DeviceRegistry(deviceRepository, transactionManager, 16, 2, meterRegistry);
+        when(deviceRepository.saveAndFlush(any(Device.class))).thenAnswer(invocation -> assignKey(invocation.getArgument(0)));
+        int key = deviceRegistry.keyOf("device-a");
+
+        assertThrows(DeviceLimitExceededException.class, () -> deviceRegistry.registerAll(List.of("device-b", "device-c")));
+        assertEquals(DeviceIdDictionary.UNKNOWN, deviceRegistry.codeOf("device-b"), "A refused batch should register none.");
+        deviceRegistry.keyOf("device-b");
+        assertThrows(DeviceLimitExceededException.class, () -> deviceRegistry.keyOf("device-c"));
+
+        assertEquals(key, deviceRegistry.keyOf("device-a"), "Registered devices should still resolve.");
+        assertEquals(2, deviceRegistry.size());
+        assertEquals(3.0, meterRegistry.counter("iotsenser.devices.rejected").count());
+        verify(deviceRepository, never()).saveAllAndFlush(anyList());
+    }
+
+    private Device assignKey(Device device) {
+        device.setDeviceKey(nextKey.getAndIncrement());
+        return device;
+    }
+}
@@ -0,0 +1,39 @@
+package turing.example.iotsenser.dto;
+
+import org.junit.jupiter.api.Test;
+import turing.example.iotsenser.model.Anomaly;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AnomalyCursor.
+ */
+class AnomalyCursorTest {
+
+    /**
+     * Test case verifying that an encoded cursor decodes to the same position.
+     */
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        Anomaly last = new Anomaly(42L, "device1", 85.0, 50.0, LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_000_000),
+                "Temperature");
+
+        AnomalyCursor cursor = AnomalyCursor.after(last);
+        AnomalyCursor decoded = AnomalyCursor.decode(cursor.encode());
+
+        assertEquals(last.getDetectedAt(), decoded.getDetectedAt(), "Detection time should survive encoding.");
+        assertEquals(42L, decoded.getId(), "ID should survive encoding.");
+        assertFalse(cursor.encode().contains("="), "Token should be URL-safe without padding.");
+    }
+
+    /**
+     * Test case verifying that malformed tokens are rejected.
+     */
+    @Test
+    void testDecodeRejectsMalformedToken() {
+        assertThrows(IllegalArgumentException.class, () -> AnomalyCursor.decode("%%%"));
+        assertThrows(IllegalArgumentException.class, () -> AnomalyCursor.decode("bm90LWEtY3Vyc29y"));
+    }
+}
@@ -0,0 +1,38 @@
+package turing.example.iotsenser.dto;
+
+import org.junit.jupiter.api.Test;
+import turing.example.iotsenser.model.SensorData;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SensorDataCursor.
+ */
+class SensorDataCursorTest {
+
+    /**
+     * Test case verifying that an encoded cursor decodes to the same position.
+     */
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        SensorData last = new SensorData(42L, "device1", 25.0, 50.0, LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_000_000));
+
+        SensorDataCursor cursor = SensorDataCursor.after(last);
+        SensorDataCursor decoded = SensorDataCursor.decode(cursor.encode());
+
+        assertEquals(last.getTimestamp(), decoded.getTimestamp(), "Timestamp should survive encoding.");
+        assertEquals(42L, decoded.getId(), "ID should survive encoding.");
+        assertFalse(cursor.encode().contains("="), "Token should be URL-safe without padding.");
+    }
+
+    /**
+     * Test case verifying that malformed tokens are rejected.
+     */
+    @Test
+    void testDecodeRejectsMalformedToken() {
+        assertThrows(IllegalArgumentException.class, () -> SensorDataCursor.decode("%%%"));
+        assertThrows(IllegalArgumentException.class, () -> SensorDataCursor.decode("bm90LWEtY3Vyc29y"));
+    }
+}
@@ -0,0 +1,47 @@
+package turing.example.iotsenser.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IsoTimestamps.
+ * Ensures the allocation-free parser agrees with java.time and refuses anything it does not handle.
+ */
+class IsoTimestampsTest {
+
+    /**
+     * Test case verifying the supported ISO-8601 shapes.
+     */
+    @Test
+    void testParsesSupportedForms() {
+        assertEquals(millis(LocalDateTime.of(2024, 2, 29, 23, 59)), parse("2024-02-29T23:59"));
+        assertEquals(millis(LocalDateTime.of(2024, 2, 29, 23, 59, 58)), parse("2024-02-29T23:59:58"));
+        assertEquals(millis(LocalDateTime.of(2024, 2, 29, 23, 59, 58, 120_000_000)), parse("2024-02-29T23:59:58.12"));
+        assertEquals(millis(LocalDateTime.of(1969, 12, 31, 0, 0, 0, 999_000_000)), parse("1969-12-31T00:00:00.999999Z"),
+                "Digits beyond milliseconds should be truncated.");
+    }
+
+    /**
+     * Test case verifying that unsupported or invalid values are reported as invalid.
+     */
+    @Test
+    void testRejectsInvalidValues() {
+        assertEquals(IsoTimestamps.INVALID, parse("2024-02-30T10:00"), "Day beyond month length.");
+        assertEquals(IsoTimestamps.INVALID, parse("2024-13-01T10:00"));
+        assertEquals(IsoTimestamps.INVALID, parse("2024-01-01T24:00"));
+        assertEquals(IsoTimestamps.INVALID, parse("2024-01-01"));
+        assertEquals(IsoTimestamps.INVALID, parse("2024-01-01T10:00+02:00"), "Offsets are left to java.time.");
+    }
+
+    private static long parse(String value) {
+        return IsoTimestamps.parse(value.toCharArray(), 0, value.length());
+    }
+
+    private static long millis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
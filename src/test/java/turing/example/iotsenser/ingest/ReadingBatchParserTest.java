@@ -0,0 +1,187 @@
+package turing.example.iotsenser.ingest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import turing.example.iotsenser.dto.BatchIngestResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReadingBatchParser.
+ * Ensures request bodies are decoded into column batches with the same rejections as entity validation.
+ */
+class ReadingBatchParserTest {
+
+    private ReadingBatchParser parser;
+    private ReadingBatch batch;
+    private BatchIngestResponse response;
+
+    @BeforeEach
+    void setUp() {
+        parser = new ReadingBatchParser(new ObjectMapper());
+        batch = new ReadingBatch();
+        response = new BatchIngestResponse();
+    }
+
+    /**
+     * Test case verifying that a JSON array is decoded field by field.
+     */
+    @Test
+    void testParseArray() throws IOException {
+        String body = "[{\"deviceId\":\"device123\",\"temperature\":25.5,\"humidity\":\"60\","
+                + "\"timestamp\":\"2024-01-01T10:00:00.123\",\"extra\":{\"nested\":[1,2]}},"
+                + "{\"deviceId\":\"device456\",\"temperature\":20,\"humidity\":40,"
+                + "\"timestamp\":[2024,1,1,10,0,1,500000000]}]";
+
+        assertTrue(parser.parseArray(stream(body), batch, response, 10));
+
+        assertEquals(2, batch.size());
+        assertEquals(0, response.getRejected());
+        assertEquals("device123", batch.deviceId(0));
+        assertEquals(25.5, batch.temperature(0));
+        assertEquals(60.0, batch.humidity(0), "Numeric strings should be accepted.");
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0, 0, 123_000_000), batch.dateTime(0));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0, 1, 500_000_000), batch.dateTime(1),
+                "Array timestamps should be accepted.");
+    }
+
+    /**
+     * Test case verifying that numbers decode to exactly the same doubles as {@link Double#parseDouble}.
+     */
+    @Test
+    void testParseNumbersExactly() throws IOException {
+        String[] values = {"0.1", "-12.345", "99.99999999999999", "1e1", "-0.0", "21.000000000000000000001",
+                "0.30000000000000004"};
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < values.length; i++) {
+            body.append(i == 0 ? "" : ",")
+                    .append("{\"deviceId\":\"d\",\"temperature\":").append(values[i]).append(",\"humidity\":1}");
+        }
+
+        assertTrue(parser.parseArray(stream(body.append("]").toString()), batch, response, 10));
+
+        assertEquals(values.length, batch.size());
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(Double.parseDouble(values[i]), batch.temperature(i), "Value " + values[i]);
+        }
+    }
+
+    /**
+     * Test case verifying that invalid items are rejected individually with their index.
+     */
+    @Test
+    void testParseArrayRejectsInvalidItems() throws IOException {
+        String body = "[null,{\"temperature\":1,\"humidity\":1},\"text\","
+                + "{\"deviceId\":\"d\",\"temperature\":150,\"humidity\":1},"
+                + "{\"deviceId\":\"d\",\"temperature\":1,\"humidity\":1,\"timestamp\":\"yesterday\"},"
+                + "{\"deviceId\":\"d\",\"temperature\":1,\"humidity\":1}]";
+
+        assertTrue(parser.parseArray(stream(body), batch, response, 10));
+
+        assertEquals(1, batch.size(), "Only the last item is valid.");
+        assertEquals(5, response.getRejected());
+        assertEquals("Reading is empty", response.getErrors().get(0).getReason());
+        assertEquals("Malformed JSON", response.getErrors().get(2).getReason());
+        assertEquals("Temperature out of range", response.getErrors().get(3).getReason());
+        assertEquals("Invalid timestamp", response.getErrors().get(4).getReason());
+        assertNotNull(batch.dateTime(0), "Missing timestamps should default to now.");
+    }
+
+    /**
+     * Test case verifying that a body that is not a JSON array fails as a whole.
+     */
+    @Test
+    void testParseArrayRejectsMalformedBody() {
+        assertThrows(JsonProcessingException.class,
+                () -> parser.parseArray(stream("{\"deviceId\":\"d\"}"), batch, response, 10));
+        assertThrows(JsonProcessingException.class,
+                () -> parser.parseArray(stream("[{\"deviceId\":"), batch, response, 10));
+    }
+
+    /**
+     * Test case verifying that oversized bodies are reported instead of decoded.
+     */
+    @Test
+    void testParseRespectsMaxItems() throws IOException {
+        String item = "{\"deviceId\":\"d\",\"temperature\":1,\"humidity\":1}";
+
+        assertFalse(parser.parseArray(stream("[" + item + "," + item + "," + item + "]"), batch, response, 2));
+        assertFalse(parser.parseNdjson(stream(item + "\n" + item + "\n" + item + "\n"), new ReadingBatch(),
+                new BatchIngestResponse(), 2));
+    }
+
+    /**
+     * Test case verifying that a body larger than its item limit allows is reported instead of decoded.
+     */
+    @Test
+    void testParseRespectsMaxBodySize() throws IOException {
+        String item = "{\"deviceId\":\"d\",\"temperature\":1,\"humidity\":1}";
+        String padding = " ".repeat(2048);
+
+        assertFalse(parser.parseArray(stream("[" + item + "," + padding + item + "]"), batch, response, 2));
+        assertFalse(parser.parseNdjson(stream(item + "\n" + padding + item + "\n"), new ReadingBatch(),
+                new BatchIngestResponse(), 2));
+    }
+
+    /**
+     * Test case verifying that a malformed NDJSON line is rejected and parsing resumes on the next line.
+     */
+    @Test
+    void testParseNdjsonSkipsMalformedLines() throws IOException {
+        String body = "{\"deviceId\":\"device123\",\"temperature\":25.5,\"humidity\":60.0}\n"
+                + "not-json\n"
+                + "{\"deviceId\":\"device456\",\"temperature\":\n"
+                + "\r\n"
+                + "{\"deviceId\":\"device789\",\"temperature\":20.0,\"humidity\":40.0}";
+
+        assertTrue(parser.parseNdjson(stream(body), batch, response, 10));
+
+        assertEquals(2, batch.size());
+        assertEquals("device789", batch.deviceId(1));
+        assertEquals(2, response.getRejected());
+        assertEquals(1, response.getErrors().get(0).getIndex());
+        assertEquals(2, response.getErrors().get(1).getIndex());
+    }
+
+    /**
+     * Test case verifying that a released batch is reused without leaking earlier readings.
+     */
+    @Test
+    void testPooledBatchIsCleared() throws IOException {
+        ReadingBatchPool pool = new ReadingBatchPool(1);
+        ReadingBatch first = pool.acquire();
+        parser.parseArray(stream("[{\"deviceId\":\"d\",\"temperature\":1,\"humidity\":1}]"), first, response, 10);
+        pool.release(first);
+
+        ReadingBatch second = pool.acquire();
+
+        assertSame(first, second, "Released batches should be reused.");
+        assertTrue(second.isEmpty(), "Reused batches should start empty.");
+    }
+
+    /**
+     * Test case verifying that a batch whose body buffer grew for a very large request is not kept in the pool.
+     */
+    @Test
+    void testPoolDropsOversizedBodies() throws IOException {
+        ReadingBatchPool pool = new ReadingBatchPool(1);
+        ReadingBatch large = pool.acquire();
+        String body = "[" + " ".repeat(ReadingBatchPool.MAX_RETAINED_BODY_BYTES) + "]";
+        assertTrue(parser.parseArray(stream(body), large, response, 5000));
+        pool.release(large);
+
+        assertNotSame(large, pool.acquire(), "Batches with oversized bodies should be dropped.");
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,47 @@
+package turing.example.iotsenser.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for the RollupResolution enum.
+ */
+class RollupResolutionTest {
+
+    /**
+     * Test case to verify that timestamps are truncated to the start of their bucket.
+     */
+    @Test
+    void testBucketStart() {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 1, 12, 34, 56);
+
+        assertEquals(LocalDateTime.of(2024, 1, 1, 12, 34), RollupResolution.MINUTE.bucketStart(timestamp));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 12, 0), RollupResolution.HOUR.bucketStart(timestamp));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 0, 0), RollupResolution.DAY.bucketStart(timestamp));
+    }
+
+    /**
+     * Test case to verify that short codes resolve and unknown codes are rejected.
+     */
+    @Test
+    void testFromCode() {
+        assertEquals(RollupResolution.MINUTE, RollupResolution.fromCode("1m"));
+        assertEquals(RollupResolution.HOUR, RollupResolution.fromCode("1h"));
+        assertEquals(RollupResolution.DAY, RollupResolution.fromCode("1d"));
+        assertThrows(IllegalArgumentException.class, () -> RollupResolution.fromCode("5m"));
+    }
+
+    /**
+     * Test case to verify bucket counting over a range.
+     */
+    @Test
+    void testBucketsBetween() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 12, 30);
+
+        assertEquals(25, RollupResolution.HOUR.bucketsBetween(from, from.plusDays(1)));
+        assertEquals(1, RollupResolution.DAY.bucketsBetween(from, from.plusHours(1)));
+    }
+}
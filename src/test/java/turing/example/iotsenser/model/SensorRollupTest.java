@@ -0,0 +1,52 @@
+package turing.example.iotsenser.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for the SensorRollup entity.
+ * Ensures readings and partial aggregates combine into exact statistics.
+ */
+class SensorRollupTest {
+
+    private static final LocalDateTime BUCKET = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    /**
+     * Test case to verify that adding readings tracks count, sum, min and max.
+     */
+    @Test
+    void testAdd() {
+        SensorRollup rollup = new SensorRollup("device123", RollupResolution.HOUR, BUCKET);
+
+        rollup.add(20.0, 50.0);
+        rollup.add(30.0, 40.0);
+
+        assertEquals(2, rollup.getCount(), "Count should include both readings.");
+        assertEquals(50.0, rollup.getTemperatureSum());
+        assertEquals(20.0, rollup.getTemperatureMin());
+        assertEquals(30.0, rollup.getTemperatureMax());
+        assertEquals(40.0, rollup.getHumidityMin());
+        assertEquals(50.0, rollup.getHumidityMax());
+    }
+
+    /**
+     * Test case to verify that merging partials equals adding all readings to one bucket.
+     */
+    @Test
+    void testMerge() {
+        SensorRollup stored = new SensorRollup("device123", RollupResolution.HOUR, BUCKET);
+        stored.add(20.0, 50.0);
+        SensorRollup late = new SensorRollup("device123", RollupResolution.HOUR, BUCKET);
+        late.add(10.0, 70.0);
+
+        stored.merge(late);
+
+        assertEquals(2, stored.getCount(), "Late reading should be counted.");
+        assertEquals(30.0, stored.getTemperatureSum());
+        assertEquals(10.0, stored.getTemperatureMin(), "Late reading should lower the minimum.");
+        assertEquals(70.0, stored.getHumidityMax(), "Late reading should raise the maximum.");
+    }
+}
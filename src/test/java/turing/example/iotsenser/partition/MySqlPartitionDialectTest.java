@@ -0,0 +1,60 @@
+package turing.example.iotsenser.partition;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for MySqlPartitionDialect.
+ */
+@ExtendWith(MockitoExtension.class)
+class MySqlPartitionDialectTest {
+
+    private final MySqlPartitionDialect dialect = new MySqlPartitionDialect();
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Test case verifying that new partitions are split off the MAXVALUE partition.
+     */
+    @Test
+    void testCreatePartition() {
+        RangePartition partition = new RangePartition(dialect.partitionName("sensor_data", LocalDate.of(2024, 3, 10)),
+                LocalDateTime.of(2024, 3, 10, 0, 0), LocalDateTime.of(2024, 3, 11, 0, 0));
+
+        dialect.createPartition(jdbcTemplate, "sensor_data", partition);
+
+        verify(jdbcTemplate).execute("ALTER TABLE sensor_data REORGANIZE PARTITION pmax INTO ("
+                + "PARTITION p20240310 VALUES LESS THAN ('2024-03-11 00:00:00'), "
+                + "PARTITION pmax VALUES LESS THAN (MAXVALUE))");
+    }
+
+    /**
+     * Test case verifying that expired data is removed by dropping the partition.
+     */
+    @Test
+    void testDropPartition() {
+        dialect.dropPartition(jdbcTemplate, "sensor_data", new RangePartition("p20240101", null, null));
+
+        verify(jdbcTemplate).execute("ALTER TABLE sensor_data DROP PARTITION p20240101");
+    }
+
+    /**
+     * Test case verifying that partition descriptions from information_schema are parsed.
+     */
+    @Test
+    void testParseBound() {
+        assertEquals(LocalDateTime.of(2024, 3, 11, 0, 0), MySqlPartitionDialect.parseBound("'2024-03-11 00:00:00'"));
+        assertEquals(LocalDateTime.of(2024, 3, 11, 0, 0), MySqlPartitionDialect.parseBound("'2024-03-11'"));
+        assertNull(MySqlPartitionDialect.parseBound("MAXVALUE"), "MAXVALUE should mark the catch-all partition.");
+    }
+}
@@ -0,0 +1,115 @@
+package turing.example.iotsenser.partition;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import turing.example.iotsenser.cache.QueryCache;
+import turing.example.iotsenser.shard.ShardRouter;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PartitionManager.
+ * Ensures partitions are created ahead of time and expired ones are dropped whole.
+ */
+@ExtendWith(MockitoExtension.class)
+class PartitionManagerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 10);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PartitionDialect dialect;
+
+    @Mock
+    private QueryCache queryCache;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PartitionManager partitionManager;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        Clock clock = Clock.fixed(TODAY.atTime(12, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        partitionManager = new PartitionManager(jdbcTemplate, dialect, queryCache, ShardRouter.singleShard(), meterRegistry, clock);
+        lenient().when(dialect.partitionName(any(), any()))
+                .thenAnswer(invocation -> "p" + invocation.getArgument(1, LocalDate.class));
+    }
+
+    /**
+     * Test case verifying that missing partitions up to the premake horizon are created after the last one.
+     */
+    @Test
+    void testCreatesUpcomingPartitions() {
+        when(dialect.listPartitions(jdbcTemplate, PartitionManager.RAW_TABLE)).thenReturn(List.of(
+                partition("p_history", null, TODAY.plusDays(1)),
+                partition("pmax", TODAY.plusDays(1), null)));
+        when(dialect.listPartitions(jdbcTemplate, PartitionManager.ROLLUP_TABLE)).thenReturn(List.of());
+
+        partitionManager.maintain();
+
+        ArgumentCaptor<RangePartition> created = ArgumentCaptor.forClass(RangePartition.class);
+        verify(dialect, times(6)).createPartition(eq(jdbcTemplate), eq(PartitionManager.RAW_TABLE), created.capture());
+        assertEquals(TODAY.plusDays(1).atStartOfDay(), created.getAllValues().get(0).getFrom(),
+                "First new partition should start where the last one ends.");
+        assertEquals(TODAY.plusDays(7).atStartOfDay(), created.getAllValues().get(5).getTo(),
+                "Partitions should reach premake days ahead.");
+        verify(dialect, never()).dropPartition(any(), any(), any());
+        assertEquals(6.0, meterRegistry.get("iotsenser.partitions.created").tag("table", "sensor_data").counter().count());
+    }
+
+    /**
+     * Test case verifying that only partitions entirely before the retention cutoff are dropped.
+     */
+    @Test
+    void testDropsExpiredPartitions() {
+        RangePartition expired = partition("p_old", TODAY.minusDays(92), TODAY.minusDays(91));
+        RangePartition straddling = partition("p_edge", TODAY.minusDays(90), TODAY.minusDays(89));
+        RangePartition catchAll = partition("pmax", TODAY.plusDays(8), null);
+        when(dialect.listPartitions(jdbcTemplate, PartitionManager.RAW_TABLE)).thenReturn(List.of(
+                expired, straddling, partition("p_future", TODAY.plusDays(7), TODAY.plusDays(8)), catchAll));
+        when(dialect.listPartitions(jdbcTemplate, PartitionManager.ROLLUP_TABLE)).thenReturn(List.of());
+
+        partitionManager.maintain();
+
+        verify(dialect, times(1)).dropPartition(jdbcTemplate, PartitionManager.RAW_TABLE, expired);
+        verify(dialect, never()).dropPartition(jdbcTemplate, PartitionManager.RAW_TABLE, straddling);
+        verify(dialect, never()).dropPartition(jdbcTemplate, PartitionManager.RAW_TABLE, catchAll);
+        verify(queryCache, times(1)).invalidateAll();
+    }
+
+    /**
+     * Test case verifying that a failure on one table does not stop maintenance of the other.
+     */
+    @Test
+    void testFailureIsIsolatedPerTable() {
+        when(dialect.listPartitions(jdbcTemplate, PartitionManager.RAW_TABLE))
+                .thenThrow(new IllegalStateException("lock wait timeout"));
+        when(dialect.listPartitions(jdbcTemplate, PartitionManager.ROLLUP_TABLE)).thenReturn(List.of(
+                partition("pmax", null, null)));
+
+        assertDoesNotThrow(() -> partitionManager.maintain());
+
+        verify(dialect, times(7)).createPartition(eq(jdbcTemplate), eq(PartitionManager.ROLLUP_TABLE), any());
+    }
+
+    private static RangePartition partition(String name, LocalDate from, LocalDate to) {
+        return new RangePartition(name, from == null ? null : from.atStartOfDay(), to == null ? null : to.atStartOfDay());
+    }
+}
@@ -0,0 +1,106 @@
+package turing.example.iotsenser.partition;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for PostgresPartitionDialect.
+ */
+@ExtendWith(MockitoExtension.class)
+class PostgresPartitionDialectTest {
+
+    private final PostgresPartitionDialect dialect = new PostgresPartitionDialect();
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Test case verifying that partitions are created as child tables of the range.
+     */
+    @Test
+    void testCreatePartition() {
+        when(jdbcTemplate.queryForList(anyString(), eq("sensor_data")))
+                .thenReturn(List.of(partitionKey("\"timestamp\"", null)));
+
+        dialect.createPartition(jdbcTemplate, "sensor_data", partition());
+
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS sensor_data_p20240310 PARTITION OF sensor_data "
+                + "FOR VALUES FROM ('2024-03-10 00:00:00') TO ('2024-03-11 00:00:00')");
+    }
+
+    /**
+     * Test case verifying that, with a default partition, the rows it holds in the new range are moved
+     * into the new partition before it is attached, so the default partition no longer conflicts.
+     */
+    @Test
+    void testCreatePartitionMovesRowsOutOfDefault() {
+        when(jdbcTemplate.queryForList(anyString(), eq("sensor_data")))
+                .thenReturn(List.of(partitionKey("\"timestamp\"", "sensor_data_default")));
+
+        dialect.createPartition(jdbcTemplate, "sensor_data", partition());
+
+        verify(jdbcTemplate).execute("DO $$ BEGIN IF to_regclass('sensor_data_p20240310') IS NULL THEN "
+                + "CREATE TABLE sensor_data_p20240310 (LIKE sensor_data INCLUDING DEFAULTS INCLUDING CONSTRAINTS); "
+                + "WITH moved AS (DELETE FROM sensor_data_default WHERE \"timestamp\" >= '2024-03-10 00:00:00' "
+                + "AND \"timestamp\" < '2024-03-11 00:00:00' RETURNING *) "
+                + "INSERT INTO sensor_data_p20240310 SELECT * FROM moved; "
+                + "ALTER TABLE sensor_data ATTACH PARTITION sensor_data_p20240310 "
+                + "FOR VALUES FROM ('2024-03-10 00:00:00') TO ('2024-03-11 00:00:00'); "
+                + "END IF; END $$");
+    }
+
+    /**
+     * Test case verifying that expired data is removed by dropping the child table.
+     */
+    @Test
+    void testDropPartition() {
+        dialect.dropPartition(jdbcTemplate, "sensor_data", new RangePartition("sensor_data_p20240101", null, null));
+
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS sensor_data_p20240101");
+    }
+
+    /**
+     * Test case verifying that partition bound expressions are parsed.
+     */
+    @Test
+    void testParse() {
+        RangePartition dated = PostgresPartitionDialect.parse("sensor_data_p20240310",
+                "FOR VALUES FROM ('2024-03-10 00:00:00') TO ('2024-03-11 00:00:00')");
+        RangePartition history = PostgresPartitionDialect.parse("sensor_data_p_history",
+                "FOR VALUES FROM (MINVALUE) TO ('2024-03-10 00:00:00')");
+        RangePartition fallback = PostgresPartitionDialect.parse("sensor_data_default", "DEFAULT");
+
+        assertEquals(LocalDateTime.of(2024, 3, 10, 0, 0), dated.getFrom());
+        assertEquals(LocalDateTime.of(2024, 3, 11, 0, 0), dated.getTo());
+        assertNull(history.getFrom(), "MINVALUE should be unbounded below.");
+        assertFalse(history.isCatchAll(), "History partition has an upper bound and can expire.");
+        assertTrue(fallback.isCatchAll(), "DEFAULT partition should be the catch-all.");
+    }
+
+    private RangePartition partition() {
+        return new RangePartition(dialect.partitionName("sensor_data", LocalDate.of(2024, 3, 10)),
+                LocalDateTime.of(2024, 3, 10, 0, 0), LocalDateTime.of(2024, 3, 11, 0, 0));
+    }
+
+    private static Map<String, Object> partitionKey(String column, String defaultPartition) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("key_column", column);
+        row.put("default_partition", defaultPartition);
+        return row;
+    }
+}
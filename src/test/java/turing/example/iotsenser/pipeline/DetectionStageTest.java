@@ -0,0 +1,56 @@
+package turing.example.iotsenser.pipeline;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import turing.example.iotsenser.model.Anomaly;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.service.AnomalyDetectionService;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for DetectionStage.
+ */
+@ExtendWith(MockitoExtension.class)
+class DetectionStageTest {
+
+    @Mock
+    private AnomalyDetectionService anomalyDetectionService;
+
+    @InjectMocks
+    private DetectionStage detectionStage;
+
+    /**
+     * Test case verifying that a detected anomaly is attached to the context.
+     */
+    @Test
+    void testProcessAttachesAnomaly() {
+        SensorData reading = new SensorData(null, "device1", 85.0, 50.0, LocalDateTime.now());
+        Anomaly anomaly = new Anomaly(null, "device1", 85.0, 50.0, LocalDateTime.now(), "Temperature");
+        when(anomalyDetectionService.evaluate(reading)).thenReturn(Optional.of(anomaly));
+        PipelineContext context = new PipelineContext(reading);
+
+        assertTrue(detectionStage.process(context), "Anomalous readings should still be forwarded.");
+        assertSame(anomaly, context.getAnomaly(), "Anomaly should be attached to the context.");
+    }
+
+    /**
+     * Test case verifying that a normal reading leaves the context without an anomaly.
+     */
+    @Test
+    void testProcessNormalReading() {
+        SensorData reading = new SensorData(null, "device1", 25.0, 50.0, LocalDateTime.now());
+        when(anomalyDetectionService.evaluate(reading)).thenReturn(Optional.empty());
+        PipelineContext context = new PipelineContext(reading);
+
+        assertTrue(detectionStage.process(context));
+        assertNull(context.getAnomaly(), "Normal reading should not carry an anomaly.");
+    }
+}
@@ -0,0 +1,32 @@
+package turing.example.iotsenser.pipeline;
+
+import org.junit.jupiter.api.Test;
+import turing.example.iotsenser.model.SensorData;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EnrichmentStage.
+ */
+class EnrichmentStageTest {
+
+    private final EnrichmentStage stage = new EnrichmentStage();
+
+    /**
+     * Test case verifying that a missing timestamp is filled in and an existing one is kept.
+     */
+    @Test
+    void testProcessDefaultsTimestamp() {
+        SensorData withoutTimestamp = new SensorData(null, "device1", 25.0, 50.0, null);
+        LocalDateTime original = LocalDateTime.of(2024, 1, 1, 12, 0);
+        SensorData withTimestamp = new SensorData(null, "device1", 25.0, 50.0, original);
+
+        assertTrue(stage.process(new PipelineContext(withoutTimestamp)));
+        assertTrue(stage.process(new PipelineContext(withTimestamp)));
+
+        assertNotNull(withoutTimestamp.getTimestamp(), "Missing timestamp should be filled in.");
+        assertEquals(original, withTimestamp.getTimestamp(), "Existing timestamp should be kept.");
+    }
+}
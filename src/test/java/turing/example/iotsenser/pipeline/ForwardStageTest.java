@@ -0,0 +1,92 @@
+package turing.example.iotsenser.pipeline;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import turing.example.iotsenser.model.Anomaly;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.service.AnomalyDetectionService;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ForwardStage.
+ */
+@ExtendWith(MockitoExtension.class)
+class ForwardStageTest {
+
+    @Mock
+    private AnomalyDetectionService anomalyDetectionService;
+
+    @Mock
+    private ObjectProvider<PipelineListener> listenerProvider;
+
+    @Mock
+    private PipelineListener failingListener;
+
+    @Mock
+    private PipelineListener listener;
+
+    private ForwardStage forwardStage;
+
+    @BeforeEach
+    void setUp() {
+        when(listenerProvider.orderedStream()).thenReturn(Stream.of(failingListener, listener));
+        forwardStage = new ForwardStage(anomalyDetectionService, listenerProvider);
+    }
+
+    /**
+     * Test case verifying that anomalies are recorded and listeners are notified.
+     */
+    @Test
+    void testProcessPersistsAnomalyAndNotifiesListeners() {
+        SensorData reading = new SensorData(1L, "device1", 85.0, 50.0, LocalDateTime.now());
+        Anomaly anomaly = new Anomaly(null, "device1", 85.0, 50.0, LocalDateTime.now(), "Temperature");
+        PipelineContext context = new PipelineContext(reading);
+        context.setAnomaly(anomaly);
+        when(anomalyDetectionService.recordAnomaly(anomaly)).thenReturn(true);
+        doThrow(new IllegalStateException("listener down")).when(failingListener).onProcessed(reading, anomaly);
+
+        assertTrue(forwardStage.process(context));
+
+        verify(anomalyDetectionService, times(1)).recordAnomaly(anomaly);
+        verify(listener, times(1)).onProcessed(reading, anomaly);
+    }
+
+    /**
+     * Test case verifying that a suppressed repeat is not forwarded to listeners.
+     */
+    @Test
+    void testProcessSuppressedAnomaly() {
+        SensorData reading = new SensorData(1L, "device1", 85.0, 50.0, LocalDateTime.now());
+        Anomaly anomaly = new Anomaly(null, "device1", 85.0, 50.0, LocalDateTime.now(), "Temperature");
+        PipelineContext context = new PipelineContext(reading);
+        context.setAnomaly(anomaly);
+        when(anomalyDetectionService.recordAnomaly(anomaly)).thenReturn(false);
+
+        assertTrue(forwardStage.process(context));
+
+        assertNull(context.getAnomaly(), "A suppressed anomaly should be dropped from the context.");
+        verify(listener, times(1)).onProcessed(reading, null);
+    }
+
+    /**
+     * Test case verifying that normal readings are forwarded without touching the anomaly store.
+     */
+    @Test
+    void testProcessNormalReading() {
+        SensorData reading = new SensorData(1L, "device1", 25.0, 50.0, LocalDateTime.now());
+
+        assertTrue(forwardStage.process(new PipelineContext(reading)));
+
+        verifyNoInteractions(anomalyDetectionService);
+        verify(listener, times(1)).onProcessed(reading, null);
+    }
+}
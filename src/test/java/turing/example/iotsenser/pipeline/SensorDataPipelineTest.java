@@ -0,0 +1,315 @@
+package turing.example.iotsenser.pipeline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import turing.example.iotsenser.event.SensorDataEvent;
+import turing.example.iotsenser.model.SensorData;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleSupplier;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SensorDataPipeline.
+ * Ensures readings flow through the stages in per-device order and that overload and failures are counted.
+ */
+class SensorDataPipelineTest {
+
+    private MeterRegistry meterRegistry;
+    private MockEnvironment environment;
+    private SensorDataPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        environment = new MockEnvironment()
+                .withProperty("iotsenser.pipeline.lanes", "4")
+                .withProperty("iotsenser.pipeline.queue-capacity", "1024");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    /**
+     * Test case verifying that every device's readings reach the last stage in submission order.
+     */
+    @Test
+    void testPreservesPerDeviceOrder() throws InterruptedException {
+        Map<String, List<Double>> received = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(400);
+        PipelineStage recorder = stage("record", context -> {
+            SensorData data = context.getSensorData();
+            received.computeIfAbsent(data.getDeviceId(), id -> new ArrayList<>()).add(data.getTemperature());
+            done.countDown();
+            return true;
+        });
+        pipeline = new SensorDataPipeline(List.of(new EnrichmentStage(), recorder), environment, meterRegistry);
+        pipeline.start();
+
+        for (int i = 0; i < 400; i++) {
+            assertTrue(pipeline.submit(reading("device" + (i % 10), i)), "Reading should be accepted.");
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS), "All readings should be processed.");
+        for (List<Double> temperatures : received.values()) {
+            for (int i = 1; i < temperatures.size(); i++) {
+                assertTrue(temperatures.get(i) > temperatures.get(i - 1), "Readings of a device should stay in order.");
+            }
+        }
+        assertEquals(400, meterRegistry.get("iotsenser.pipeline.stage.latency").tag("stage", "record").timer().count());
+    }
+
+    /**
+     * Test case verifying that a stage returning false stops the reading.
+     */
+    @Test
+    void testStageCanStopReading() throws InterruptedException {
+        AtomicInteger reachedEnd = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(2);
+        PipelineStage gate = stage("gate", context -> {
+            done.countDown();
+            return context.getSensorData().getTemperature() < 50;
+        });
+        PipelineStage end = stage("end", context -> reachedEnd.incrementAndGet() > 0);
+        pipeline = new SensorDataPipeline(List.of(gate, end), environment, meterRegistry);
+        pipeline.start();
+
+        pipeline.submit(reading("device1", 10));
+        pipeline.submit(reading("device1", 60));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        awaitCount(meterRegistry.get("iotsenser.pipeline.stage.latency").tag("stage", "end").timer()::count, 1);
+        assertEquals(1, reachedEnd.get(), "Only the reading that passed the gate should reach the end.");
+    }
+
+    /**
+     * Test case verifying that a full first stage makes ingestion wait for room instead of dropping readings.
+     */
+    @Test
+    void testBlocksWhenFirstStageIsFull() throws InterruptedException {
+        environment.setProperty("iotsenser.pipeline.stages.slow.lanes", "1");
+        environment.setProperty("iotsenser.pipeline.stages.slow.queue-capacity", "1");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        pipeline = new SensorDataPipeline(List.of(stage("slow", context -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+            return true;
+        })), environment, meterRegistry);
+        pipeline.start();
+
+        // The first reading occupies the lane and the second fills its queue
+        assertTrue(pipeline.submit(reading("device1", 1)));
+        assertTrue(started.await(5, TimeUnit.SECONDS), "The lane should take the first reading.");
+        assertTrue(pipeline.submit(reading("device1", 2)));
+        AtomicInteger accepted = new AtomicInteger();
+        Thread ingest = new Thread(() -> accepted.set(pipeline.submit(reading("device1", 3)) ? 1 : -1));
+        ingest.start();
+
+        ingest.join(200);
+        assertTrue(ingest.isAlive(), "Ingestion should wait while the stage is full.");
+        release.countDown();
+        ingest.join(5000);
+        assertEquals(1, accepted.get(), "The waiting reading should be accepted once there is room.");
+        assertTrue(done.await(5, TimeUnit.SECONDS), "Every reading should be processed.");
+        assertEquals(0.0, meterRegistry.get("iotsenser.pipeline.dropped").tag("stage", "slow").counter().count());
+    }
+
+    /**
+     * Test case verifying that a full first stage drops readings once the submit timeout has passed.
+     */
+    @Test
+    void testDropsAfterSubmitTimeout() throws InterruptedException {
+        environment.setProperty("iotsenser.pipeline.stages.slow.lanes", "1");
+        environment.setProperty("iotsenser.pipeline.stages.slow.queue-capacity", "1");
+        environment.setProperty("iotsenser.pipeline.submit-timeout-ms", "50");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        pipeline = new SensorDataPipeline(List.of(stage("slow", context -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        })), environment, meterRegistry);
+        pipeline.start();
+
+        try {
+            assertTrue(pipeline.submit(reading("device1", 1)));
+            assertTrue(started.await(5, TimeUnit.SECONDS), "The lane should take the first reading.");
+            assertTrue(pipeline.submit(reading("device1", 2)));
+            assertFalse(pipeline.submit(reading("device1", 3)), "Reading should be dropped after the timeout.");
+            assertEquals(1.0, meterRegistry.get("iotsenser.pipeline.dropped").tag("stage", "slow").counter().count());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * Test case verifying that a pipeline that is not running drops readings instead of blocking.
+     */
+    @Test
+    void testDropsWhenNotRunning() {
+        environment.setProperty("iotsenser.pipeline.stages.slow.lanes", "1");
+        environment.setProperty("iotsenser.pipeline.stages.slow.queue-capacity", "2");
+        pipeline = new SensorDataPipeline(List.of(stage("slow", context -> true)), environment, meterRegistry);
+
+        // Not started, so nothing drains the queue
+        assertTrue(pipeline.submit(reading("device1", 1)));
+        assertTrue(pipeline.submit(reading("device1", 2)));
+        assertFalse(pipeline.submit(reading("device1", 3)), "Reading beyond capacity should be dropped.");
+
+        assertEquals(2.0, meterRegistry.get("iotsenser.pipeline.queue.depth").tag("stage", "slow").gauge().value());
+        assertEquals(1.0, meterRegistry.get("iotsenser.pipeline.dropped").tag("stage", "slow").counter().count());
+    }
+
+    /**
+     * Test case verifying that stopping the pipeline finishes the readings already queued in every stage
+     * and drops, and counts, readings submitted afterwards.
+     */
+    @Test
+    void testStopDrainsQueuedReadings() {
+        environment.setProperty("iotsenser.pipeline.stages.first.lanes", "1");
+        AtomicInteger reachedEnd = new AtomicInteger();
+        pipeline = new SensorDataPipeline(List.of(stage("first", context -> {
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        }), stage("end", context -> reachedEnd.incrementAndGet() > 0)), environment, meterRegistry);
+        pipeline.start();
+        for (int i = 0; i < 50; i++) {
+            assertTrue(pipeline.submit(reading("device1", i)));
+        }
+
+        pipeline.stop();
+
+        assertEquals(50, reachedEnd.get(), "Queued readings should be processed before the lanes stop.");
+        assertFalse(pipeline.submit(reading("device1", 50)), "A stopped pipeline should not take readings.");
+        assertEquals(1.0, meterRegistry.get("iotsenser.pipeline.dropped").tag("stage", "first").counter().count());
+        assertEquals(0.0, meterRegistry.get("iotsenser.pipeline.dropped").tag("stage", "end").counter().count());
+    }
+
+    /**
+     * Test case verifying that readings still queued when the shutdown timeout runs out are counted as dropped.
+     */
+    @Test
+    void testStopCountsDiscardedReadings() throws InterruptedException {
+        environment.setProperty("iotsenser.pipeline.stages.stuck.lanes", "1");
+        environment.setProperty("iotsenser.pipeline.shutdown-timeout-ms", "50");
+        CountDownLatch started = new CountDownLatch(1);
+        pipeline = new SensorDataPipeline(List.of(stage("stuck", context -> {
+            started.countDown();
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        })), environment, meterRegistry);
+        pipeline.start();
+        for (int i = 0; i < 4; i++) {
+            assertTrue(pipeline.submit(reading("device1", i)));
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS), "The lane should take the first reading.");
+
+        pipeline.stop();
+
+        assertEquals(3.0, meterRegistry.get("iotsenser.pipeline.dropped").tag("stage", "stuck").counter().count(),
+                "Readings left in the queue should be counted.");
+        assertEquals(0.0, meterRegistry.get("iotsenser.pipeline.queue.depth").tag("stage", "stuck").gauge().value());
+    }
+
+    /**
+     * Test case verifying that a failing stage is counted and does not stop its lane.
+     */
+    @Test
+    void testStageFailureIsCounted() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(2);
+        PipelineStage flaky = stage("flaky", context -> {
+            done.countDown();
+            if (context.getSensorData().getTemperature() == 1) {
+                throw new IllegalStateException("boom");
+            }
+            return true;
+        });
+        pipeline = new SensorDataPipeline(List.of(flaky), environment, meterRegistry);
+        pipeline.start();
+
+        pipeline.submit(reading("device1", 1));
+        pipeline.submit(reading("device1", 2));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS), "Lane should keep processing after a failure.");
+        awaitCount(() -> meterRegistry.get("iotsenser.pipeline.errors").tag("stage", "flaky").counter().count(), 1);
+    }
+
+    /**
+     * Test case verifying that published sensor data events enter the pipeline.
+     */
+    @Test
+    void testConsumesSensorDataEvents() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        pipeline = new SensorDataPipeline(List.of(stage("record", context -> {
+            done.countDown();
+            return true;
+        })), environment, meterRegistry);
+        pipeline.start();
+
+        pipeline.onSensorData(new SensorDataEvent(this, reading("device1", 25)));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS), "Event payload should be processed.");
+    }
+
+    private static void awaitCount(DoubleSupplier count, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count.getAsDouble() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, count.getAsDouble());
+    }
+
+    private static PipelineStage stage(String name, Predicate<PipelineContext> body) {
+        return new PipelineStage() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public boolean process(PipelineContext context) {
+                return body.test(context);
+            }
+        };
+    }
+
+    private static SensorData reading(String deviceId, double temperature) {
+        return new SensorData(null, deviceId, temperature, 50.0, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,29 @@
+package turing.example.iotsenser.pipeline;
+
+import org.junit.jupiter.api.Test;
+import turing.example.iotsenser.model.SensorData;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ValidationStage.
+ */
+class ValidationStageTest {
+
+    private final ValidationStage stage = new ValidationStage();
+
+    /**
+     * Test case verifying that valid readings pass and invalid ones are stopped.
+     */
+    @Test
+    void testProcess() {
+        assertTrue(stage.process(new PipelineContext(new SensorData(null, "device1", 25.0, 50.0, LocalDateTime.now()))),
+                "Valid reading should pass.");
+        assertFalse(stage.process(new PipelineContext(new SensorData(null, "", 25.0, 50.0, LocalDateTime.now()))),
+                "Reading without device ID should be stopped.");
+        assertFalse(stage.process(new PipelineContext(new SensorData(null, "device1", 25.0, 150.0, LocalDateTime.now()))),
+                "Reading with out-of-range humidity should be stopped.");
+    }
+}
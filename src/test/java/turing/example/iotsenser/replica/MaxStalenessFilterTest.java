@@ -0,0 +1,63 @@
+package turing.example.iotsenser.replica;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MaxStalenessFilter.
+ * Ensures the header sets the tolerance for the request only and malformed values are rejected.
+ */
+class MaxStalenessFilterTest {
+
+    private final MaxStalenessFilter filter = new MaxStalenessFilter();
+
+    /**
+     * Test case verifying that the header's tolerance is visible to the request and cleared afterwards.
+     */
+    @Test
+    void testHeaderSetsTolerance() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/sensors/all");
+        request.addHeader(MaxStalenessFilter.HEADER, "2s");
+        Duration[] seen = new Duration[1];
+
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> seen[0] = ReadStaleness.current());
+
+        assertEquals(Duration.ofSeconds(2), seen[0]);
+        assertNull(ReadStaleness.current(), "The tolerance should not outlive the request.");
+    }
+
+    /**
+     * Test case verifying that requests without the header keep the default tolerance.
+     */
+    @Test
+    void testNoHeaderKeepsDefault() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/sensors/all"), new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest(), "The request should pass through.");
+    }
+
+    /**
+     * Test case verifying that a malformed header is rejected with 400 Bad Request.
+     */
+    @Test
+    void testMalformedHeaderRejected() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/sensors/all");
+        request.addHeader(MaxStalenessFilter.HEADER, "soon");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(400, response.getStatus());
+        assertNull(chain.getRequest(), "The request should not reach the controller.");
+    }
+}
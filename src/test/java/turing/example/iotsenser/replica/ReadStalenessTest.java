@@ -0,0 +1,50 @@
+package turing.example.iotsenser.replica;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReadStaleness.
+ * Ensures the tolerance is scoped to the work it is set for and follows propagated tasks.
+ */
+class ReadStalenessTest {
+
+    /**
+     * Test case verifying that the tolerance is restored once the work returns.
+     */
+    @Test
+    void testCallRestoresPrevious() {
+        Duration seen = ReadStaleness.call(Duration.ofSeconds(2), ReadStaleness::current);
+
+        assertEquals(Duration.ofSeconds(2), seen);
+        assertNull(ReadStaleness.current(), "The tolerance should be cleared afterwards.");
+    }
+
+    /**
+     * Test case verifying that a propagated task sees the submitting thread's tolerance on another thread.
+     */
+    @Test
+    void testPropagateToOtherThread() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Duration[] seen = new Duration[1];
+            Runnable task = ReadStaleness.call(Duration.ZERO,
+                    () -> ReadStaleness.propagate(() -> seen[0] = ReadStaleness.current()));
+
+            Future<?> done = executor.submit(task);
+            done.get();
+
+            assertEquals(Duration.ZERO, seen[0]);
+            Future<Duration> after = executor.submit(ReadStaleness::current);
+            assertNull(after.get(), "The pool thread should not keep the tolerance.");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package turing.example.iotsenser.replica;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReplicaRoutingDataSource.
+ * Ensures read-only work is balanced over usable replicas and everything else stays on the primary.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private FakeDataSource primary;
+    private FakeDataSource first;
+    private FakeDataSource second;
+    private Replica firstReplica;
+    private Replica secondReplica;
+    private ReplicaRoutingDataSource dataSource;
+
+    /**
+     * Sets up a primary with two replicas.
+     */
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        primary = new FakeDataSource();
+        first = new FakeDataSource();
+        second = new FakeDataSource();
+        firstReplica = new Replica("primary-replica-1", first);
+        secondReplica = new Replica("primary-replica-2", second);
+        dataSource = new ReplicaRoutingDataSource("primary", primary, List.of(firstReplica, secondReplica),
+                Duration.ofSeconds(5), meterRegistry);
+    }
+
+    /**
+     * Clears the read-only flag and tolerance left by a test.
+     */
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReadStaleness.set(null);
+    }
+
+    /**
+     * Test case verifying that work outside read-only transactions goes to the primary.
+     */
+    @Test
+    void testWritesUsePrimary() throws SQLException {
+        dataSource.getConnection();
+
+        assertEquals(1, primary.connections);
+        assertEquals(0, first.connections + second.connections, "Replicas should not take writes.");
+    }
+
+    /**
+     * Test case verifying that read-only transactions alternate between the replicas and are counted per target.
+     */
+    @Test
+    void testReadsAreBalanced() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        for (int i = 0; i < 10; i++) {
+            dataSource.getConnection();
+        }
+
+        assertEquals(0, primary.connections, "Reads should stay off the primary.");
+        assertEquals(5, first.connections);
+        assertEquals(5, second.connections);
+        assertEquals(5.0, meterRegistry.get("iotsenser.replicas.reads").tag("target", "primary-replica-1")
+                .counter().count());
+    }
+
+    /**
+     * Test case verifying that a failing replica is marked down and its reads move to the other one.
+     */
+    @Test
+    void testFailoverToHealthyReplica() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        first.failing = true;
+
+        for (int i = 0; i < 4; i++) {
+            dataSource.getConnection();
+        }
+
+        assertFalse(firstReplica.isHealthy(), "The failing replica should be out of rotation.");
+        assertEquals(4, second.connections);
+        assertEquals(0, primary.connections);
+    }
+
+    /**
+     * Test case verifying that reads fall back to the primary when no replica is fresh enough.
+     */
+    @Test
+    void testFallbackToPrimary() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        first.failing = true;
+        second.failing = true;
+
+        dataSource.getConnection();
+
+        assertEquals(1, primary.connections);
+        assertEquals(1.0, meterRegistry.get("iotsenser.replicas.reads").tag("target", "primary").counter().count());
+    }
+
+    /**
+     * Test case verifying that a tolerance of zero reads from the primary even with healthy replicas.
+     */
+    @Test
+    void testZeroStalenessUsesPrimary() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        ReadStaleness.call(Duration.ZERO, () -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(1, primary.connections);
+        assertEquals(0, first.connections + second.connections);
+    }
+
+    /**
+     * Test case verifying that connections requested with credentials are routed the same way
+     * and opened with those credentials.
+     */
+    @Test
+    void testCredentialsArePassedToTarget() throws SQLException {
+        dataSource.getConnection("reader", "secret");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        dataSource.getConnection("reader", "secret");
+
+        assertEquals(1, primary.connections, "Writes should go to the primary.");
+        assertEquals(1, first.connections + second.connections, "Reads should go to a replica.");
+        assertEquals(List.of("reader"), primary.users);
+        assertEquals(List.of("reader"), first.connections == 1 ? first.users : second.users);
+    }
+
+    /**
+     * Data source handing out inert connections and counting them.
+     */
+    private static final class FakeDataSource extends AbstractDataSource {
+
+        private final List<String> users = new ArrayList<>();
+        private int connections;
+        private boolean failing;
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (failing) {
+                throw new SQLException("Connection refused");
+            }
+            connections++;
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> null);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            Connection connection = getConnection();
+            users.add(username);
+            return connection;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package turing.example.iotsenser.replica;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Replica.
+ * Ensures health follows probes and failures and gates which reads a replica may serve.
+ */
+class ReplicaTest {
+
+    /**
+     * Test case verifying that a replica marked down is brought back by a successful probe.
+     */
+    @Test
+    void testCheckRestoresHealth() {
+        ProbedDataSource dataSource = new ProbedDataSource();
+        Replica replica = new Replica("primary-replica-1", dataSource);
+
+        replica.markDown(new SQLException("Connection refused"));
+        assertFalse(replica.isUsable(Duration.ofSeconds(5)));
+
+        replica.check(Duration.ofSeconds(1));
+
+        assertTrue(replica.isHealthy(), "A valid connection should bring the replica back.");
+        assertEquals(Duration.ZERO, replica.getLag(), "Databases without a lag query should report none.");
+        assertEquals(0.0, replica.getLagSeconds());
+        assertTrue(replica.isUsable(Duration.ofSeconds(5)));
+    }
+
+    /**
+     * Test case verifying that a probe failing to connect takes the replica out of rotation.
+     */
+    @Test
+    void testFailedCheckMarksDown() {
+        ProbedDataSource dataSource = new ProbedDataSource();
+        dataSource.failing = true;
+        Replica replica = new Replica("primary-replica-1", dataSource);
+
+        replica.check(Duration.ofSeconds(1));
+
+        assertFalse(replica.isHealthy());
+    }
+
+    /**
+     * Test case verifying that a replica whose lag cannot be read is kept out of rotation
+     * and reports its lag in seconds as NaN rather than overflowing.
+     */
+    @Test
+    void testUnknownLag() {
+        ProbedDataSource dataSource = new ProbedDataSource();
+        dataSource.product = "MySQL";
+        Replica replica = new Replica("primary-replica-1", dataSource);
+
+        replica.check(Duration.ofSeconds(1));
+
+        assertTrue(replica.isHealthy());
+        assertEquals(Replica.UNKNOWN_LAG, replica.getLag(), "A stopped replica should have an unknown lag.");
+        assertTrue(Double.isNaN(replica.getLagSeconds()), "Unknown lag should be reported as NaN.");
+        assertFalse(replica.isUsable(Duration.ofHours(1)));
+    }
+
+    /**
+     * Data source whose connections validate and describe themselves as the given database.
+     * A MySQL replica answers its status query as one whose replication is stopped.
+     */
+    private static final class ProbedDataSource extends AbstractDataSource {
+
+        private boolean failing;
+        private String product = "Other";
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (failing) {
+                throw new SQLException("Connection refused");
+            }
+            DatabaseMetaData metaData = (DatabaseMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{DatabaseMetaData.class},
+                    (proxy, method, args) -> method.getName().equals("getDatabaseProductName") ? product : null);
+            ResultSet stoppedReplica = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "next", "wasNull" -> true;
+                        case "getLong" -> 0L;
+                        default -> null;
+                    });
+            Statement statement = (Statement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{Statement.class},
+                    (proxy, method, args) -> method.getName().equals("executeQuery") ? stoppedReplica : null);
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "isValid" -> true;
+                        case "getMetaData" -> metaData;
+                        case "createStatement" -> statement;
+                        default -> null;
+                    });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package turing.example.iotsenser.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import turing.example.iotsenser.shard.ShardRouter;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for IdSequenceSeeder.
+ * Ensures sequences are raised past the IDs tables already hold, and never lowered.
+ */
+class IdSequenceSeederTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private IdSequenceSeeder seeder;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:seeder-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        for (String table : IdSequenceSeeder.SEQUENCES.keySet()) {
+            jdbcTemplate.execute("CREATE TABLE " + table + " (id BIGINT PRIMARY KEY)");
+            jdbcTemplate.execute("CREATE TABLE " + IdSequenceSeeder.SEQUENCES.get(table) + " (next_val BIGINT)");
+            jdbcTemplate.update("INSERT INTO " + IdSequenceSeeder.SEQUENCES.get(table) + " VALUES (1)");
+        }
+        seeder = new IdSequenceSeeder(jdbcTemplate, ShardRouter.singleShard());
+    }
+
+    /**
+     * Test case verifying that emulation tables are raised above rows written with IDENTITY IDs,
+     * ignoring rows moved in from other shards' ID ranges.
+     */
+    @Test
+    void testRaisesEmulatedSequencesAboveExistingIds() {
+        jdbcTemplate.update("INSERT INTO sensor_data VALUES (1), (1234), (?)", IdSequenceSeeder.SHARD_ID_RANGE + 7);
+        jdbcTemplate.update("INSERT INTO anomalies VALUES (42)");
+
+        seeder.seed("MySQL");
+
+        assertEquals(1234 + IdSequenceSeeder.ALLOCATION_SIZE, nextVal("sensor_data_seq"),
+                "The next block should start above the highest primary-range ID.");
+        assertEquals(42 + IdSequenceSeeder.ALLOCATION_SIZE, nextVal("anomalies_seq"));
+        assertEquals(1, nextVal("sensor_rollups_seq"), "The sequence of an empty table should be left alone.");
+    }
+
+    /**
+     * Test case verifying that a sequence already past the existing IDs is not moved back.
+     */
+    @Test
+    void testDoesNotLowerSequences() {
+        jdbcTemplate.update("INSERT INTO sensor_data VALUES (100)");
+        jdbcTemplate.update("UPDATE sensor_data_seq SET next_val = 5000");
+
+        seeder.seed("MariaDB");
+
+        assertEquals(5000, nextVal("sensor_data_seq"));
+    }
+
+    /**
+     * Test case verifying that a missing sequence is logged without stopping the others.
+     */
+    @Test
+    void testContinuesPastMissingSequence() {
+        jdbcTemplate.execute("DROP TABLE anomalies_seq");
+        jdbcTemplate.update("INSERT INTO anomalies VALUES (10)");
+        jdbcTemplate.update("INSERT INTO sensor_data VALUES (10)");
+
+        seeder.seed("MySQL");
+
+        assertEquals(10 + IdSequenceSeeder.ALLOCATION_SIZE, nextVal("sensor_data_seq"));
+    }
+
+    /**
+     * Test case verifying that PostgreSQL sequences are raised with setval only when behind.
+     */
+    @Test
+    void testRaisesPostgresSequences() {
+        JdbcTemplate postgres = mock(JdbcTemplate.class);
+        when(postgres.queryForObject(anyString(), eq(Long.class), eq(IdSequenceSeeder.SHARD_ID_RANGE)))
+                .thenReturn(null);
+        when(postgres.queryForObject(eq("SELECT MAX(id) FROM sensor_data WHERE id < ?"), eq(Long.class),
+                eq(IdSequenceSeeder.SHARD_ID_RANGE))).thenReturn(1234L);
+        when(postgres.queryForList(anyString(), eq(Long.class), eq(1234L), eq(1234L))).thenReturn(List.of(1234L));
+
+        new IdSequenceSeeder(postgres, ShardRouter.singleShard()).seed("PostgreSQL");
+
+        verify(postgres).queryForList("SELECT setval('sensor_data_seq', ?) FROM sensor_data_seq WHERE last_value < ?",
+                Long.class, 1234L, 1234L);
+        verify(postgres, never()).update(anyString(), any(Object[].class));
+    }
+
+    /**
+     * Test case verifying that other databases are left alone.
+     */
+    @Test
+    void testSkipsUnsupportedDatabases() {
+        JdbcTemplate other = mock(JdbcTemplate.class);
+
+        new IdSequenceSeeder(other, ShardRouter.singleShard()).seed("H2");
+
+        verifyNoInteractions(other);
+    }
+
+    private long nextVal(String sequence) {
+        return jdbcTemplate.queryForObject("SELECT next_val FROM " + sequence, Long.class);
+    }
+}
@@ -0,0 +1,101 @@
+package turing.example.iotsenser.rollup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import turing.example.iotsenser.event.SensorDataEvent;
+import turing.example.iotsenser.model.RollupResolution;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.model.SensorRollup;
+import turing.example.iotsenser.service.RollupService;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RollupAggregator.
+ * Ensures readings are merged in memory per bucket and that failed flushes are retried.
+ */
+@ExtendWith(MockitoExtension.class)
+class RollupAggregatorTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 1, 12, 34, 56);
+
+    @Mock
+    private RollupService rollupService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RollupAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        aggregator = new RollupAggregator(rollupService, meterRegistry);
+    }
+
+    /**
+     * Test case to verify that readings of one bucket are merged before flushing.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMergesReadingsPerBucket() {
+        aggregator.add(new SensorData(1L, "device123", 20.0, 50.0, TIME));
+        aggregator.add(new SensorData(2L, "device123", 30.0, 60.0, TIME.plusSeconds(2)));
+
+        assertEquals(3, aggregator.pendingBuckets(), "One partial per resolution should be pending.");
+        aggregator.flush();
+
+        ArgumentCaptor<Collection<SensorRollup>> flushed = ArgumentCaptor.forClass(Collection.class);
+        verify(rollupService, times(1)).mergeRollups(flushed.capture());
+        assertEquals(3, flushed.getValue().size());
+        SensorRollup minute = flushed.getValue().stream()
+                .filter(rollup -> rollup.getResolution() == RollupResolution.MINUTE)
+                .findFirst().orElseThrow();
+        assertEquals(LocalDateTime.of(2024, 1, 1, 12, 34), minute.getBucketStart());
+        assertEquals(2, minute.getCount(), "Both readings should be in the same minute bucket.");
+        assertEquals(0, aggregator.pendingBuckets(), "Flushed partials should be removed.");
+    }
+
+    /**
+     * Test case to verify that stored readings are picked up from their commit events.
+     */
+    @Test
+    void testAddsCommittedReadings() {
+        aggregator.onSensorData(new SensorDataEvent(this, new SensorData(1L, "device123", 20.0, 50.0, TIME)));
+
+        assertEquals(3, aggregator.pendingBuckets(), "The committed reading should be pending in every resolution.");
+    }
+
+    /**
+     * Test case to verify that an empty aggregator does not touch the database.
+     */
+    @Test
+    void testFlushWithNothingPending() {
+        aggregator.flush();
+
+        verifyNoInteractions(rollupService);
+    }
+
+    /**
+     * Test case to verify that a failed flush keeps the partials for the next attempt.
+     */
+    @Test
+    void testFailedFlushIsRetried() {
+        aggregator.add(new SensorData(1L, "device123", 20.0, 50.0, TIME));
+        doThrow(new IllegalStateException("database down")).when(rollupService).mergeRollups(anyCollection());
+
+        aggregator.flush();
+
+        assertEquals(3, aggregator.pendingBuckets(), "Partials should be put back after a failure.");
+        assertEquals(1.0, meterRegistry.get("iotsenser.rollup.flush.errors").counter().count());
+    }
+}
@@ -0,0 +1,101 @@
+package turing.example.iotsenser.serialization;
+
+import org.junit.jupiter.api.Test;
+import turing.example.iotsenser.model.SensorData;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SensorDataCodec.
+ * Ensures readings round-trip through the binary format and that it stays compact.
+ */
+class SensorDataCodecTest {
+
+    private final LocalDateTime timestamp = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+    /**
+     * Test case verifying a reading round-trips with a length-prefixed device ID.
+     */
+    @Test
+    void testRoundTripWithoutDictionary() {
+        SensorData original = new SensorData(42L, "device-123", 25.5, 60.25, timestamp);
+
+        SensorData decoded = SensorDataCodec.decode(SensorDataCodec.encode(original, null), null);
+
+        assertNull(decoded.getId(), "Record ID should not be carried on the wire.");
+        assertEquals("device-123", decoded.getDeviceId());
+        assertEquals(25.5, decoded.getTemperature());
+        assertEquals(60.25, decoded.getHumidity());
+        assertEquals(timestamp, decoded.getTimestamp());
+    }
+
+    /**
+     * Test case verifying dictionary-encoded device IDs round-trip and shrink the record.
+     */
+    @Test
+    void testRoundTripWithDictionary() {
+        DeviceIdDictionary dictionary = new StaticDeviceIdDictionary(List.of("device-a", "device-123"));
+        SensorData original = new SensorData(null, "device-123", 25.5, 60.25, timestamp);
+
+        byte[] encoded = SensorDataCodec.encode(original, dictionary);
+        SensorData decoded = SensorDataCodec.decode(encoded, dictionary);
+
+        assertEquals("device-123", decoded.getDeviceId());
+        assertEquals(30, encoded.length, "Dictionary records should be header, body and a 4-byte code.");
+    }
+
+    /**
+     * Test case verifying that readings without a timestamp keep it absent.
+     */
+    @Test
+    void testMissingTimestamp() {
+        SensorData original = new SensorData(null, "device-123", 1.0, 2.0, null);
+
+        assertNull(SensorDataCodec.decode(SensorDataCodec.encode(original, null), null).getTimestamp());
+    }
+
+    /**
+     * Test case verifying the binary record is several times smaller than the old toString() payload.
+     */
+    @Test
+    void testSmallerThanStringFormat() {
+        SensorData reading = new SensorData(null, "device-123", 25.5, 60.25, timestamp);
+
+        int binarySize = SensorDataCodec.encode(reading, null).length;
+        int stringSize = reading.toString().getBytes(StandardCharsets.UTF_8).length;
+
+        assertEquals(38, binarySize, "Binary record should be 28 fixed bytes plus the device ID.");
+        assertTrue(stringSize > 2 * binarySize, "Binary format should be well under half the string size.");
+    }
+
+    /**
+     * Test case verifying unknown versions and truncated records are rejected.
+     */
+    @Test
+    void testRejectsMalformedRecords() {
+        byte[] encoded = SensorDataCodec.encode(new SensorData(null, "device-123", 1.0, 2.0, timestamp), null);
+        byte[] wrongVersion = encoded.clone();
+        wrongVersion[0] = 9;
+        byte[] truncated = new byte[encoded.length - 3];
+        System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+
+        assertThrows(IllegalArgumentException.class, () -> SensorDataCodec.decode(wrongVersion, null));
+        assertThrows(IllegalArgumentException.class, () -> SensorDataCodec.decode(truncated, null));
+    }
+
+    /**
+     * Test case verifying a dictionary code cannot be decoded without the dictionary.
+     */
+    @Test
+    void testDictionaryCodeRequiresDictionary() {
+        DeviceIdDictionary dictionary = new StaticDeviceIdDictionary(List.of("device-123"));
+        byte[] encoded = SensorDataCodec.encode(new SensorData(null, "device-123", 1.0, 2.0, timestamp), dictionary);
+
+        assertThrows(IllegalArgumentException.class, () -> SensorDataCodec.decode(encoded, null));
+    }
+}
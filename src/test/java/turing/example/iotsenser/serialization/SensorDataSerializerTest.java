@@ -0,0 +1,78 @@
+package turing.example.iotsenser.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import turing.example.iotsenser.model.SensorData;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SensorDataSerializer and SensorDataDeserializer.
+ * Ensures the Kafka adapters share the configured device dictionary.
+ */
+class SensorDataSerializerTest {
+
+    /**
+     * Test case verifying a round trip through configured Kafka adapters.
+     */
+    @Test
+    void testRoundTripWithConfiguredDictionary() {
+        Map<String, Object> configs = Map.of(SensorDataSerializer.DEVICE_DICTIONARY_CONFIG, "device-a, device-b");
+        SensorDataSerializer serializer = new SensorDataSerializer();
+        SensorDataDeserializer deserializer = new SensorDataDeserializer();
+        serializer.configure(configs, false);
+        deserializer.configure(configs, false);
+        SensorData reading = new SensorData(null, "device-b", 21.0, 45.0,
+                LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+
+        byte[] payload = serializer.serialize("sensor-data", reading);
+        SensorData decoded = deserializer.deserialize("sensor-data", payload);
+
+        assertEquals(30, payload.length, "Configured dictionary should be used for known devices.");
+        assertEquals("device-b", decoded.getDeviceId());
+        assertEquals(reading.getTimestamp(), decoded.getTimestamp());
+    }
+
+    /**
+     * Test case verifying that a dictionary instance can be passed through the client properties.
+     */
+    @Test
+    void testConfiguredDictionaryInstance() {
+        DeviceIdDictionary dictionary = new StaticDeviceIdDictionary(List.of("device-a"));
+        Map<String, Object> configs = Map.of(SensorDataSerializer.DEVICE_DICTIONARY_CONFIG, dictionary);
+        SensorDataSerializer serializer = new SensorDataSerializer();
+        SensorDataDeserializer deserializer = new SensorDataDeserializer();
+        serializer.configure(configs, false);
+        deserializer.configure(configs, false);
+
+        byte[] payload = serializer.serialize("sensor-data",
+                new SensorData(null, "device-a", 21.0, 45.0, LocalDateTime.now()));
+
+        assertEquals(30, payload.length, "Dictionary instance should be used for known devices.");
+        assertEquals("device-a", deserializer.deserialize("sensor-data", payload).getDeviceId());
+    }
+
+    /**
+     * Test case verifying null payloads pass through unchanged.
+     */
+    @Test
+    void testNullPayloads() {
+        assertNull(new SensorDataSerializer().serialize("sensor-data", null));
+        assertNull(new SensorDataDeserializer().deserialize("sensor-data", null));
+    }
+
+    /**
+     * Test case verifying malformed payloads surface as Kafka serialization errors.
+     */
+    @Test
+    void testMalformedPayload() {
+        SensorDataDeserializer deserializer = new SensorDataDeserializer();
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("sensor-data", new byte[]{1, 0, 3}));
+    }
+}
@@ -1,15 +1,36 @@
 package turing.example.iotsenser.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import turing.example.iotsenser.detection.DeviceStatisticsStore;
+import turing.example.iotsenser.detection.DeviceWindowStore;
+import turing.example.iotsenser.detection.Finding;
+import turing.example.iotsenser.detection.GapTimerWheel;
+import turing.example.iotsenser.detection.RuleEngine;
+import turing.example.iotsenser.detection.ScoringBatch;
+import turing.example.iotsenser.detection.WindowDetector;
+import turing.example.iotsenser.device.DeviceRegistry;
+import turing.example.iotsenser.dto.AnomalyCursor;
+import turing.example.iotsenser.dto.AnomalyPage;
+import turing.example.iotsenser.model.Anomaly;
 import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.repository.AnomalyRepository;
+import turing.example.iotsenser.shard.ShardRouter;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,8 +42,32 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class AnomalyDetectionServiceTest {
 
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private static final long START_MILLIS = START.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
     @Mock
-    private SensorDataService sensorDataService;
+    private AnomalyRepository anomalyRepository;
+
+    @Spy
+    private DeviceStatisticsStore deviceStatisticsStore = new DeviceStatisticsStore(0.1, 10, 1, 16);
+
+    @Mock
+    private DeviceRegistry deviceRegistry;
+
+    @Spy
+    private ShardRouter shardRouter = ShardRouter.singleShard();
+
+    @Spy
+    private RuleEngine ruleEngine =
+            new RuleEngine(RuleEngine.defaultRules(4.0), Map.of(), List::of, Duration.ofSeconds(30));
+
+    @Spy
+    private WindowDetector windowDetector = new WindowDetector(new DeviceWindowStore(8, 60_000, 1_000, 0, 16),
+            new GapTimerWheel(64, 1_000, START_MILLIS), 1.0, 2.0, Duration.ofMinutes(30), Duration.ofMinutes(5));
+
+    @Spy
+    private AnomalySink anomalySink = new AnomalySink(Duration.ofMinutes(5), 1000, 100, 10, Duration.ofSeconds(1),
+            batch -> { }, new SimpleMeterRegistry());
 
     @InjectMocks
     private AnomalyDetectionService anomalyDetectionService;
@@ -37,33 +82,226 @@ class AnomalyDetectionServiceTest {
      */
     @BeforeEach
     void setUp() {
-        normalData = new SensorData(1L, "device123", 25.0, 60.0, LocalDateTime.now());
-        highTempData = new SensorData(2L, "device456", 85.0, 55.0, LocalDateTime.now());
-        highHumidityData = new SensorData(3L, "device789", 50.0, 95.0, LocalDateTime.now());
-        extremeAnomaly = new SensorData(4L, "device999", 90.0, 98.0, LocalDateTime.now());
+        normalData = new SensorData(1L, "device123", 25.0, 60.0, LocalDateTime.now(), 123);
+        highTempData = new SensorData(2L, "device456", 85.0, 55.0, LocalDateTime.now(), 456);
+        highHumidityData = new SensorData(3L, "device789", 50.0, 95.0, LocalDateTime.now(), 789);
+        extremeAnomaly = new SensorData(4L, "device999", 90.0, 98.0, LocalDateTime.now(), 999);
+    }
+
+    /**
+     * Test case to verify that only anomalous readings of a batch are recorded, queued for the batched write
+     * rather than written by the caller.
+     */
+    @Test
+    void testRecordAnomalies() {
+        // Given: A batch of freshly ingested sensor data with some anomalies
+        List<SensorData> batch = List.of(normalData, highTempData, highHumidityData, extremeAnomaly);
+
+        // When: Evaluating the batch and recording the hits
+        List<Anomaly> anomalies = new ArrayList<>();
+        for (SensorData reading : batch) {
+            anomalyDetectionService.evaluate(reading)
+                    .filter(anomalyDetectionService::recordAnomaly)
+                    .ifPresent(anomalies::add);
+        }
+
+        // Then: Ensure correct anomalies are recorded
+        assertEquals(3, anomalies.size(), "Should record exactly 3 anomalies.");
+        assertEquals(List.of("device456", "device789", "device999"),
+                anomalies.stream().map(Anomaly::getDeviceId).toList(), "Anomalies should follow ingest order.");
+        assertEquals("Rule high-temperature matched: temperature > 80", anomalies.get(0).getDescription(),
+                "Description should name the rule.");
+        assertTrue(anomalies.get(2).getDescription().contains("; Rule high-humidity matched"),
+                "Both matched rules should be named.");
+        assertEquals(List.of("high-temperature", "high-humidity"),
+                anomalies.get(2).getFindings().stream().map(Finding::rule).toList(),
+                "The findings should carry the matched rule names.");
+        assertEquals(456, anomalies.get(0).getDeviceKey(), "Anomalies should carry the device key.");
+        assertEquals(3, anomalySink.depth(), "Anomalies should be queued for the batched write.");
+        verifyNoInteractions(deviceRegistry, anomalyRepository);
+    }
+
+    /**
+     * Test case to verify that recordAnomaly() queues new anomalies for the batched write and suppresses repeats.
+     */
+    @Test
+    void testRecordAnomaly() {
+        Anomaly first = anomalyDetectionService.evaluate(highTempData).orElseThrow();
+        Anomaly repeat = anomalyDetectionService.evaluate(highTempData).orElseThrow();
+
+        assertTrue(anomalyDetectionService.recordAnomaly(first), "The first report should be recorded.");
+        assertFalse(anomalyDetectionService.recordAnomaly(repeat), "The repeat should be suppressed.");
+        assertEquals(1, anomalySink.depth(), "Only the first report should be queued.");
+        verifyNoInteractions(anomalyRepository);
+    }
+
+    /**
+     * Test case to verify that evaluate() builds an anomaly without persisting it.
+     */
+    @Test
+    void testEvaluate() {
+        Optional<Anomaly> anomaly = anomalyDetectionService.evaluate(highHumidityData);
+
+        assertTrue(anomaly.isPresent(), "High humidity should be evaluated as anomalous.");
+        assertEquals(95.0, anomaly.get().getHumidity());
+        assertTrue(anomalyDetectionService.evaluate(normalData).isEmpty(), "Normal data should not be anomalous.");
+        verifyNoInteractions(anomalyRepository);
+    }
+
+    /**
+     * Test case to verify that a reading far from its device's baseline is flagged
+     * even though it is below the fixed thresholds.
+     * The readings carry no device key, so it is resolved through the registry.
+     */
+    @Test
+    void testEvaluateFlagsDeviceOutlier() {
+        when(deviceRegistry.keyOf("device123")).thenReturn(123);
+        for (int i = 0; i < 100; i++) {
+            SensorData steady = new SensorData(null, "device123", i % 2 == 0 ? 20.0 : 21.0, 50.0, LocalDateTime.now());
+            assertTrue(anomalyDetectionService.evaluate(steady).isEmpty(), "Steady readings should not be flagged.");
+        }
+
+        SensorData jump = new SensorData(null, "device123", 45.0, 50.0, LocalDateTime.now());
+        Optional<Anomaly> anomaly = anomalyDetectionService.evaluate(jump);
+
+        assertTrue(anomaly.isPresent(), "A jump away from the baseline should be flagged.");
+        assertEquals("Rule temperature-outlier matched: abs(zscore(temperature)) > 4.0",
+                anomaly.get().getDescription(), "Description should name the z-score rule.");
+        assertFalse(anomalyDetectionService.isAnomalous(jump), "The static rule alone would have missed it.");
+        assertEquals(101, deviceStatisticsStore.sampleCount(123), "Readings should be tracked under the device key.");
+    }
+
+    /**
+     * Test case to verify that a sudden change is flagged by the window detector
+     * even though both readings are within the fixed thresholds.
+     */
+    @Test
+    void testEvaluateFlagsSuddenChange() {
+        SensorData before = new SensorData(null, "device123", 20.0, 50.0, START, 123);
+        SensorData after = new SensorData(null, "device123", 40.0, 50.0, START.plusSeconds(5), 123);
+
+        assertTrue(anomalyDetectionService.evaluate(before).isEmpty(), "The first reading has nothing to compare.");
+        Optional<Anomaly> anomaly = anomalyDetectionService.evaluate(after);
+
+        assertTrue(anomaly.isPresent(), "A 4 degrees per second jump should be flagged.");
+        assertEquals("Temperature changed by 20.0 in 5.0s (4.00/s)", anomaly.get().getDescription(),
+                "Description should give the change and its rate.");
+    }
+
+    /**
+     * Test case to verify that recordGaps() persists one anomaly per device that stopped reporting.
+     */
+    @Test
+    void testRecordGaps() {
+        when(deviceRegistry.deviceIdOf(123)).thenReturn("device123");
+        when(anomalyRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        anomalyDetectionService.evaluate(new SensorData(null, "device123", 20.0, 50.0, START, 123));
+        anomalyDetectionService.evaluate(new SensorData(null, "device456", 21.0, 51.0, START, 456));
+        anomalyDetectionService.evaluate(new SensorData(null, "device456", 21.0, 51.0, START.plusMinutes(4), 456));
+
+        List<Anomaly> anomalies = anomalyDetectionService.recordGaps(START_MILLIS + 330_000);
+
+        assertEquals(1, anomalies.size(), "Only the silent device should be reported.");
+        assertEquals("device123", anomalies.get(0).getDeviceId());
+        assertEquals("No reading for 330s", anomalies.get(0).getDescription());
+        assertEquals(List.of(new Finding(WindowDetector.GAP, "No reading for 330s")), anomalies.get(0).getFindings());
+        assertEquals(20.0, anomalies.get(0).getTemperature(), "The last reading should be reported.");
+        assertTrue(anomalyDetectionService.recordGaps(START_MILLIS + 400_000).isEmpty(), "Gaps are reported once.");
+        verify(anomalyRepository, times(1)).saveAll(anyList());
+    }
+
+    /**
+     * Test case to verify that anomaly pages seek from the end of the range, then from the cursor.
+     */
+    @Test
+    void testGetAnomalyPage() {
+        LocalDateTime from = START.minusDays(1);
+        Anomaly newer = new Anomaly(8L, "device456", 85.0, 55.0, START.minusMinutes(1), "Temperature");
+        Anomaly older = new Anomaly(7L, "device456", 86.0, 55.0, START.minusMinutes(2), "Temperature");
+        when(anomalyRepository.findDevicePageBefore(eq("device456"), eq(from), eq(START), eq(Long.MIN_VALUE),
+                any(Pageable.class))).thenReturn(List.of(newer, older));
+        when(anomalyRepository.findDevicePageBefore(eq("device456"), eq(from), eq(older.getDetectedAt()), eq(7L),
+                any(Pageable.class))).thenReturn(List.of());
+
+        AnomalyPage first = anomalyDetectionService.getAnomalyPage("device456", from, START, null, 2);
+        AnomalyPage last = anomalyDetectionService.getAnomalyPage("device456", from, START,
+                AnomalyCursor.decode(first.getNextCursor()), 2);
+
+        assertEquals(List.of(newer, older), first.getItems());
+        assertNotNull(first.getNextCursor(), "A full page should have a next cursor.");
+        assertTrue(last.getItems().isEmpty());
+        assertNull(last.getNextCursor(), "A partial page should be the last.");
+    }
+
+    /**
+     * Test case to verify that a fleet-wide page reads every device's anomalies.
+     */
+    @Test
+    void testGetAnomalyPageForFleet() {
+        LocalDateTime from = START.minusDays(1);
+        Anomaly anomaly = new Anomaly(8L, "device456", 85.0, 55.0, START.minusMinutes(1), "Temperature");
+        when(anomalyRepository.findPageBefore(eq(from), eq(START), eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(anomaly));
+
+        AnomalyPage page = anomalyDetectionService.getAnomalyPage(null, from, START, null, 10);
+
+        assertEquals(List.of(anomaly), page.getItems());
+        assertNull(page.getNextCursor());
     }
 
     /**
-     * Test case to verify that detectAnomalies() correctly filters out normal data.
+     * Test case to verify that scoreBatch() flags readings over the fixed thresholds and readings far from their
+     * device's baseline, without updating the baseline.
+     * Readings without a device key are resolved through the registry without registering the device.
      */
     @Test
-    void testDetectAnomalies() {
-        // Given: A list of sensor data with some anomalies
-        List<SensorData> allData = List.of(normalData, highTempData, highHumidityData, extremeAnomaly);
-        when(sensorDataService.getAllSensorData()).thenReturn(allData);
-
-        // When: Detecting anomalies
-        List<SensorData> anomalies = anomalyDetectionService.detectAnomalies();
-
-        // Then: Ensure correct anomalies are identified
-        assertEquals(3, anomalies.size(), "Should detect exactly 3 anomalies.");
-        assertTrue(anomalies.contains(highTempData), "High temperature should be detected as anomaly.");
-        assertTrue(anomalies.contains(highHumidityData), "High humidity should be detected as anomaly.");
-        assertTrue(anomalies.contains(extremeAnomaly), "Extreme anomaly should be detected.");
-        assertFalse(anomalies.contains(normalData), "Normal data should not be flagged as anomaly.");
-
-        // Verify interaction with mock service
-        verify(sensorDataService, times(1)).getAllSensorData();
+    void testScoreBatch() {
+        for (int i = 0; i < 100; i++) {
+            deviceStatisticsStore.observe(124, i % 2 == 0 ? 20.0 : 21.0, 50.0, new double[2]);
+        }
+        when(deviceRegistry.codeOf("device321")).thenReturn(321);
+        SensorData outlier = new SensorData(5L, "device124", 45.0, 50.0, LocalDateTime.now(), 124);
+        SensorData unkeyedOutlier = new SensorData(6L, "device321", 45.0, 50.0, LocalDateTime.now());
+
+        long[] anomalies = anomalyDetectionService.scoreBatch(
+                List.of(normalData, highTempData, highHumidityData, extremeAnomaly, outlier, unkeyedOutlier));
+
+        assertEquals(1, anomalies.length, "Six readings should fit in one bitmap word.");
+        assertFalse(ScoringBatch.isSet(anomalies, 0), "Normal data should not be flagged.");
+        assertTrue(ScoringBatch.isSet(anomalies, 1), "High temperature data should be flagged.");
+        assertTrue(ScoringBatch.isSet(anomalies, 2), "High humidity data should be flagged.");
+        assertTrue(ScoringBatch.isSet(anomalies, 3), "Extreme anomaly should be flagged.");
+        assertTrue(ScoringBatch.isSet(anomalies, 4), "A jump away from the baseline should be flagged.");
+        assertFalse(ScoringBatch.isSet(anomalies, 5), "A device without a baseline has no z-score.");
+        assertEquals(100, deviceStatisticsStore.sampleCount(124), "Scoring should not update the baseline.");
+        verify(deviceRegistry, never()).keyOf(anyString());
+    }
+
+    /**
+     * Test case to verify that findAnomalousReadings() returns the flagged readings in order,
+     * scored against the thresholds of the rules in force.
+     */
+    @Test
+    void testFindAnomalousReadings() {
+        List<SensorData> anomalous = anomalyDetectionService.findAnomalousReadings(
+                List.of(normalData, highTempData, highHumidityData, extremeAnomaly));
+
+        assertEquals(List.of(highTempData, highHumidityData, extremeAnomaly), anomalous,
+                "Readings over the rules' thresholds should be returned in order.");
+    }
+
+    /**
+     * Test case to verify that anomaly queries use the indexed repository lookups.
+     */
+    @Test
+    void testAnomalyQueries() {
+        LocalDateTime since = LocalDateTime.now().minusHours(1);
+        Anomaly anomaly = new Anomaly(1L, "device456", 85.0, 55.0, LocalDateTime.now(), "Temperature");
+        when(anomalyRepository.findByDetectedAtAfterOrderByDetectedAtDesc(since)).thenReturn(List.of(anomaly));
+        when(anomalyRepository.findByDeviceIdOrderByDetectedAtDesc("device456")).thenReturn(List.of(anomaly));
+
+        assertEquals(List.of(anomaly), anomalyDetectionService.getAnomaliesSince(since));
+        assertEquals(List.of(anomaly), anomalyDetectionService.getAnomaliesByDevice("device456"));
     }
 
     /**
@@ -0,0 +1,208 @@
+package turing.example.iotsenser.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import turing.example.iotsenser.detection.Finding;
+import turing.example.iotsenser.detection.WindowDetector;
+import turing.example.iotsenser.model.Anomaly;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AnomalySink.
+ * Ensures repeats are suppressed per device and rule within the cooldown and the rest is written in batches.
+ */
+class AnomalySinkTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private MeterRegistry meterRegistry;
+    private List<List<Anomaly>> writtenBatches;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        writtenBatches = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Test case verifying that a rule firing again for a device within the cooldown is suppressed,
+     * while other devices and later reports pass.
+     */
+    @Test
+    void testSuppressesRepeatsWithinCooldown() {
+        AnomalySink sink = sink(Duration.ofMinutes(5));
+
+        assertTrue(sink.admit(anomaly("device1", START,
+                rate("Temperature changed by 19.5 in 5.0s (3.90/s)"))));
+        assertFalse(sink.admit(anomaly("device1", START.plusMinutes(1),
+                rate("Temperature changed by -12.0 in 4.0s (-3.00/s)"))),
+                "The same rule with other values is a repeat.");
+        assertTrue(sink.admit(anomaly("device2", START.plusMinutes(1),
+                rate("Temperature changed by 19.5 in 5.0s (3.90/s)"))), "Another device is not a repeat.");
+        assertTrue(sink.admit(anomaly("device1", START.plusMinutes(1),
+                new Finding(WindowDetector.HUMIDITY_FLAT, "Humidity flat at 50.0 for 1800s"))),
+                "Another rule is not a repeat.");
+        assertTrue(sink.admit(anomaly("device1", START.plusMinutes(5),
+                rate("Temperature changed by 19.5 in 5.0s (3.90/s)"))),
+                "The rule should be reported again once the cooldown has passed.");
+        assertEquals(1.0, meterRegistry.get("iotsenser.anomaly.sink.suppressed").counter().count());
+    }
+
+    /**
+     * Test case verifying that only the repeated reasons are removed from an anomaly matching several rules.
+     */
+    @Test
+    void testDropsRepeatedReasons() {
+        AnomalySink sink = sink(Duration.ofMinutes(5));
+        Finding highTemperature = new Finding("high-temperature", "Rule high-temperature matched: temperature > 80");
+        Finding highHumidity = new Finding("high-humidity", "Rule high-humidity matched: humidity > 90");
+        sink.admit(anomaly("device1", START, highTemperature));
+
+        Anomaly anomaly = anomaly("device1", START.plusSeconds(10), highTemperature, highHumidity);
+
+        assertTrue(sink.admit(anomaly), "The new reason should be written.");
+        assertEquals("Rule high-humidity matched: humidity > 90", anomaly.getDescription());
+        assertEquals(List.of(highHumidity), anomaly.getFindings());
+    }
+
+    /**
+     * Test case verifying that rules are told apart by name, even names starting with a number.
+     */
+    @Test
+    void testKeysOnRuleNames() {
+        AnomalySink sink = sink(Duration.ofMinutes(5));
+
+        assertTrue(sink.admit(anomaly("device1", START,
+                new Finding("3-zone-hot", "Rule 3-zone-hot matched: temperature > 30"))));
+        assertTrue(sink.admit(anomaly("device1", START.plusSeconds(10),
+                new Finding("4-zone-hot", "Rule 4-zone-hot matched: temperature > 30"))),
+                "A rule with another name is not a repeat.");
+    }
+
+    /**
+     * Test case verifying that a flood of new keys evicts the oldest reports instead of being suppressed.
+     */
+    @Test
+    void testEvictsOldestKeys() {
+        AnomalySink sink = new AnomalySink(Duration.ofMinutes(5), 2, 100, 10, Duration.ofSeconds(1),
+                writtenBatches::add, meterRegistry);
+        Finding gap = new Finding(WindowDetector.GAP, "No reading for 300s");
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(sink.admit(anomaly("device" + i, START, gap)), "Every new device should be reported.");
+        }
+        assertTrue(sink.admit(anomaly("device0", START.plusSeconds(1), gap)), "The oldest key was evicted.");
+        assertFalse(sink.admit(anomaly("device2", START.plusSeconds(1), gap)), "Recent keys are kept.");
+    }
+
+    /**
+     * Test case verifying that a rule is reported once per device however many threads admit it at once.
+     */
+    @Test
+    void testAdmitsConcurrently() throws InterruptedException {
+        AnomalySink sink = sink(Duration.ofMinutes(5));
+        Finding gap = new Finding(WindowDetector.GAP, "No reading for 300s");
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int thread = 0; thread < 4; thread++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 100; i++) {
+                    if (sink.admit(anomaly("device" + i, START, gap))) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(100, admitted.get(), "Each device should be reported exactly once.");
+    }
+
+    /**
+     * Test case verifying that a zero cooldown writes every anomaly.
+     */
+    @Test
+    void testZeroCooldownAdmitsEverything() {
+        AnomalySink sink = sink(Duration.ZERO);
+
+        assertTrue(sink.admit(anomaly("device1", START, "No reading for 300s")));
+        assertTrue(sink.admit(anomaly("device1", START, "No reading for 300s")));
+    }
+
+    /**
+     * Test case verifying that queued anomalies are written in batches and the rest on close.
+     */
+    @Test
+    void testWritesInBatches() throws InterruptedException {
+        AnomalySink sink = new AnomalySink(Duration.ofMinutes(5), 100, 100, 2, Duration.ofSeconds(30),
+                writtenBatches::add, meterRegistry);
+        sink.start();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(sink.offer(anomaly("device" + i, START, "No reading for 300s")));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writtenBatches.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        sink.close();
+
+        assertEquals(2, writtenBatches.get(0).size(), "A full batch should be written as one unit.");
+        assertEquals(3, writtenBatches.stream().mapToInt(List::size).sum(), "Close should write what is left.");
+    }
+
+    /**
+     * Test case verifying that offers beyond capacity are refused and counted.
+     */
+    @Test
+    void testRejectsWhenFull() {
+        AnomalySink sink = new AnomalySink(Duration.ofMinutes(5), 100, 1, 10, Duration.ofSeconds(1),
+                writtenBatches::add, meterRegistry);
+
+        assertTrue(sink.offer(anomaly("device1", START, "No reading for 300s")));
+        assertFalse(sink.offer(anomaly("device2", START, "No reading for 300s")), "A full queue should refuse.");
+        assertEquals(1, sink.depth());
+        assertEquals(1.0, meterRegistry.get("iotsenser.anomaly.sink.dropped").tag("reason", "full").counter().count());
+    }
+
+    private AnomalySink sink(Duration cooldown) {
+        return new AnomalySink(cooldown, 100, 100, 10, Duration.ofSeconds(1), writtenBatches::add, meterRegistry);
+    }
+
+    private static Anomaly anomaly(String deviceId, LocalDateTime detectedAt, String description) {
+        return new Anomaly(null, deviceId, 85.0, 50.0, detectedAt, description);
+    }
+
+    private static Anomaly anomaly(String deviceId, LocalDateTime detectedAt, Finding... findings) {
+        Anomaly anomaly = anomaly(deviceId, detectedAt,
+                Finding.describe(List.of(findings), Anomaly.DESCRIPTION_LENGTH));
+        anomaly.setFindings(List.of(findings));
+        return anomaly;
+    }
+
+    private static Finding rate(String description) {
+        return new Finding(WindowDetector.TEMPERATURE_RATE, description);
+    }
+}
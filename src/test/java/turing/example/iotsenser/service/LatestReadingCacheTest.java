@@ -0,0 +1,124 @@
+package turing.example.iotsenser.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import turing.example.iotsenser.dto.SensorReadingView;
+import turing.example.iotsenser.model.SensorData;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LatestReadingCache.
+ * Ensures the newest reading wins and that size and idle eviction keep the cache bounded.
+ */
+class LatestReadingCacheTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private MeterRegistry meterRegistry;
+    private AtomicLong clock;
+    private LatestReadingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new AtomicLong();
+        cache = new LatestReadingCache(10, Duration.ofMinutes(5), Duration.ofMinutes(1), Duration.ofMinutes(1),
+                meterRegistry, clock::get);
+    }
+
+    /**
+     * Test case verifying that a cached reading is returned and counted as a hit.
+     */
+    @Test
+    void testPutAndGet() {
+        cache.put(reading(1L, "device1", NOW));
+
+        Optional<SensorReadingView> latest = cache.get("device1");
+
+        assertNotNull(latest, "Cached device should be found.");
+        assertEquals(1L, latest.orElseThrow().getId());
+        assertNull(cache.get("device2"), "Unknown device should miss.");
+        assertEquals(1.0, meterRegistry.get("iotsenser.latest.cache.gets").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("iotsenser.latest.cache.gets").tag("result", "miss").counter().count());
+    }
+
+    /**
+     * Test case verifying that an older reading arriving late does not replace a newer one.
+     */
+    @Test
+    void testOutOfOrderReadingDoesNotOverwrite() {
+        cache.put(reading(2L, "device1", NOW));
+        SensorReadingView kept = cache.put(reading(1L, "device1", NOW.minusMinutes(1)));
+
+        assertEquals(2L, kept.getId(), "Newer reading should be kept.");
+        assertEquals(2L, cache.get("device1").orElseThrow().getId());
+    }
+
+    /**
+     * Test case verifying that a device without readings is remembered as absent until its first write
+     * or the absent TTL.
+     */
+    @Test
+    void testAbsentDevice() {
+        cache.putAbsent("device1");
+        cache.putAbsent("device2");
+
+        assertEquals(Optional.empty(), cache.get("device1"), "Absent device should be a hit without a reading.");
+        cache.put(reading(1L, "device1", NOW));
+        assertEquals(1L, cache.get("device1").orElseThrow().getId(), "A write should replace the absent entry.");
+
+        clock.set(Duration.ofMinutes(2).toNanos());
+        assertNull(cache.get("device2"), "Absent entry should expire after its TTL.");
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Test case verifying that exceeding the bound evicts the least recently used devices.
+     */
+    @Test
+    void testEvictsLeastRecentlyUsedWhenFull() {
+        for (int i = 0; i < 10; i++) {
+            clock.set(i);
+            cache.put(reading((long) i, "device" + i, NOW));
+        }
+        clock.set(100);
+        cache.get("device0");
+
+        clock.set(101);
+        cache.put(reading(10L, "device10", NOW));
+
+        assertEquals(9, cache.size(), "Cache should shrink to 90% of its bound.");
+        assertNotNull(cache.get("device0"), "Recently read device should survive.");
+        assertNull(cache.get("device1"), "Least recently used device should be evicted.");
+        assertEquals(2.0, meterRegistry.get("iotsenser.latest.cache.evictions").tag("cause", "size").counter().count());
+    }
+
+    /**
+     * Test case verifying that the idle sweep drops devices not touched within the idle timeout.
+     */
+    @Test
+    void testEvictIdle() {
+        cache.put(reading(1L, "idle", NOW));
+        clock.set(Duration.ofMinutes(4).toNanos());
+        cache.put(reading(2L, "active", NOW));
+
+        clock.set(Duration.ofMinutes(6).toNanos());
+        cache.evictIdle();
+
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("active"), "Recently written device should survive the sweep.");
+        assertEquals(1.0, meterRegistry.get("iotsenser.latest.cache.evictions").tag("cause", "idle").counter().count());
+    }
+
+    private static SensorData reading(Long id, String deviceId, LocalDateTime timestamp) {
+        return new SensorData(id, deviceId, 25.0, 50.0, timestamp);
+    }
+}
@@ -0,0 +1,81 @@
+package turing.example.iotsenser.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import turing.example.iotsenser.dto.RollupView;
+import turing.example.iotsenser.model.RollupResolution;
+import turing.example.iotsenser.model.SensorRollup;
+import turing.example.iotsenser.repository.SensorRollupRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RollupService.
+ * Ensures partials merge into stored buckets and queries return derived averages.
+ */
+@ExtendWith(MockitoExtension.class)
+class RollupServiceTest {
+
+    private static final LocalDateTime BUCKET = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Mock
+    private SensorRollupRepository sensorRollupRepository;
+
+    @InjectMocks
+    private RollupService rollupService;
+
+    /**
+     * Test case to verify that partials merge into existing rows and create missing ones.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMergeRollups() {
+        SensorRollup stored = rollup("device123", 20.0);
+        SensorRollup partialForStored = rollup("device123", 30.0);
+        SensorRollup partialForNew = rollup("device456", 25.0);
+        when(sensorRollupRepository.findByResolutionAndBucketStartAndDeviceIdIn(
+                RollupResolution.HOUR, BUCKET, List.of("device123", "device456"))).thenReturn(List.of(stored));
+
+        rollupService.mergeRollups(List.of(partialForStored, partialForNew));
+
+        ArgumentCaptor<List<SensorRollup>> saved = ArgumentCaptor.forClass(List.class);
+        verify(sensorRollupRepository, times(1)).saveAll(saved.capture());
+        assertEquals(List.of(stored, partialForNew), saved.getValue(), "Existing row should be updated, new one inserted.");
+        assertEquals(2, stored.getCount(), "Partial should be merged into the stored bucket.");
+        assertEquals(30.0, stored.getTemperatureMax());
+    }
+
+    /**
+     * Test case to verify that rollup queries start at the bucket containing the lower bound.
+     */
+    @Test
+    void testGetRollups() {
+        LocalDateTime from = BUCKET.plusMinutes(30);
+        LocalDateTime to = BUCKET.plusHours(3);
+        SensorRollup stored = rollup("device123", 20.0);
+        stored.add(30.0, 60.0);
+        when(sensorRollupRepository
+                .findByDeviceIdAndResolutionAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStartAsc(
+                        "device123", RollupResolution.HOUR, BUCKET, to)).thenReturn(List.of(stored));
+
+        List<RollupView> views = rollupService.getRollups("device123", RollupResolution.HOUR, from, to);
+
+        assertEquals(1, views.size());
+        assertEquals(25.0, views.get(0).getTemperatureAvg(), "Average should be derived from sum and count.");
+        assertEquals(55.0, views.get(0).getHumidityAvg());
+    }
+
+    private static SensorRollup rollup(String deviceId, double temperature) {
+        SensorRollup rollup = new SensorRollup(deviceId, RollupResolution.HOUR, BUCKET);
+        rollup.add(temperature, 50.0);
+        return rollup;
+    }
+}
@@ -0,0 +1,85 @@
+package turing.example.iotsenser.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import turing.example.iotsenser.model.SensorData;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SensorDataPublisher.
+ * Ensures records are keyed by device and send outcomes are measured.
+ */
+@ExtendWith(MockitoExtension.class)
+class SensorDataPublisherTest {
+
+    @Mock
+    private KafkaTemplate<String, SensorData> kafkaTemplate;
+
+    private MeterRegistry meterRegistry;
+    private SensorDataPublisher sensorDataPublisher;
+    private SensorData sensorData;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sensorDataPublisher = new SensorDataPublisher(kafkaTemplate, meterRegistry);
+        sensorData = new SensorData(null, "device123", 25.0, 60.0, LocalDateTime.now());
+    }
+
+    /**
+     * Test case verifying the device ID is used as the record key and latency is recorded.
+     */
+    @Test
+    void testPublishKeysByDevice() {
+        CompletableFuture<SendResult<String, SensorData>> sent = CompletableFuture.completedFuture(null);
+        when(kafkaTemplate.send("sensor-data", "device123", sensorData)).thenReturn(sent);
+
+        CompletableFuture<SendResult<String, SensorData>> result = sensorDataPublisher.publish(sensorData);
+
+        assertTrue(result.isDone(), "Returned future should track the send.");
+        assertEquals(1, meterRegistry.get("iotsenser.kafka.send").timer().count());
+        assertEquals(0.0, meterRegistry.get("iotsenser.kafka.send.errors").counter().count());
+    }
+
+    /**
+     * Test case verifying failed sends are counted.
+     */
+    @Test
+    void testPublishFailureIsCounted() {
+        when(kafkaTemplate.send("sensor-data", "device123", sensorData))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")));
+
+        CompletableFuture<SendResult<String, SensorData>> result = sensorDataPublisher.publish(sensorData);
+
+        assertTrue(result.isCompletedExceptionally(), "Failure should propagate to the caller.");
+        assertEquals(1.0, meterRegistry.get("iotsenser.kafka.send.errors").counter().count());
+    }
+
+    /**
+     * Test case verifying that publishAndAwait succeeds only when every send is acknowledged.
+     */
+    @Test
+    void testPublishAndAwait() {
+        SensorData other = new SensorData(null, "device456", 20.0, 40.0, LocalDateTime.now());
+        when(kafkaTemplate.send("sensor-data", "device123", sensorData)).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.send("sensor-data", "device456", other))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")));
+
+        assertTrue(sensorDataPublisher.publishAndAwait(List.of(sensorData), 1000), "Acknowledged send should succeed.");
+        assertFalse(sensorDataPublisher.publishAndAwait(List.of(sensorData, other), 1000),
+                "One failed send should fail the whole batch.");
+    }
+}
@@ -1,17 +1,38 @@
 package turing.example.iotsenser.service;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import turing.example.iotsenser.cache.QueryCache;
+import turing.example.iotsenser.device.DeviceRegistry;
+import turing.example.iotsenser.dto.SensorDataCursor;
+import turing.example.iotsenser.dto.SensorDataPage;
+import turing.example.iotsenser.dto.SensorReadingView;
+import turing.example.iotsenser.event.SensorDataEvent;
+import turing.example.iotsenser.ingest.ReadingBatch;
 import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.repository.SensorDataBatchWriter;
 import turing.example.iotsenser.repository.SensorDataRepository;
+import turing.example.iotsenser.shard.ShardRouter;
+import turing.example.iotsenser.storage.TimeSeriesStore;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,6 +47,30 @@ class SensorDataServiceTest {
     @Mock
     private SensorDataRepository sensorDataRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private LatestReadingCache latestReadingCache;
+
+    @Mock
+    private TimeSeriesStore timeSeriesStore;
+
+    @Mock
+    private SensorDataBatchWriter sensorDataBatchWriter;
+
+    @Mock
+    private DeviceRegistry deviceRegistry;
+
+    @Mock
+    private QueryCache queryCache;
+
+    @Spy
+    private ShardRouter shardRouter = ShardRouter.singleShard();
+
     @InjectMocks
     private SensorDataService sensorDataService;
 
@@ -58,29 +103,191 @@ class SensorDataServiceTest {
         assertEquals(sampleData1.getTemperature(), savedData.getTemperature(), "Temperature should match.");
         assertEquals(sampleData1.getHumidity(), savedData.getHumidity(), "Humidity should match.");
 
-        // Verify repository interaction
+        // Verify repository interaction and that the reading was handed to the pipeline
         verify(sensorDataRepository, times(1)).save(sampleData1);
+        verify(timeSeriesStore, times(1)).append(List.of(sampleData1));
+        verify(latestReadingCache, times(1)).put(sampleData1);
+        verify(queryCache, times(1)).invalidateDevices(List.of("device123"));
+        verify(eventPublisher, times(1)).publishEvent(any(SensorDataEvent.class));
     }
 
     /**
-     * Test case for retrieving all sensor data.
+     * Test case verifying that the service saves inline unless write-behind mode is configured.
      */
     @Test
-    void testGetAllSensorData() {
-        // Given: A list of sensor data
-        List<SensorData> mockDataList = List.of(sampleData1, sampleData2);
-        when(sensorDataRepository.findAll()).thenReturn(mockDataList);
+    void testWriteBehindDisabledByDefault() {
+        assertFalse(sensorDataService.isWriteBehindEnabled(), "Default ingest mode should be synchronous.");
+    }
+
+    /**
+     * Test case verifying that the write-ahead log is only used when WAL mode is configured.
+     */
+    @Test
+    void testWalDisabledByDefault() {
+        assertFalse(sensorDataService.isWalEnabled(), "Default ingest mode should not use the write-ahead log.");
+    }
 
-        // When: Retrieving all sensor data
-        List<SensorData> result = sensorDataService.getAllSensorData();
+    /**
+     * Test case for saving a batch of sensor data.
+     */
+    @Test
+    void testSaveSensorDataBatch() {
+        // Given: A batch of sensor data objects
+        List<SensorData> batch = List.of(sampleData1, sampleData2);
+        when(sensorDataRepository.saveAll(batch)).thenReturn(batch);
 
-        // Then: Ensure the correct data is retrieved
-        assertEquals(2, result.size(), "Should return exactly 2 sensor data entries.");
-        assertTrue(result.contains(sampleData1), "List should contain sampleData1.");
-        assertTrue(result.contains(sampleData2), "List should contain sampleData2.");
+        // When: Saving the batch
+        List<SensorData> saved = sensorDataService.saveSensorDataBatch(batch);
 
-        // Verify repository interaction
-        verify(sensorDataRepository, times(1)).findAll();
+        // Then: Ensure the whole batch goes to the repository in one call
+        assertEquals(2, saved.size(), "Should save exactly 2 entries.");
+        verify(sensorDataRepository, times(1)).saveAll(batch);
+        verify(timeSeriesStore, times(1)).append(batch);
+        verify(eventPublisher, times(2)).publishEvent(any(SensorDataEvent.class));
+        verify(deviceRegistry, times(1)).registerAll(List.of("device123", "device456"));
+        verify(queryCache, times(1)).invalidateDevices(List.of("device123", "device456"));
+    }
+
+    /**
+     * Test case verifying that when sharded, readings committed on one shard are still handed on
+     * when a later shard fails.
+     */
+    @Test
+    void testSaveSensorDataBatchPublishesCommittedShards() {
+        Map<String, List<SensorData>> groups = new LinkedHashMap<>();
+        groups.put("shard-a", List.of(sampleData1));
+        groups.put("shard-b", List.of(sampleData2));
+        doReturn(groups).when(shardRouter).groupByShard(anyCollection(), any());
+        doAnswer(invocation -> {
+            if ("shard-b".equals(invocation.getArgument(0))) {
+                throw new IllegalStateException("shard-b unavailable");
+            }
+            return invocation.getArgument(1, Supplier.class).get();
+        }).when(shardRouter).write(anyString(), any());
+        when(sensorDataRepository.saveAll(List.of(sampleData1))).thenReturn(List.of(sampleData1));
+
+        assertThrows(IllegalStateException.class,
+                () -> sensorDataService.saveSensorDataBatch(List.of(sampleData1, sampleData2)));
+
+        verify(timeSeriesStore, times(1)).append(List.of(sampleData1));
+        verify(latestReadingCache, times(1)).put(sampleData1);
+        verify(queryCache, times(1)).invalidateDevices(List.of("device123"));
+        verify(eventPublisher, times(1)).publishEvent(any(SensorDataEvent.class));
+    }
+
+    /**
+     * Test case for stamping saved readings with their device key.
+     * Ensures the registry's copy of the device ID replaces the request's.
+     */
+    @Test
+    void testSaveSensorDataAssignsDeviceKey() {
+        String registered = new String("device123");
+        when(deviceRegistry.keyOf("device123")).thenReturn(7);
+        when(deviceRegistry.deviceIdOf(7)).thenReturn(registered);
+        when(sensorDataRepository.save(sampleData1)).thenReturn(sampleData1);
+
+        sensorDataService.saveSensorData(sampleData1);
+
+        assertEquals(7, sampleData1.getDeviceKey(), "Device key should be assigned before saving.");
+        assertSame(registered, sampleData1.getDeviceId(), "Device ID should be shared with the registry.");
+    }
+
+    /**
+     * Test case for saving an empty batch.
+     */
+    @Test
+    void testSaveEmptySensorDataBatch() {
+        List<SensorData> saved = sensorDataService.saveSensorDataBatch(List.of());
+
+        assertTrue(saved.isEmpty(), "Empty batch should be returned unchanged.");
+        verifyNoInteractions(sensorDataRepository);
+    }
+
+    /**
+     * Test case for saving a decoded ingest batch.
+     * Ensures the batch is written through the JDBC writer and its readings reach the downstream consumers.
+     */
+    @Test
+    void testSaveReadingBatch() {
+        ReadingBatch batch = new ReadingBatch();
+        batch.add("device123", 25.0, 60.0, 1_704_103_200_000L);
+        batch.add("device456", 30.0, 70.0, 1_704_103_260_000L);
+        doAnswer(invocation -> {
+            batch.setId(0, 1L);
+            batch.setId(1, 2L);
+            return null;
+        }).when(sensorDataBatchWriter).insert(batch);
+        when(deviceRegistry.keyOf("device123")).thenReturn(7);
+        when(deviceRegistry.keyOf("device456")).thenReturn(8);
+
+        List<SensorData> saved = sensorDataService.saveReadingBatch(batch);
+
+        assertEquals(2, saved.size(), "Should return one reading per batch row.");
+        assertEquals(1L, saved.get(0).getId(), "Generated IDs should be carried over.");
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0), saved.get(0).getTimestamp());
+        assertEquals(8, saved.get(1).getDeviceKey(), "Device keys should be assigned before the insert.");
+        verifyNoInteractions(sensorDataRepository, entityManager);
+        verify(timeSeriesStore, times(1)).append(saved);
+        verify(latestReadingCache, times(2)).put(any(SensorData.class));
+        verify(queryCache, times(1)).invalidateDevices(List.of("device123", "device456"));
+        verify(eventPublisher, times(2)).publishEvent(any(SensorDataEvent.class));
+    }
+
+    /**
+     * Test case for retrieving the first page of sensor data.
+     */
+    @Test
+    void testGetFirstSensorDataPage() {
+        // Given: A full first page
+        passThroughQueryCache();
+        when(sensorDataRepository.findAllByOrderByTimestampAscIdAsc(PageRequest.of(0, 2)))
+                .thenReturn(List.of(sampleData1, sampleData2));
+
+        // When: Retrieving the first page
+        SensorDataPage page = sensorDataService.getSensorDataPage(null, 2);
+
+        // Then: Ensure the page is returned with a cursor after its last entry
+        assertEquals(List.of(sampleData1, sampleData2), page.getItems());
+        assertEquals(SensorDataCursor.after(sampleData2), SensorDataCursor.decode(page.getNextCursor()),
+                "Cursor should resume after the last entry.");
+    }
+
+    /**
+     * Test case for retrieving the page after a cursor.
+     */
+    @Test
+    void testGetSensorDataPageAfterCursor() {
+        // Given: A partial page after a cursor
+        passThroughQueryCache();
+        SensorDataCursor cursor = SensorDataCursor.after(sampleData1);
+        when(sensorDataRepository.findPageAfter(cursor.getTimestamp(), cursor.getId(), PageRequest.of(0, 2)))
+                .thenReturn(List.of(sampleData2));
+
+        // When: Retrieving the next page
+        SensorDataPage page = sensorDataService.getSensorDataPage(cursor, 2);
+
+        // Then: Ensure a short page is reported as the last one
+        assertEquals(List.of(sampleData2), page.getItems());
+        assertNull(page.getNextCursor(), "Short page should be the last one.");
+    }
+
+    /**
+     * Test case for exporting sensor data from a cursor stream.
+     */
+    @Test
+    void testExportSensorData() {
+        // Given: A stream over two stored entries
+        when(sensorDataRepository.streamAllOrdered()).thenReturn(Stream.of(sampleData1, sampleData2));
+        List<SensorData> exported = new ArrayList<>();
+
+        // When: Exporting all sensor data
+        long count = sensorDataService.exportSensorData(exported::add);
+
+        // Then: Ensure each entry is handed to the sink and released from the persistence context
+        assertEquals(2, count, "Should export exactly 2 entries.");
+        assertEquals(List.of(sampleData1, sampleData2), exported);
+        verify(entityManager, times(1)).detach(sampleData1);
+        verify(entityManager, times(1)).detach(sampleData2);
     }
 
     /**
@@ -89,6 +296,7 @@ class SensorDataServiceTest {
     @Test
     void testGetSensorDataByDevice() {
         // Given: Sensor data belonging to a specific device
+        passThroughQueryCache();
         List<SensorData> deviceData = List.of(sampleData1);
         when(sensorDataRepository.findByDeviceId("device123")).thenReturn(deviceData);
 
@@ -102,4 +310,132 @@ class SensorDataServiceTest {
         // Verify repository interaction
         verify(sensorDataRepository, times(1)).findByDeviceId("device123");
     }
+
+    /**
+     * Test case for a device query answered by the query cache.
+     */
+    @Test
+    void testGetSensorDataByDeviceFromQueryCache() {
+        // Given: A cached result for the device
+        when(queryCache.get(eq("device123"), any(), any(), any())).thenReturn(List.of(sampleData1));
+
+        // When: Retrieving data for the device
+        List<SensorData> result = sensorDataService.getSensorDataByDevice("device123");
+
+        // Then: Ensure the database is not queried
+        assertEquals(List.of(sampleData1), result, "Should return the cached readings.");
+        verifyNoInteractions(sensorDataRepository);
+    }
+
+    /**
+     * Test case for retrieving a device's readings within a time range.
+     */
+    @Test
+    void testGetSensorDataByDeviceInRange() {
+        // Given: A projected reading inside the range
+        passThroughQueryCache();
+        LocalDateTime from = LocalDateTime.now().minusMinutes(15);
+        LocalDateTime to = LocalDateTime.now();
+        SensorReadingView view = new SensorReadingView(1L, "device123", 25.0, 60.0, from.plusMinutes(5));
+        when(timeSeriesStore.findReadingsInRange("device123", from, to, 50)).thenReturn(List.of(view));
+
+        // When: Retrieving the range
+        List<SensorReadingView> result = sensorDataService.getSensorDataByDevice("device123", from, to, 50);
+
+        // Then: Ensure the query is served by the time-series store with the limit applied
+        assertEquals(List.of(view), result, "Should return the stored readings.");
+        verifyNoInteractions(sensorDataRepository);
+    }
+
+    /**
+     * Test case for retrieving a device's latest reading from the cache.
+     */
+    @Test
+    void testGetLatestReadingFromCache() {
+        // Given: A cached reading
+        SensorReadingView view = new SensorReadingView(1L, "device123", 25.0, 60.0, LocalDateTime.now());
+        when(latestReadingCache.get("device123")).thenReturn(Optional.of(view));
+
+        // When & Then: The cached reading is returned without a query
+        assertEquals(Optional.of(view), sensorDataService.getLatestReading("device123"));
+        verifyNoInteractions(sensorDataRepository);
+    }
+
+    /**
+     * Test case for latest-reading cache misses in a bulk lookup.
+     */
+    @Test
+    void testGetLatestReadingOnCacheMiss() {
+        // Given: A device that is stored but not cached, and one that never reported
+        SensorReadingView view = new SensorReadingView(1L, "device123", 25.0, 60.0, LocalDateTime.now());
+        when(latestReadingCache.get(anyString())).thenReturn(null);
+        when(sensorDataRepository.findLatestByDeviceIds(List.of("device123", "unknown"))).thenReturn(List.of(sampleData1));
+        when(latestReadingCache.put(sampleData1)).thenReturn(view);
+
+        // When: Retrieving both devices in bulk
+        List<SensorReadingView> result = sensorDataService.getLatestReadings(List.of("device123", "unknown"));
+
+        // Then: Both misses are loaded in one query, and the unknown device is omitted and remembered as absent
+        assertEquals(List.of(view), result);
+        verify(latestReadingCache, times(1)).put(sampleData1);
+        verify(latestReadingCache, times(1)).putAbsent("unknown");
+        verify(sensorDataRepository, never()).findFirstByDeviceIdOrderByTimestampDesc(anyString());
+    }
+
+    /**
+     * Test case verifying that a device known to have no readings is answered without a query.
+     */
+    @Test
+    void testGetLatestReadingOfAbsentDevice() {
+        when(latestReadingCache.get("unknown")).thenReturn(Optional.empty());
+
+        assertEquals(Optional.empty(), sensorDataService.getLatestReading("unknown"));
+        assertEquals(List.of(), sensorDataService.getLatestReadings(List.of("unknown")));
+        verifyNoInteractions(sensorDataRepository);
+    }
+
+    /**
+     * Test case verifying that a single lookup of a device without readings remembers it as absent.
+     */
+    @Test
+    void testGetLatestReadingRemembersAbsentDevice() {
+        when(latestReadingCache.get("unknown")).thenReturn(null);
+        when(sensorDataRepository.findFirstByDeviceIdOrderByTimestampDesc("unknown")).thenReturn(Optional.empty());
+
+        assertEquals(Optional.empty(), sensorDataService.getLatestReading("unknown"));
+        verify(latestReadingCache, times(1)).putAbsent("unknown");
+    }
+
+    /**
+     * Test case verifying that inside a transaction the time-series store and the latest-reading cache
+     * are only updated once it commits.
+     */
+    @Test
+    void testLatestReadingCachedAfterCommit() {
+        List<SensorData> batch = List.of(sampleData1, sampleData2);
+        when(sensorDataRepository.saveAll(batch)).thenReturn(batch);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            sensorDataService.saveSensorDataBatch(batch);
+            verify(timeSeriesStore, never()).append(any());
+            verify(latestReadingCache, never()).put(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(timeSeriesStore, times(1)).append(batch);
+            verify(latestReadingCache, times(1)).put(sampleData1);
+            verify(latestReadingCache, times(1)).put(sampleData2);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Makes the query cache load every query, so queries reach the repository.
+     */
+    private void passThroughQueryCache() {
+        lenient().when(queryCache.get(any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(3, Supplier.class).get());
+        lenient().when(queryCache.getFleetWide(any(), any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(2, Supplier.class).get());
+    }
 }
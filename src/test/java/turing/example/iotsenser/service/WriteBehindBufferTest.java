@@ -0,0 +1,168 @@
+package turing.example.iotsenser.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import turing.example.iotsenser.model.SensorData;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WriteBehindBuffer.
+ * Ensures readings are flushed by size and by time and that overflow is refused.
+ */
+class WriteBehindBufferTest {
+
+    private MeterRegistry meterRegistry;
+    private List<List<SensorData>> flushedBatches;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        flushedBatches = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Test case verifying that a full batch is flushed without waiting for the interval.
+     */
+    @Test
+    void testFlushesWhenBatchIsFull() throws InterruptedException {
+        try (WriteBehindBuffer buffer = new WriteBehindBuffer(100, 3, Duration.ofSeconds(30),
+                flushedBatches::add, meterRegistry)) {
+            buffer.start();
+            for (int i = 0; i < 3; i++) {
+                assertTrue(buffer.offer(reading("device" + i)), "Buffer should accept readings below capacity.");
+            }
+
+            awaitFlushes(1);
+            assertEquals(3, flushedBatches.get(0).size(), "Full batch should be flushed as one unit.");
+        }
+    }
+
+    /**
+     * Test case verifying that a partial batch is flushed once the interval elapses.
+     */
+    @Test
+    void testFlushesAfterInterval() throws InterruptedException {
+        try (WriteBehindBuffer buffer = new WriteBehindBuffer(100, 50, Duration.ofMillis(50),
+                flushedBatches::add, meterRegistry)) {
+            buffer.start();
+            buffer.offer(reading("device1"));
+
+            awaitFlushes(1);
+            assertEquals(1, flushedBatches.get(0).size(), "Partial batch should be flushed after the interval.");
+            assertTrue(meterRegistry.get("iotsenser.ingest.buffer.flush").timer().count() >= 1,
+                    "Flush latency should be recorded.");
+        }
+    }
+
+    /**
+     * Test case verifying that offers beyond capacity are refused and counted.
+     */
+    @Test
+    void testRejectsWhenFull() {
+        WriteBehindBuffer buffer = new WriteBehindBuffer(2, 10, Duration.ofSeconds(1),
+                flushedBatches::add, meterRegistry);
+
+        assertTrue(buffer.offer(reading("device1")));
+        assertTrue(buffer.offer(reading("device2")));
+        assertFalse(buffer.offer(reading("device3")), "Buffer should refuse readings beyond capacity.");
+
+        assertEquals(2, buffer.depth(), "Depth should reflect buffered readings.");
+        assertEquals(2.0, meterRegistry.get("iotsenser.ingest.buffer.depth").gauge().value());
+        assertEquals(1.0, meterRegistry.get("iotsenser.ingest.buffer.dropped").tag("reason", "full").counter().count());
+    }
+
+    /**
+     * Test case verifying that closing the buffer persists whatever is still queued.
+     */
+    @Test
+    void testCloseDrainsRemainingReadings() {
+        WriteBehindBuffer buffer = new WriteBehindBuffer(10, 10, Duration.ofSeconds(1),
+                flushedBatches::add, meterRegistry);
+        buffer.offer(reading("device1"));
+        buffer.offer(reading("device2"));
+
+        buffer.close();
+
+        assertEquals(2, flushedBatches.stream().mapToInt(List::size).sum(), "Close should flush buffered readings.");
+    }
+
+    /**
+     * Test case verifying that a failing sink is counted as dropped readings.
+     */
+    @Test
+    void testFlushFailureIsCounted() {
+        WriteBehindBuffer buffer = new WriteBehindBuffer(10, 10, Duration.ofSeconds(1),
+                batch -> { throw new IllegalStateException("database down"); }, meterRegistry);
+        buffer.offer(reading("device1"));
+
+        buffer.close();
+
+        assertEquals(1.0, meterRegistry.get("iotsenser.ingest.buffer.dropped").tag("reason", "flush-error").counter().count());
+    }
+
+    /**
+     * Test case verifying that a batch rejected because of one reading is split so only that reading is dropped.
+     */
+    @Test
+    void testFailingReadingIsIsolated() {
+        WriteBehindBuffer buffer = new WriteBehindBuffer(10, 10, Duration.ofSeconds(1), batch -> {
+            if (batch.stream().anyMatch(reading -> reading.getDeviceId().equals("bad"))) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            flushedBatches.add(List.copyOf(batch));
+        }, meterRegistry);
+        for (String deviceId : List.of("device1", "device2", "bad", "device3", "device4")) {
+            buffer.offer(reading(deviceId));
+        }
+
+        buffer.close();
+
+        assertEquals(List.of("device1", "device2", "device3", "device4"), flushedBatches.stream()
+                        .flatMap(List::stream).map(SensorData::getDeviceId).toList(),
+                "Every other reading should be persisted.");
+        assertEquals(1.0, meterRegistry.get("iotsenser.ingest.buffer.dropped").tag("reason", "flush-error").counter().count());
+    }
+
+    /**
+     * Test case verifying that a batch failing because the database is down is dropped without retries.
+     */
+    @Test
+    void testUnavailableDatabaseIsNotRetried() {
+        List<Integer> attempts = new CopyOnWriteArrayList<>();
+        WriteBehindBuffer buffer = new WriteBehindBuffer(10, 10, Duration.ofSeconds(1), batch -> {
+            attempts.add(batch.size());
+            throw new DataAccessResourceFailureException("connection refused");
+        }, meterRegistry);
+        for (int i = 0; i < 4; i++) {
+            buffer.offer(reading("device" + i));
+        }
+
+        buffer.close();
+
+        assertEquals(List.of(4), attempts, "A batch should not be split when the database is unavailable.");
+        assertEquals(4.0, meterRegistry.get("iotsenser.ingest.buffer.dropped").tag("reason", "flush-error").counter().count());
+    }
+
+    private void awaitFlushes(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flushedBatches.size() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(flushedBatches.size() >= expected, "Expected at least " + expected + " flush(es).");
+    }
+
+    private static SensorData reading(String deviceId) {
+        return new SensorData(null, deviceId, 25.0, 50.0, LocalDateTime.now());
+    }
+}
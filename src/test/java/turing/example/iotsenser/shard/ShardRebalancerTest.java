@@ -0,0 +1,151 @@
+package turing.example.iotsenser.shard;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import turing.example.iotsenser.cache.QueryCache;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ShardRebalancer.
+ * Runs against in-memory H2 shards to ensure misplaced devices are moved whole and reruns are harmless.
+ */
+@ExtendWith(MockitoExtension.class)
+class ShardRebalancerTest {
+
+    private static final List<String> SHARDS = List.of(ShardRouter.PRIMARY, "shard-1", "shard-2");
+
+    @Mock
+    private QueryCache queryCache;
+
+    private Map<String, JdbcTemplate> shardTemplates;
+    private ShardRouter shardRouter;
+    private ShardRebalancer rebalancer;
+
+    /**
+     * Sets up three empty shards behind a routing data source.
+     */
+    @BeforeEach
+    void setUp() {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        shardTemplates = new LinkedHashMap<>();
+        String run = UUID.randomUUID().toString();
+        for (String shard : SHARDS) {
+            DataSource dataSource = new DriverManagerDataSource(
+                    "jdbc:h2:mem:" + shard + "-" + run + ";DB_CLOSE_DELAY=-1", "sa", "");
+            JdbcTemplate template = new JdbcTemplate(dataSource);
+            template.execute("CREATE TABLE sensor_data (id BIGINT PRIMARY KEY, device_id VARCHAR(255) NOT NULL, "
+                    + "device_key INT, temperature DOUBLE NOT NULL, humidity DOUBLE NOT NULL, "
+                    + "timestamp TIMESTAMP(6) NOT NULL)");
+            template.execute("CREATE TABLE anomalies (id BIGINT PRIMARY KEY, device_id VARCHAR(255) NOT NULL, "
+                    + "device_key INT, temperature DOUBLE NOT NULL, humidity DOUBLE NOT NULL, "
+                    + "detected_at TIMESTAMP(6) NOT NULL, description VARCHAR(500) NOT NULL)");
+            dataSources.put(shard, dataSource);
+            shardTemplates.put(shard, template);
+        }
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(dataSources, ShardRouter.PRIMARY);
+        routing.afterPropertiesSet();
+        shardRouter = new ShardRouter(new ShardRing(SHARDS, 128), new DataSourceTransactionManager(routing), 0);
+        rebalancer = new ShardRebalancer(shardRouter, new JdbcTemplate(routing), queryCache, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Stops the router's fan-out threads.
+     */
+    @AfterEach
+    void tearDown() {
+        shardRouter.close();
+    }
+
+    /**
+     * Test case verifying that every row of a misplaced device ends up on its owning shard and nowhere else.
+     */
+    @Test
+    void testMovesMisplacedDevices() {
+        // Everything starts on the primary, as before sharding was enabled
+        JdbcTemplate primary = shardTemplates.get(ShardRouter.PRIMARY);
+        long id = 0;
+        for (int device = 0; device < 20; device++) {
+            for (int reading = 0; reading < 25; reading++) {
+                primary.update("INSERT INTO sensor_data VALUES (?, ?, ?, ?, ?, ?)", ++id, "device-" + device,
+                        device, 20.0 + reading, 50.0, Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 0, reading)));
+            }
+            primary.update("INSERT INTO anomalies VALUES (?, ?, ?, ?, ?, ?, ?)", device + 1L, "device-" + device,
+                    device, 99.0, 50.0, Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 1, 0)), "hot");
+        }
+
+        long moved = rebalancer.rebalance();
+
+        long misplaced = 0;
+        for (int device = 0; device < 20; device++) {
+            String deviceId = "device-" + device;
+            String owner = shardRouter.shardOf(deviceId);
+            if (!owner.equals(ShardRouter.PRIMARY)) {
+                misplaced += 26;
+                verify(queryCache, atLeastOnce()).invalidateDevice(deviceId);
+            }
+            for (String shard : SHARDS) {
+                int expectedReadings = shard.equals(owner) ? 25 : 0;
+                assertEquals(expectedReadings, count(shard, "sensor_data", deviceId),
+                        "Readings of " + deviceId + " should live only on " + owner);
+                assertEquals(shard.equals(owner) ? 1 : 0, count(shard, "anomalies", deviceId),
+                        "Anomalies of " + deviceId + " should live only on " + owner);
+            }
+        }
+        assertTrue(misplaced > 0, "Some devices should belong to the new shards.");
+        assertEquals(misplaced, moved, "Every misplaced row should be moved once.");
+    }
+
+    /**
+     * Test case verifying that a row copied by an interrupted run is not duplicated by the next one.
+     */
+    @Test
+    void testRerunIsIdempotent() {
+        String deviceId = deviceOwnedBy("shard-1");
+        JdbcTemplate primary = shardTemplates.get(ShardRouter.PRIMARY);
+        for (long id = 1; id <= 10; id++) {
+            primary.update("INSERT INTO sensor_data VALUES (?, ?, ?, ?, ?, ?)", id, deviceId, 1, 21.0, 50.0,
+                    Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 0, (int) id)));
+        }
+        // A previous run copied the first row but stopped before deleting it from the primary
+        shardTemplates.get("shard-1").update("INSERT INTO sensor_data VALUES (?, ?, ?, ?, ?, ?)", 1L, deviceId, 1,
+                21.0, 50.0, Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 0, 1)));
+
+        rebalancer.rebalance();
+        long secondRun = rebalancer.rebalance();
+
+        assertEquals(10, count("shard-1", "sensor_data", deviceId), "Each row should be on the owner exactly once.");
+        assertEquals(0, count(ShardRouter.PRIMARY, "sensor_data", deviceId));
+        assertEquals(0, secondRun, "Nothing should be left to move.");
+    }
+
+    private int count(String shard, String table, String deviceId) {
+        return shardTemplates.get(shard).queryForObject(
+                "SELECT COUNT(*) FROM " + table + " WHERE device_id = ?", Integer.class, deviceId);
+    }
+
+    private String deviceOwnedBy(String shard) {
+        for (int i = 0; ; i++) {
+            if (shardRouter.shardOf("device-" + i).equals(shard)) {
+                return "device-" + i;
+            }
+        }
+    }
+}
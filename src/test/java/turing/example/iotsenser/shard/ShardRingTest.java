@@ -0,0 +1,83 @@
+package turing.example.iotsenser.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ShardRing.
+ * Ensures devices are assigned deterministically, spread evenly and mostly stay put when shards are added.
+ */
+class ShardRingTest {
+
+    private static final int DEVICES = 100_000;
+
+    /**
+     * Test case verifying that the assignment depends only on shard names, not on their order.
+     */
+    @Test
+    void testAssignmentIsDeterministic() {
+        ShardRing ring = new ShardRing(List.of("primary", "shard-1", "shard-2"), 128);
+        ShardRing reordered = new ShardRing(List.of("shard-2", "primary", "shard-1"), 128);
+
+        for (int i = 0; i < 1000; i++) {
+            String deviceId = "device-" + i;
+            assertEquals(ring.shardOf(deviceId), reordered.shardOf(deviceId),
+                    "Shard order should not change the assignment.");
+        }
+    }
+
+    /**
+     * Test case verifying that devices are spread roughly evenly over the shards.
+     */
+    @Test
+    void testDevicesAreSpreadEvenly() {
+        List<String> shards = List.of("primary", "shard-1", "shard-2", "shard-3");
+        ShardRing ring = new ShardRing(shards, 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < DEVICES; i++) {
+            counts.merge(ring.shardOf("device-" + i), 1, Integer::sum);
+        }
+
+        for (String shard : shards) {
+            int count = counts.getOrDefault(shard, 0);
+            assertTrue(Math.abs(count - DEVICES / 4) < DEVICES / 4 * 0.25,
+                    "Shard " + shard + " should hold about a quarter of the devices, held " + count);
+        }
+    }
+
+    /**
+     * Test case verifying that adding a shard moves only the devices it takes over, about 1/(N+1) of them.
+     */
+    @Test
+    void testAddingShardMovesFewDevices() {
+        ShardRing before = new ShardRing(List.of("primary", "shard-1", "shard-2"), 128);
+        ShardRing after = new ShardRing(List.of("primary", "shard-1", "shard-2", "shard-3"), 128);
+
+        int moved = 0;
+        for (int i = 0; i < DEVICES; i++) {
+            String deviceId = "device-" + i;
+            String owner = after.shardOf(deviceId);
+            if (!owner.equals(before.shardOf(deviceId))) {
+                assertEquals("shard-3", owner, "Devices should only move to the new shard.");
+                moved++;
+            }
+        }
+
+        assertTrue(moved > DEVICES * 0.15 && moved < DEVICES * 0.35,
+                "About a quarter of the devices should move, moved " + moved);
+    }
+
+    /**
+     * Test case verifying that a ring needs at least one shard.
+     */
+    @Test
+    void testRejectsEmptyRing() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardRing(List.of(), 128));
+    }
+}
@@ -0,0 +1,69 @@
+package turing.example.iotsenser.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ShardRouter.
+ * Ensures an unsharded router leaves work untouched and a sharded one groups it by owning shard.
+ */
+class ShardRouterTest {
+
+    /**
+     * Test case verifying that a single-shard router runs work in place on the primary.
+     */
+    @Test
+    void testSingleShardRunsInPlace() {
+        try (ShardRouter router = ShardRouter.singleShard()) {
+            assertFalse(router.isSharded());
+            assertEquals(ShardRouter.PRIMARY, router.shardOf("device-1"));
+            assertEquals("written", router.write(ShardRouter.PRIMARY, () -> "written"));
+            assertEquals("read", router.read(ShardRouter.PRIMARY, () -> "read"));
+            assertEquals(List.of(ShardRouter.PRIMARY), router.readEachShard(shard -> shard),
+                    "Fan-out should visit only the primary.");
+            assertNull(ShardContext.current(), "No shard should be selected when unsharded.");
+        }
+    }
+
+    /**
+     * Test case verifying that items are grouped by the shard owning their device, keeping their order.
+     */
+    @Test
+    void testGroupByShard() {
+        ShardRing ring = new ShardRing(List.of(ShardRouter.PRIMARY, "shard-1", "shard-2"), 128);
+        try (ShardRouter router = new ShardRouter(ring, null, 0)) {
+            List<String> deviceIds = List.of("device-1", "device-2", "device-3", "device-1", "device-4");
+
+            Map<String, List<String>> groups = router.groupByShard(deviceIds, deviceId -> deviceId);
+
+            int total = 0;
+            for (Map.Entry<String, List<String>> group : groups.entrySet()) {
+                for (String deviceId : group.getValue()) {
+                    assertEquals(ring.shardOf(deviceId), group.getKey(), "Items should land on their owning shard.");
+                }
+                total += group.getValue().size();
+            }
+            assertEquals(deviceIds.size(), total, "No item should be lost.");
+        }
+    }
+
+    /**
+     * Test case verifying that work routed to a shard sees that shard as current, and only during the work.
+     */
+    @Test
+    void testRunSelectsShard() {
+        ShardRing ring = new ShardRing(List.of(ShardRouter.PRIMARY, "shard-1"), 128);
+        try (ShardRouter router = new ShardRouter(ring, null, 0)) {
+            String[] seen = new String[1];
+
+            router.run("shard-1", () -> seen[0] = ShardContext.current());
+
+            assertEquals("shard-1", seen[0]);
+            assertNull(ShardContext.current(), "The shard should be cleared after the work.");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package turing.example.iotsenser.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChunkEncoder and ChunkDecoder.
+ * Ensures points round-trip exactly and regular series compress well.
+ */
+class ChunkEncoderTest {
+
+    /**
+     * Test case verifying that irregular timestamps and arbitrary doubles decode exactly.
+     */
+    @Test
+    void testRoundTripsIrregularPoints() {
+        Random random = new Random(42);
+        int points = 1000;
+        long[] timestamps = new long[points];
+        double[] temperatures = new double[points];
+        double[] humidities = new double[points];
+        ChunkEncoder encoder = new ChunkEncoder(points);
+        long timestamp = 1_700_000_000_000L;
+        for (int i = 0; i < points; i++) {
+            // Mix of repeated, small, medium and huge gaps to hit every delta-of-delta encoding
+            timestamp += switch (i % 5) {
+                case 0 -> 1000;
+                case 1 -> random.nextInt(100);
+                case 2 -> random.nextInt(5000);
+                case 3 -> random.nextInt(1_000_000_000);
+                default -> 0;
+            };
+            timestamps[i] = timestamp;
+            temperatures[i] = i % 7 == 0 ? temperatures[Math.max(0, i - 1)] : random.nextGaussian() * 30;
+            humidities[i] = i % 3 == 0 ? Double.NaN : random.nextDouble() * 100;
+            encoder.add(timestamps[i], temperatures[i], humidities[i]);
+        }
+
+        ChunkDecoder decoder = new ChunkDecoder(ByteBuffer.wrap(encoder.payload()), encoder.count());
+        for (int i = 0; i < points; i++) {
+            assertTrue(decoder.next(), "Decoder should yield every encoded point.");
+            assertEquals(timestamps[i], decoder.timestamp(), "Timestamp " + i + " should round-trip.");
+            assertEquals(Double.doubleToRawLongBits(temperatures[i]), Double.doubleToRawLongBits(decoder.temperature()),
+                    "Temperature " + i + " should round-trip bit for bit.");
+            assertEquals(Double.doubleToRawLongBits(humidities[i]), Double.doubleToRawLongBits(decoder.humidity()),
+                    "Humidity " + i + " should round-trip bit for bit.");
+        }
+        assertFalse(decoder.next(), "Decoder should stop after the last point.");
+    }
+
+    /**
+     * Test case verifying that a regular, slowly changing series costs only a few bits per point.
+     */
+    @Test
+    void testCompressesRegularSeries() {
+        ChunkEncoder encoder = new ChunkEncoder(1024);
+        for (int i = 0; i < 1024; i++) {
+            encoder.add(1_700_000_000_000L + i * 10_000L, 21.5, 40.0 + (i / 100));
+        }
+
+        assertTrue(encoder.payload().length < 1024, "Regular series should take well under one byte per point.");
+        assertEquals(1_700_000_000_000L, encoder.firstTimestamp());
+        assertEquals(1_700_000_000_000L + 1023 * 10_000L, encoder.lastTimestamp());
+        assertEquals(21.5 * 1024, encoder.stats()[2], 1e-9, "Temperature sum should be tracked.");
+    }
+}
@@ -0,0 +1,167 @@
+package turing.example.iotsenser.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.util.unit.DataSize;
+import turing.example.iotsenser.dto.SensorReadingView;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.repository.SensorDataRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ColumnarTimeSeriesStore.
+ * Ensures range scans, coverage and recovery from the segment files behave like the table they mirror.
+ */
+@ExtendWith(MockitoExtension.class)
+class ColumnarTimeSeriesStoreTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private SensorDataRepository sensorDataRepository;
+
+    /**
+     * Test case verifying that a range query returns the newest readings first, across sealed and open chunks.
+     */
+    @Test
+    void testFindReadingsInRangeNewestFirst() {
+        try (ColumnarTimeSeriesStore store = newStore()) {
+            store.append(readings("device1", 250));
+            store.append(readings("device2", 10));
+
+            List<SensorReadingView> result = store.findReadingsInRange("device1", BASE.plusMinutes(100),
+                    BASE.plusMinutes(200), 5);
+
+            assertEquals(5, result.size(), "Limit should be applied.");
+            assertEquals(BASE.plusMinutes(199), result.get(0).getTimestamp(), "Newest reading should come first.");
+            assertEquals(BASE.plusMinutes(195), result.get(4).getTimestamp());
+            assertEquals(199.0, result.get(0).getTemperature(), "Values should round-trip.");
+            assertEquals("device1", result.get(0).getDeviceId());
+        }
+    }
+
+    /**
+     * Test case verifying that readings arriving out of order are still found and ordered.
+     */
+    @Test
+    void testOutOfOrderReadings() {
+        try (ColumnarTimeSeriesStore store = newStore()) {
+            store.append(List.of(reading("device1", 10), reading("device1", 5), reading("device1", 20)));
+
+            List<SensorReadingView> result = store.findReadingsInRange("device1", BASE, BASE.plusMinutes(30), 10);
+
+            assertEquals(List.of(BASE.plusMinutes(20), BASE.plusMinutes(10), BASE.plusMinutes(5)),
+                    result.stream().map(SensorReadingView::getTimestamp).toList());
+        }
+    }
+
+    /**
+     * Test case verifying that sealed chunks are recovered from the segment files after a restart.
+     */
+    @Test
+    void testRecoversAfterReopen() {
+        try (ColumnarTimeSeriesStore store = newStore()) {
+            store.append(readings("device1", 250));
+        }
+
+        try (ColumnarTimeSeriesStore reopened = newStore(BASE.plusDays(1))) {
+            List<SensorReadingView> result = reopened.findReadingsInRange("device1", BASE, BASE.plusDays(1), 1000);
+
+            assertEquals(250, result.size(), "Every reading should survive a restart.");
+            assertEquals(BASE.plusMinutes(249), result.get(0).getTimestamp());
+            assertTrue(reopened.bytesOnDisk() > 0, "Recovered segments should report their size.");
+        }
+        verifyNoInteractions(sensorDataRepository);
+    }
+
+    /**
+     * Test case verifying that the part of a range before the coverage start is read from the repository,
+     * after the newer readings held by the store.
+     */
+    @Test
+    void testFallsBackBeforeCoverage() {
+        SensorReadingView older = new SensorReadingView(7L, "device1", 99.0, 50.0, BASE.plusMinutes(99));
+        when(sensorDataRepository.findReadingsInRange("device1", BASE, BASE.plusMinutes(100), PageRequest.of(0, 50)))
+                .thenReturn(List.of(older));
+        try (ColumnarTimeSeriesStore store = newStore(BASE.plusMinutes(100))) {
+            store.append(readings("device1", 250).subList(100, 250));
+
+            List<SensorReadingView> result = store.findReadingsInRange("device1", BASE, BASE.plusMinutes(250), 200);
+
+            assertEquals(151, result.size(), "Covered and uncovered readings should be combined.");
+            assertEquals(BASE.plusMinutes(249), result.get(0).getTimestamp(), "Covered readings should come first.");
+            assertEquals(BASE.plusMinutes(100), result.get(149).getTimestamp());
+            assertSame(older, result.get(150), "Uncovered readings should come from the repository.");
+        }
+    }
+
+    /**
+     * Test case verifying that a store reopened without a clean shutdown only covers readings from now on,
+     * since points in open chunks were lost.
+     */
+    @Test
+    void testCoverageRestartsAfterCrash() throws Exception {
+        try (ColumnarTimeSeriesStore store = newStore()) {
+            store.append(readings("device1", 50));
+        }
+        Files.delete(directory.resolve("covered-from"));
+        when(sensorDataRepository.findReadingsInRange("device1", BASE, BASE.plusMinutes(50), PageRequest.of(0, 10)))
+                .thenReturn(List.of());
+
+        try (ColumnarTimeSeriesStore reopened = newStore(BASE.plusDays(1))) {
+            assertTrue(reopened.findReadingsInRange("device1", BASE, BASE.plusMinutes(50), 10).isEmpty(),
+                    "Ranges before the new coverage start should be read from the repository.");
+        }
+    }
+
+    /**
+     * Test case verifying that unknown devices return nothing.
+     */
+    @Test
+    void testUnknownDevice() {
+        try (ColumnarTimeSeriesStore store = newStore()) {
+            assertTrue(store.findReadingsInRange("missing", BASE, BASE.plusDays(1), 10).isEmpty());
+        }
+    }
+
+    private ColumnarTimeSeriesStore newStore() {
+        return newStore(BASE);
+    }
+
+    private ColumnarTimeSeriesStore newStore(LocalDateTime now) {
+        return new ColumnarTimeSeriesStore(directory, DataSize.ofMegabytes(1), 100, Duration.ofMinutes(1),
+                sensorDataRepository, new SimpleMeterRegistry(), Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    private static List<SensorData> readings(String deviceId, int count) {
+        List<SensorData> readings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            readings.add(reading(deviceId, i));
+        }
+        return readings;
+    }
+
+    private static SensorData reading(String deviceId, int minute) {
+        return new SensorData(null, deviceId, minute, 50.0, BASE.plusMinutes(minute));
+    }
+}
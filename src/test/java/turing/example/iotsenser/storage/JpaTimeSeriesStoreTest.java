@@ -0,0 +1,55 @@
+package turing.example.iotsenser.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import turing.example.iotsenser.dto.SensorReadingView;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.repository.SensorDataRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for JpaTimeSeriesStore.
+ * Ensures range queries go to the indexed repository query and appends do not write again.
+ */
+@ExtendWith(MockitoExtension.class)
+class JpaTimeSeriesStoreTest {
+
+    @Mock
+    private SensorDataRepository sensorDataRepository;
+
+    @InjectMocks
+    private JpaTimeSeriesStore jpaTimeSeriesStore;
+
+    /**
+     * Test case verifying that the limit is applied through the repository query.
+     */
+    @Test
+    void testFindReadingsInRange() {
+        LocalDateTime to = LocalDateTime.now();
+        LocalDateTime from = to.minusMinutes(15);
+        SensorReadingView view = new SensorReadingView(1L, "device123", 25.0, 60.0, from.plusMinutes(5));
+        when(sensorDataRepository.findReadingsInRange("device123", from, to, PageRequest.of(0, 50)))
+                .thenReturn(List.of(view));
+
+        assertEquals(List.of(view), jpaTimeSeriesStore.findReadingsInRange("device123", from, to, 50));
+    }
+
+    /**
+     * Test case verifying that appending leaves the already persisted rows alone.
+     */
+    @Test
+    void testAppendIsNoOp() {
+        jpaTimeSeriesStore.append(List.of(new SensorData(1L, "device123", 25.0, 60.0, LocalDateTime.now())));
+
+        verifyNoInteractions(sensorDataRepository);
+    }
+}
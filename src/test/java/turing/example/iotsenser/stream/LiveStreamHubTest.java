@@ -0,0 +1,204 @@
+package turing.example.iotsenser.stream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import turing.example.iotsenser.model.Anomaly;
+import turing.example.iotsenser.model.SensorData;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LiveStreamHub.
+ * Ensures updates reach only interested subscribers, are conflated for slow ones and that failed
+ * or excess subscribers are dropped.
+ */
+class LiveStreamHubTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LiveStreamHub hub;
+
+    /**
+     * Starts a hub with default settings.
+     */
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        hub = new LiveStreamHub(meterRegistry);
+        hub.start();
+    }
+
+    /**
+     * Stops the hub's sender threads.
+     */
+    @AfterEach
+    void tearDown() {
+        hub.stop();
+    }
+
+    /**
+     * Test case verifying that readings and anomalies reach subscribers of their device only.
+     */
+    @Test
+    void testDeliversToInterestedSubscribers() throws Exception {
+        RecordingSink following = new RecordingSink(2);
+        RecordingSink other = new RecordingSink(1);
+        hub.subscribe(List.of("device-1"), following);
+        hub.subscribe(List.of("device-2"), other);
+
+        Anomaly anomaly = new Anomaly(null, "device-1", 90.0, 50.0, LocalDateTime.now(), "hot");
+        hub.onProcessed(reading("device-1", 90.0), anomaly);
+
+        assertTrue(following.await(), "The subscriber should receive the update.");
+        assertEquals(List.of("readings", "anomalies"), following.names());
+        assertEquals(List.of(anomaly), following.events.get(1).data());
+        assertFalse(other.await(200), "Subscribers of other devices should receive nothing.");
+    }
+
+    /**
+     * Test case verifying that a blocked client receives only the latest reading of each device once it catches up.
+     */
+    @Test
+    void testConflatesForSlowSubscriber() throws Exception {
+        CountDownLatch unblock = new CountDownLatch(1);
+        RecordingSink slow = new RecordingSink(2) {
+            @Override
+            public void send(String name, Object data) throws IOException {
+                super.send(name, data);
+                if (events.size() == 1) {
+                    try {
+                        unblock.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        hub.subscribe(List.of("device-1", "device-2"), slow);
+
+        hub.onProcessed(reading("device-1", 20.0), null);
+        Thread.sleep(400);
+        for (int i = 0; i < 100; i++) {
+            hub.onProcessed(reading("device-1", 21.0 + i), null);
+            hub.onProcessed(reading("device-2", 30.0 + i), null);
+        }
+        unblock.countDown();
+
+        assertTrue(slow.await(), "The subscriber should catch up.");
+        List<?> caughtUp = (List<?>) slow.events.get(1).data();
+        assertEquals(2, caughtUp.size(), "Only the latest reading per device should be sent.");
+        assertEquals(120.0, ((SensorData) caughtUp.get(0)).getTemperature());
+        assertEquals(129.0, ((SensorData) caughtUp.get(1)).getTemperature());
+        assertEquals(198.0, meterRegistry.get("iotsenser.stream.conflated").counter().count());
+    }
+
+    /**
+     * Test case verifying that a subscriber whose connection fails is removed.
+     */
+    @Test
+    void testDropsFailedSubscriber() throws Exception {
+        RecordingSink failing = new RecordingSink(1) {
+            @Override
+            public void send(String name, Object data) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        hub.subscribe(List.of("device-1"), failing);
+
+        hub.onProcessed(reading("device-1", 20.0), null);
+
+        assertTrue(failing.closed.await(2, TimeUnit.SECONDS), "The failed stream should be closed.");
+        assertEquals(0, hub.subscriberCount());
+    }
+
+    /**
+     * Test case verifying that the hub holds ten thousand subscribers and refuses more.
+     */
+    @Test
+    void testHoldsTenThousandSubscribers() throws Exception {
+        AtomicInteger delivered = new AtomicInteger();
+        CountDownLatch all = new CountDownLatch(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            assertNotNull(hub.subscribe(List.of("device-1", "device-" + (i + 2)), new RecordingSink(0) {
+                @Override
+                public void send(String name, Object data) {
+                    delivered.incrementAndGet();
+                    all.countDown();
+                }
+            }));
+        }
+
+        assertNull(hub.subscribe(List.of("device-1"), new RecordingSink(0)), "The hub should be full.");
+        hub.onProcessed(reading("device-1", 20.0), null);
+
+        assertTrue(all.await(10, TimeUnit.SECONDS), "Every subscriber should receive the reading.");
+        assertEquals(10_000, delivered.get());
+        assertEquals(10_000, hub.subscriberCount());
+    }
+
+    /**
+     * Test case verifying that empty device lists are rejected.
+     */
+    @Test
+    void testRejectsEmptySubscription() {
+        assertThrows(IllegalArgumentException.class, () -> hub.subscribe(List.of(" "), new RecordingSink(0)));
+        assertEquals(0, hub.subscriberCount());
+    }
+
+    private static SensorData reading(String deviceId, double temperature) {
+        return new SensorData(null, deviceId, temperature, 50.0, LocalDateTime.now());
+    }
+
+    /**
+     * Sink recording the events it is sent.
+     */
+    private static class RecordingSink implements EventSink {
+
+        final List<Event> events = new ArrayList<>();
+        final CountDownLatch closed = new CountDownLatch(1);
+        private final CountDownLatch expected;
+
+        RecordingSink(int expectedEvents) {
+            this.expected = new CountDownLatch(expectedEvents);
+        }
+
+        @Override
+        public synchronized void send(String name, Object data) throws IOException {
+            events.add(new Event(name, data));
+            expected.countDown();
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return await(2000);
+        }
+
+        boolean await(long millis) throws InterruptedException {
+            return expected.await(millis, TimeUnit.MILLISECONDS);
+        }
+
+        List<String> names() {
+            return events.stream().map(Event::name).toList();
+        }
+    }
+
+    private record Event(String name, Object data) {
+    }
+}
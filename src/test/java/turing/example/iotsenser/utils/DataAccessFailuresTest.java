@@ -0,0 +1,48 @@
+package turing.example.iotsenser.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DataAccessFailures.
+ * Ensures that outages are told apart from rejected rows, also when wrapped.
+ */
+class DataAccessFailuresTest {
+
+    /**
+     * Test case for failures of the database itself.
+     */
+    @Test
+    void testUnavailable() {
+        assertTrue(DataAccessFailures.isUnavailable(new DataAccessResourceFailureException("connection refused")),
+                "An unreachable database should count as unavailable.");
+        assertTrue(DataAccessFailures.isUnavailable(new QueryTimeoutException("timed out")),
+                "A transient failure should count as unavailable.");
+    }
+
+    /**
+     * Test case for rows the database rejects.
+     */
+    @Test
+    void testRejectedRows() {
+        assertFalse(DataAccessFailures.isUnavailable(new DataIntegrityViolationException("value too long")),
+                "A rejected row should not count as unavailable.");
+        assertFalse(DataAccessFailures.isUnavailable(new IllegalArgumentException("bad reading")));
+    }
+
+    /**
+     * Test case for an outage wrapped by the Kafka listener.
+     */
+    @Test
+    void testWrappedFailure() {
+        BatchListenerFailedException wrapped = new BatchListenerFailedException("write failed",
+                new DataAccessResourceFailureException("connection refused"), 3);
+
+        assertTrue(DataAccessFailures.isUnavailable(wrapped), "Causes should be inspected.");
+    }
+}
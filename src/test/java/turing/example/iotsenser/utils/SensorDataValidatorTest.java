@@ -2,6 +2,9 @@ package turing.example.iotsenser.utils;
 
 import org.junit.jupiter.api.Test;
 import turing.example.iotsenser.dto.SensorDataRequest;
+import turing.example.iotsenser.model.SensorData;
+
+import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -116,4 +119,43 @@ class SensorDataValidatorTest {
         assertFalse(SensorDataValidator.isHumidityValid(-10.0), "Humidity below min should return false.");
         assertFalse(SensorDataValidator.isHumidityValid(null), "Null humidity should return false.");
     }
+
+    /**
+     * Test case for validating sensor data entities from bulk ingest.
+     */
+    @Test
+    void testSensorDataEntityValidation() {
+        SensorData valid = new SensorData(null, "device123", 25.0, 50.0, LocalDateTime.now());
+        SensorData blankDevice = new SensorData(null, " ", 25.0, 50.0, LocalDateTime.now());
+        SensorData hot = new SensorData(null, "device123", 150.0, 50.0, LocalDateTime.now());
+
+        assertTrue(SensorDataValidator.isValid(valid), "Valid entity should return true.");
+        assertNull(SensorDataValidator.rejectionReason(valid), "Valid entity should have no rejection reason.");
+        assertEquals("Device ID cannot be empty", SensorDataValidator.rejectionReason(blankDevice));
+        assertEquals("Temperature out of range", SensorDataValidator.rejectionReason(hot));
+        assertEquals("Reading is empty", SensorDataValidator.rejectionReason(null));
+    }
+
+    /**
+     * Test case for validating readings decoded as primitive fields.
+     */
+    @Test
+    void testPrimitiveReadingValidation() {
+        assertNull(SensorDataValidator.rejectionReason("device123", 25.0, 50.0), "Valid reading should have no reason.");
+        assertEquals("Device ID cannot be empty", SensorDataValidator.rejectionReason(null, 25.0, 50.0));
+        assertEquals("Temperature out of range", SensorDataValidator.rejectionReason("device123", Double.NaN, 50.0));
+        assertEquals("Humidity out of range", SensorDataValidator.rejectionReason("device123", 25.0, 101.0));
+    }
+
+    /**
+     * Test case for rejecting device IDs that do not fit the device_id columns.
+     */
+    @Test
+    void testDeviceIdLength() {
+        String longest = "d".repeat(SensorDataValidator.MAX_DEVICE_ID_LENGTH);
+
+        assertNull(SensorDataValidator.rejectionReason(longest, 25.0, 50.0), "A 255-character ID should be valid.");
+        assertEquals("Device ID longer than 255 characters",
+                SensorDataValidator.rejectionReason(longest + "d", 25.0, 50.0));
+    }
 }
@@ -0,0 +1,137 @@
+package turing.example.iotsenser.wal;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import turing.example.iotsenser.model.SensorData;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WalReplayer.
+ * Ensures the log is drained in order and the checkpoint only moves after the sink succeeds.
+ */
+class WalReplayerTest {
+
+    @TempDir
+    Path directory;
+
+    private MeterRegistry meterRegistry;
+    private List<SensorData> delivered;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        delivered = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Test case verifying that appended readings are delivered in batches and checkpointed.
+     */
+    @Test
+    void testDrainsLogInBatches() throws InterruptedException {
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 4096, Long.MAX_VALUE, false, meterRegistry);
+             WalReplayer replayer = new WalReplayer(wal, 10, 3, Duration.ofMillis(10), delivered::addAll,
+                     meterRegistry)) {
+            replayer.start();
+            wal.append(readings(25));
+
+            awaitDelivered(25);
+            assertEquals("device0", delivered.get(0).getDeviceId(), "Readings should be delivered in log order.");
+            assertEquals("device24", delivered.get(24).getDeviceId());
+            assertEquals(25.0, meterRegistry.get("iotsenser.wal.replayed").counter().count());
+        }
+    }
+
+    /**
+     * Test case verifying that a failed batch is retried instead of skipped.
+     */
+    @Test
+    void testFailedBatchIsRetried() {
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 4096, Long.MAX_VALUE, false, meterRegistry)) {
+            List<Integer> attempts = new ArrayList<>();
+            WalReplayer replayer = new WalReplayer(wal, 10, 3, Duration.ofMillis(10), batch -> {
+                attempts.add(batch.size());
+                if (attempts.size() == 1) {
+                    throw new IllegalStateException("database down");
+                }
+                delivered.addAll(batch);
+            }, meterRegistry);
+            wal.append(readings(5));
+            long before = wal.checkpoint();
+
+            assertThrows(IllegalStateException.class, replayer::replayOnce);
+            assertEquals(before, wal.checkpoint(), "Checkpoint should not move when the sink fails.");
+
+            assertTrue(replayer.replayOnce(), "Retry should deliver the batch.");
+            assertEquals(List.of(5, 5), attempts, "The same batch should be retried.");
+            assertEquals(5, delivered.size());
+            assertFalse(replayer.replayOnce(), "Nothing should be left to replay.");
+        }
+    }
+
+    /**
+     * Test case verifying that a batch failing on one reading is split until that reading is isolated,
+     * the reading is dead-lettered and the readings around it are delivered in order.
+     */
+    @Test
+    void testPoisonReadingIsDeadLettered() {
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 4096, Long.MAX_VALUE, false, meterRegistry)) {
+            List<Integer> attempts = new ArrayList<>();
+            WalReplayer replayer = new WalReplayer(wal, 8, 2, Duration.ofMillis(10), batch -> {
+                attempts.add(batch.size());
+                if (batch.stream().anyMatch(reading -> reading.getDeviceId().equals("device5"))) {
+                    throw new IllegalArgumentException("value too long");
+                }
+                delivered.addAll(batch);
+            }, meterRegistry);
+            wal.append(readings(10));
+
+            int rounds = 0;
+            while (rounds++ < 20) {
+                try {
+                    if (!replayer.replayOnce()) {
+                        break;
+                    }
+                } catch (IllegalArgumentException e) {
+                    // retried on the next round
+                }
+            }
+
+            assertEquals(List.of(8, 8, 4, 4, 4, 2, 2, 1, 1, 1, 1, 1, 2), attempts,
+                    "The failing batch should be split in halves after the allowed attempts.");
+            assertEquals(List.of("device0", "device1", "device2", "device3", "device4", "device6", "device7",
+                            "device8", "device9"), delivered.stream().map(SensorData::getDeviceId).toList(),
+                    "Every other reading should be delivered in order.");
+            assertEquals(1.0, meterRegistry.get("iotsenser.wal.dead-lettered").counter().count());
+            assertTrue(Files.exists(directory.resolve("dead-letter.log")), "The reading should be kept on disk.");
+        }
+    }
+
+    private void awaitDelivered(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (delivered.size() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, delivered.size(), "Expected " + expected + " delivered readings.");
+    }
+
+    private static List<SensorData> readings(int count) {
+        List<SensorData> readings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            readings.add(new SensorData(null, "device" + i, 20.0, 50.0, LocalDateTime.of(2024, 1, 1, 0, 0)));
+        }
+        return readings;
+    }
+}
@@ -0,0 +1,181 @@
+package turing.example.iotsenser.wal;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import turing.example.iotsenser.model.SensorData;
+import turing.example.iotsenser.serialization.SensorDataCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WriteAheadLog.
+ * Ensures appends become durable, survive a restart, roll across segments and are truncated after checkpoints.
+ */
+class WriteAheadLogTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    /**
+     * Test case verifying that an append is acknowledged once synced and can be read back.
+     */
+    @Test
+    void testAppendAwaitAndRead() throws InterruptedException {
+        try (WriteAheadLog wal = open(true)) {
+            wal.start();
+            long position = wal.append(readings(3));
+
+            assertTrue(wal.awaitDurable(position, 5000), "Append should become durable.");
+            List<SensorData> read = new ArrayList<>();
+            assertEquals(position, wal.read(wal.checkpoint(), 10, read), "Read should stop at the durable end.");
+            assertEquals(List.of("device0", "device1", "device2"), read.stream().map(SensorData::getDeviceId).toList());
+            assertTrue(meterRegistry.get("iotsenser.wal.sync").timer().count() >= 1, "Sync latency should be recorded.");
+        }
+    }
+
+    /**
+     * Test case verifying that readings survive a restart and are replayed from the checkpoint.
+     */
+    @Test
+    void testRecoversFromCheckpointAfterRestart() {
+        try (WriteAheadLog wal = open(false)) {
+            wal.append(readings(200));
+            List<SensorData> read = new ArrayList<>();
+            wal.checkpoint(wal.read(wal.checkpoint(), 50, read));
+        }
+
+        try (WriteAheadLog reopened = open(false)) {
+            List<SensorData> read = new ArrayList<>();
+            reopened.read(reopened.checkpoint(), 1000, read);
+
+            assertEquals(150, read.size(), "Only readings after the checkpoint should be replayed.");
+            assertEquals("device50", read.get(0).getDeviceId());
+        }
+    }
+
+    /**
+     * Test case verifying that segments roll and are deleted once the checkpoint passes them.
+     */
+    @Test
+    void testRollsAndTruncatesSegments() throws IOException {
+        try (WriteAheadLog wal = open(false)) {
+            wal.append(readings(500));
+            assertTrue(segmentCount() > 1, "Appends beyond one segment should roll.");
+
+            List<SensorData> read = new ArrayList<>();
+            wal.checkpoint(wal.read(wal.checkpoint(), 1000, read));
+
+            assertEquals(500, read.size(), "Reads should continue across segments.");
+            assertEquals(1, segmentCount(), "Fully replayed segments should be deleted.");
+            assertEquals(0, wal.backlog());
+        }
+    }
+
+    /**
+     * Test case verifying that a torn frame at the tail is discarded on recovery.
+     */
+    @Test
+    void testDiscardsTornTail() throws IOException {
+        long end;
+        try (WriteAheadLog wal = open(false)) {
+            end = wal.append(readings(2));
+        }
+        // Simulate a crash part-way through a third frame: a length prefix whose payload never made it.
+        try (FileChannel channel = FileChannel.open(onlySegment(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 40), end);
+        }
+
+        try (WriteAheadLog reopened = open(false)) {
+            List<SensorData> read = new ArrayList<>();
+            reopened.read(reopened.checkpoint(), 10, read);
+            assertEquals(2, read.size(), "The torn frame should not be replayed.");
+
+            reopened.append(readings(1));
+            read.clear();
+            reopened.read(reopened.checkpoint(), 10, read);
+            assertEquals(List.of("device0", "device1", "device0"), read.stream().map(SensorData::getDeviceId).toList(),
+                    "Appends should continue right after the last valid frame.");
+        }
+    }
+
+    /**
+     * Test case verifying that appends are refused once the unreplayed backlog exceeds its limit.
+     */
+    @Test
+    void testRejectsWhenBacklogFull() {
+        try (WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_SIZE, 100, false, meterRegistry)) {
+            assertTrue(wal.append(readings(3)) > 0, "First append should fit.");
+            assertEquals(-1, wal.append(readings(1)), "Append beyond the backlog limit should be refused.");
+            assertEquals(1.0, meterRegistry.get("iotsenser.wal.rejected").counter().count());
+        }
+    }
+
+    /**
+     * Test case verifying that dead-lettered readings are framed into their own file and leave the log alone.
+     */
+    @Test
+    void testDeadLetterIsKeptOutsideLog() throws IOException {
+        try (WriteAheadLog wal = open(true)) {
+            wal.deadLetter(readings(1).get(0));
+            wal.deadLetter(readings(2).get(1));
+
+            assertEquals(0, wal.backlog(), "Dead letters should not be replayed.");
+        }
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(directory.resolve("dead-letter.log")));
+        List<String> deviceIds = new ArrayList<>();
+        while (file.hasRemaining()) {
+            int length = file.getInt();
+            file.getInt();
+            deviceIds.add(SensorDataCodec.decode(file.slice(file.position(), length), null).getDeviceId());
+            file.position(file.position() + length);
+        }
+        assertEquals(List.of("device0", "device1"), deviceIds, "Each dead letter should be one framed record.");
+    }
+
+    private WriteAheadLog open(boolean fsync) {
+        return new WriteAheadLog(directory, SEGMENT_SIZE, Long.MAX_VALUE, fsync, meterRegistry);
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> WalSegment.baseOf(path) >= 0).count();
+        }
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> WalSegment.baseOf(path) >= 0).findFirst().orElseThrow();
+        }
+    }
+
+    private static List<SensorData> readings(int count) {
+        List<SensorData> readings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            readings.add(new SensorData(null, "device" + i, 20.0 + i, 50.0, LocalDateTime.of(2024, 1, 1, 0, 0)));
+        }
+        return readings;
+    }
+}
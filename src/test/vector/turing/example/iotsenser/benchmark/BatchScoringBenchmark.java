@@ -0,0 +1,114 @@
+package turing.example.iotsenser.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import turing.example.iotsenser.detection.ScalarBatchScorer;
+import turing.example.iotsenser.detection.ScoringBatch;
+import turing.example.iotsenser.detection.ScoringThresholds;
+import turing.example.iotsenser.detection.VectorBatchScorer;
+import turing.example.iotsenser.model.SensorData;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares scoring large reading sets with the original stream filter, the scalar batch scorer and the
+ * Vector API batch scorer. Readings share their timestamps and device IDs so that 100M of them fit in memory.
+ * Built with the {@code vector} Maven profile; run on a JVM started with {@code --add-modules jdk.incubator.vector},
+ * as the forks below are.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms20g", "-Xmx20g", "--add-modules=jdk.incubator.vector"})
+public class BatchScoringBenchmark {
+
+    private static final int DEVICES = 1024;
+
+    @Param({"1000000", "10000000", "100000000"})
+    private int readings;
+
+    private List<SensorData> data;
+    private double[] means;
+    private double[] stdDevs;
+    private ScoringBatch batch;
+    private long[] anomalies;
+    private ScalarBatchScorer scalar;
+    private VectorBatchScorer vector;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDateTime timestamp = LocalDateTime.now();
+        String[] deviceIds = new String[DEVICES];
+        Integer[] deviceKeys = new Integer[DEVICES];
+        means = new double[DEVICES];
+        stdDevs = new double[DEVICES];
+        for (int i = 0; i < DEVICES; i++) {
+            deviceIds[i] = "device" + i;
+            deviceKeys[i] = i;
+            means[i] = 20.0 + random.nextDouble(10.0);
+            stdDevs[i] = 0.5 + random.nextDouble(2.0);
+        }
+        data = new ArrayList<>(readings);
+        batch = new ScoringBatch(readings);
+        for (int i = 0; i < readings; i++) {
+            int device = i & (DEVICES - 1);
+            // About one reading in a thousand breaks a threshold and a few more stray from the baseline
+            double temperature = means[device] + random.nextDouble(-8.0, 8.0) + (random.nextInt(1000) == 0 ? 60 : 0);
+            double humidity = 50.0 + random.nextDouble(-20.0, 20.0);
+            data.add(new SensorData(null, deviceIds[device], temperature, humidity, timestamp, deviceKeys[device]));
+            batch.add(temperature, humidity, means[device], stdDevs[device], 50.0, 10.0);
+        }
+        anomalies = new long[ScoringBatch.words(readings)];
+        ScoringThresholds thresholds = new ScoringThresholds(80.0, 90.0, 4.0, 4.0);
+        scalar = new ScalarBatchScorer(thresholds);
+        vector = new VectorBatchScorer(thresholds);
+    }
+
+    /**
+     * The filter of the former {@code detectAnomalies()}, over boxed readings and covering the thresholds only.
+     */
+    @Benchmark
+    public List<SensorData> streamFilter() {
+        return data.stream()
+                .filter(reading -> reading.getTemperature() > 80.0 || reading.getHumidity() > 90.0)
+                .toList();
+    }
+
+    @Benchmark
+    public int scalarScore() {
+        return scalar.score(batch, anomalies);
+    }
+
+    @Benchmark
+    public int vectorScore() {
+        return vector.score(batch, anomalies);
+    }
+
+    /**
+     * Loads the columns from the readings before scoring, as {@code AnomalyDetectionService.scoreBatch} does.
+     */
+    @Benchmark
+    public int loadAndVectorScore() {
+        batch.clear();
+        for (SensorData reading : data) {
+            int device = reading.getDeviceKey();
+            batch.add(reading.getTemperature(), reading.getHumidity(), means[device], stdDevs[device], 50.0, 10.0);
+        }
+        return vector.score(batch, anomalies);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BatchScoringBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,57 @@
+package turing.example.iotsenser.detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for VectorBatchScorer.
+ * Ensures the vectorized scorer flags exactly the rows the scalar scorer flags.
+ * Built and run with the {@code vector} Maven profile only.
+ */
+class VectorBatchScorerTest {
+
+    private static final ScoringThresholds THRESHOLDS = new ScoringThresholds(80.0, 90.0, 4.0, 3.0);
+
+    /**
+     * Test case verifying that both scorers agree on random rows, including the rows after the last full vector.
+     */
+    @Test
+    void testMatchesScalarScorer() {
+        Random random = new Random(42);
+        ScoringBatch batch = new ScoringBatch(16);
+        for (int i = 0; i < 1003; i++) {
+            double temperature = 20.0 + random.nextGaussian() * 25.0;
+            double humidity = 60.0 + random.nextGaussian() * 15.0;
+            switch (i % 3) {
+                case 0 -> batch.add(temperature, humidity);
+                case 1 -> batch.add(temperature, humidity, 20.0, random.nextDouble() * 10.0, 60.0,
+                        random.nextDouble() * 5.0);
+                default -> batch.add(temperature, humidity, 20.0, 0.0, 60.0, 0.0);
+            }
+        }
+        long[] expected = new long[ScoringBatch.words(batch.size())];
+        long[] actual = new long[ScoringBatch.words(batch.size())];
+
+        int expectedCount = new ScalarBatchScorer(THRESHOLDS).score(batch, expected);
+        int actualCount = new VectorBatchScorer(THRESHOLDS).score(batch, actual);
+
+        assertTrue(expectedCount > 0, "Some rows should be anomalous.");
+        assertEquals(expectedCount, actualCount, "Both scorers should flag the same number of rows.");
+        for (int word = 0; word < expected.length; word++) {
+            assertEquals(expected[word], actual[word], "Word " + word + " should match.");
+        }
+    }
+
+    /**
+     * Test case verifying that the factory only picks the vectorized scorer when asked to and able to.
+     */
+    @Test
+    void testCreate() {
+        assertTrue(BatchScorer.vectorApiAvailable(), "Tests run with the Vector API module.");
+        assertInstanceOf(VectorBatchScorer.class, BatchScorer.create(THRESHOLDS, true));
+        assertInstanceOf(ScalarBatchScorer.class, BatchScorer.create(THRESHOLDS, false));
+    }
+}